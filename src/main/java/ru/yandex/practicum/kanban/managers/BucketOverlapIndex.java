@@ -0,0 +1,178 @@
+package ru.yandex.practicum.kanban.managers;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.util.collections.LongHashMap;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Чтобы не сравнивать пересечение со всеми задачами, время задачи делится на интервалы фиксированной длины.
+// Для проверки пересечения новой задачи с существующими проверяется, свободны ли все её интервалы;
+// если интервал не свободен, проверяется пересечение только с задачами, пересекающимися с этим интервалом.
+// Интервал определяется номером: минуты от 1970-01-01T00:00, делённые на длину интервала с округлением вниз.
+// Задачи лежат в ячейках массивов tasks/starts/ends, интервал хранит номера ячеек своих задач,
+// поэтому проверка идёт по примитивам: без LocalDateTime, упаковки ключей и обращений к самим задачам.
+// Задача лежит в каждом своём интервале, поэтому длинные задачи дороги и при добавлении, и при проверке
+class BucketOverlapIndex implements OverlapIndex {
+    private static final int BASE_INTERVAL_MINUTES = 60;    // Длительность интервала
+    private static final int INITIAL_CAPACITY = 16;
+
+    // номер интервала -> ячейки задач, пересекающихся с ним
+    private final LongHashMap<Bucket> buckets = new LongHashMap<>();
+
+    // Ячейки задач: время запоминается при добавлении, по нему задача потом и удаляется.
+    // Свободные ячейки (tasks[slot] == null) лежат стеком в freeSlots
+    private Task[] tasks = new Task[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int usedSlots;      // ячейки с номерами от usedSlots ещё ни разу не занимались
+
+    // Номера ячеек одного интервала без упаковки в Integer; порядок не важен
+    private static final class Bucket {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // Добавление интервалов задачи в таблицу; задача, которая уже есть в индексе, повторно не добавляется
+    @Override
+    public void add(Task task) {
+        long start = task.getStartMinute();
+        long end = task.getEndMinute();
+        if (findSlot(task, start) >= 0) {
+            return;
+        }
+        int slot = allocateSlot();
+        tasks[slot] = task;
+        starts[slot] = start;
+        ends[slot] = end;
+        for (long interval = toInterval(start), last = lastInterval(start, end); interval <= last; interval++) {
+            Bucket bucket = buckets.get(interval);
+            if (bucket == null) {
+                bucket = new Bucket();
+                buckets.put(interval, bucket);
+            }
+            bucket.add(slot);
+        }
+    }
+
+    // Удаление интервалов задачи из таблицы
+    @Override
+    public void remove(Task task) {
+        int slot = findSlot(task, task.getStartMinute());
+        if (slot >= 0) {
+            removeSlot(slot);
+        }
+    }
+
+    // Один проход по ячейкам; интервалы обходятся только у удаляемых задач
+    @Override
+    public void removeIf(Predicate<Task> filter) {
+        for (int slot = 0; slot < usedSlots; slot++) {
+            if (tasks[slot] != null && filter.test(tasks[slot])) {
+                removeSlot(slot);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        buckets.clear();
+        Arrays.fill(tasks, 0, usedSlots, null);
+        usedSlots = 0;
+        freeCount = 0;
+    }
+
+    @Override
+    public Task findOverlap(Task task, Set<Task> ignored) {
+        long start = task.getStartMinute();
+        long end = task.getEndMinute();
+        for (long interval = toInterval(start), last = lastInterval(start, end); interval <= last; interval++) {
+            Bucket bucket = buckets.get(interval);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                int slot = bucket.slots[i];
+                if (OverlapIndex.intercepts(starts[slot], ends[slot], start, end) && !ignored.contains(tasks[slot])) {
+                    return tasks[slot];
+                }
+            }
+        }
+        return null;
+    }
+
+    // Ячейка задачи, равной task, среди задач первого интервала task; -1 - задачи в индексе нет
+    private int findSlot(Task task, long start) {
+        Bucket bucket = buckets.get(toInterval(start));
+        if (bucket != null) {
+            for (int i = 0; i < bucket.size; i++) {
+                int slot = bucket.slots[i];
+                if (starts[slot] == start && tasks[slot].equals(task)) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void removeSlot(int slot) {
+        long last = lastInterval(starts[slot], ends[slot]);
+        for (long interval = toInterval(starts[slot]); interval <= last; interval++) {
+            Bucket bucket = buckets.get(interval);
+            if (bucket != null) {
+                bucket.remove(slot);
+                if (bucket.size == 0) {
+                    buckets.remove(interval);
+                }
+            }
+        }
+        tasks[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (usedSlots == tasks.length) {
+            int capacity = tasks.length * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        return usedSlots++;
+    }
+
+    // Вычисление, в какой интервал попадает время; время раньше 1970 года округляется тоже вниз
+    private static long toInterval(long minute) {
+        return Math.floorDiv(minute, BASE_INTERVAL_MINUTES);
+    }
+
+    // Последний интервал задачи [start, end). Задача длительностью 0 лежит в интервале своего начала:
+    // с ней пересекаются задачи, внутри которых она находится
+    private static long lastInterval(long start, long end) {
+        return end > start ? toInterval(end - 1) : toInterval(start);
+    }
+}
@@ -3,10 +3,13 @@ package ru.yandex.practicum.kanban.managers;
 import ru.yandex.practicum.kanban.tasks.Task;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface HistoryManager {
     void add(Task task);
     void remove(int id);
+    // Удаление всех подходящих задач за один проход по истории - для очистки целых списков задач
+    void removeIf(Predicate<Task> filter);
     List<Task> getHistory();
     void update(Task task);
 }
@@ -0,0 +1,268 @@
+package ru.yandex.practicum.kanban.managers;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Дерево интервалов: AVL-дерево задач, упорядоченных по (время начала, id), в каждом узле - наибольшее
+// время окончания в его поддереве. Добавление и удаление - O(log n), поиск пересечения - O(log n)
+// плюс просмотренные задачи из ignored, независимо от длительности задач.
+// Время задачи запоминается в узле при добавлении, по нему задача потом и ищется
+class IntervalTreeOverlapIndex implements OverlapIndex {
+    private Node root;
+    private boolean removed;    // результат последнего delete
+
+    private static final class Node {
+        final Task task;
+        final long start;
+        final long end;
+        final int id;
+        Node left;
+        Node right;
+        int height = 1;
+        long maxEnd;
+
+        Node(Task task) {
+            this.task = task;
+            start = task.getStartMinute();
+            end = task.getEndMinute();
+            id = task.getId();
+            maxEnd = end;
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        root = insert(root, new Node(task));
+    }
+
+    @Override
+    public void remove(Task task) {
+        removed = false;
+        root = delete(root, task.getStartMinute(), task.getId(), task);
+        if (!removed) {
+            // время задачи изменили на месте: ищем её узел обходом и удаляем по запомненному времени
+            Node node = findByTask(task);
+            if (node != null) {
+                root = delete(root, node.start, node.id, task);
+            }
+        }
+    }
+
+    // Один проход: оставшиеся узлы уже упорядочены, из них сразу строится сбалансированное дерево
+    @Override
+    public void removeIf(Predicate<Task> filter) {
+        List<Node> kept = new ArrayList<>();
+        boolean changed = false;
+        for (Node node : inOrder()) {
+            if (filter.test(node.task)) {
+                changed = true;
+            } else {
+                kept.add(node);
+            }
+        }
+        if (changed) {
+            root = build(kept, 0, kept.size());
+        }
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+    }
+
+    @Override
+    public Task findOverlap(Task task, Set<Task> ignored) {
+        return findOverlap(root, task.getStartMinute(), task.getEndMinute(), ignored);
+    }
+
+    // Поддерево, где все задачи кончаются не позже start, пропускается целиком; правое поддерево -
+    // задачи, начинающиеся не раньше узла, поэтому оно не нужно, если узел начинается не раньше end
+    private static Task findOverlap(Node node, long start, long end, Set<Task> ignored) {
+        if (node == null || node.maxEnd <= start) {
+            return null;
+        }
+        Task found = findOverlap(node.left, start, end, ignored);
+        if (found != null) {
+            return found;
+        }
+        if (OverlapIndex.intercepts(node.start, node.end, start, end) && !ignored.contains(node.task)) {
+            return node.task;
+        }
+        return node.start < end ? findOverlap(node.right, start, end, ignored) : null;
+    }
+
+    // Все задачи, пересекающиеся с интервалом [start, end)
+    void forEachOverlap(long start, long end, Consumer<Task> action) {
+        forEachOverlap(root, start, end, action);
+    }
+
+    private static void forEachOverlap(Node node, long start, long end, Consumer<Task> action) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        forEachOverlap(node.left, start, end, action);
+        if (OverlapIndex.intercepts(node.start, node.end, start, end)) {
+            action.accept(node.task);
+        }
+        if (node.start < end) {
+            forEachOverlap(node.right, start, end, action);
+        }
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int result = Long.compare(start, node.start);
+        return result != 0 ? result : Integer.compare(id, node.id);
+    }
+
+    // Задача с тем же временем и id, но другим объектом, ложится правее: удаление ищет объект по ссылке
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        int compared = compare(added.start, added.id, node);
+        if (compared == 0 && node.task == added.task) {
+            return node;
+        }
+        if (compared < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, long start, int id, Task task) {
+        if (node == null) {
+            return null;
+        }
+        int compared = compare(start, id, node);
+        if (compared < 0) {
+            node.left = delete(node.left, start, id, task);
+        } else if (compared > 0) {
+            node.right = delete(node.right, start, id, task);
+        } else if (node.task != task) {
+            // равные ключи после поворотов могут оказаться с обеих сторон
+            node.left = delete(node.left, start, id, task);
+            if (!removed) {
+                node.right = delete(node.right, start, id, task);
+            }
+        } else {
+            removed = true;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static Node build(List<Node> nodes, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodes.get(middle);
+        node.left = build(nodes, from, middle);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Node findByTask(Task task) {
+        for (Node node : inOrder()) {
+            if (node.task == task) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private List<Node> inOrder() {
+        List<Node> nodes = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            nodes.add(node);
+            node = node.right;
+        }
+        return nodes;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long maxEnd(Node node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+}
@@ -2,7 +2,10 @@ package ru.yandex.practicum.kanban.managers;
 
 import ru.yandex.practicum.kanban.managers.backed.filebacked.FileBackedTaskManager;
 import ru.yandex.practicum.kanban.managers.backed.http.HttpTaskManager;
+import ru.yandex.practicum.kanban.managers.concurrent.ConcurrentTaskManager;
+import ru.yandex.practicum.kanban.managers.concurrent.SingleWriterTaskManager;
 import ru.yandex.practicum.kanban.managers.inmemory.InMemoryHistoryManager;
+import ru.yandex.practicum.kanban.managers.inmemory.ShardedTaskManager;
 import ru.yandex.practicum.kanban.util.kvstorage.ClientBadResponseException;
 import ru.yandex.practicum.kanban.util.kvstorage.KVServer;
 
@@ -25,6 +28,21 @@ public final class Managers {
         return new HttpTaskManager(uri, load);
     }
 
+    // Обёртка для работы с менеджером из нескольких потоков (например, из пула HttpTaskServer)
+    public static TaskManager getConcurrent(TaskManager taskManager) {
+        return new ConcurrentTaskManager(taskManager);
+    }
+
+    // Обёртка без блокировок: все вызовы выполняет один поток записи, пачками из очереди команд
+    public static TaskManager getSingleWriter(TaskManager taskManager) {
+        return new SingleWriterTaskManager(taskManager);
+    }
+
+    // Потокобезопасный менеджер, изменения в разных шардах идут параллельно
+    public static TaskManager getSharded(int shardCount) {
+        return new ShardedTaskManager(shardCount);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
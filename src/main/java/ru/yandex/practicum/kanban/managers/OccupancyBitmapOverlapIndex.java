@@ -0,0 +1,207 @@
+package ru.yandex.practicum.kanban.managers;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.util.collections.LongHashMap;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Календарь занятости: на каждый день, в котором есть задачи, - 1440 бит (по биту на минуту) в 23 словах long.
+// Дни заводятся при первой задаче и освобождаются, когда в них не остаётся занятых минут.
+// Проверка пересечения - AND масок по словам дней задачи, без объектов и без обхода задач;
+// дерево интервалов нужно только чтобы назвать пересекающуюся задачу или учесть ignored.
+// Задача длительностью 0 не занимает минут, а отмечается в таком же календаре точек: с ней пересекаются
+// задачи, внутри которых лежит её минута. Пересечения самой задачи длительностью 0 ищутся в дереве
+class OccupancyBitmapOverlapIndex implements OverlapIndex {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS_PER_DAY = (MINUTES_PER_DAY + Long.SIZE - 1) / Long.SIZE;
+
+    private final IntervalTreeOverlapIndex tree = new IntervalTreeOverlapIndex();
+    // номер дня от 1970-01-01 -> занятые минуты дня
+    private final LongHashMap<long[]> days = new LongHashMap<>();
+    // номер дня -> минуты, в которые есть задачи длительностью 0
+    private final LongHashMap<long[]> points = new LongHashMap<>();
+
+    @Override
+    public void add(Task task) {
+        tree.add(task);
+        long start = task.getStartMinute();
+        long end = task.getEndMinute();
+        if (start < end) {
+            setBits(days, start, end);
+        } else {
+            setBits(points, start, start + 1);
+        }
+    }
+
+    // Задачи в индексе не пересекаются, но занятые минуты соседей, если они всё же есть, возвращаются
+    @Override
+    public void remove(Task task) {
+        tree.remove(task);
+        long start = task.getStartMinute();
+        long end = task.getEndMinute();
+        if (start < end) {
+            clearBits(days, start, end);
+            tree.forEachOverlap(start, end, presentTask -> setBits(days,
+                    Math.max(start, presentTask.getStartMinute()), Math.min(end, presentTask.getEndMinute())));
+        } else {
+            // точка остаётся, если в ту же минуту есть другие задачи длительностью 0
+            clearBits(points, start, start + 1);
+            tree.forEachOverlap(start - 1, start + 1, presentTask -> {
+                if (presentTask.getStartMinute() == start && presentTask.getEndMinute() == start) {
+                    setBits(points, start, start + 1);
+                }
+            });
+        }
+    }
+
+    // Календарь собирается заново по оставшимся задачам
+    @Override
+    public void removeIf(Predicate<Task> filter) {
+        tree.removeIf(filter);
+        days.clear();
+        points.clear();
+        tree.forEachOverlap(Long.MIN_VALUE, Long.MAX_VALUE, task -> {
+            long start = task.getStartMinute();
+            long end = task.getEndMinute();
+            if (start < end) {
+                setBits(days, start, end);
+            } else {
+                setBits(points, start, start + 1);
+            }
+        });
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+        days.clear();
+        points.clear();
+    }
+
+    @Override
+    public Task findOverlap(Task task, Set<Task> ignored) {
+        long start = task.getStartMinute();
+        long end = task.getEndMinute();
+        if (start < end && !isOccupied(start, end)) {
+            return null;
+        }
+        return tree.findOverlap(task, ignored);
+    }
+
+    // Свободные минуты - точный ответ; занятые минуты проверяются по дереву, только если есть ignored
+    @Override
+    public boolean hasOverlap(Task task, Set<Task> ignored) {
+        long start = task.getStartMinute();
+        long end = task.getEndMinute();
+        if (start >= end) {
+            return tree.findOverlap(task, ignored) != null;
+        }
+        if (!isOccupied(start, end)) {
+            return false;
+        }
+        return ignored.isEmpty() || tree.findOverlap(task, ignored) != null;
+    }
+
+    // Заняты ли минуты [start, end) или лежит ли внутри интервала точка задачи длительностью 0
+    private boolean isOccupied(long start, long end) {
+        return isSet(days, start, end) || !points.isEmpty() && start + 1 < end && isSet(points, start + 1, end);
+    }
+
+    // Обход дней интервала [start, end): в каждом дне - диапазон минут [from, to)
+
+    private static boolean isSet(LongHashMap<long[]> calendar, long start, long end) {
+        long minute = start;
+        while (minute < end) {
+            long day = Math.floorDiv(minute, MINUTES_PER_DAY);
+            long dayStart = day * MINUTES_PER_DAY;
+            long dayEnd = Math.min(end, dayStart + MINUTES_PER_DAY);
+            long[] bits = calendar.get(day);
+            if (bits != null && anySet(bits, (int) (minute - dayStart), (int) (dayEnd - dayStart))) {
+                return true;
+            }
+            minute = dayEnd;
+        }
+        return false;
+    }
+
+    private static void setBits(LongHashMap<long[]> calendar, long start, long end) {
+        long minute = start;
+        while (minute < end) {
+            long day = Math.floorDiv(minute, MINUTES_PER_DAY);
+            long dayStart = day * MINUTES_PER_DAY;
+            long dayEnd = Math.min(end, dayStart + MINUTES_PER_DAY);
+            long[] bits = calendar.get(day);
+            if (bits == null) {
+                bits = new long[WORDS_PER_DAY];
+                calendar.put(day, bits);
+            }
+            setRange(bits, (int) (minute - dayStart), (int) (dayEnd - dayStart), true);
+            minute = dayEnd;
+        }
+    }
+
+    private static void clearBits(LongHashMap<long[]> calendar, long start, long end) {
+        long minute = start;
+        while (minute < end) {
+            long day = Math.floorDiv(minute, MINUTES_PER_DAY);
+            long dayStart = day * MINUTES_PER_DAY;
+            long dayEnd = Math.min(end, dayStart + MINUTES_PER_DAY);
+            long[] bits = calendar.get(day);
+            if (bits != null) {
+                setRange(bits, (int) (minute - dayStart), (int) (dayEnd - dayStart), false);
+                if (isEmpty(bits)) {
+                    calendar.remove(day);
+                }
+            }
+            minute = dayEnd;
+        }
+    }
+
+    // Маски слов диапазона: в первом слове - биты начиная с from, в последнем - до to - 1 включительно
+
+    private static boolean anySet(long[] bits, int from, int to) {
+        int fromWord = from >>> 6;
+        int toWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (fromWord == toWord) {
+            return (bits[fromWord] & firstMask & lastMask) != 0;
+        }
+        if ((bits[fromWord] & firstMask) != 0) {
+            return true;
+        }
+        for (int word = fromWord + 1; word < toWord; word++) {
+            if (bits[word] != 0) {
+                return true;
+            }
+        }
+        return (bits[toWord] & lastMask) != 0;
+    }
+
+    private static void setRange(long[] bits, int from, int to, boolean value) {
+        int fromWord = from >>> 6;
+        int toWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - ((to - 1) & 63));
+        for (int word = fromWord; word <= toWord; word++) {
+            long mask = -1L;
+            if (word == fromWord) {
+                mask &= firstMask;
+            }
+            if (word == toWord) {
+                mask &= lastMask;
+            }
+            bits[word] = value ? bits[word] | mask : bits[word] & ~mask;
+        }
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.kanban.managers;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Индекс задач со временем для поиска пересечений; задачи без времени в него не попадают.
+// Задача не должна менять время, пока лежит в индексе
+interface OverlapIndex {
+
+    void add(Task task);
+
+    void remove(Task task);
+
+    void removeIf(Predicate<Task> filter);
+
+    void clear();
+
+    // Какая-нибудь задача индекса, пересекающаяся с task, кроме задач из ignored (сравнение по ссылке);
+    // null - таких нет
+    Task findOverlap(Task task, Set<Task> ignored);
+
+    // То же без поиска самой задачи; индекс может ответить дешевле, чем findOverlap
+    default boolean hasOverlap(Task task, Set<Task> ignored) {
+        return findOverlap(task, ignored) != null;
+    }
+
+    // Проверка пересечения двух задач: сравниваются минуты, LocalDateTime не создаются
+    static boolean intercepts(Task task1, Task task2) {
+        return intercepts(task1.getStartMinute(), task1.getEndMinute(), task2.getStartMinute(), task2.getEndMinute());
+    }
+
+    static boolean intercepts(long startMinute1, long endMinute1, long startMinute2, long endMinute2) {
+        return (startMinute1 < endMinute2 && endMinute1 > startMinute2)
+                || (startMinute2 < endMinute1 && endMinute2 > startMinute1);
+    }
+}
@@ -1,12 +1,26 @@
 package ru.yandex.practicum.kanban.managers;
 
+import ru.yandex.practicum.kanban.managers.events.EventBus;
+import ru.yandex.practicum.kanban.managers.events.OverflowPolicy;
+import ru.yandex.practicum.kanban.managers.events.TaskEventErrorHandler;
+import ru.yandex.practicum.kanban.managers.events.TaskEventListener;
+import ru.yandex.practicum.kanban.managers.query.QueryPlan;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
 import ru.yandex.practicum.kanban.tasks.Epic;
 import ru.yandex.practicum.kanban.tasks.Subtask;
 import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TaskManager {
+    //getTasks, getSubtasks, getEpics, getHistory и getPrioritizedTasks возвращают новый изменяемый список:
+    //его изменения менеджер не видит. Задачи в списке - объекты менеджера, а не копии, поэтому список
+    //фиксирует только состав и порядок: эпик, например, меняет статус и время вместе с подзадачами
     List<Task> getTasks();
 
     void clearTasks();
@@ -20,6 +34,10 @@ public interface TaskManager {
     //обновляет задачу, если задача с таким id есть
     boolean updateTask(Task task);
 
+    //обновляет задачу, только если её текущая версия равна expectedVersion (сравнение и замена);
+    //при другой версии бросает VersionConflictException и ничего не меняет
+    boolean updateTask(Task task, int expectedVersion);
+
     boolean removeTask(int id);
 
     List<Subtask> getSubtasks();
@@ -35,6 +53,8 @@ public interface TaskManager {
     //обновляет подзадачу, если подзадача с таким id есть, и она относится к тому же эпику
     boolean updateSubtask(Subtask subtask);
 
+    boolean updateSubtask(Subtask subtask, int expectedVersion);
+
     boolean removeSubtask(int id);
 
     List<Epic> getEpics();
@@ -49,11 +69,102 @@ public interface TaskManager {
     //обновляет эпик, если эпик с таким id есть
     boolean updateEpic(Epic epic);
 
+    boolean updateEpic(Epic epic, int expectedVersion);
+
     boolean removeEpic(int id);
 
     List<Subtask> getEpicsSubtasks(int epicId);
 
+    //возвращает задачу любого типа по идентификатору или null, если задачи с таким идентификатором нет
+    Task getAny(int id);
+
+    //пакетное добавление задач любых типов: либо добавляются все (и им назначаются id), либо ни одной;
+    //подзадачи могут ссылаться только на уже существующие эпики
+    boolean addAll(List<? extends Task> tasks);
+
+    //пакетное обновление задач любых типов: либо обновляются все, либо ни одной
+    boolean updateAll(List<? extends Task> tasks);
+
+    //удаляет задачи любых типов по id, возвращает количество удалённых
+    int removeAll(Collection<Integer> ids);
+
+    //выполняет добавления, обновления и удаления задач как одно целое:
+    //если хоть одна операция невозможна (в том числе по времени), не меняет ничего и возвращает false
+    boolean transaction(List<TaskOperation> operations);
+
+    //задачи заданного типа с заданным статусом, в порядке добавления
+    List<Task> getByStatus(TaskType type, TaskStatus status);
+
+    //задачи, удовлетворяющие всем условиям запроса; источник кандидатов выбирает планировщик
+    List<Task> query(TaskQuery query);
+
+    //план выполнения запроса: выбранный источник, оценки всех источников и проверяемые условия
+    QueryPlan explain(TaskQuery query);
+
+    //полнотекстовый поиск по названиям и описаниям задач всех типов:
+    //не больше limit задач, в начале - наиболее подходящие
+    List<Task> search(String query, int limit);
+
+    //подписка на события изменения задач (добавление, изменение, удаление);
+    //обработчик вызывается в отдельном потоке подписки и не задерживает изменяющий вызов;
+    //его исключения считаются в подписке (getFailureCount, getLastFailure)
+    EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy);
+
+    //то же, но каждое исключение обработчика ещё и передаётся errorHandler
+    EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy,
+                                    TaskEventErrorHandler errorHandler);
+
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    //постраничное чтение: не больше limit задач, следующих за задачей с id = cursor
+    //(cursor == null - с начала); следующая страница запрашивается с id последней задачи страницы.
+    //Задачи, подзадачи и эпики идут в порядке возрастания id
+    List<Task> getTasks(Integer cursor, int limit);
+
+    List<Subtask> getSubtasks(Integer cursor, int limit);
+
+    List<Epic> getEpics(Integer cursor, int limit);
+
+    //для списка по приоритету курсор должен быть id задачи из этого списка, иначе возвращается null
+    List<Task> getPrioritizedTasks(Integer cursor, int limit);
+
+    //задачи со временем, идущие в промежутке [from, to) (null - без границы), в порядке времени начала:
+    //начавшиеся в нём и начавшаяся раньше, но ещё не закончившаяся к from
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    //не больше limit задач со временем, начинающихся не раньше now, в порядке времени начала
+    List<Task> getUpcoming(LocalDateTime now, int limit);
+
+    //самое раннее время, с которого задача длительностью durationMinutes помещается в промежуток
+    //[notBefore, notAfter] (notAfter == null - без границы), не пересекаясь с задачами со временем;
+    //null - такого времени нет
+    LocalDateTime findFreeSlot(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter);
+
+    //то же для не больше limit свободных промежутков: в каждом - самое раннее подходящее время, по возрастанию
+    List<LocalDateTime> findFreeSlots(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter,
+                                      int limit);
+
+    //чтение без копирования: неизменяемые снимки тех же списков, что у getTasks, getSubtasks, getEpics,
+    //getHistory и getPrioritizedTasks. Пока менеджер не меняется, повторный вызов отдаёт тот же снимок;
+    //изменения менеджера в уже выданный снимок не попадают, а сам снимок менять нельзя
+    List<Task> getTasksSnapshot();
+
+    List<Subtask> getSubtasksSnapshot();
+
+    List<Epic> getEpicsSnapshot();
+
+    List<Task> getHistorySnapshot();
+
+    List<Task> getPrioritizedTasksSnapshot();
+
+    //потоковое чтение без копирования: поток идёт по снимку (getTasksSnapshot и т.д.)
+    Stream<Task> streamTasks();
+
+    Stream<Subtask> streamSubtasks();
+
+    Stream<Epic> streamEpics();
+
+    Stream<Task> streamPrioritizedTasks();
 }
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.kanban.managers;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+
+// Операция транзакции менеджера задач, см. TaskManager.transaction.
+// Создаётся фабричными методами: TaskOperation.add(task), update(task), remove(id)
+public class TaskOperation {
+    public enum Kind {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    private final Kind kind;
+    private final Task task;    // null для REMOVE
+    private final int id;       // только для REMOVE
+
+    private TaskOperation(Kind kind, Task task, int id) {
+        this.kind = kind;
+        this.task = task;
+        this.id = id;
+    }
+
+    public static TaskOperation add(Task task) {
+        return new TaskOperation(Kind.ADD, task, 0);
+    }
+
+    public static TaskOperation update(Task task) {
+        return new TaskOperation(Kind.UPDATE, task, 0);
+    }
+
+    public static TaskOperation remove(int id) {
+        return new TaskOperation(Kind.REMOVE, null, id);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    // id задачи; для ADD назначается при выполнении транзакции
+    public int getId() {
+        return task != null ? task.getId() : id;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskOperation{" +
+                "kind=" + kind +
+                ", task=" + task +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.kanban.managers;
+
+// Чем TimeManager ищет пересечения задач по времени
+public enum TimeIndexType {
+    HOURLY_BUCKETS, // задача лежит в каждом часовом интервале, который занимает; дёшево для коротких задач
+    INTERVAL_TREE,  // дерево по времени начала с максимумом окончания; O(log n) при любой длительности
+    OCCUPANCY_BITMAP    // занятые минуты по дням в битовых масках и дерево интервалов, чтобы найти саму задачу
+}
@@ -1,48 +1,72 @@
 package ru.yandex.practicum.kanban.managers;
 
 import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.util.collections.IntHashMap;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.Month;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Predicate;
 
 public class TimeManager {
-    // Чтобы не сравнивать пересечение со всеми задачами, время задачи делится на интервалы фиксированной длины.
-    // Для проверки пересечения новой задачи с существующими проверяется, свободны ли все её интервалы;
-    // если интервал не свободен, проверяется пересечение только с задачами, пересекающимися с этим интервалом.
-    // Интервал определяется LocalDateTime его начала.
-    private final static int BASE_INTERVAL_MINUTES = 60;    // Длительность интервала
-    private final static LocalDateTime BASE_TIME =
-            LocalDateTime.of(2020, Month.JANUARY, 1, 0, 0);
+    // Порядок списка по приоритету: по времени начала, задачи без времени - в конце
+    public static final Comparator<Task> PRIORITY_ORDER = (task1, task2) -> {
+        if (Objects.equals(task1, task2)) {
+            return 0;
+        }
+        long startMinute1 = task1.getStartMinute();
+        long startMinute2 = task2.getStartMinute();
+        // Если время начала двух задач равно (прежде всего случай задач без времени,
+        // такие задачи имеют право на существование и должны располагаться в конце),
+        // нужно определить заранее ясный порядок. Логично использовать id.
+        // Вторая задача с тем же id не добавится, но таких задач быть не должно
+        if (startMinute1 == startMinute2) {
+            return Integer.compare(task1.getId(), task2.getId());
+        }
+        if (startMinute1 == Task.NO_TIME) {
+            return 1;
+        }
+        if (startMinute2 == Task.NO_TIME) {
+            return -1;
+        }
+        return Long.compare(startMinute1, startMinute2);    // здесь уже не будет равного времени
+    };
 
-    private final Map<LocalDateTime, List<Task>> tasksByInterval;
+    // Поиск пересечений по времени (см. TimeIndexType)
+    private final TimeIndexType indexType;
+    private final OverlapIndex overlapIndex;
 
     private final TreeSet<Task> prioritizedTasks;
+    // Занятое время задач, которых нет в списке по приоритету (архивных): id -> заглушка с тем же временем.
+    // Заглушки лежат только в индексе пересечений, поэтому другие задачи не могут занять это время
+    private final IntHashMap<Task> reserved = new IntHashMap<>();
+    // Неизменяемая копия prioritizedTasks, сбрасывается при добавлении и удалении задач
+    private List<Task> prioritizedSnapshot;
 
     public TimeManager() {
-        tasksByInterval = new HashMap<>();
-        prioritizedTasks = new TreeSet<>((task1, task2) -> {
-            if (Objects.equals(task1, task2)) {
-                return 0;
-            }
-            LocalDateTime startTime1 = task1.getStartTime();
-            LocalDateTime startTime2 = task2.getStartTime();
-            // Если время начала двух задач равно (прежде всего случай startTime == null,
-            // такие задачи имеют право на существование и должны располагаться в конце),
-            // нужно определить заранее ясный порядок. Логично использовать id.
-            // Вторая задача с тем же id не добавится, но таких задач быть не должно
-            if (Objects.equals(startTime1, startTime2)) {
-                return Integer.compare(task1.getId(), task2.getId());
-            }
-            if (startTime1 == null) {
-                return 1;
-            }
-            if (startTime2 == null) {
-                return -1;
-            }
-            return startTime1.compareTo(startTime2);    // здесь уже не будет равного времени
-        });
+        this(TimeIndexType.HOURLY_BUCKETS);
+    }
+
+    public TimeManager(TimeIndexType indexType) {
+        this.indexType = indexType;
+        overlapIndex = createOverlapIndex();
+        prioritizedTasks = new TreeSet<>(PRIORITY_ORDER);
+    }
+
+    public TimeIndexType getIndexType() {
+        return indexType;
+    }
+
+    private OverlapIndex createOverlapIndex() {
+        switch (indexType) {
+            case INTERVAL_TREE:
+                return new IntervalTreeOverlapIndex();
+            case OCCUPANCY_BITMAP:
+                return new OccupancyBitmapOverlapIndex();
+            case HOURLY_BUCKETS:
+            default:
+                return new BucketOverlapIndex();
+        }
     }
 
     public void addTask(Task task) {
@@ -50,8 +74,9 @@ public class TimeManager {
             return;
         }
         prioritizedTasks.add(task);
-        if (task.getStartTime() != null) {
-            addTaskToBaseIntervals(task);
+        prioritizedSnapshot = null;
+        if (task.getStartMinute() != Task.NO_TIME) {
+            overlapIndex.add(task);
         }
     }
 
@@ -60,92 +85,255 @@ public class TimeManager {
             return;
         }
         prioritizedTasks.remove(task);
-        if (task.getStartTime() != null) {
-            removeTaskFromBaseIntervals(task);
+        prioritizedSnapshot = null;
+        if (task.getStartMinute() != Task.NO_TIME) {
+            overlapIndex.remove(task);
+        }
+    }
+
+    // Удаление всех подходящих задач за один проход по дереву и по индексу пересечений:
+    // без поиска каждой задачи в дереве и в индексе по одной
+    public void removeTasks(Predicate<Task> filter) {
+        if (prioritizedTasks.removeIf(filter)) {
+            prioritizedSnapshot = null;
+            overlapIndex.removeIf(reserved.isEmpty() ? filter :
+                    task -> reserved.get(task.getId()) != task && filter.test(task));
+        }
+    }
+
+    public void clear() {
+        prioritizedTasks.clear();
+        overlapIndex.clear();
+        reserved.clear();
+        prioritizedSnapshot = null;
+    }
+
+    // Оставляет время задачи занятым, хотя самой задачи в менеджере времени нет (задача ушла в архив).
+    // Задача должна быть уже удалена; задача без времени ничего не занимает
+    public void reserveTime(Task task) {
+        if (task == null || task.getStartMinute() == Task.NO_TIME) {
+            return;
+        }
+        Task stub = new Task(task.getId(), null, null, null);
+        stub.setStartMinute(task.getStartMinute());
+        stub.setDuration(task.getDuration());
+        releaseTime(task.getId());
+        reserved.put(task.getId(), stub);
+        overlapIndex.add(stub);
+    }
+
+    // Освобождает время, занятое reserveTime
+    public void releaseTime(int id) {
+        Task stub = reserved.remove(id);
+        if (stub != null) {
+            overlapIndex.remove(stub);
         }
     }
 
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        if (prioritizedSnapshot == null) {
+            prioritizedSnapshot = List.copyOf(prioritizedTasks);
+        }
+        return prioritizedSnapshot;
     }
 
-    // Проверка на пересечение с существующими задачами
-    public boolean validateTask(Task task) {
-        if (task == null) {
-            return false;
+    // Не больше limit задач в порядке приоритета, следующих за задачей after (null - с начала).
+    // Поиск начала страницы в TreeSet - O(log n), копируется только сама страница
+    public List<Task> getPrioritizedTasks(Task after, int limit) {
+        List<Task> result = new ArrayList<>();
+        Iterator<Task> iterator = after == null ?
+                prioritizedTasks.iterator() : prioritizedTasks.tailSet(after, false).iterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
         }
-        if (task.getStartTime() == null) {
-            return true;
+        return result;
+    }
+
+    // Задачи со временем начала в [from, to) (null - без границы) в порядке приоритета.
+    // Возвращается представление TreeSet без копирования: поиск границ O(log n)
+    public SortedSet<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        // Время задач округлено до минут, поэтому границы округляются вверх
+        Task fromBound = bound(from == null ? LocalDateTime.MIN : roundUpToMinutes(from));
+        Task toBound = bound(to == null ? LocalDateTime.MAX : roundUpToMinutes(to));
+        if (fromBound.getStartMinute() > toBound.getStartMinute()) {
+            return Collections.emptySortedSet();
         }
-        return validateTaskByIntervals(task);
+        return Collections.unmodifiableSortedSet(prioritizedTasks.subSet(fromBound, toBound));
     }
 
-    // Проверка на пересечение сравнением со всеми задачами
-    private boolean simpleValidateTask(Task task) {
-        return prioritizedTasks.stream()
-                .filter(presentTask -> presentTask.getStartTime() != null)
-                .noneMatch(presentTask -> intercepts(task, presentTask));
-    }
-
-    // Проверка на пересечение с использованием интервалов
-    private boolean validateTaskByIntervals(Task task) {
-        LocalDateTime intervalTime = roundToBaseInterval(task.getStartTime());
-        LocalDateTime endTime = task.getEndTime();
-        while (intervalTime.isBefore(endTime)) {
-            List<Task> tasks = tasksByInterval.get(intervalTime);
-            if (tasks != null
-                    && tasks.stream().anyMatch(presentTask -> intercepts(task, presentTask))) {
-                return false;
+    // Задачи, идущие в промежутке [from, to) (null - без границы): начавшиеся в нём и задача, начавшаяся раньше
+    // from и ещё не закончившаяся. Задачи не пересекаются, поэтому такая задача одна и стоит прямо перед from;
+    // вместе с ней в представление попадут только задачи длительностью 0, начавшиеся в то же время.
+    // Возвращается представление TreeSet без копирования, задачи без времени в него не входят
+    public SortedSet<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        SortedSet<Task> startingBetween = getTasksStartingBetween(from, to);
+        if (from == null || to != null && !to.isAfter(from)) {
+            return startingBetween;
+        }
+        Task fromBound = bound(roundUpToMinutes(from));
+        Task previous = prioritizedTasks.lower(fromBound);
+        if (previous == null) {
+            return startingBetween;
+        }
+        for (Task task : prioritizedTasks.headSet(fromBound, false).descendingSet()) {
+            if (task.getStartMinute() != previous.getStartMinute()) {
+                break;
+            }
+            if (task.getEndMinute() > Task.toEpochMinute(from)) {
+                Task toBound = bound(to == null ? LocalDateTime.MAX : roundUpToMinutes(to));
+                return Collections.unmodifiableSortedSet(prioritizedTasks.subSet(task, true, toBound, false));
             }
-            intervalTime = intervalTime.plusMinutes(BASE_INTERVAL_MINUTES);
         }
-        return true;
+        return startingBetween;
     }
 
-    // Проверка пересечения двух задач
-    private static boolean intercepts(Task task1, Task task2) {
-        LocalDateTime startTime1 = task1.getStartTime();
-        LocalDateTime startTime2 = task2.getStartTime();
-        LocalDateTime endTime1 = task1.getEndTime();
-        LocalDateTime endTime2 = task2.getEndTime();
-
-        return (startTime1.isBefore(endTime2) && endTime1.isAfter(startTime2))
-                || (startTime2.isBefore(endTime1) && endTime2.isAfter(startTime1));
+    // Не больше limit задач со временем, начинающихся не раньше now, в порядке времени начала.
+    // Начало ищется в TreeSet за O(log n), копируются только сами задачи
+    public List<Task> getUpcoming(LocalDateTime now, int limit) {
+        List<Task> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        for (Task task : getTasksStartingBetween(now, null)) {
+            result.add(task);
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return result;
     }
 
-    // Вычисление, в какой интервал попадает время
-    private static LocalDateTime roundToBaseInterval(LocalDateTime time) {
-        long minutesFromBase = Duration.between(BASE_TIME, time).toMinutes();
-        long roundMinutesFromBase = minutesFromBase - (minutesFromBase % BASE_INTERVAL_MINUTES);
-        return BASE_TIME.plusMinutes(roundMinutesFromBase);
+    // Самое раннее время начала в каждом из не больше limit свободных промежутков, куда целиком помещается
+    // задача длительностью durationMinutes, не выходя за [notBefore, notAfter] (notAfter == null - без границы).
+    // Задачи со временем не пересекаются, поэтому промежутки - между концом задачи и началом следующей:
+    // первая задача ищется в TreeSet за O(log n), дальше просматриваются задачи до последнего промежутка.
+    // Занятое архивными задачами время (reserveTime) в TreeSet не видно, его проверяет skipReserved
+    public List<LocalDateTime> findFreeSlots(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        List<LocalDateTime> result = new ArrayList<>();
+        if (durationMinutes <= 0 || notBefore == null || limit <= 0) {
+            return result;
+        }
+        Task fromBound = bound(roundUpToMinutes(notBefore));
+        long lastStart = notAfter == null ? Long.MAX_VALUE : Task.toEpochMinute(notAfter) - durationMinutes;
+        // Начало текущего свободного промежутка. Из задач, начавшихся раньше notBefore, позже всех кончается
+        // одна из начавшихся последними (их несколько, только если среди них есть задачи длительностью 0)
+        long free = fromBound.getStartMinute();
+        Task previous = prioritizedTasks.lower(fromBound);
+        if (previous != null) {
+            for (Task task : prioritizedTasks.headSet(fromBound, false).descendingSet()) {
+                if (task.getStartMinute() != previous.getStartMinute()) {
+                    break;
+                }
+                free = Math.max(free, task.getEndMinute());
+            }
+        }
+        for (Task task : prioritizedTasks.tailSet(fromBound, true)) {
+            if (task.getStartMinute() == Task.NO_TIME || free > lastStart) {
+                break;
+            }
+            if (task.getStartMinute() - free >= durationMinutes) {
+                free = skipReserved(free, durationMinutes,
+                        Math.min(task.getStartMinute() - durationMinutes, lastStart));
+                if (task.getStartMinute() - free >= durationMinutes && free <= lastStart) {
+                    result.add(Task.toDateTime(free));
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+            free = Math.max(free, task.getEndMinute());
+        }
+        free = skipReserved(free, durationMinutes, lastStart);
+        if (free <= lastStart) {
+            result.add(Task.toDateTime(free));
+        }
+        return result;
     }
 
-    // Добавление интервалов задачи в таблицу
-    private void addTaskToBaseIntervals(Task task) {
-        LocalDateTime intervalTime = roundToBaseInterval(task.getStartTime());
-        LocalDateTime endTime = task.getEndTime();
-        while (intervalTime.isBefore(endTime)) {
-            List<Task> tasks = tasksByInterval.computeIfAbsent(intervalTime, k -> new ArrayList<>());
-            if (!tasks.contains(task)) {
-                tasks.add(task);
+    // Первое время не раньше free, с которого задача длительностью durationMinutes не пересекается
+    // с занятым через reserveTime временем; поиск прекращается, как только время становится позже lastStart.
+    // Вызывается для промежутка между задачами, поэтому пересечься задача может только с заглушкой,
+    // а после её конца промежуток проверяется заново
+    private long skipReserved(long free, int durationMinutes, long lastStart) {
+        if (reserved.isEmpty()) {
+            return free;
+        }
+        Task probe = new Task(Integer.MIN_VALUE, null, null, null);
+        while (free <= lastStart) {
+            probe.setStartMinute(free);
+            probe.setDuration(durationMinutes);
+            Task overlap = overlapIndex.findOverlap(probe, Set.of());
+            if (overlap == null) {
+                break;
             }
-            intervalTime = intervalTime.plusMinutes(BASE_INTERVAL_MINUTES);
+            free = overlap.getEndMinute();
+        }
+        return free;
+    }
+
+    public boolean containsTask(Task task) {
+        return task != null && prioritizedTasks.contains(task);
+    }
+
+    // Проверка на пересечение с существующими задачами
+    public boolean validateTask(Task task) {
+        if (task == null) {
+            return false;
         }
+        if (task.getStartMinute() == Task.NO_TIME) {
+            return true;
+        }
+        return !overlapIndex.hasOverlap(task, Set.of());
     }
 
-    // Удаление интервалов задачи из таблицы
-    private void removeTaskFromBaseIntervals(Task task) {
-        LocalDateTime intervalTime = roundToBaseInterval(task.getStartTime());
-        LocalDateTime endTime = task.getEndTime();
-        while (intervalTime.isBefore(endTime)) {
-            List<Task> tasks = tasksByInterval.get(intervalTime);
-            if (tasks != null) {
-                tasks.remove(task);
-                if (tasks.isEmpty()) {
-                    tasksByInterval.remove(intervalTime);
+    // Проверка пакета задач за один проход: каждая задача проверяется на пересечение с существующими
+    // и с уже проверенными задачами пакета. Задачи из replaced (прежние версии обновляемых задач,
+    // сравниваются по ссылке) при проверке считаются уже удалёнными; для архивной задачи из replaced
+    // свободным считается и занятое за ней через reserveTime время.
+    // Состояние менеджера не меняется, поэтому при неудаче ничего не нужно откатывать
+    public boolean validateTasks(Collection<? extends Task> tasks, Collection<? extends Task> replaced) {
+        Set<Task> ignored = Collections.newSetFromMap(new IdentityHashMap<>());
+        ignored.addAll(replaced);
+        if (!reserved.isEmpty()) {
+            for (Task task : replaced) {
+                Task stub = task == null ? null : reserved.get(task.getId());
+                if (stub != null) {
+                    ignored.add(stub);
                 }
             }
-            intervalTime = intervalTime.plusMinutes(BASE_INTERVAL_MINUTES);
         }
+        OverlapIndex batchIndex = createOverlapIndex();
+        for (Task task : tasks) {
+            if (task == null) {
+                return false;
+            }
+            if (task.getStartMinute() == Task.NO_TIME) {
+                continue;
+            }
+            if (overlapIndex.hasOverlap(task, ignored) || batchIndex.hasOverlap(task, Set.of())) {
+                return false;
+            }
+            batchIndex.add(task);
+        }
+        return true;
+    }
+
+    // Проверка на пересечение сравнением со всеми задачами
+    private boolean simpleValidateTask(Task task) {
+        return prioritizedTasks.stream()
+                .filter(presentTask -> presentTask.getStartMinute() != Task.NO_TIME)
+                .noneMatch(presentTask -> OverlapIndex.intercepts(task, presentTask));
+    }
+
+    // Граница для поиска в prioritizedTasks - задача-заглушка с наименьшим id:
+    // при равном времени она стоит раньше настоящих задач
+    private static Task bound(LocalDateTime startTime) {
+        return new Task(Integer.MIN_VALUE, null, null, null, startTime, 0);
+    }
+
+    private static LocalDateTime roundUpToMinutes(LocalDateTime time) {
+        LocalDateTime rounded = time.truncatedTo(ChronoUnit.MINUTES);
+        return rounded.equals(time) ? time : rounded.plusMinutes(1);
     }
-}
\ No newline at end of file
+}
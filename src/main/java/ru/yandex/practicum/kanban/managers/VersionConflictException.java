@@ -0,0 +1,28 @@
+package ru.yandex.practicum.kanban.managers;
+
+// Обновление с ожидаемой версией не выполнено: задачу уже изменили.
+// RuntimeException - чтобы не менять сигнатуру методов TaskManager
+public class VersionConflictException extends RuntimeException {
+    private final int id;
+    private final int expectedVersion;
+    private final int actualVersion;
+
+    public VersionConflictException(int id, int expectedVersion, int actualVersion) {
+        super("Version conflict for task " + id + ": expected " + expectedVersion + ", actual " + actualVersion);
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public int getActualVersion() {
+        return actualVersion;
+    }
+}
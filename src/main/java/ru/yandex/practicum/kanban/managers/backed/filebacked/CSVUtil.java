@@ -16,7 +16,7 @@ public final class CSVUtil {
             "type" + DELIMITER + "name" + DELIMITER +
             "status" + DELIMITER + "description" + DELIMITER +
             "start time" + DELIMITER + "duration" + DELIMITER +
-            "epic";
+            "epic" + DELIMITER + "version";
 
     private CSVUtil() {
     }
@@ -25,15 +25,7 @@ public final class CSVUtil {
         if (task == null) {
             return "";
         }
-        LocalDateTime startTime = task.getStartTime();
-        String formattedStartTime = startTime == null ? "" : startTime.format(FORMATTER);
-        return task.getId() + DELIMITER +
-                task.getType() + DELIMITER +
-                task.getName() + DELIMITER +
-                task.getStatus() + DELIMITER +
-                task.getDescription() + DELIMITER +
-                formattedStartTime + DELIMITER +
-                task.getDuration() + DELIMITER;
+        return taskToString(task, "");
     }
 
     // перегрузка метода для Subtask, чтобы не использовать в общем методе ветвление с instanceOf
@@ -42,7 +34,22 @@ public final class CSVUtil {
         if (subtask == null) {
             return "";
         }
-        return taskToString((Task) subtask) + subtask.getEpicId();
+        return taskToString(subtask, String.valueOf(subtask.getEpicId()));
+    }
+
+    // Версия - последняя колонка: так строки в прежнем формате (без версии) читаются без изменений
+    private static String taskToString(Task task, String epic) {
+        LocalDateTime startTime = task.getStartTime();
+        String formattedStartTime = startTime == null ? "" : startTime.format(FORMATTER);
+        return task.getId() + DELIMITER +
+                task.getType() + DELIMITER +
+                task.getName() + DELIMITER +
+                task.getStatus() + DELIMITER +
+                task.getDescription() + DELIMITER +
+                formattedStartTime + DELIMITER +
+                task.getDuration() + DELIMITER +
+                epic + DELIMITER +
+                task.getVersion();
     }
 
     public static Task taskFromString(String csvLine) {
@@ -57,16 +64,26 @@ public final class CSVUtil {
             final LocalDateTime startTime =
                     formattedDateTime.isEmpty() ? null : LocalDateTime.parse(formattedDateTime, FORMATTER);
             final int duration = Integer.parseInt(words[6]);
+            // в файлах прежнего формата колонки версии нет, задачи из них считаются первой версией
+            final int version = words.length > 8 ? Integer.parseInt(words[8]) : 1;
+            Task task = null;
             switch (type) {
                 case TASK:
-                    return new Task(id, name, description, status, startTime, duration);
+                    task = new Task(id, name, description, status, startTime, duration);
+                    break;
                 case SUBTASK:
                     final int epic = Integer.parseInt(words[7]);
-                    return new Subtask(id, name, description, status, epic, startTime, duration);
+                    task = new Subtask(id, name, description, status, epic, startTime, duration);
+                    break;
                 case EPIC:
-                    return new Epic(id, name, description);
+                    task = new Epic(id, name, description);
+                    break;
+            }
+            if (task == null) {
+                throw new WrongCSVFormatException("Unsupported task type " + type + " in line {" + csvLine + "}");
             }
-            throw new WrongCSVFormatException("Unsupported task type " + type + " in line {" + csvLine + "}");
+            task.setVersion(version);
+            return task;
         } catch (Exception e) {
             throw new WrongCSVFormatException("CSV format error in line {" + csvLine + "}");
         }
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.kanban.managers.backed.filebacked;
 
+import ru.yandex.practicum.kanban.managers.TaskOperation;
 import ru.yandex.practicum.kanban.managers.backed.ManagerLoadException;
 import ru.yandex.practicum.kanban.managers.backed.ManagerSaveException;
 import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
@@ -12,7 +13,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -20,6 +23,9 @@ import java.util.stream.Stream;
 public class FileBackedTaskManager extends InMemoryTaskManager {
 
     private final String path;
+    // Пока выполняется runBatch, save только отмечает, что сохранение нужно
+    private int batchDepth;
+    private boolean saveDeferred;
 
     public FileBackedTaskManager(String path) {
         this.path = path;
@@ -33,14 +39,34 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     public void save() {
+        if (batchDepth > 0) {
+            saveDeferred = true;
+            return;
+        }
         String serialized = serialize();
         saveToTarget(serialized);
     }
 
+    // Выполняет несколько изменений с одним сохранением в конце (если изменения что-то сохраняли).
+    // Сохранение выполняется и при исключении: часть изменений уже могла примениться
+    public void runBatch(Runnable action) {
+        batchDepth++;
+        try {
+            action.run();
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0 && saveDeferred) {
+                saveDeferred = false;
+                save();
+            }
+        }
+    }
+
     protected String serialize() {
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append(CSVUtil.FILE_HEADER + "\n");
-        for (Task task : tasks.values()) {
+        // Снимки не копируют словари, а архивные задачи распаковываются по блоку по мере записи
+        for (Task task : getTasksSnapshot()) {
             stringBuilder.append(CSVUtil.taskToString(task)).append("\n");
         }
         // Сначала сохраняем эпики, потом подзадачи.
@@ -48,7 +74,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         for (Epic epic : epics.values()) {
             stringBuilder.append(CSVUtil.taskToString(epic)).append("\n");
         }
-        for (Subtask subtask : subtasks.values()) {
+        for (Subtask subtask : getSubtasksSnapshot()) {
             stringBuilder.append(CSVUtil.taskToString(subtask)).append("\n");
         }
         stringBuilder.append(String.format("%n%s", CSVUtil.historyToString(historyManager)));
@@ -108,21 +134,19 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         switch (task.getType()) {
             case TASK:
                 if (timeManager.validateTask(task)) {
-                    tasks.put(task.getId(), task);
-                    timeManager.addTask(task);
+                    timeManager.addTask(putTaskToMap(tasks, task));
                 }
                 break;
             case EPIC:
-                epics.put(task.getId(), (Epic) task);
+                putTaskToMap(epics, (Epic) task);
                 break;
             case SUBTASK:
                 Subtask subtask = (Subtask) task;
                 Epic parentEpic = epics.get(subtask.getEpicId());
                 if (parentEpic != null && timeManager.validateTask(subtask)) {
-                    subtasks.put(subtask.getId(), subtask);
-                    parentEpic.addSubtask(subtask.getId());
-                    updateEpicFromSubtasks(parentEpic);
-                    timeManager.addTask(subtask);
+                    Subtask stored = putTaskToMap(subtasks, subtask);
+                    linkSubtaskToEpic(parentEpic, stored);
+                    timeManager.addTask(stored);
                 }
                 break;
         }
@@ -201,6 +225,13 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return result;
     }
 
+    @Override
+    public Task getAny(int id) {
+        Task result = super.getAny(id);
+        save();
+        return result;
+    }
+
     @Override
     public void clearEpics() {
         super.clearEpics();
@@ -234,4 +265,41 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         save();
         return result;
     }
+
+    // Пакетные операции сохраняют состояние один раз на весь пакет
+    @Override
+    public boolean addAll(List<? extends Task> tasks) {
+        boolean result = super.addAll(tasks);
+        if (result) {
+            save();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean updateAll(List<? extends Task> tasks) {
+        boolean result = super.updateAll(tasks);
+        if (result) {
+            save();
+        }
+        return result;
+    }
+
+    @Override
+    public int removeAll(Collection<Integer> ids) {
+        int result = super.removeAll(ids);
+        if (result > 0) {
+            save();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean transaction(List<TaskOperation> operations) {
+        boolean result = super.transaction(operations);
+        if (result) {
+            save();
+        }
+        return result;
+    }
 }
@@ -34,9 +34,9 @@ public class HttpTaskManager extends FileBackedTaskManager {
     @Override
     protected String serialize() {
         JsonObject jsonObject = new JsonObject();
-        jsonObject.add("tasks", gson.toJsonTree(tasks.values()));
+        jsonObject.add("tasks", gson.toJsonTree(getTasksSnapshot()));
         jsonObject.add("epics", gson.toJsonTree(epics.values()));
-        jsonObject.add("subtasks", gson.toJsonTree(subtasks.values()));
+        jsonObject.add("subtasks", gson.toJsonTree(getSubtasksSnapshot()));
         jsonObject.add("history", gson.toJsonTree(
                 historyManager.getHistory().stream().mapToInt(Task::getId).toArray()));
         return gson.toJson(jsonObject);
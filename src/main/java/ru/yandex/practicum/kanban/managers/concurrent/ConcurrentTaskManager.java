@@ -0,0 +1,403 @@
+package ru.yandex.practicum.kanban.managers.concurrent;
+
+import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.TaskOperation;
+import ru.yandex.practicum.kanban.managers.events.EventBus;
+import ru.yandex.practicum.kanban.managers.events.OverflowPolicy;
+import ru.yandex.practicum.kanban.managers.events.TaskEventErrorHandler;
+import ru.yandex.practicum.kanban.managers.events.TaskEventListener;
+import ru.yandex.practicum.kanban.managers.query.QueryPlan;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Потокобезопасная обёртка над любым менеджером задач.
+// Чтение списков идёт под общей блокировкой чтения и не блокирует другие чтения;
+// всё, что меняет состояние (в том числе TimeManager и расчёт эпиков), идёт под блокировкой записи,
+// поэтому изменение задачи, её времени и пересчёт эпика выполняются атомарно.
+// getTask/getSubtask/getEpic/getAny меняют историю (а backed-менеджеры ещё и сохраняют состояние),
+// поэтому для них тоже нужна блокировка записи.
+// Списки задач, подзадач, эпиков, истории и приоритетов читаются из снимков:
+// снимок строится один раз под блокировкой чтения и публикуется через volatile-поле,
+// пока нет записи, последующие чтения берут его без блокировок: get*Snapshot и потоки отдают сам снимок,
+// а get* - собственную изменяемую копию; копирование не держит блокировку и не мешает записи.
+// Запись сбрасывает снимки до снятия блокировки записи, поэтому устаревший снимок
+// после завершения записи не вернётся. Снимок фиксирует состав и порядок, а не состояние задач:
+// задачи в нём - объекты менеджера (см. TaskManager).
+public class ConcurrentTaskManager implements TaskManager {
+
+    private final TaskManager taskManager;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    private volatile List<Task> tasksSnapshot;
+    private volatile List<Subtask> subtasksSnapshot;
+    private volatile List<Epic> epicsSnapshot;
+    private volatile List<Task> historySnapshot;
+    private volatile List<Task> prioritizedSnapshot;
+
+    public ConcurrentTaskManager(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        readLock = lock.readLock();
+        writeLock = lock.writeLock();
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(getTasksSnapshot());
+    }
+
+    @Override
+    public List<Task> getTasksSnapshot() {
+        List<Task> snapshot = tasksSnapshot;
+        if (snapshot == null) {
+            snapshot = read(() -> tasksSnapshot = taskManager.getTasksSnapshot());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void clearTasks() {
+        writeRun(taskManager::clearTasks);
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return touchHistory(() -> taskManager.getTask(id));
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        return write(() -> taskManager.addTask(task));
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        return writeTest(() -> taskManager.updateTask(task));
+    }
+
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        return writeTest(() -> taskManager.updateTask(task, expectedVersion));
+    }
+
+    @Override
+    public boolean removeTask(int id) {
+        return writeTest(() -> taskManager.removeTask(id));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return new ArrayList<>(getSubtasksSnapshot());
+    }
+
+    @Override
+    public List<Subtask> getSubtasksSnapshot() {
+        List<Subtask> snapshot = subtasksSnapshot;
+        if (snapshot == null) {
+            snapshot = read(() -> subtasksSnapshot = taskManager.getSubtasksSnapshot());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void clearSubtasks() {
+        writeRun(taskManager::clearSubtasks);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return touchHistory(() -> taskManager.getSubtask(id));
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        return write(() -> taskManager.addSubtask(subtask));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        return writeTest(() -> taskManager.updateSubtask(subtask));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        return writeTest(() -> taskManager.updateSubtask(subtask, expectedVersion));
+    }
+
+    @Override
+    public boolean removeSubtask(int id) {
+        return writeTest(() -> taskManager.removeSubtask(id));
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(getEpicsSnapshot());
+    }
+
+    @Override
+    public List<Epic> getEpicsSnapshot() {
+        List<Epic> snapshot = epicsSnapshot;
+        if (snapshot == null) {
+            snapshot = read(() -> epicsSnapshot = taskManager.getEpicsSnapshot());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void clearEpics() {
+        writeRun(taskManager::clearEpics);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return touchHistory(() -> taskManager.getEpic(id));
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return write(() -> taskManager.addEpic(epic));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        return writeTest(() -> taskManager.updateEpic(epic));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        return writeTest(() -> taskManager.updateEpic(epic, expectedVersion));
+    }
+
+    @Override
+    public boolean removeEpic(int id) {
+        return writeTest(() -> taskManager.removeEpic(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicsSubtasks(int epicId) {
+        return read(() -> taskManager.getEpicsSubtasks(epicId));
+    }
+
+    @Override
+    public Task getAny(int id) {
+        return touchHistory(() -> taskManager.getAny(id));
+    }
+
+    @Override
+    public boolean addAll(List<? extends Task> tasks) {
+        return writeTest(() -> taskManager.addAll(tasks));
+    }
+
+    @Override
+    public boolean updateAll(List<? extends Task> tasks) {
+        return writeTest(() -> taskManager.updateAll(tasks));
+    }
+
+    @Override
+    public int removeAll(Collection<Integer> ids) {
+        return write(() -> taskManager.removeAll(ids));
+    }
+
+    @Override
+    public boolean transaction(List<TaskOperation> operations) {
+        return writeTest(() -> taskManager.transaction(operations));
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return read(() -> taskManager.getByStatus(type, status));
+    }
+
+    @Override
+    public List<Task> query(TaskQuery query) {
+        return read(() -> taskManager.query(query));
+    }
+
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        return read(() -> taskManager.explain(query));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return read(() -> taskManager.search(query, limit));
+    }
+
+    // Подписка не меняет задачи; события публикуются под блокировкой записи, поэтому по одному за раз
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy) {
+        return taskManager.subscribe(listener, policy);
+    }
+
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy,
+                                           TaskEventErrorHandler errorHandler) {
+        return taskManager.subscribe(listener, policy, errorHandler);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return new ArrayList<>(getHistorySnapshot());
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        List<Task> snapshot = historySnapshot;
+        if (snapshot == null) {
+            snapshot = read(() -> historySnapshot = taskManager.getHistorySnapshot());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(getPrioritizedTasksSnapshot());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksSnapshot() {
+        List<Task> snapshot = prioritizedSnapshot;
+        if (snapshot == null) {
+            snapshot = read(() -> prioritizedSnapshot = taskManager.getPrioritizedTasksSnapshot());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public List<Task> getTasks(Integer cursor, int limit) {
+        return read(() -> taskManager.getTasks(cursor, limit));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Integer cursor, int limit) {
+        return read(() -> taskManager.getSubtasks(cursor, limit));
+    }
+
+    @Override
+    public List<Epic> getEpics(Integer cursor, int limit) {
+        return read(() -> taskManager.getEpics(cursor, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Integer cursor, int limit) {
+        return read(() -> taskManager.getPrioritizedTasks(cursor, limit));
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> taskManager.getTasksBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getUpcoming(LocalDateTime now, int limit) {
+        return read(() -> taskManager.getUpcoming(now, limit));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter) {
+        return read(() -> taskManager.findFreeSlot(durationMinutes, notBefore, notAfter));
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        return read(() -> taskManager.findFreeSlots(durationMinutes, notBefore, notAfter, limit));
+    }
+
+    // Потоки идут по снимкам, поэтому их можно читать после снятия блокировки
+    @Override
+    public Stream<Task> streamTasks() {
+        return getTasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return getSubtasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return getEpicsSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Task> streamPrioritizedTasks() {
+        return getPrioritizedTasksSnapshot().stream();
+    }
+
+    private <R> R read(Supplier<R> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <R> R write(Supplier<R> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            invalidateSnapshots();
+            writeLock.unlock();
+        }
+    }
+
+    // Отдельные варианты, чтобы не упаковывать boolean и не писать лямбды с return null
+    private boolean writeTest(BooleanSupplier action) {
+        writeLock.lock();
+        try {
+            return action.getAsBoolean();
+        } finally {
+            invalidateSnapshots();
+            writeLock.unlock();
+        }
+    }
+
+    private void writeRun(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            invalidateSnapshots();
+            writeLock.unlock();
+        }
+    }
+
+    // Получение задачи по id меняет только историю (архивная задача читается из архива, не возвращаясь
+    // в словари), остальные снимки остаются актуальными
+    private <R> R touchHistory(Supplier<R> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            historySnapshot = null;
+            writeLock.unlock();
+        }
+    }
+
+    private void invalidateSnapshots() {
+        tasksSnapshot = null;
+        subtasksSnapshot = null;
+        epicsSnapshot = null;
+        historySnapshot = null;
+        prioritizedSnapshot = null;
+    }
+}
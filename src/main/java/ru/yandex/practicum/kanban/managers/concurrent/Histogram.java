@@ -0,0 +1,85 @@
+package ru.yandex.practicum.kanban.managers.concurrent;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Гистограмма неотрицательных целых значений с корзинами по степеням двойки:
+// в корзине 0 - значение 0, в корзине k - значения от 2^(k-1) до 2^k - 1.
+// Запись - несколько атомарных операций без блокировок; читать можно из любого потока,
+// но значения разных счётчиков между собой согласованы только приблизительно
+public class Histogram {
+    private static final int BUCKETS = Integer.SIZE;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // Отрицательные значения считаются нулём
+    public void record(int value) {
+        int normalized = Math.max(value, 0);
+        buckets.incrementAndGet(bucketOf(normalized));
+        count.incrementAndGet();
+        sum.addAndGet(normalized);
+        max.accumulateAndGet(normalized, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : (double) sum.get() / recorded;
+    }
+
+    // Число значений по корзинам, до последней непустой корзины включительно
+    public long[] getBucketCounts() {
+        int last = BUCKETS - 1;
+        while (last >= 0 && buckets.get(last) == 0) {
+            last--;
+        }
+        long[] result = new long[last + 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = buckets.get(i);
+        }
+        return result;
+    }
+
+    // Наибольшее значение, попадающее в корзину
+    public static int getBucketUpperBound(int bucket) {
+        return bucket == 0 ? 0 : (int) ((1L << bucket) - 1);
+    }
+
+    static int bucketOf(int value) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+    }
+
+    // Корзины подписаны верхними границами: {0=.., 1=.., 3=.., 7=..}
+    @Override
+    public String toString() {
+        long[] counts = getBucketCounts();
+        StringBuilder bucketsString = new StringBuilder("{");
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (bucketsString.length() > 1) {
+                bucketsString.append(", ");
+            }
+            bucketsString.append(getBucketUpperBound(i)).append('=').append(counts[i]);
+        }
+        bucketsString.append('}');
+        return "Histogram{" +
+                "count=" + getCount() +
+                ", mean=" + String.format(Locale.ROOT, "%.2f", getMean()) +
+                ", max=" + getMax() +
+                ", buckets=" + bucketsString +
+                '}';
+    }
+}
@@ -0,0 +1,568 @@
+package ru.yandex.practicum.kanban.managers.concurrent;
+
+import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.TaskOperation;
+import ru.yandex.practicum.kanban.managers.backed.filebacked.FileBackedTaskManager;
+import ru.yandex.practicum.kanban.managers.events.EventBus;
+import ru.yandex.practicum.kanban.managers.events.OverflowPolicy;
+import ru.yandex.practicum.kanban.managers.events.TaskEventErrorHandler;
+import ru.yandex.practicum.kanban.managers.events.TaskEventListener;
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.managers.query.QueryPlan;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Потокобезопасная обёртка без блокировок: все обращения к менеджеру выполняет один поток записи.
+// Вызов, который меняет менеджер или читает его не из снимка, становится командой в неблокирующей очереди
+// (много производителей, один потребитель). Поток записи забирает команды пачками до MAX_BATCH_SIZE,
+// выполняет их по очереди и только после всей пачки завершает CompletableFuture команд -
+// к этому моменту FileBackedTaskManager (и HttpTaskManager) уже сохранён, один раз на пачку,
+// а не после каждой команды.
+// Подряд идущие изменения из методов TaskManager пересчитывают статус и время каждого задетого эпика один раз,
+// после последнего из них; чтение или команда submit между ними сначала получает пересчитанные эпики.
+// Списки задач, подзадач, эпиков, истории и приоритетов читаются из снимков без очереди;
+// снимок строится командой в потоке записи и сбрасывается перед каждой командой, которая его меняет.
+// get*Snapshot и потоки отдают сам снимок, а get*, как и у любого TaskManager, - собственную изменяемую
+// копию: копирование идёт в потоке вызывающего, а не в потоке записи.
+// Методы TaskManager ждут результата своей команды; без ожидания - submit.
+// Глубина очереди (перед каждой пачкой) и размеры пачек собираются в гистограммы
+public class SingleWriterTaskManager implements TaskManager, AutoCloseable {
+    public static final int MAX_BATCH_SIZE = 256;
+
+    private final TaskManager taskManager;
+    // Выполняет пачку команд целиком: для FileBackedTaskManager - с одним сохранением
+    private final Consumer<Runnable> batchRunner;
+    // Выполняет подряд идущие изменения с одним пересчётом каждого эпика: для InMemoryTaskManager
+    private final Consumer<Runnable> epicBatchRunner;
+    private final Queue<Command<?>> queue;
+    private final AtomicInteger queueDepth;
+    private final Histogram queueDepthHistogram;
+    private final Histogram batchSizeHistogram;
+    private final Thread writer;
+    private volatile boolean running;
+    private volatile boolean sleeping;
+
+    private volatile List<Task> tasksSnapshot;
+    private volatile List<Subtask> subtasksSnapshot;
+    private volatile List<Epic> epicsSnapshot;
+    private volatile List<Task> historySnapshot;
+    private volatile List<Task> prioritizedSnapshot;
+
+    public SingleWriterTaskManager(TaskManager taskManager) {
+        this.taskManager = taskManager;
+        if (taskManager instanceof FileBackedTaskManager) {
+            batchRunner = ((FileBackedTaskManager) taskManager)::runBatch;
+        } else {
+            batchRunner = Runnable::run;
+        }
+        if (taskManager instanceof InMemoryTaskManager) {
+            epicBatchRunner = ((InMemoryTaskManager) taskManager)::batchEpicUpdates;
+        } else {
+            epicBatchRunner = Runnable::run;
+        }
+        queue = new ConcurrentLinkedQueue<>();
+        queueDepth = new AtomicInteger();
+        queueDepthHistogram = new Histogram();
+        batchSizeHistogram = new Histogram();
+        running = true;
+        writer = new Thread(this::run, "task-manager-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Выполняет action над обёрнутым менеджером в потоке записи, как обычную изменяющую команду.
+    // Менеджер, переданный в action, нельзя сохранять и использовать вне action
+    public <R> CompletableFuture<R> submit(Function<TaskManager, R> action) {
+        return enqueue(action, Effect.WRITE, false);
+    }
+
+    // Число команд в очереди перед каждой пачкой
+    public Histogram getQueueDepthHistogram() {
+        return queueDepthHistogram;
+    }
+
+    public Histogram getBatchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    // Выполняет уже поставленные команды и останавливает поток записи; новые команды завершаются с ошибкой
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        if (Thread.currentThread() != writer) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(getTasksSnapshot());
+    }
+
+    @Override
+    public List<Task> getTasksSnapshot() {
+        List<Task> snapshot = tasksSnapshot;
+        if (snapshot == null) {
+            snapshot = call(manager -> tasksSnapshot = manager.getTasksSnapshot(), Effect.READ);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void clearTasks() {
+        call(manager -> {
+            manager.clearTasks();
+            return null;
+        }, Effect.WRITE);
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return call(manager -> manager.getTask(id), Effect.HISTORY);
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        return call(manager -> manager.addTask(task), Effect.WRITE);
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        return call(manager -> manager.updateTask(task), Effect.WRITE);
+    }
+
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        return call(manager -> manager.updateTask(task, expectedVersion), Effect.WRITE);
+    }
+
+    @Override
+    public boolean removeTask(int id) {
+        return call(manager -> manager.removeTask(id), Effect.WRITE);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return new ArrayList<>(getSubtasksSnapshot());
+    }
+
+    @Override
+    public List<Subtask> getSubtasksSnapshot() {
+        List<Subtask> snapshot = subtasksSnapshot;
+        if (snapshot == null) {
+            snapshot = call(manager -> subtasksSnapshot = manager.getSubtasksSnapshot(), Effect.READ);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void clearSubtasks() {
+        call(manager -> {
+            manager.clearSubtasks();
+            return null;
+        }, Effect.WRITE);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return call(manager -> manager.getSubtask(id), Effect.HISTORY);
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        return call(manager -> manager.addSubtask(subtask), Effect.WRITE);
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        return call(manager -> manager.updateSubtask(subtask), Effect.WRITE);
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        return call(manager -> manager.updateSubtask(subtask, expectedVersion), Effect.WRITE);
+    }
+
+    @Override
+    public boolean removeSubtask(int id) {
+        return call(manager -> manager.removeSubtask(id), Effect.WRITE);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(getEpicsSnapshot());
+    }
+
+    @Override
+    public List<Epic> getEpicsSnapshot() {
+        List<Epic> snapshot = epicsSnapshot;
+        if (snapshot == null) {
+            snapshot = call(manager -> epicsSnapshot = manager.getEpicsSnapshot(), Effect.READ);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void clearEpics() {
+        call(manager -> {
+            manager.clearEpics();
+            return null;
+        }, Effect.WRITE);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return call(manager -> manager.getEpic(id), Effect.HISTORY);
+    }
+
+    @Override
+    public Epic addEpic(Epic epic) {
+        return call(manager -> manager.addEpic(epic), Effect.WRITE);
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        return call(manager -> manager.updateEpic(epic), Effect.WRITE);
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        return call(manager -> manager.updateEpic(epic, expectedVersion), Effect.WRITE);
+    }
+
+    @Override
+    public boolean removeEpic(int id) {
+        return call(manager -> manager.removeEpic(id), Effect.WRITE);
+    }
+
+    @Override
+    public List<Subtask> getEpicsSubtasks(int epicId) {
+        return call(manager -> manager.getEpicsSubtasks(epicId), Effect.READ);
+    }
+
+    @Override
+    public Task getAny(int id) {
+        return call(manager -> manager.getAny(id), Effect.HISTORY);
+    }
+
+    @Override
+    public boolean addAll(List<? extends Task> tasks) {
+        return call(manager -> manager.addAll(tasks), Effect.WRITE);
+    }
+
+    @Override
+    public boolean updateAll(List<? extends Task> tasks) {
+        return call(manager -> manager.updateAll(tasks), Effect.WRITE);
+    }
+
+    @Override
+    public int removeAll(Collection<Integer> ids) {
+        return call(manager -> manager.removeAll(ids), Effect.WRITE);
+    }
+
+    @Override
+    public boolean transaction(List<TaskOperation> operations) {
+        return call(manager -> manager.transaction(operations), Effect.WRITE);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return call(manager -> manager.getByStatus(type, status), Effect.READ);
+    }
+
+    @Override
+    public List<Task> query(TaskQuery query) {
+        return call(manager -> manager.query(query), Effect.READ);
+    }
+
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        return call(manager -> manager.explain(query), Effect.READ);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return call(manager -> manager.search(query, limit), Effect.READ);
+    }
+
+    // Подписка не меняет задачи; события публикует только поток записи
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy) {
+        return taskManager.subscribe(listener, policy);
+    }
+
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy,
+                                           TaskEventErrorHandler errorHandler) {
+        return taskManager.subscribe(listener, policy, errorHandler);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return new ArrayList<>(getHistorySnapshot());
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        List<Task> snapshot = historySnapshot;
+        if (snapshot == null) {
+            snapshot = call(manager -> historySnapshot = manager.getHistorySnapshot(), Effect.READ);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(getPrioritizedTasksSnapshot());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksSnapshot() {
+        List<Task> snapshot = prioritizedSnapshot;
+        if (snapshot == null) {
+            snapshot = call(manager -> prioritizedSnapshot = manager.getPrioritizedTasksSnapshot(), Effect.READ);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public List<Task> getTasks(Integer cursor, int limit) {
+        return call(manager -> manager.getTasks(cursor, limit), Effect.READ);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Integer cursor, int limit) {
+        return call(manager -> manager.getSubtasks(cursor, limit), Effect.READ);
+    }
+
+    @Override
+    public List<Epic> getEpics(Integer cursor, int limit) {
+        return call(manager -> manager.getEpics(cursor, limit), Effect.READ);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Integer cursor, int limit) {
+        return call(manager -> manager.getPrioritizedTasks(cursor, limit), Effect.READ);
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return call(manager -> manager.getTasksBetween(from, to), Effect.READ);
+    }
+
+    @Override
+    public List<Task> getUpcoming(LocalDateTime now, int limit) {
+        return call(manager -> manager.getUpcoming(now, limit), Effect.READ);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter) {
+        return call(manager -> manager.findFreeSlot(durationMinutes, notBefore, notAfter), Effect.READ);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        return call(manager -> manager.findFreeSlots(durationMinutes, notBefore, notAfter, limit), Effect.READ);
+    }
+
+    // Потоки идут по снимкам, поэтому их можно читать вне потока записи
+    @Override
+    public Stream<Task> streamTasks() {
+        return getTasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return getSubtasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return getEpicsSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Task> streamPrioritizedTasks() {
+        return getPrioritizedTasksSnapshot().stream();
+    }
+
+    // Синхронный вызов: ожидание результата команды, исключение команды пробрасывается как есть
+    private <R> R call(Function<TaskManager, R> action, Effect effect) {
+        if (Thread.currentThread() == writer) {
+            // вызов из команды: поток записи не может ждать сам себя
+            return action.apply(taskManager);
+        }
+        try {
+            return enqueue(action, effect, effect == Effect.WRITE).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private <R> CompletableFuture<R> enqueue(Function<TaskManager, R> action, Effect effect,
+                                             boolean defersEpics) {
+        Command<R> command = new Command<>(action, effect, defersEpics);
+        if (!running) {
+            command.future.completeExceptionally(new IllegalStateException("Менеджер закрыт"));
+            return command.future;
+        }
+        queueDepth.incrementAndGet();
+        queue.offer(command);
+        // sleeping читается после записи в очередь, а поток записи пишет sleeping
+        // до повторной проверки очереди, поэтому пробуждение не теряется
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+        // поток записи мог завершиться, не увидев команду
+        if (!running && queue.remove(command)) {
+            queueDepth.decrementAndGet();
+            command.future.completeExceptionally(new IllegalStateException("Менеджер закрыт"));
+        }
+        return command.future;
+    }
+
+    private void run() {
+        List<Command<?>> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        // после close выполняются команды, поставленные до него
+        while (running || !queue.isEmpty()) {
+            Command<?> command = queue.poll();
+            if (command == null) {
+                sleeping = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+                continue;
+            }
+            queueDepthHistogram.record(queueDepth.get());
+            do {
+                batch.add(command);
+            } while (batch.size() < MAX_BATCH_SIZE && (command = queue.poll()) != null);
+            queueDepth.addAndGet(-batch.size());
+            batchSizeHistogram.record(batch.size());
+            execute(batch);
+            batch.clear();
+        }
+    }
+
+    private void execute(List<Command<?>> batch) {
+        RuntimeException batchError = null;
+        try {
+            batchRunner.accept(() -> {
+                int from = 0;
+                while (from < batch.size()) {
+                    // Подряд идущие изменения пересчитывают эпики один раз; чтение видит уже пересчитанные эпики
+                    int to = from;
+                    while (to < batch.size() && batch.get(to).defersEpics) {
+                        to++;
+                    }
+                    if (to == from) {
+                        executeCommands(batch, from, from + 1);
+                        from++;
+                    } else {
+                        int segmentFrom = from;
+                        int segmentTo = to;
+                        epicBatchRunner.accept(() -> executeCommands(batch, segmentFrom, segmentTo));
+                        from = to;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // ошибка сохранения пачки относится ко всем командам, которые что-то меняли
+            batchError = e;
+        }
+        for (Command<?> command : batch) {
+            command.complete(command.effect == Effect.READ ? null : batchError);
+        }
+    }
+
+    private void executeCommands(List<Command<?>> batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Command<?> command = batch.get(i);
+            // Снимки сбрасываются перед изменением: снимок, построенный позже в этой же пачке, актуален
+            invalidateSnapshots(command.effect);
+            command.execute(taskManager);
+        }
+    }
+
+    private void invalidateSnapshots(Effect effect) {
+        if (effect == Effect.WRITE) {
+            tasksSnapshot = null;
+            subtasksSnapshot = null;
+            epicsSnapshot = null;
+            prioritizedSnapshot = null;
+        }
+        if (effect != Effect.READ) {
+            historySnapshot = null;
+        }
+    }
+
+    // Что команда может изменить - от этого зависит, какие снимки она сбрасывает
+    private enum Effect {
+        READ,       // ничего
+        HISTORY,    // только историю (получение задачи по id)
+        WRITE       // что угодно
+    }
+
+    private static class Command<R> {
+        private final Function<TaskManager, R> action;
+        private final Effect effect;
+        // Изменение через метод TaskManager: не читает статус и время эпиков, поэтому их пересчёт
+        // можно отложить до конца серии таких команд. Произвольное действие submit этого не гарантирует
+        private final boolean defersEpics;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private R result;
+        private RuntimeException error;
+
+        private Command(Function<TaskManager, R> action, Effect effect, boolean defersEpics) {
+            this.action = action;
+            this.effect = effect;
+            this.defersEpics = defersEpics;
+        }
+
+        private void execute(TaskManager taskManager) {
+            try {
+                result = action.apply(taskManager);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        private void complete(RuntimeException batchError) {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (batchError != null) {
+                future.completeExceptionally(batchError);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
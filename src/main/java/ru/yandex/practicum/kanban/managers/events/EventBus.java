@@ -0,0 +1,204 @@
+package ru.yandex.practicum.kanban.managers.events;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Шина событий изменения задач на кольцевом буфере фиксированного размера.
+// Публикация кладёт событие в буфер и будит спящих подписчиков, обработчики в ней не вызываются:
+// каждый подписчик читает буфер в своём потоке со своей скоростью.
+// Подписчик, отставший на весь буфер, по своей политике либо задерживает публикацию (BLOCK),
+// либо отключается (DROP). Пока подписчиков нет, публикация ничего не делает.
+// Публикации упорядочиваются блокировкой шины, но только при наличии подписчиков.
+// Обычно публикует один поток за раз (ConcurrentTaskManager меняет состояние под блокировкой записи),
+// общую шину шардов ShardedTaskManager публикуют несколько потоков.
+// Подписчик BLOCK не должен менять менеджер из обработчика: публикация может ждать его под той же блокировкой
+public class EventBus {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final long PUBLISHER_PARK_NANOS = 10_000;
+
+    private final int mask;
+    private final AtomicReferenceArray<TaskEvent> ring;
+    // Номер последнего опубликованного события, 0 - событий ещё не было
+    private volatile long cursor;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // capacity - степень двойки, чтобы номер ячейки считался маской
+    public EventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Размер буфера должен быть степенью двойки: " + capacity);
+        }
+        mask = capacity - 1;
+        ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    // Подписчик получает события, опубликованные после подписки, в порядке публикации.
+    // Ошибки обработчика только считаются в подписке: Subscription.getFailureCount/getLastFailure
+    public Subscription subscribe(TaskEventListener listener, OverflowPolicy policy) {
+        return subscribe(listener, policy, null);
+    }
+
+    // errorHandler получает каждое исключение обработчика; подписка продолжает читать следующие события.
+    // Подписка создаётся и добавляется под блокировкой шины: иначе публикация между чтением cursor и
+    // добавлением могла бы перезаписать следующую ячейку подписчика, не дожидаясь его
+    public Subscription subscribe(TaskEventListener listener, OverflowPolicy policy,
+                                  TaskEventErrorHandler errorHandler) {
+        Subscription subscription;
+        synchronized (this) {
+            subscription = new Subscription(listener, policy, errorHandler, cursor);
+            subscriptions.add(subscription);
+        }
+        subscription.thread.start();
+        return subscription;
+    }
+
+    // ADDED: oldValue == null, REMOVED: newValue == null
+    public void publish(TaskEventType eventType, Task oldValue, Task newValue) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            publishLocked(eventType, oldValue, newValue);
+        }
+    }
+
+    private void publishLocked(TaskEventType eventType, Task oldValue, Task newValue) {
+        Task task = newValue != null ? newValue : oldValue;
+        long sequence = cursor + 1;
+        // Ячейку можно перезаписать, когда все подписчики обработали событие, которое в ней лежит
+        long overwritten = sequence - ring.length();
+        for (Subscription subscription : subscriptions) {
+            while (subscription.active && subscription.consumed < overwritten) {
+                if (subscription.policy == OverflowPolicy.DROP) {
+                    subscription.close();
+                } else {
+                    LockSupport.unpark(subscription.thread);
+                    LockSupport.parkNanos(PUBLISHER_PARK_NANOS);
+                }
+            }
+        }
+        // Событие в ячейке каждый раз новое: обработчики могут хранить полученные события (складывать в очередь,
+        // передавать дальше), а переиспользованный объект ячейки изменился бы у них после перезаписи
+        ring.set((int) sequence & mask,
+                new TaskEvent(sequence, eventType, task.getType(), task.getId(), oldValue, newValue));
+        cursor = sequence;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.sleeping) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+    }
+
+    public class Subscription {
+        private final TaskEventListener listener;
+        private final OverflowPolicy policy;
+        private final TaskEventErrorHandler errorHandler;
+        private final Thread thread;
+        private volatile boolean active = true;
+        // Номер последнего обработанного события
+        private volatile long consumed;
+        private volatile boolean sleeping;
+        // Пишутся только потоком подписчика
+        private volatile long failureCount;
+        private volatile RuntimeException lastFailure;
+
+        private Subscription(TaskEventListener listener, OverflowPolicy policy, TaskEventErrorHandler errorHandler,
+                             long consumed) {
+            this.listener = listener;
+            this.policy = policy;
+            this.errorHandler = errorHandler;
+            this.consumed = consumed;
+            thread = new Thread(this::run, "task-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+        }
+
+        // false - подписка закрыта или подписчик отключён за отставание
+        public boolean isActive() {
+            return active;
+        }
+
+        public OverflowPolicy getPolicy() {
+            return policy;
+        }
+
+        // Сколько событий обработчик не смог обработать
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        // Последнее исключение обработчика, null - ошибок не было
+        public RuntimeException getLastFailure() {
+            return lastFailure;
+        }
+
+        // Останавливает поток подписчика; событие, которое он сейчас обрабатывает, обрабатывается до конца
+        public void close() {
+            active = false;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+        }
+
+        private void run() {
+            try {
+                consume();
+            } finally {
+                // поток подписчика завершился - публикация не должна его ждать
+                close();
+            }
+        }
+
+        private void consume() {
+            long next = consumed + 1;
+            while (active) {
+                if (next > cursor) {
+                    // sleeping записывается до повторной проверки cursor, а публикация пишет cursor
+                    // до проверки sleeping, поэтому пробуждение не теряется
+                    sleeping = true;
+                    if (next > cursor && active) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                    continue;
+                }
+                TaskEvent event = ring.get((int) next & mask);
+                if (event == null || event.getSequence() != next) {
+                    // ячейку уже перезаписали: подписчик DROP отстал и отключён
+                    break;
+                }
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    fail(event, e);
+                }
+                consumed = next++;
+            }
+        }
+
+        private void fail(TaskEvent event, RuntimeException exception) {
+            lastFailure = exception;
+            failureCount++;
+            if (errorHandler == null) {
+                return;
+            }
+            try {
+                errorHandler.onError(event, exception);
+            } catch (RuntimeException e) {
+                // ошибка самого обработчика ошибок не должна останавливать подписчика
+                exception.addSuppressed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.kanban.managers.events;
+
+// Что делать, если подписчик отстал от публикации на весь размер буфера
+public enum OverflowPolicy {
+    BLOCK,  // публикация ждёт, пока подписчик освободит место; подписчик получает все события
+    DROP    // подписчик отключается, публикация не ждёт
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.kanban.managers.events;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+
+// Изменение задачи в менеджере.
+// oldValue - задача до изменения (null для ADDED), newValue - после (null для REMOVED).
+// Для UPDATED эпика, пересчитанного по подзадачам, oldValue == null: эпик меняется на месте.
+// Значения - объекты самого менеджера, подписчики не должны их менять
+public class TaskEvent {
+    private final long sequence;
+    private final TaskEventType eventType;
+    private final TaskType taskType;
+    private final int id;
+    private final Task oldValue;
+    private final Task newValue;
+
+    public TaskEvent(long sequence, TaskEventType eventType, TaskType taskType, int id,
+                     Task oldValue, Task newValue) {
+        this.sequence = sequence;
+        this.eventType = eventType;
+        this.taskType = taskType;
+        this.id = id;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    // Номер события, с 1, без пропусков в порядке публикации
+    public long getSequence() {
+        return sequence;
+    }
+
+    public TaskEventType getEventType() {
+        return eventType;
+    }
+
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Task getOldValue() {
+        return oldValue;
+    }
+
+    public Task getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "sequence=" + sequence +
+                ", eventType=" + eventType +
+                ", taskType=" + taskType +
+                ", id=" + id +
+                ", oldValue=" + oldValue +
+                ", newValue=" + newValue +
+                '}';
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.kanban.managers.events;
+
+// Вызывается в потоке подписчика, когда его обработчик бросил исключение на событии event
+@FunctionalInterface
+public interface TaskEventErrorHandler {
+    void onError(TaskEvent event, RuntimeException exception);
+}
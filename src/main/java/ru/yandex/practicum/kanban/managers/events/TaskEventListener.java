@@ -0,0 +1,6 @@
+package ru.yandex.practicum.kanban.managers.events;
+
+@FunctionalInterface
+public interface TaskEventListener {
+    void onEvent(TaskEvent event);
+}
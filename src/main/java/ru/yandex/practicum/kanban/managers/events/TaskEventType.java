@@ -0,0 +1,7 @@
+package ru.yandex.practicum.kanban.managers.events;
+
+public enum TaskEventType {
+    ADDED,
+    UPDATED,
+    REMOVED
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.util.TreeMap;
+
+// Накопленные данные по подзадачам эпика: счётчики статусов, сумма длительностей
+// и упорядоченные мультимножества времени начала и окончания.
+// Добавление и удаление подзадачи стоят O(log k), а не O(k), как полный пересчёт по списку подзадач
+class EpicAggregate {
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private int subtaskCount;
+    private int duration;
+    // время в минутах от эпохи -> сколько подзадач с таким временем
+    private final TreeMap<Long, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<Long, Integer> endTimes = new TreeMap<>();
+
+    void add(Subtask subtask) {
+        statusCounts[subtask.getStatus().ordinal()]++;
+        subtaskCount++;
+        duration += subtask.getDuration();
+        long startMinute = subtask.getStartMinute();
+        if (startMinute != Task.NO_TIME) {
+            startTimes.merge(startMinute, 1, Integer::sum);
+            endTimes.merge(subtask.getEndMinute(), 1, Integer::sum);
+        }
+    }
+
+    // Подзадача должна быть той же версией, что была добавлена (или равной ей по статусу и времени)
+    void remove(Subtask subtask) {
+        statusCounts[subtask.getStatus().ordinal()]--;
+        subtaskCount--;
+        duration -= subtask.getDuration();
+        long startMinute = subtask.getStartMinute();
+        if (startMinute != Task.NO_TIME) {
+            decrement(startTimes, startMinute);
+            decrement(endTimes, subtask.getEndMinute());
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = 0;
+        }
+        subtaskCount = 0;
+        duration = 0;
+        startTimes.clear();
+        endTimes.clear();
+    }
+
+    TaskStatus getStatus() {
+        if (subtaskCount == 0 || count(TaskStatus.NEW) == subtaskCount) {
+            return TaskStatus.NEW;
+        }
+        if (count(TaskStatus.DONE) == subtaskCount) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    long getStartMinute() {
+        return startTimes.isEmpty() ? Task.NO_TIME : startTimes.firstKey();
+    }
+
+    long getEndMinute() {
+        return endTimes.isEmpty() ? Task.NO_TIME : endTimes.lastKey();
+    }
+
+    int getDuration() {
+        return duration;
+    }
+
+    void applyTo(Epic epic) {
+        epic.setStatus(getStatus());
+        epic.setStartMinute(getStartMinute());
+        epic.setEndMinute(getEndMinute());
+        epic.setDuration(duration);
+    }
+
+    private int count(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    private static void decrement(TreeMap<Long, Integer> times, long time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -2,17 +2,21 @@ package ru.yandex.practicum.kanban.managers.inmemory;
 
 import ru.yandex.practicum.kanban.managers.HistoryManager;
 import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.util.collections.IntHashMap;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 public class InMemoryHistoryManager implements HistoryManager {
 
     private Node head;
     private Node tail;
-    private final Map<Integer, Node> nodesById;
+    private final IntHashMap<Node> nodesById;
+    // Неизменяемая копия истории, сбрасывается при изменении истории
+    private List<Task> snapshot;
 
     public InMemoryHistoryManager() {
-        nodesById = new HashMap<>();
+        nodesById = new IntHashMap<>();
     }
 
     @Override
@@ -20,6 +24,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return;
         }
+        snapshot = null;
         Node newNode = linkLast(task);
         Node oldNode = nodesById.put(task.getId(), newNode);
         removeNode(oldNode);   //проверка на null в removeNode
@@ -29,18 +34,39 @@ public class InMemoryHistoryManager implements HistoryManager {
     public void remove(int id) {
         //Удаляем Task и из списка, и из словаря
         Node node = nodesById.remove(id);
+        if (node != null) {
+            snapshot = null;
+        }
         removeNode(node);   //проверка на null в removeNode
     }
 
+    @Override
+    public void removeIf(Predicate<Task> filter) {
+        Node node = head;
+        while (node != null) {
+            Node next = node.getNext();
+            if (filter.test(node.getData())) {
+                nodesById.remove(node.getData().getId());
+                removeNode(node);
+                snapshot = null;
+            }
+            node = next;
+        }
+    }
+
     @Override
     public List<Task> getHistory() {
+        if (snapshot != null) {
+            return snapshot;
+        }
         List<Task> result = new ArrayList<>();
         Node node = head;
         while (node != null) {
             result.add(node.getData());
             node = node.getNext();
         }
-        return result;
+        snapshot = Collections.unmodifiableList(result);
+        return snapshot;
     }
 
     @Override
@@ -51,6 +77,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         Node node = nodesById.get(task.getId());
         if (node != null) {
             node.setData(task);
+            snapshot = null;
         }
     }
 
@@ -3,50 +3,118 @@ package ru.yandex.practicum.kanban.managers.inmemory;
 import ru.yandex.practicum.kanban.managers.HistoryManager;
 import ru.yandex.practicum.kanban.managers.Managers;
 import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.TaskOperation;
+import ru.yandex.practicum.kanban.managers.TimeIndexType;
 import ru.yandex.practicum.kanban.managers.TimeManager;
+import ru.yandex.practicum.kanban.managers.VersionConflictException;
+import ru.yandex.practicum.kanban.managers.events.EventBus;
+import ru.yandex.practicum.kanban.managers.events.OverflowPolicy;
+import ru.yandex.practicum.kanban.managers.events.TaskEventErrorHandler;
+import ru.yandex.practicum.kanban.managers.events.TaskEventListener;
+import ru.yandex.practicum.kanban.managers.events.TaskEventType;
+import ru.yandex.practicum.kanban.managers.query.QueryPlan;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
 import ru.yandex.practicum.kanban.tasks.*;
+import ru.yandex.practicum.kanban.util.collections.IntHashMap;
+import ru.yandex.practicum.kanban.util.collections.IntLinkedSet;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected final Map<Integer, Task> tasks;
-    protected final Map<Integer, Epic> epics;
-    protected final Map<Integer, Subtask> subtasks;
+    protected final IntHashMap<Task> tasks;
+    protected final IntHashMap<Epic> epics;
+    protected final IntHashMap<Subtask> subtasks;
+    // Общий индекс id -> задача любого типа, ведётся вместе с tasks/epics/subtasks.
+    // Нужен, чтобы искать задачу по id за одно обращение, не перебирая три словаря
+    protected final IntHashMap<Task> allTasks;
+    // Накопленные данные подзадач по id эпика, из них без полного пересчёта берутся статус и время эпика
+    private final IntHashMap<EpicAggregate> epicAggregates;
+    // id задач каждого типа по статусам, ведётся вместе со словарями задач и пересчётом статуса эпиков
+    private final StatusIndex statusIndex;
+    private final QueryPlanner queryPlanner;
+    // Слова названий и описаний задач всех типов, ведётся вместе со словарями задач
+    private final SearchIndex searchIndex;
+    // События публикуются там же, где ведутся индексы: при записи в словари, удалении из них
+    // и пересчёте эпика, поэтому их публикуют все пути изменения, включая пакетные
+    protected final EventBus eventBus;
     protected final HistoryManager historyManager;
     protected final TimeManager timeManager;
+    // Выполненные задачи и подзадачи, перенесённые из словарей в сжатые блоки (см. archiveDoneTasks)
+    private final TaskArchive archive;
+    private Duration archiveAge;
+    // Записи задач и подзадач вне кучи (см. TaskRecordStore); null - задачи хранятся в куче как есть
+    private final TaskRecordStore records;
+    // Эпики, перенос накопленных данных в которые отложен до конца batchEpicUpdates; null - переносятся сразу
+    private IntLinkedSet deferredEpicIds;
     protected int nextId;
 
     public InMemoryTaskManager() {
-        tasks = new HashMap<>();
-        epics = new HashMap<>();
-        subtasks = new HashMap<>();
-        historyManager = Managers.getDefaultHistory();
-        timeManager = new TimeManager();
+        this(false);
     }
 
-    private int generateNextId() {
+    // offHeapRecords - хранить задачи и подзадачи в записях вне кучи, а в словарях держать их представления.
+    // Задачи, переданные в менеджер, в этом случае копируются и дальше не связаны с хранимыми
+    public InMemoryTaskManager(boolean offHeapRecords) {
+        this(Managers.getDefaultHistory(), new EventBus(), offHeapRecords ? new TaskRecordStore() : null,
+                TimeIndexType.HOURLY_BUCKETS);
+    }
+
+    // timeIndexType - чем TimeManager ищет пересечения задач по времени
+    public InMemoryTaskManager(TimeIndexType timeIndexType) {
+        this(Managers.getDefaultHistory(), new EventBus(), null, timeIndexType);
+    }
+
+    // Для шардов ShardedTaskManager: общие история и шина событий
+    InMemoryTaskManager(HistoryManager historyManager, EventBus eventBus) {
+        this(historyManager, eventBus, null, TimeIndexType.HOURLY_BUCKETS);
+    }
+
+    private InMemoryTaskManager(HistoryManager historyManager, EventBus eventBus, TaskRecordStore records,
+                                TimeIndexType timeIndexType) {
+        tasks = new IntHashMap<>();
+        epics = new IntHashMap<>();
+        subtasks = new IntHashMap<>();
+        allTasks = new IntHashMap<>();
+        epicAggregates = new IntHashMap<>();
+        statusIndex = new StatusIndex();
+        searchIndex = new SearchIndex();
+        this.eventBus = eventBus;
+        this.historyManager = historyManager;
+        timeManager = new TimeManager(timeIndexType);
+        archive = new TaskArchive();
+        this.records = records;
+        queryPlanner = new QueryPlanner(tasks, epics, subtasks, allTasks, statusIndex, timeManager);
+    }
+
+    // Шарды ShardedTaskManager выдают id из своих блоков
+    int generateNextId() {
         return nextId++;
     }
 
+    // Архивные задачи идут после задач из словаря и распаковываются при чтении списка
     @Override
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks.values());
+        return archive.appendToCopy(new ArrayList<>(tasks.values()), TaskType.TASK);
     }
 
     @Override
     public void clearTasks() {
-        for (Task task : tasks.values()) {
-            timeManager.removeTask(task);
-        }
-        clearTasksFromMap(tasks);
+        timeManager.removeTasks(task -> task.getType() == TaskType.TASK);
+        clearTasksFromMap(tasks, TaskType.TASK);
+        clearArchived(TaskType.TASK);
     }
 
     //возвращает задачу по идентификатору или null, если задачи с таким идентификатором нет
     @Override
     public Task getTask(int id) {
         Task task = tasks.get(id);
+        if (task == null && !archive.isEmpty()) {
+            task = getArchived(id, TaskType.TASK);
+        }
         historyManager.add(task);
         return task;
     }
@@ -59,8 +127,8 @@ public class InMemoryTaskManager implements TaskManager {
         }
         int id = generateNextId();
         task.setId(id);
-        tasks.put(id, task);
-        timeManager.addTask(task);
+        task.setVersion(1);
+        timeManager.addTask(putTaskToMap(tasks, task));
         return task;
     }
 
@@ -73,16 +141,21 @@ public class InMemoryTaskManager implements TaskManager {
         int id = task.getId();
         Task previous = tasks.get(id);
         if (previous == null) {
-            return false;     // задачи с таким id не было
+            // архивная задача возвращается в словари, только если новая версия проходит проверку
+            Task archived = getArchived(id, TaskType.TASK);
+            if (archived == null || !timeManager.validateTasks(List.of(task), List.of(archived))) {
+                return false;     // задачи с таким id не было или новое время занято
+            }
+            previous = restoreArchived(id);
         }
         // Чтобы проверить, что задача с новым временем подходит,
         // нужно проверить, что она не пересекается с остальными.
         // Поэтому придется её убрать, но если она не проходит, вернуть обратно
         timeManager.removeTask(previous);
         if (timeManager.validateTask(task)) {
-            tasks.put(id, task);
-            historyManager.update(task);
-            timeManager.addTask(task);
+            Task stored = putTaskToMap(tasks, task);
+            historyManager.update(stored);
+            timeManager.addTask(stored);
         } else {
             timeManager.addTask(previous);
             return false;
@@ -90,8 +163,27 @@ public class InMemoryTaskManager implements TaskManager {
         return true;
     }
 
+    // Версия сверяется до проверки времени; само обновление - обычным updateTask,
+    // поэтому наследники, переопределившие updateTask (например, с сохранением), работают и здесь
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        if (task == null) {
+            return false;
+        }
+        Task previous = tasks.get(task.getId());
+        if (previous == null && !archive.isEmpty()) {
+            previous = getArchived(task.getId(), TaskType.TASK);     // версия сверяется без возврата из архива
+        }
+        if (previous == null) {
+            return false;
+        }
+        checkVersion(previous, expectedVersion);
+        return updateTask(task);
+    }
+
     @Override
     public boolean removeTask(int id) {
+        restoreArchived(id);
         Task removed = removeTaskFromMap(tasks, id);
         timeManager.removeTask(removed);
         return removed != null;
@@ -99,25 +191,28 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return archive.appendToCopy(new ArrayList<>(subtasks.values()), TaskType.SUBTASK);
     }
 
     @Override
     public void clearSubtasks() {
+        // Накопленные данные всех эпиков сбрасываются разом (при следующем изменении создаются заново),
+        // эпикам достаточно применить данные пустого эпика
+        epicAggregates.clear();
+        EpicAggregate empty = new EpicAggregate();
         for (Epic epic : epics.values()) {
             epic.clearSubtasks();
-            updateEpicFromSubtasks(epic);
+            applyEpicAggregate(epic, empty);
         }
-        for (Subtask subtask : subtasks.values()) {
-            timeManager.removeTask(subtask);
-        }
-        clearTasksFromMap(subtasks);
+        timeManager.removeTasks(task -> task.getType() == TaskType.SUBTASK);
+        clearTasksFromMap(subtasks, TaskType.SUBTASK);
+        clearArchived(TaskType.SUBTASK);
     }
 
     //возвращает подзадачу по идентификатору или null, если задачи с таким идентификатором нет
     @Override
     public Subtask getSubtask(int id) {
-        Subtask subtask = subtasks.get(id);
+        Subtask subtask = getSubtaskOrArchived(id);
         historyManager.add(subtask);
         return subtask;
     }
@@ -135,10 +230,10 @@ public class InMemoryTaskManager implements TaskManager {
         }
         int id = generateNextId();
         subtask.setId(id);
-        subtasks.put(id, subtask);
-        epic.addSubtask(id);
-        updateEpicFromSubtasks(epic);
-        timeManager.addTask(subtask);
+        subtask.setVersion(1);
+        Subtask stored = putTaskToMap(subtasks, subtask);
+        linkSubtaskToEpic(epic, stored);
+        timeManager.addTask(stored);
         return subtask;
     }
 
@@ -150,19 +245,34 @@ public class InMemoryTaskManager implements TaskManager {
         }
         int id = subtask.getId();
         Subtask previous = subtasks.get(id);
-        if (previous == null || subtask.getEpicId() != previous.getEpicId()) {
+        if (previous == null) {
+            Subtask archived = (Subtask) getArchived(id, TaskType.SUBTASK);
+            if (archived == null || subtask.getEpicId() != archived.getEpicId()
+                    || !timeManager.validateTasks(List.of(subtask), List.of(archived))) {
+                return false;
+            }
+            previous = (Subtask) restoreArchived(id);
+        }
+        if (subtask.getEpicId() != previous.getEpicId()) {
             //подзадачи с таким id нет или эпик в новой версии отличается
             return false;
         }
         timeManager.removeTask(previous);
         if (timeManager.validateTask(subtask)) {
-            subtasks.put(id, subtask);
+            Subtask stored = putTaskToMap(subtasks, subtask);
             Epic epic = epics.get(subtask.getEpicId());
-            if (epic != null) {
+            if (epic != null && previous == stored) {
+                // Передан тот же объект, возможно изменённый на месте:
+                // вычесть его прежний вклад из накопленных данных нельзя, поэтому полный пересчёт
                 updateEpicFromSubtasks(epic);
+            } else if (epic != null) {
+                EpicAggregate aggregate = getEpicAggregate(epic);
+                aggregate.remove(previous);
+                aggregate.add(stored);
+                applyEpicAggregate(epic, aggregate);
             }
-            historyManager.update(subtask);
-            timeManager.addTask(subtask);
+            historyManager.update(stored);
+            timeManager.addTask(stored);
         } else {
             timeManager.addTask(previous);
             return false;
@@ -170,8 +280,22 @@ public class InMemoryTaskManager implements TaskManager {
         return true;
     }
 
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        if (subtask == null) {
+            return false;
+        }
+        Subtask previous = getSubtaskOrArchived(subtask.getId());
+        if (previous == null) {
+            return false;
+        }
+        checkVersion(previous, expectedVersion);
+        return updateSubtask(subtask);
+    }
+
     @Override
     public boolean removeSubtask(int id) {
+        restoreArchived(id);
         Subtask subtask = removeTaskFromMap(subtasks, id);
         if (subtask == null) {
             return false;
@@ -180,7 +304,9 @@ public class InMemoryTaskManager implements TaskManager {
         Epic epic = epics.get(epicId);
         if (epic != null) {
             epic.removeSubtask(id);
-            updateEpicFromSubtasks(epic);
+            EpicAggregate aggregate = getEpicAggregate(epic);
+            aggregate.remove(subtask);
+            applyEpicAggregate(epic, aggregate);
         }
         timeManager.removeTask(subtask);
         return true;
@@ -193,11 +319,11 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void clearEpics() {
-        clearTasksFromMap(epics);
-        for (Subtask subtask : subtasks.values()) {
-            timeManager.removeTask(subtask);
-        }
-        clearTasksFromMap(subtasks);
+        clearTasksFromMap(epics, TaskType.EPIC);
+        epicAggregates.clear();
+        timeManager.removeTasks(task -> task.getType() == TaskType.SUBTASK);
+        clearTasksFromMap(subtasks, TaskType.SUBTASK);
+        clearArchived(TaskType.SUBTASK);
     }
 
     //возвращает эпик по идентификатору или null, если эпика с таким идентификатором нет
@@ -215,7 +341,8 @@ public class InMemoryTaskManager implements TaskManager {
         }
         int id = generateNextId();
         epic.setId(id);
-        epics.put(id, epic);
+        epic.setVersion(1);
+        putTaskToMap(epics, epic);
         updateEpicFromSubtasks(epic);
         return epic;
     }
@@ -227,36 +354,34 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             return false;
         }
-        int id = epic.getId();
-        Epic previous = epics.replace(id, epic);
-        if (previous != null) {
-            List<Integer> previousSubtaskIds = previous.getSubtaskIds();
-            // если у нового эпика другой список подзадач, подменяем на правильный;
-            // сравнивать нужно, иначе всё сломается:
-            // если передать тот же объект - список очистится, и подзадачи потеряются
-            if (!Objects.equals(previousSubtaskIds, epic.getSubtaskIds())) {
-                epic.clearSubtasks();
-                for (Integer subtaskId : previousSubtaskIds) {
-                    epic.addSubtask(subtaskId);
-                }
-            }
-            updateEpicFromSubtasks(epic);
-            historyManager.update(epic);
-            return true;
+        Epic previous = epics.get(epic.getId());
+        if (previous == null) {
+            return false;
         }
-        return false;
+        replaceEpic(previous, epic);
+        return true;
     }
 
     @Override
-    public boolean removeEpic(int id) {
-        Epic epic = removeTaskFromMap(epics, id);
+    public boolean updateEpic(Epic epic, int expectedVersion) {
         if (epic == null) {
             return false;
         }
-        for (Integer subtaskId : epic.getSubtaskIds()) {
-            Subtask subtask = removeTaskFromMap(subtasks, subtaskId);
-            timeManager.removeTask(subtask);
+        Epic previous = epics.get(epic.getId());
+        if (previous == null) {
+            return false;
         }
+        checkVersion(previous, expectedVersion);
+        return updateEpic(epic);
+    }
+
+    @Override
+    public boolean removeEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            return false;
+        }
+        deleteEpic(epic);
         return true;
     }
 
@@ -268,103 +393,879 @@ public class InMemoryTaskManager implements TaskManager {
             return null;
         }
         List<Subtask> result = new ArrayList<>();
-        for (Integer subtaskId : epic.getSubtaskIds()) {
-            Subtask subtask = subtasks.get(subtaskId);
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = getSubtaskOrArchived(subtaskId);
             if (subtask != null) {
                 result.add(subtask);
             }
-        }
+        });
         return result;
     }
 
+    // Полный пересчёт эпика по списку его подзадач, O(k).
+    // При изменении одной подзадачи используются linkSubtaskToEpic и накопленные данные эпика
     protected void updateEpicFromSubtasks(Epic epic) {
-        TaskStatus epicStatus = calculateEpicStatus(epic);
-        if (epicStatus != null) {
-            epic.setStatus(epicStatus);
+        if (epic == null) {
+            return;
+        }
+        EpicAggregate aggregate = getEpicAggregate(epic);
+        aggregate.clear();
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = getSubtaskOrArchived(subtaskId);
+            if (subtask != null) {
+                aggregate.add(subtask);
+            }
+        });
+        applyEpicAggregate(epic, aggregate);
+    }
+
+    // Добавляет подзадачу в эпик и обновляет статус и время эпика за O(log k)
+    protected void linkSubtaskToEpic(Epic epic, Subtask subtask) {
+        epic.addSubtask(subtask.getId());
+        EpicAggregate aggregate = getEpicAggregate(epic);
+        aggregate.add(subtask);
+        applyEpicAggregate(epic, aggregate);
+    }
+
+    private static void checkVersion(Task current, int expectedVersion) {
+        if (current.getVersion() != expectedVersion) {
+            throw new VersionConflictException(current.getId(), expectedVersion, current.getVersion());
         }
-        updateEpicTime(epic);
     }
 
-    private TaskStatus calculateEpicStatus(Epic epic) {
-        if (epic == null) {
-            return null;
+    // Заменяет эпик новой версией, сохраняя список подзадач и рассчитанные статус и время
+    private void replaceEpic(Epic previous, Epic epic) {
+        putTaskToMap(epics, epic);
+        // если у нового эпика другой список подзадач, подменяем на правильный;
+        // сравнивать нужно, иначе всё сломается:
+        // если передать тот же объект - список очистится, и подзадачи потеряются
+        if (!Objects.equals(previous.getSubtaskIds(), epic.getSubtaskIds())) {
+            epic.clearSubtasks();
+            previous.forEachSubtaskId(epic::addSubtask);
         }
-        List<TaskStatus> taskStatuses = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .map(Subtask::getStatus)
-                .collect(Collectors.toList());
-        if (taskStatuses.isEmpty()) {
-            return TaskStatus.NEW;
+        // подзадачи не изменились, поэтому накопленные данные эпика остаются верными
+        applyEpicAggregate(epic, getEpicAggregate(epic));
+        historyManager.update(epic);
+    }
+
+    // Удаляет эпик вместе с его подзадачами
+    private void deleteEpic(Epic epic) {
+        removeTaskFromMap(epics, epic.getId());
+        epicAggregates.remove(epic.getId());
+        epic.forEachSubtaskId(subtaskId -> {
+            restoreArchived(subtaskId);
+            Subtask subtask = removeTaskFromMap(subtasks, subtaskId);
+            timeManager.removeTask(subtask);
+        });
+    }
+
+    private void applyEpicAggregate(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic != null) {
+            applyEpicAggregate(epic, getEpicAggregate(epic));
         }
-        if (taskStatuses.stream().anyMatch(TaskStatus.IN_PROGRESS::equals)) {
-            return TaskStatus.IN_PROGRESS;
+    }
+
+    // Переносит статус и время из накопленных данных в эпик; если статус изменился, обновляет индекс статусов.
+    // Внутри batchEpicUpdates только запоминает эпик: в конце переносятся его накопленные данные на тот момент
+    private void applyEpicAggregate(Epic epic, EpicAggregate aggregate) {
+        if (deferredEpicIds != null) {
+            deferredEpicIds.add(epic.getId());
+            return;
         }
-        if (taskStatuses.stream().allMatch(TaskStatus.NEW::equals)) {
-            return TaskStatus.NEW;
+        TaskStatus previousStatus = epic.getStatus();
+        long previousStartMinute = epic.getStartMinute();
+        long previousEndMinute = epic.getEndMinute();
+        int previousDuration = epic.getDuration();
+        aggregate.applyTo(epic);
+        if (epic.getStatus() != previousStatus) {
+            statusIndex.put(epic);
         }
-        if (taskStatuses.stream().allMatch(TaskStatus.DONE::equals)) {
-            return TaskStatus.DONE;
+        if (epic.getStatus() != previousStatus || previousDuration != epic.getDuration()
+                || previousStartMinute != epic.getStartMinute() || previousEndMinute != epic.getEndMinute()) {
+            // эпик изменён на месте, прежнего объекта нет
+            eventBus.publish(TaskEventType.UPDATED, null, epic);
         }
-        return TaskStatus.IN_PROGRESS;
     }
 
-    private void updateEpicTime(Epic epic) {
-        if (epic == null) {
+    // Выполняет несколько изменений, пересчитывая статус и время каждого затронутого эпика один раз в конце:
+    // накопленные данные эпиков обновляются при каждом изменении подзадачи, а в эпик, индекс статусов
+    // и событие UPDATED попадают после action. Пока action выполняется, статус и время эпиков отстают
+    // от подзадач, поэтому action не должен их читать. Вложенный вызов выполняется в рамках внешнего
+    public void batchEpicUpdates(Runnable action) {
+        if (deferredEpicIds != null) {
+            action.run();
             return;
         }
-        List<Subtask> validSubtasks = epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-        Optional<LocalDateTime> startTime = validSubtasks.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo);
-        Optional<LocalDateTime> endTime = validSubtasks.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo);
-        int duration = validSubtasks.stream()
-                .mapToInt(Subtask::getDuration)
-                .sum();
+        deferredEpicIds = new IntLinkedSet();
+        try {
+            action.run();
+        } finally {
+            IntLinkedSet epicIds = deferredEpicIds;
+            deferredEpicIds = null;
+            epicIds.forEach(this::applyEpicAggregate);
+        }
+    }
+
+    private EpicAggregate getEpicAggregate(Epic epic) {
+        EpicAggregate aggregate = epicAggregates.get(epic.getId());
+        if (aggregate == null) {
+            aggregate = new EpicAggregate();
+            epicAggregates.put(epic.getId(), aggregate);
+        }
+        return aggregate;
+    }
 
-        epic.setStartTime(startTime.orElse(null));
-        epic.setEndTime(endTime.orElse(null));
-        epic.setDuration(duration);
+    // Пакетное добавление: время всех задач проверяется за один проход (с существующими задачами
+    // и между собой), статус и время каждого затронутого эпика пересчитываются один раз.
+    // Если хотя бы одна задача не подходит, менеджер не меняется и id задачам не назначаются
+    @Override
+    public boolean addAll(List<? extends Task> newTasks) {
+        if (newTasks == null) {
+            return false;
+        }
+        Set<Task> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Task task : newTasks) {
+            if (task == null || !unique.add(task)) {
+                return false;
+            }
+            if (task.getType() == TaskType.SUBTASK && !epics.containsKey(((Subtask) task).getEpicId())) {
+                return false;
+            }
+        }
+        if (!timeManager.validateTasks(newTasks, List.of())) {
+            return false;
+        }
+        IntLinkedSet touchedEpicIds = new IntLinkedSet();
+        for (Task task : newTasks) {
+            applyAdd(task, touchedEpicIds);
+        }
+        touchedEpicIds.forEach(this::applyEpicAggregate);
+        return true;
+    }
+
+    // Пакетное обновление: все задачи должны существовать (с тем же типом, подзадачи - в том же эпике),
+    // id в пакете не должны повторяться, новое время проверяется за один проход.
+    // Если хотя бы одна задача не подходит, менеджер не меняется
+    @Override
+    public boolean updateAll(List<? extends Task> updatedTasks) {
+        if (updatedTasks == null) {
+            return false;
+        }
+        List<Task> previousTasks = new ArrayList<>(updatedTasks.size());
+        IntLinkedSet ids = new IntLinkedSet();
+        for (Task task : updatedTasks) {
+            if (task == null || !ids.add(task.getId())) {
+                return false;
+            }
+            Task previous = getAnyOrArchived(task.getId());
+            if (previous == null || previous.getType() != task.getType()) {
+                return false;
+            }
+            if (task.getType() == TaskType.SUBTASK
+                    && ((Subtask) task).getEpicId() != ((Subtask) previous).getEpicId()) {
+                return false;
+            }
+            previousTasks.add(previous);
+        }
+        if (!timeManager.validateTasks(updatedTasks, previousTasks)) {
+            return false;
+        }
+        restoreAllArchived(previousTasks);
+        // прежние версии убираются из TimeManager заранее: задачи пакета могут занимать время друг друга
+        for (Task previous : previousTasks) {
+            timeManager.removeTask(previous);
+        }
+        IntLinkedSet touchedEpicIds = new IntLinkedSet();
+        IntLinkedSet recalculatedEpicIds = new IntLinkedSet();
+        for (int i = 0; i < updatedTasks.size(); i++) {
+            applyUpdate(updatedTasks.get(i), previousTasks.get(i), touchedEpicIds, recalculatedEpicIds);
+        }
+        applyTouchedEpics(touchedEpicIds, recalculatedEpicIds);
+        return true;
+    }
+
+    @Override
+    public int removeAll(Collection<Integer> ids) {
+        if (ids == null) {
+            return 0;
+        }
+        int removedCount = 0;
+        IntLinkedSet touchedEpicIds = new IntLinkedSet();
+        for (Integer id : ids) {
+            if (id != null) {
+                restoreArchived(id);
+            }
+            Task task = id == null ? null : allTasks.get(id);
+            if (task == null) {
+                continue;
+            }
+            applyRemove(task, touchedEpicIds);
+            removedCount++;
+        }
+        touchedEpicIds.forEach(this::applyEpicAggregate);
+        return removedCount;
+    }
+
+    // Транзакция: все операции проверяются вместе, до каких-либо изменений - как и в пакетных методах,
+    // при неудаче менеджер не меняется, и откатывать нечего.
+    // Удаляемая задача должна существовать; удаляемые задачи (и подзадачи удаляемых эпиков) нельзя обновлять,
+    // одну задачу нельзя обновить дважды; новые подзадачи добавляются только в существующие и не удаляемые эпики.
+    // Время новых и обновлённых задач проверяется за один проход так, будто удаления и прежние версии
+    // обновляемых задач уже убраны. Затем применяются удаления, обновления и добавления,
+    // каждый затронутый эпик пересчитывается один раз
+    @Override
+    public boolean transaction(List<TaskOperation> operations) {
+        TransactionPlan plan = prepareTransaction(operations);
+        if (plan == null || !timeManager.validateTasks(plan.getValidatedTasks(), plan.getReplacedTasks())) {
+            return false;
+        }
+        applyTransaction(plan);
+        return true;
+    }
+
+    // Проверка операций транзакции без проверки времени; null - транзакция невозможна.
+    // Архивные задачи проверяются по их копиям из архива, в словари они возвращаются только в applyTransaction
+    TransactionPlan prepareTransaction(List<TaskOperation> operations) {
+        if (operations == null) {
+            return null;
+        }
+        TransactionPlan plan = new TransactionPlan();
+        IntLinkedSet removedIds = new IntLinkedSet();
+        for (TaskOperation operation : operations) {
+            if (operation == null) {
+                return null;
+            }
+            if (operation.getKind() == TaskOperation.Kind.REMOVE) {
+                Task task = getAnyOrArchived(operation.getId());
+                if (task == null) {
+                    return null;
+                }
+                if (removedIds.add(task.getId())) {
+                    plan.removedTasks.add(task);
+                }
+            }
+        }
+        // Подзадачи удаляемых эпиков; их время тоже освобождается
+        for (Task task : plan.removedTasks) {
+            if (task.getType() == TaskType.EPIC) {
+                ((Epic) task).forEachSubtaskId(subtaskId -> {
+                    if (removedIds.add(subtaskId)) {
+                        plan.cascadeRemovedTasks.add(getSubtaskOrArchived(subtaskId));
+                    }
+                });
+            }
+        }
+        IntLinkedSet updatedIds = new IntLinkedSet();
+        Set<Task> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TaskOperation operation : operations) {
+            Task task = operation.getTask();
+            switch (operation.getKind()) {
+                case UPDATE:
+                    if (task == null || removedIds.contains(task.getId()) || !updatedIds.add(task.getId())) {
+                        return null;
+                    }
+                    Task previous = getAnyOrArchived(task.getId());
+                    if (previous == null || previous.getType() != task.getType()) {
+                        return null;
+                    }
+                    if (task.getType() == TaskType.SUBTASK
+                            && ((Subtask) task).getEpicId() != ((Subtask) previous).getEpicId()) {
+                        return null;
+                    }
+                    plan.updatedTasks.add(task);
+                    plan.previousTasks.add(previous);
+                    break;
+                case ADD:
+                    if (task == null || !unique.add(task)) {
+                        return null;
+                    }
+                    if (task.getType() == TaskType.SUBTASK) {
+                        int epicId = ((Subtask) task).getEpicId();
+                        if (!epics.containsKey(epicId) || removedIds.contains(epicId)) {
+                            return null;
+                        }
+                    }
+                    plan.newTasks.add(task);
+                    break;
+            }
+        }
+        return plan;
+    }
+
+    // Применение проверенной транзакции (в том числе по времени); после применения у новых задач есть id
+    void applyTransaction(TransactionPlan plan) {
+        restoreAllArchived(plan.removedTasks);
+        restoreAllArchived(plan.cascadeRemovedTasks);
+        restoreAllArchived(plan.previousTasks);
+        IntLinkedSet touchedEpicIds = new IntLinkedSet();
+        IntLinkedSet recalculatedEpicIds = new IntLinkedSet();
+        for (Task task : plan.removedTasks) {
+            // подзадача могла быть удалена раньше вместе со своим эпиком
+            if (allTasks.get(task.getId()) != null) {
+                applyRemove(task, touchedEpicIds);
+            }
+        }
+        for (Task previous : plan.previousTasks) {
+            timeManager.removeTask(previous);
+        }
+        for (int i = 0; i < plan.updatedTasks.size(); i++) {
+            applyUpdate(plan.updatedTasks.get(i), plan.previousTasks.get(i), touchedEpicIds, recalculatedEpicIds);
+        }
+        for (Task task : plan.newTasks) {
+            applyAdd(task, touchedEpicIds);
+        }
+        applyTouchedEpics(touchedEpicIds, recalculatedEpicIds);
+    }
+
+    // Добавление уже проверенной задачи; статус и время эпика подзадачи не применяются, эпик попадает в touchedEpicIds
+    private void applyAdd(Task task, IntLinkedSet touchedEpicIds) {
+        task.setId(generateNextId());
+        task.setVersion(1);
+        switch (task.getType()) {
+            case TASK:
+                timeManager.addTask(putTaskToMap(tasks, task));
+                break;
+            case EPIC:
+                Epic epic = (Epic) task;
+                putTaskToMap(epics, epic);
+                updateEpicFromSubtasks(epic);
+                break;
+            case SUBTASK:
+                Subtask subtask = putTaskToMap(subtasks, (Subtask) task);
+                Epic subtaskEpic = epics.get(subtask.getEpicId());
+                subtaskEpic.addSubtask(subtask.getId());
+                getEpicAggregate(subtaskEpic).add(subtask);
+                touchedEpicIds.add(subtaskEpic.getId());
+                timeManager.addTask(subtask);
+                break;
+        }
+    }
+
+    // Обновление уже проверенной задачи; прежняя версия должна быть заранее убрана из TimeManager.
+    // Эпик подзадачи попадает в touchedEpicIds или, если передан тот же объект, в recalculatedEpicIds
+    private void applyUpdate(Task task, Task previous, IntLinkedSet touchedEpicIds, IntLinkedSet recalculatedEpicIds) {
+        switch (task.getType()) {
+            case TASK:
+                Task stored = putTaskToMap(tasks, task);
+                historyManager.update(stored);
+                timeManager.addTask(stored);
+                break;
+            case EPIC:
+                replaceEpic((Epic) previous, (Epic) task);
+                break;
+            case SUBTASK:
+                Subtask subtask = putTaskToMap(subtasks, (Subtask) task);
+                int epicId = subtask.getEpicId();
+                if (previous == subtask) {
+                    // тот же объект, возможно изменённый на месте - эпик пересчитывается полностью
+                    recalculatedEpicIds.add(epicId);
+                } else if (epics.containsKey(epicId)) {
+                    EpicAggregate aggregate = getEpicAggregate(epics.get(epicId));
+                    aggregate.remove((Subtask) previous);
+                    aggregate.add(subtask);
+                    touchedEpicIds.add(epicId);
+                }
+                historyManager.update(subtask);
+                timeManager.addTask(subtask);
+                break;
+        }
+    }
+
+    // Удаление существующей задачи; эпик удаляемой подзадачи попадает в touchedEpicIds
+    private void applyRemove(Task task, IntLinkedSet touchedEpicIds) {
+        switch (task.getType()) {
+            case TASK:
+                removeTaskFromMap(tasks, task.getId());
+                timeManager.removeTask(task);
+                break;
+            case EPIC:
+                deleteEpic((Epic) task);
+                break;
+            case SUBTASK:
+                Subtask subtask = removeTaskFromMap(subtasks, task.getId());
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.removeSubtask(subtask.getId());
+                    getEpicAggregate(epic).remove(subtask);
+                    touchedEpicIds.add(epic.getId());
+                }
+                timeManager.removeTask(subtask);
+                break;
+        }
+    }
+
+    // Эпик мог быть заменён или удалён в этом же пакете, поэтому эпики берутся по id уже после всех изменений
+    private void applyTouchedEpics(IntLinkedSet touchedEpicIds, IntLinkedSet recalculatedEpicIds) {
+        recalculatedEpicIds.forEach(epicId -> updateEpicFromSubtasks(epics.get(epicId)));
+        touchedEpicIds.forEach(epicId -> {
+            if (!recalculatedEpicIds.contains(epicId)) {
+                applyEpicAggregate(epicId);
+            }
+        });
     }
 
     @Override
     public List<Task> getHistory() {
-        return historyManager.getHistory();
+        return new ArrayList<>(historyManager.getHistory());
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(timeManager.getPrioritizedTasks());
+    }
+
+    // O(размер результата): id берутся из индекса статусов, задачи - из общего индекса.
+    // Архивные задачи выполнены, они добавляются в конец списка выполненных и распаковываются при чтении;
+    // список в любом случае можно менять
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        if (type == null || status == null) {
+            return result;
+        }
+        statusIndex.get(type, status).forEach(id -> result.add(allTasks.get(id)));
+        if (status == TaskStatus.DONE && type != TaskType.EPIC) {
+            return archive.appendToCopy(result, type);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> query(TaskQuery query) {
+        return query == null ? new ArrayList<>() : queryPlanner.execute(query);
+    }
+
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        return query == null ? null : queryPlanner.plan(query);
+    }
+
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy) {
+        return eventBus.subscribe(listener, policy);
+    }
+
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy,
+                                           TaskEventErrorHandler errorHandler) {
+        return eventBus.subscribe(listener, policy, errorHandler);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (SearchIndex.Hit hit : searchIndex.search(query, limit)) {
+            result.add(allTasks.get(hit.id));
+        }
+        return result;
+    }
+
+    // Для ShardedTaskManager: поиск по всем шардам с общей редкостью слов
+    SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    // Архивные задачи листаются вместе с остальными, на своих местах по порядку id
+    @Override
+    public List<Task> getTasks(Integer cursor, int limit) {
+        return getPageWithArchived(tasks, TaskType.TASK, cursor, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Integer cursor, int limit) {
+        return getPageWithArchived(subtasks, TaskType.SUBTASK, cursor, limit);
+    }
+
+    @Override
+    public List<Epic> getEpics(Integer cursor, int limit) {
+        return getPage(epics, cursor, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Integer cursor, int limit) {
+        Task after = null;
+        if (cursor != null) {
+            after = allTasks.get(cursor);
+            if (!timeManager.containsTask(after)) {
+                return null;    // задачи уже нет, место в порядке приоритета не определить
+            }
+        }
+        return limit > 0 ? timeManager.getPrioritizedTasks(after, limit) : new ArrayList<>();
+    }
+
+    // Копируется только окно: задачи берутся из представления TreeSet
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return new ArrayList<>(timeManager.getTasksBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getUpcoming(LocalDateTime now, int limit) {
+        return timeManager.getUpcoming(now, limit);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter) {
+        List<LocalDateTime> slots = timeManager.findFreeSlots(durationMinutes, notBefore, notAfter, 1);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        return timeManager.findFreeSlots(durationMinutes, notBefore, notAfter, limit);
+    }
+
+    // Снимок словаря строится один раз до его следующего изменения, архивные задачи идут после него
+    // и распаковываются при чтении
+    @Override
+    public List<Task> getTasksSnapshot() {
+        return archive.appendTo(tasks.snapshot(), TaskType.TASK);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksSnapshot() {
+        return archive.appendTo(subtasks.snapshot(), TaskType.SUBTASK);
+    }
+
+    @Override
+    public List<Epic> getEpicsSnapshot() {
+        return epics.snapshot();
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksSnapshot() {
         return timeManager.getPrioritizedTasks();
     }
 
-    private <V extends Task> V removeTaskFromMap(Map<Integer, V> map, int id) {
-        historyManager.remove(id);
-        return map.remove(id);
+    @Override
+    public Stream<Task> streamTasks() {
+        return getTasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return getSubtasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return getEpicsSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Task> streamPrioritizedTasks() {
+        return getPrioritizedTasksSnapshot().stream();
+    }
+
+    @Override
+    public Task getAny(int id) {
+        Task task = allTasks.get(id);
+        if (task == null && !archive.isEmpty()) {
+            task = archive.get(id);
+        }
+        historyManager.add(task);
+        return task;
     }
 
-    private <V extends Task> void clearTasksFromMap(Map<Integer, V> map) {
-        for (Integer id : map.keySet()) {
+    // Возраст, после которого выполненные задачи и подзадачи переносятся в архив; null - архив не ведётся
+    public void setArchiveAge(Duration archiveAge) {
+        this.archiveAge = archiveAge;
+    }
+
+    public Duration getArchiveAge() {
+        return archiveAge;
+    }
+
+    public int archiveDoneTasks() {
+        return archiveDoneTasks(LocalDateTime.now());
+    }
+
+    // Переносит в архив выполненные задачи и подзадачи, закончившиеся раньше, чем now - archiveAge.
+    // Задачи без времени (их возраст неизвестен), эпики и задачи из истории не архивируются.
+    // Архивные задачи не попадают в список по приоритету, поиск и запросы,
+    // но их время остаётся занятым: другая задача не может встать на него, пока архивная не удалена.
+    // Любое изменение возвращает задачу из архива в словари на её место по порядку id,
+    // а чтение (getTask, getSubtask, getAny, getTasks, getSubtasks и их страницы, getEpicsSubtasks, getByStatus)
+    // берёт её из архива, ничего не меняя, поэтому чтение не меняет ни состояние, ни порядок списков.
+    // Событий архивация не публикует: для клиентов задачи не меняются. Возвращает число перенесённых задач
+    public int archiveDoneTasks(LocalDateTime now) {
+        if (archiveAge == null || now == null) {
+            return 0;
+        }
+        LocalDateTime finishedBefore = now.minus(archiveAge);
+        IntLinkedSet viewedIds = new IntLinkedSet();
+        for (Task task : historyManager.getHistory()) {
+            viewedIds.add(task.getId());
+        }
+        List<Task> archived = new ArrayList<>();
+        IntLinkedSet archivedIds = new IntLinkedSet();
+        for (Task task : allTasks.values()) {
+            if (task.getType() != TaskType.EPIC && task.getStatus() == TaskStatus.DONE
+                    && task.getStartMinute() != Task.NO_TIME && task.getEndTime().isBefore(finishedBefore)
+                    && !viewedIds.contains(task.getId())) {
+                archived.add(task);
+                archivedIds.add(task.getId());
+            }
+        }
+        if (archived.isEmpty()) {
+            return 0;
+        }
+        archive.addAll(archived);
+        timeManager.removeTasks(task -> archivedIds.contains(task.getId()));
+        for (Task task : archived) {
+            timeManager.reserveTime(task);
+            if (task.getType() == TaskType.SUBTASK) {
+                subtasks.remove(task.getId());
+            } else {
+                tasks.remove(task.getId());
+            }
+            statusIndex.remove(task.getType(), task.getId());
+            releaseRecord(task);
+        }
+        removeFromIndexes(archived, archivedIds::contains);
+        return archived.size();
+    }
+
+    // Сколько задач в архиве и сколько байт занимают их сжатые блоки
+    public int getArchivedCount() {
+        return archive.size();
+    }
+
+    public long getArchivedBytes() {
+        return archive.getCompressedBytes();
+    }
+
+    // Память вне кучи под записи задач; 0, если задачи хранятся в куче
+    public long getOffHeapBytes() {
+        return records == null ? 0 : records.getOffHeapBytes();
+    }
+
+    // Возвращает задачу из архива в словари и индексы; событий нет - для клиентов задача не менялась.
+    // Результат - задача в словаре или null, если в архиве её не было
+    private Task restoreArchived(int id) {
+        if (archive.isEmpty()) {
+            return null;
+        }
+        Task archived = archive.remove(id);
+        if (archived == null) {
+            return null;
+        }
+        Task task = records == null ? archived : records.store(archived);
+        if (task.getType() == TaskType.SUBTASK) {
+            subtasks.putInKeyOrder(id, (Subtask) task);
+        } else {
+            tasks.putInKeyOrder(id, task);
+        }
+        allTasks.putInKeyOrder(id, task);
+        statusIndex.put(task);
+        searchIndex.put(task);
+        // время задачи всё это время было занято за ней, поэтому проверять пересечения не нужно
+        timeManager.releaseTime(id);
+        timeManager.addTask(task);
+        return task;
+    }
+
+    // Задачи списка, взятые из архива при проверке операции, возвращаются в словари;
+    // в списке копии из архива заменяются задачами из словарей
+    private void restoreAllArchived(List<Task> checkedTasks) {
+        if (archive.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < checkedTasks.size(); i++) {
+            Task restored = restoreArchived(checkedTasks.get(i).getId());
+            if (restored != null) {
+                checkedTasks.set(i, restored);
+            }
+        }
+    }
+
+    private void clearArchived(TaskType type) {
+        for (Task task : archive.clear(type)) {
+            timeManager.releaseTime(task.getId());
+            historyManager.remove(task.getId());     // архивная задача могла попасть в историю при чтении
+            eventBus.publish(TaskEventType.REMOVED, task, null);
+        }
+    }
+
+    // Подзадача из словаря или, если её там нет, из архива - без возврата в словари
+    private Subtask getSubtaskOrArchived(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null && !archive.isEmpty()) {
+            subtask = (Subtask) getArchived(id, TaskType.SUBTASK);
+        }
+        return subtask;
+    }
+
+    // Задача любого типа из словаря или из архива - без возврата в словари
+    private Task getAnyOrArchived(int id) {
+        Task task = allTasks.get(id);
+        if (task == null && !archive.isEmpty()) {
+            task = archive.get(id);
+        }
+        return task;
+    }
+
+    // Задача нужного типа из архива или null
+    private Task getArchived(int id, TaskType type) {
+        Task task = archive.get(id);
+        return task != null && task.getType() == type ? task : null;
+    }
+
+    private static <V extends Task> List<V> getPage(IntHashMap<V> map, Integer cursor, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        return map.valuesAfter(cursor == null ? Integer.MIN_VALUE : cursor, limit);
+    }
+
+    // Страница словаря и страница архива после того же курсора сливаются по id; курсором может быть и id
+    // архивной задачи. Из архива распаковываются только задачи его страницы
+    private <V extends Task> List<V> getPageWithArchived(IntHashMap<V> map, TaskType type, Integer cursor,
+                                                         int limit) {
+        List<V> page = getPage(map, cursor, limit);
+        if (limit <= 0 || archive.isEmpty()) {
+            return page;
+        }
+        List<V> archived = archive.pageAfter(type, cursor == null ? Integer.MIN_VALUE : cursor, limit);
+        if (archived.isEmpty()) {
+            return page;
+        }
+        List<V> result = new ArrayList<>(Math.min(limit, page.size() + archived.size()));
+        int i = 0;
+        int j = 0;
+        while (result.size() < limit && (i < page.size() || j < archived.size())) {
+            if (j == archived.size() || i < page.size() && page.get(i).getId() < archived.get(j).getId()) {
+                result.add(page.get(i++));
+            } else {
+                result.add(archived.get(j++));
+            }
+        }
+        return result;
+    }
+
+    // Добавляет задачу в словарь её типа и в общий индекс; замещающая задача получает следующую версию.
+    // Возвращает хранимый объект: саму задачу или, с записями вне кучи, её представление
+    protected <V extends Task> V putTaskToMap(IntHashMap<V> map, V task) {
+        V previous = map.get(task.getId());
+        if (previous != null) {
+            task.setVersion(previous.getVersion() + 1);
+        }
+        V stored = records == null ? task : records.store(task, previous);
+        map.put(task.getId(), stored);
+        allTasks.put(task.getId(), stored);
+        statusIndex.put(stored);
+        searchIndex.put(stored);
+        if (previous != null && previous != stored) {
+            releaseRecord(previous);
+        }
+        eventBus.publish(previous == null ? TaskEventType.ADDED : TaskEventType.UPDATED, previous, stored);
+        return stored;
+    }
+
+    private <V extends Task> V removeTaskFromMap(IntHashMap<V> map, int id) {
+        V removed = map.remove(id);
+        if (removed != null) {
+            // Если id принадлежит задаче другого типа, её нельзя трогать ни в индексах, ни в истории
+            allTasks.remove(id);
+            statusIndex.remove(removed.getType(), id);
+            searchIndex.remove(id);
             historyManager.remove(id);
+            releaseRecord(removed);
+            eventBus.publish(TaskEventType.REMOVED, removed, null);
+        }
+        return removed;
+    }
+
+    // Задача ушла из словарей: её запись вне кучи освобождается, а представление переходит на копию в куче
+    private void releaseRecord(Task task) {
+        if (records != null) {
+            records.release(task);
+        }
+    }
+
+    // Очистка словаря одного типа целиком: история перестраивается одним проходом, индекс статусов типа
+    // сбрасывается разом
+    private <V extends Task> void clearTasksFromMap(IntHashMap<V> map, TaskType type) {
+        if (map.isEmpty()) {
+            return;
         }
+        historyManager.removeIf(task -> map.containsKey(task.getId()));
+        removeFromIndexes(map.values(), map::containsKey);
+        for (V task : map.values()) {
+            releaseRecord(task);
+            eventBus.publish(TaskEventType.REMOVED, task, null);
+        }
+        statusIndex.clear(type);
         map.clear();
     }
 
+    // Убирает задачи из общего и поискового индексов. Если остаётся меньше задач, чем убирается,
+    // индексы строятся заново по оставшимся задачам - это дешевле, чем убирать из них каждую задачу
+    private void removeFromIndexes(Collection<? extends Task> removed, IntPredicate isRemoved) {
+        if (allTasks.size() - removed.size() < removed.size()) {
+            List<Task> remaining = new ArrayList<>(allTasks.size() - removed.size());
+            for (Task task : allTasks.values()) {
+                if (!isRemoved.test(task.getId())) {
+                    remaining.add(task);
+                }
+            }
+            allTasks.clear();
+            searchIndex.clear();
+            for (Task task : remaining) {
+                allTasks.put(task.getId(), task);
+                searchIndex.put(task);
+            }
+        } else {
+            for (Task task : removed) {
+                allTasks.remove(task.getId());
+                searchIndex.remove(task.getId());
+            }
+        }
+    }
+
     //Ищет задачу любого типа по id; если не нашел, возвращает null
     protected Task getAnyTaskById(int id) {
-        Task task = tasks.get(id);
-        if (task == null) {
-            task = epics.get(id);
+        return allTasks.get(id);
+    }
+
+    // Проверенная транзакция: задачи, которые она удаляет, заменяет и добавляет
+    static class TransactionPlan {
+        private final List<Task> removedTasks = new ArrayList<>();
+        private final List<Task> cascadeRemovedTasks = new ArrayList<>();   // подзадачи удаляемых эпиков
+        private final List<Task> updatedTasks = new ArrayList<>();
+        private final List<Task> previousTasks = new ArrayList<>();         // прежние версии updatedTasks
+        private final List<Task> newTasks = new ArrayList<>();
+
+        // Задачи, время которых нужно проверить: новые версии и новые задачи.
+        // Время эпика рассчитывается по подзадачам, поэтому эпики не проверяются
+        List<Task> getValidatedTasks() {
+            List<Task> result = new ArrayList<>();
+            for (Task task : updatedTasks) {
+                if (task.getType() != TaskType.EPIC) {
+                    result.add(task);
+                }
+            }
+            for (Task task : newTasks) {
+                if (task.getType() != TaskType.EPIC) {
+                    result.add(task);
+                }
+            }
+            return result;
         }
-        if (task == null) {
-            task = subtasks.get(id);
+
+        // Задачи, время которых освобождается: прежние версии и удаляемые задачи
+        List<Task> getReplacedTasks() {
+            List<Task> result = new ArrayList<>(previousTasks);
+            result.addAll(removedTasks);
+            result.addAll(cascadeRemovedTasks);
+            return result;
         }
-        return task;
     }
 }
\ No newline at end of file
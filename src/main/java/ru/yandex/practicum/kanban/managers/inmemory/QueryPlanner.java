@@ -0,0 +1,156 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.managers.TimeManager;
+import ru.yandex.practicum.kanban.managers.query.QueryPlan;
+import ru.yandex.practicum.kanban.managers.query.QuerySource;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
+import ru.yandex.practicum.kanban.tasks.*;
+import ru.yandex.practicum.kanban.util.collections.IntHashMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+
+// Планировщик запросов: для каждого источника, подходящего под условия запроса, оценивает
+// число кандидатов и выбирает источник с наименьшим. Все условия запроса затем проверяются
+// для каждого кандидата, поэтому источник влияет только на скорость, но не на результат.
+// Размер диапазона в TimeManager заранее неизвестен, поэтому он считается последним
+// и не дальше лучшей из уже найденных оценок.
+class QueryPlanner {
+    private final IntHashMap<Task> tasks;
+    private final IntHashMap<Epic> epics;
+    private final IntHashMap<Subtask> subtasks;
+    private final IntHashMap<Task> allTasks;
+    private final StatusIndex statusIndex;
+    private final TimeManager timeManager;
+
+    QueryPlanner(IntHashMap<Task> tasks, IntHashMap<Epic> epics, IntHashMap<Subtask> subtasks,
+                 IntHashMap<Task> allTasks, StatusIndex statusIndex, TimeManager timeManager) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.allTasks = allTasks;
+        this.statusIndex = statusIndex;
+        this.timeManager = timeManager;
+    }
+
+    QueryPlan plan(TaskQuery query) {
+        List<String> candidates = new ArrayList<>();
+        QuerySource best = QuerySource.FULL_SCAN;
+        int bestCost = allTasks.size();
+        candidates.add(QuerySource.FULL_SCAN + ": " + bestCost);
+
+        TaskType type = query.getType();
+        if (type != null) {
+            int cost = getTypeMap(type).size();
+            candidates.add(QuerySource.TYPE_SCAN + ": " + cost);
+            if (cost < bestCost) {
+                best = QuerySource.TYPE_SCAN;
+                bestCost = cost;
+            }
+        }
+        if (query.getEpicId() != null && (type == null || type == TaskType.SUBTASK)) {
+            Epic epic = epics.get(query.getEpicId());
+            int cost = epic == null ? 0 : epic.getSubtaskIds().size();
+            candidates.add(QuerySource.EPIC_SUBTASKS + ": " + cost);
+            if (cost < bestCost) {
+                best = QuerySource.EPIC_SUBTASKS;
+                bestCost = cost;
+            }
+        }
+        if (query.getStatus() != null) {
+            int cost = 0;
+            for (TaskType statusType : getTypes(type)) {
+                cost += statusIndex.get(statusType, query.getStatus()).size();
+            }
+            candidates.add(QuerySource.STATUS_INDEX + ": " + cost);
+            if (cost < bestCost) {
+                best = QuerySource.STATUS_INDEX;
+                bestCost = cost;
+            }
+        }
+        // Эпиков в TimeManager нет: если тип не задан, к диапазону добавляется перебор эпиков
+        if (query.hasStartTimeRange() && type != TaskType.EPIC) {
+            int epicsCost = type == null ? epics.size() : 0;
+            int cost = epicsCost + countUpTo(getTimeRange(query), Math.max(bestCost - epicsCost, 0));
+            if (cost < bestCost) {
+                candidates.add(QuerySource.TIME_INDEX + ": " + cost);
+                best = QuerySource.TIME_INDEX;
+                bestCost = cost;
+            } else {
+                candidates.add(QuerySource.TIME_INDEX + ": >= " + cost);
+            }
+        }
+        return new QueryPlan(best, bestCost, candidates, query.describeConditions());
+    }
+
+    // Порядок результата зависит от выбранного источника
+    List<Task> execute(TaskQuery query) {
+        List<Task> result = new ArrayList<>();
+        forEachCandidate(query, plan(query).getSource(), task -> {
+            if (query.matches(task)) {
+                result.add(task);
+            }
+        });
+        return result;
+    }
+
+    private void forEachCandidate(TaskQuery query, QuerySource source, Consumer<Task> action) {
+        switch (source) {
+            case EPIC_SUBTASKS:
+                Epic epic = epics.get(query.getEpicId());
+                if (epic != null) {
+                    epic.forEachSubtaskId(id -> action.accept(subtasks.get(id)));
+                }
+                break;
+            case STATUS_INDEX:
+                for (TaskType type : getTypes(query.getType())) {
+                    statusIndex.get(type, query.getStatus()).forEach(id -> action.accept(allTasks.get(id)));
+                }
+                break;
+            case TIME_INDEX:
+                getTimeRange(query).forEach(action);
+                if (query.getType() == null) {
+                    epics.values().forEach(action);
+                }
+                break;
+            case TYPE_SCAN:
+                getTypeMap(query.getType()).values().forEach(action);
+                break;
+            default:
+                allTasks.values().forEach(action);
+        }
+    }
+
+    private SortedSet<Task> getTimeRange(TaskQuery query) {
+        return timeManager.getTasksStartingBetween(query.getStartFrom(), query.getStartTo());
+    }
+
+    private IntHashMap<? extends Task> getTypeMap(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return epics;
+            case SUBTASK:
+                return subtasks;
+            default:
+                return tasks;
+        }
+    }
+
+    private static TaskType[] getTypes(TaskType type) {
+        return type == null ? TaskType.values() : new TaskType[]{type};
+    }
+
+    // Размер множества, но считается не дальше limit
+    private static int countUpTo(SortedSet<Task> set, int limit) {
+        int count = 0;
+        Iterator<Task> iterator = set.iterator();
+        while (count < limit && iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+}
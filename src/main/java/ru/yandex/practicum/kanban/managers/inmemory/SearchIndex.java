@@ -0,0 +1,214 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.util.collections.IntHashMap;
+import ru.yandex.practicum.kanban.util.collections.IntLinkedSet;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+// Обратный индекс для полнотекстового поиска: слово -> id задач, в названии или описании которых оно есть.
+// Ведётся вместе со словарями задач. Для каждой задачи хранятся её проиндексированные слова,
+// чтобы при изменении или удалении убрать именно их, даже если объект задачи изменили на месте.
+// Слова - последовательности букв и цифр (кириллица и латиница) в нижнем регистре, "ё" заменяется на "е".
+// Слово запроса совпадает со словом задачи целиком или как начало слова (от MIN_PREFIX_LENGTH символов) -
+// так "задач" находит и "задача", и "задачи". Оценка задачи - сумма по словам запроса:
+// вес поля (название важнее описания) * редкость слова запроса (idf, считается по всем подошедшим словам);
+// совпадение по началу слова весит меньше полного совпадения даже в менее важном поле
+class SearchIndex {
+    static final int MIN_PREFIX_LENGTH = 3;
+    private static final double NAME_WEIGHT = 2;
+    private static final double DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.4;
+    // Порядок результатов search - для слияния результатов нескольких индексов
+    static final Comparator<Hit> RANK_ORDER = (hit1, hit2) -> {
+        int compare = Double.compare(hit2.score, hit1.score);
+        return compare != 0 ? compare : Integer.compare(hit1.id, hit2.id);
+    };
+
+    // TreeMap - чтобы находить все слова с заданным началом
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final IntHashMap<IndexedTerms> indexedTerms = new IntHashMap<>();
+
+    // Добавляет задачу или переиндексирует её текущие название и описание
+    void put(Task task) {
+        remove(task.getId());
+        IndexedTerms terms = new IndexedTerms(tokenize(task.getName()).toArray(new String[0]),
+                tokenize(task.getDescription()).toArray(new String[0]));
+        if (terms.name.length == 0 && terms.description.length == 0) {
+            return;
+        }
+        for (String term : terms.name) {
+            postings.computeIfAbsent(term, key -> new Postings()).name.add(task.getId());
+        }
+        for (String term : terms.description) {
+            postings.computeIfAbsent(term, key -> new Postings()).description.add(task.getId());
+        }
+        indexedTerms.put(task.getId(), terms);
+    }
+
+    void remove(int id) {
+        IndexedTerms terms = indexedTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.name) {
+            Postings termPostings = postings.get(term);
+            termPostings.name.remove(id);
+            removeIfEmpty(term, termPostings);
+        }
+        for (String term : terms.description) {
+            Postings termPostings = postings.get(term);
+            termPostings.description.remove(id);
+            removeIfEmpty(term, termPostings);
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        indexedTerms.clear();
+    }
+
+    // Не больше limit задач с наибольшей оценкой, по убыванию оценки (при равной - по возрастанию id)
+    Hit[] search(String query, int limit) {
+        return search(query, limit, this::countMatches, size());
+    }
+
+    // Поиск по одному из нескольких индексов (шардов): чтобы оценки разных индексов можно было сравнивать,
+    // редкость слов считается по общим числам - всех задач (documentCount) и совпадений слова (matchCounter)
+    Hit[] search(String query, int limit, ToIntFunction<String> matchCounter, int documentCount) {
+        Set<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new Hit[0];
+        }
+        IntHashMap<double[]> scores = new IntHashMap<>();
+        for (String queryTerm : queryTerms) {
+            Map<String, Postings> matches = getMatches(queryTerm);
+            if (matches.isEmpty()) {
+                continue;
+            }
+            double idf = Math.log(1 + (double) documentCount / matchCounter.applyAsInt(queryTerm));
+            for (Map.Entry<String, Postings> match : matches.entrySet()) {
+                Postings termPostings = match.getValue();
+                double factor = match.getKey().equals(queryTerm) ? idf : idf * PREFIX_FACTOR;
+                addScores(scores, termPostings.name, NAME_WEIGHT * factor);
+                addScores(scores, termPostings.description, DESCRIPTION_WEIGHT * factor);
+            }
+        }
+        return selectTop(scores, limit);
+    }
+
+    // Число задач со словом запроса - сверху, задача с несколькими подошедшими словами считается несколько раз
+    int countMatches(String queryTerm) {
+        int matchCount = 0;
+        for (Postings termPostings : getMatches(queryTerm).values()) {
+            matchCount += termPostings.name.size() + termPostings.description.size();
+        }
+        return matchCount;
+    }
+
+    // Число проиндексированных задач
+    int size() {
+        return indexedTerms.size();
+    }
+
+    // Слова текста без повторов, в порядке появления
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                term.append(c == 'ё' ? 'е' : c);
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    // Слова задач, подходящие к слову запроса: целиком или, для длинных слов запроса, по началу
+    private Map<String, Postings> getMatches(String queryTerm) {
+        return queryTerm.length() < MIN_PREFIX_LENGTH
+                ? postings.subMap(queryTerm, true, queryTerm, true)
+                : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false);
+    }
+
+    private void removeIfEmpty(String term, Postings termPostings) {
+        if (termPostings.name.isEmpty() && termPostings.description.isEmpty()) {
+            postings.remove(term);
+        }
+    }
+
+    private static void addScores(IntHashMap<double[]> scores, IntLinkedSet ids, double weight) {
+        ids.forEach(id -> {
+            double[] score = scores.get(id);
+            if (score == null) {
+                scores.put(id, new double[]{weight});
+            } else {
+                score[0] += weight;
+            }
+        });
+    }
+
+    // Отбор лучших через кучу размера limit, без сортировки всех найденных задач
+    private static Hit[] selectTop(IntHashMap<double[]> scores, int limit) {
+        Comparator<Integer> byRank = (id1, id2) -> {
+            int compare = Double.compare(scores.get(id2)[0], scores.get(id1)[0]);
+            return compare != 0 ? compare : Integer.compare(id1, id2);
+        };
+        // В вершине кучи - худшая из отобранных задач
+        PriorityQueue<Integer> top = new PriorityQueue<>(byRank.reversed());
+        PrimitiveIterator.OfInt ids = scores.keyIterator();
+        while (ids.hasNext()) {
+            int id = ids.nextInt();
+            if (top.size() < limit) {
+                top.add(id);
+            } else if (byRank.compare(id, top.peek()) < 0) {
+                top.poll();
+                top.add(id);
+            }
+        }
+        Hit[] result = new Hit[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            int id = top.poll();
+            result[i] = new Hit(id, scores.get(id)[0]);
+        }
+        return result;
+    }
+
+    // Найденная задача с её оценкой
+    static class Hit {
+        final int id;
+        final double score;
+
+        Hit(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private static class Postings {
+        private final IntLinkedSet name = new IntLinkedSet();
+        private final IntLinkedSet description = new IntLinkedSet();
+    }
+
+    // Массивы, а не множества - их хранится по одному на задачу
+    private static class IndexedTerms {
+        private final String[] name;
+        private final String[] description;
+
+        private IndexedTerms(String[] name, String[] description) {
+            this.name = name;
+            this.description = description;
+        }
+    }
+}
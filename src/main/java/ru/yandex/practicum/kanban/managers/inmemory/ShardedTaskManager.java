@@ -0,0 +1,842 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.managers.HistoryManager;
+import ru.yandex.practicum.kanban.managers.Managers;
+import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.TaskOperation;
+import ru.yandex.practicum.kanban.managers.TimeManager;
+import ru.yandex.practicum.kanban.managers.events.EventBus;
+import ru.yandex.practicum.kanban.managers.events.OverflowPolicy;
+import ru.yandex.practicum.kanban.managers.events.TaskEventErrorHandler;
+import ru.yandex.practicum.kanban.managers.events.TaskEventListener;
+import ru.yandex.practicum.kanban.managers.query.QueryPlan;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+// Потокобезопасный менеджер задач из нескольких шардов - InMemoryTaskManager со своими блокировками,
+// чтобы изменения в разных шардах шли параллельно, а не по одному, как в ConcurrentTaskManager.
+// Задачи и эпики распределяются по шардам по очереди, подзадача попадает в шард своего эпика,
+// поэтому пересчёт эпика не выходит за пределы шарда.
+// id выдаются блоками по ID_BLOCK_SIZE: шард i выдаёт id из блоков i, i + shardCount, i + 2 * shardCount...,
+// поэтому шард задачи вычисляется по её id (shardOf).
+// Пересечение по времени нужно проверять с задачами всех шардов, поэтому задачи со временем ещё хранятся
+// в общем TimeManager под отдельной блокировкой. Её берут только изменения задач со временем,
+// пакетные изменения и транзакции - они выполняются по одному; изменения задач без времени и эпиков
+// идут параллельно в разных шардах.
+// Общие списки собираются слиянием упорядоченных списков шардов под блокировками чтения всех шардов.
+// Снимки (getTasksSnapshot и т.д.) собираются из снимков шардов и запоминаются: пока ни один шард
+// не изменился, повторное чтение проверяет только снимки шардов и отдаёт прежний результат.
+// История и шина событий общие для всех шардов.
+// Блокировки берутся в одном порядке: шарды по возрастанию номера, затем блокировка времени
+public class ShardedTaskManager implements TaskManager {
+    public static final int ID_BLOCK_SIZE = 1024;
+    private static final Comparator<Task> ID_ORDER = Comparator.comparingInt(Task::getId);
+
+    private final Shard[] shards;
+    private final ReentrantReadWriteLock[] locks;
+    // Задачи со временем из всех шардов - только для проверки пересечений
+    private final TimeManager timeManager;
+    private final Lock timeLock;
+    private final HistoryManager historyManager;
+    private final EventBus eventBus;
+    // Счётчик для выбора шарда новой задачи или эпика
+    private final AtomicInteger nextShard;
+    private final MergedSnapshot<Task> tasksSnapshot = new MergedSnapshot<>(ID_ORDER);
+    private final MergedSnapshot<Subtask> subtasksSnapshot = new MergedSnapshot<>(ID_ORDER);
+    private final MergedSnapshot<Epic> epicsSnapshot = new MergedSnapshot<>(ID_ORDER);
+    private final MergedSnapshot<Task> prioritizedSnapshot = new MergedSnapshot<>(TimeManager.PRIORITY_ORDER);
+
+    public ShardedTaskManager(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным: " + shardCount);
+        }
+        timeManager = new TimeManager();
+        timeLock = new ReentrantLock();
+        historyManager = new SynchronizedHistoryManager(Managers.getDefaultHistory());
+        eventBus = new EventBus();
+        nextShard = new AtomicInteger();
+        shards = new Shard[shardCount];
+        locks = new ReentrantReadWriteLock[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(historyManager, eventBus, i, shardCount);
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Номер шарда, выдающего этот id
+    public int shardOf(int id) {
+        return Math.floorMod(Math.floorDiv(id, ID_BLOCK_SIZE), shards.length);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(getTasksSnapshot());
+    }
+
+    @Override
+    public List<Task> getTasksSnapshot() {
+        return readAll(() -> tasksSnapshot.get(collect(Shard::getTasksSnapshot)));
+    }
+
+    @Override
+    public void clearTasks() {
+        writeAll(() -> {
+            timeManager.removeTasks(task -> task.getType() == TaskType.TASK);
+            for (Shard shard : shards) {
+                shard.clearTasks();
+            }
+        });
+    }
+
+    @Override
+    public Task getTask(int id) {
+        int index = shardOf(id);
+        return read(index, () -> shards[index].getTask(id));
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        if (task == null) {
+            return null;
+        }
+        int index = nextShardIndex();
+        return writeShard(index, task, List::of, () -> shards[index].addTask(task) != null) ? task : null;
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        if (task == null) {
+            return false;
+        }
+        int index = shardOf(task.getId());
+        return writeShard(index, task, () -> getPrevious(index, task.getId()), () -> shards[index].updateTask(task));
+    }
+
+    @Override
+    public boolean updateTask(Task task, int expectedVersion) {
+        if (task == null) {
+            return false;
+        }
+        int index = shardOf(task.getId());
+        return writeShard(index, task, () -> getPrevious(index, task.getId()),
+                () -> shards[index].updateTask(task, expectedVersion));
+    }
+
+    @Override
+    public boolean removeTask(int id) {
+        int index = shardOf(id);
+        return writeShard(index, null, () -> getRemoved(index, List.of(id)), () -> shards[index].removeTask(id));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return new ArrayList<>(getSubtasksSnapshot());
+    }
+
+    @Override
+    public List<Subtask> getSubtasksSnapshot() {
+        return readAll(() -> subtasksSnapshot.get(collect(Shard::getSubtasksSnapshot)));
+    }
+
+    @Override
+    public void clearSubtasks() {
+        writeAll(() -> {
+            timeManager.removeTasks(task -> task.getType() == TaskType.SUBTASK);
+            for (Shard shard : shards) {
+                shard.clearSubtasks();
+            }
+        });
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        int index = shardOf(id);
+        return read(index, () -> shards[index].getSubtask(id));
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask subtask) {
+        if (subtask == null) {
+            return null;
+        }
+        int index = shardOf(subtask.getEpicId());
+        return writeShard(index, subtask, List::of, () -> shards[index].addSubtask(subtask) != null)
+                ? subtask : null;
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        if (subtask == null) {
+            return false;
+        }
+        int index = shardOf(subtask.getId());
+        return writeShard(index, subtask, () -> getPrevious(index, subtask.getId()),
+                () -> shards[index].updateSubtask(subtask));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask, int expectedVersion) {
+        if (subtask == null) {
+            return false;
+        }
+        int index = shardOf(subtask.getId());
+        return writeShard(index, subtask, () -> getPrevious(index, subtask.getId()),
+                () -> shards[index].updateSubtask(subtask, expectedVersion));
+    }
+
+    @Override
+    public boolean removeSubtask(int id) {
+        int index = shardOf(id);
+        return writeShard(index, null, () -> getRemoved(index, List.of(id)), () -> shards[index].removeSubtask(id));
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(getEpicsSnapshot());
+    }
+
+    @Override
+    public List<Epic> getEpicsSnapshot() {
+        return readAll(() -> epicsSnapshot.get(collect(Shard::getEpicsSnapshot)));
+    }
+
+    // Вместе с эпиками удаляются все подзадачи
+    @Override
+    public void clearEpics() {
+        writeAll(() -> {
+            timeManager.removeTasks(task -> task.getType() == TaskType.SUBTASK);
+            for (Shard shard : shards) {
+                shard.clearEpics();
+            }
+        });
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        int index = shardOf(id);
+        return read(index, () -> shards[index].getEpic(id));
+    }
+
+    // Время эпика рассчитывается по подзадачам и в проверке пересечений не участвует
+    @Override
+    public Epic addEpic(Epic epic) {
+        if (epic == null) {
+            return null;
+        }
+        int index = nextShardIndex();
+        return writeShard(index, null, List::of, () -> shards[index].addEpic(epic) != null) ? epic : null;
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        if (epic == null) {
+            return false;
+        }
+        int index = shardOf(epic.getId());
+        return writeShard(index, null, List::of, () -> shards[index].updateEpic(epic));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic, int expectedVersion) {
+        if (epic == null) {
+            return false;
+        }
+        int index = shardOf(epic.getId());
+        return writeShard(index, null, List::of, () -> shards[index].updateEpic(epic, expectedVersion));
+    }
+
+    @Override
+    public boolean removeEpic(int id) {
+        int index = shardOf(id);
+        return writeShard(index, null, () -> getRemoved(index, List.of(id)), () -> shards[index].removeEpic(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicsSubtasks(int epicId) {
+        int index = shardOf(epicId);
+        return read(index, () -> shards[index].getEpicsSubtasks(epicId));
+    }
+
+    @Override
+    public Task getAny(int id) {
+        int index = shardOf(id);
+        return read(index, () -> shards[index].getAny(id));
+    }
+
+    @Override
+    public boolean addAll(List<? extends Task> tasks) {
+        if (tasks == null) {
+            return false;
+        }
+        List<TaskOperation> operations = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            operations.add(TaskOperation.add(task));
+        }
+        return transaction(operations);
+    }
+
+    @Override
+    public boolean updateAll(List<? extends Task> tasks) {
+        if (tasks == null) {
+            return false;
+        }
+        List<TaskOperation> operations = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            operations.add(TaskOperation.update(task));
+        }
+        return transaction(operations);
+    }
+
+    // Удаление идёт по шардам по очереди: задачи одного шарда удаляются вместе,
+    // но другие потоки могут увидеть удаление из одних шардов раньше, чем из других
+    @Override
+    public int removeAll(Collection<Integer> ids) {
+        if (ids == null) {
+            return 0;
+        }
+        List<List<Integer>> idsByShard = newLists();
+        for (Integer id : ids) {
+            if (id != null) {
+                idsByShard.get(shardOf(id)).add(id);
+            }
+        }
+        int[] removedCount = new int[1];
+        for (int i = 0; i < shards.length; i++) {
+            List<Integer> shardIds = idsByShard.get(i);
+            if (shardIds.isEmpty()) {
+                continue;
+            }
+            int index = i;
+            writeShard(index, null, () -> getRemoved(index, shardIds), () -> {
+                removedCount[0] += shards[index].removeAll(shardIds);
+                return true;
+            });
+        }
+        return removedCount[0];
+    }
+
+    // Операции делятся по шардам, каждый шард проверяет свою часть (без времени), затем время
+    // всех новых и обновлённых задач проверяется по общему TimeManager, и только потом части применяются.
+    // Всё это идёт под блокировками записи затронутых шардов и блокировкой времени
+    @Override
+    public boolean transaction(List<TaskOperation> operations) {
+        if (operations == null) {
+            return false;
+        }
+        List<List<TaskOperation>> operationsByShard = newLists();
+        // Один объект нельзя добавить дважды, даже если копии попали бы в разные шарды
+        Set<Task> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TaskOperation operation : operations) {
+            if (operation == null) {
+                return false;
+            }
+            int index;
+            if (operation.getKind() == TaskOperation.Kind.ADD) {
+                Task task = operation.getTask();
+                if (task == null || !unique.add(task)) {
+                    return false;
+                }
+                index = task.getType() == TaskType.SUBTASK ? shardOf(((Subtask) task).getEpicId()) : nextShardIndex();
+            } else {
+                index = shardOf(operation.getId());
+            }
+            operationsByShard.get(index).add(operation);
+        }
+
+        List<Lock> acquired = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            if (!operationsByShard.get(i).isEmpty()) {
+                acquired.add(locks[i].writeLock());
+            }
+        }
+        acquired.add(timeLock);
+        acquired.forEach(Lock::lock);
+        try {
+            InMemoryTaskManager.TransactionPlan[] plans = new InMemoryTaskManager.TransactionPlan[shards.length];
+            List<Task> validatedTasks = new ArrayList<>();
+            List<Task> replacedTasks = new ArrayList<>();
+            for (int i = 0; i < shards.length; i++) {
+                if (operationsByShard.get(i).isEmpty()) {
+                    continue;
+                }
+                plans[i] = shards[i].prepareTransaction(operationsByShard.get(i));
+                if (plans[i] == null) {
+                    return false;
+                }
+                validatedTasks.addAll(plans[i].getValidatedTasks());
+                replacedTasks.addAll(plans[i].getReplacedTasks());
+            }
+            if (!timeManager.validateTasks(validatedTasks, replacedTasks)) {
+                return false;
+            }
+            for (int i = 0; i < shards.length; i++) {
+                if (plans[i] != null) {
+                    shards[i].applyTransaction(plans[i]);
+                }
+            }
+            updateTimeManager(validatedTasks, replacedTasks);
+            return true;
+        } finally {
+            unlock(acquired);
+        }
+    }
+
+    // Порядок - по шардам, внутри шарда - в порядке добавления
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return readAll(() -> concat(collect(shard -> shard.getByStatus(type, status))));
+    }
+
+    // Каждый шард выполняет запрос по своему плану
+    @Override
+    public List<Task> query(TaskQuery query) {
+        return readAll(() -> concat(collect(shard -> shard.query(query))));
+    }
+
+    // Стоимость - сумма по шардам, источник - выбранный шардом с наибольшей стоимостью,
+    // оценки источников - по каждому шарду
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        if (query == null) {
+            return null;
+        }
+        List<QueryPlan> plans = readAll(() -> collect(shard -> shard.explain(query)));
+        QueryPlan costliest = plans.get(0);
+        int cost = 0;
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < plans.size(); i++) {
+            QueryPlan plan = plans.get(i);
+            if (plan.getCost() > costliest.getCost()) {
+                costliest = plan;
+            }
+            cost += plan.getCost();
+            for (String candidate : plan.getCandidates()) {
+                candidates.add("shard " + i + ": " + candidate);
+            }
+        }
+        return new QueryPlan(costliest.getSource(), cost, candidates, costliest.getFilters());
+    }
+
+    // Каждый шард оценивает свои задачи, но редкость слов считается по всем шардам,
+    // поэтому оценки сравнимы и результаты шардов сливаются в общий порядок
+    @Override
+    public List<Task> search(String query, int limit) {
+        return readAll(() -> {
+            int documentCount = 0;
+            for (Shard shard : shards) {
+                documentCount += shard.getSearchIndex().size();
+            }
+            int totalCount = documentCount;
+            ToIntFunction<String> matchCounter = term -> {
+                int matchCount = 0;
+                for (Shard shard : shards) {
+                    matchCount += shard.getSearchIndex().countMatches(term);
+                }
+                return matchCount;
+            };
+            List<SearchIndex.Hit> hits = merge(collect(shard -> Arrays.asList(
+                            shard.getSearchIndex().search(query, limit, matchCounter, totalCount))),
+                    SearchIndex.RANK_ORDER, limit);
+            List<Task> result = new ArrayList<>(hits.size());
+            for (SearchIndex.Hit hit : hits) {
+                result.add(shards[shardOf(hit.id)].getAnyTaskById(hit.id));
+            }
+            return result;
+        });
+    }
+
+    // События всех шардов идут через одну шину
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy) {
+        return eventBus.subscribe(listener, policy);
+    }
+
+    @Override
+    public EventBus.Subscription subscribe(TaskEventListener listener, OverflowPolicy policy,
+                                           TaskEventErrorHandler errorHandler) {
+        return eventBus.subscribe(listener, policy, errorHandler);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return new ArrayList<>(historyManager.getHistory());
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(getPrioritizedTasksSnapshot());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksSnapshot() {
+        return readAll(() -> prioritizedSnapshot.get(collect(Shard::getPrioritizedTasksSnapshot)));
+    }
+
+    // Страница собирается слиянием страниц шардов: каждый шард отдаёт не больше limit задач после cursor
+    @Override
+    public List<Task> getTasks(Integer cursor, int limit) {
+        return readAll(() -> merge(collect(shard -> shard.getTasks(cursor, limit)), ID_ORDER, limit));
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Integer cursor, int limit) {
+        return readAll(() -> merge(collect(shard -> shard.getSubtasks(cursor, limit)), ID_ORDER, limit));
+    }
+
+    @Override
+    public List<Epic> getEpics(Integer cursor, int limit) {
+        return readAll(() -> merge(collect(shard -> shard.getEpics(cursor, limit)), ID_ORDER, limit));
+    }
+
+    // Задача-курсор есть только в своём шарде, но место в порядке приоритета она задаёт для всех шардов
+    @Override
+    public List<Task> getPrioritizedTasks(Integer cursor, int limit) {
+        return readAll(() -> {
+            Task after = null;
+            if (cursor != null) {
+                Shard shard = shards[shardOf(cursor)];
+                after = shard.getAnyTaskById(cursor);
+                if (!shard.timeManager.containsTask(after)) {
+                    return null;
+                }
+            }
+            if (limit <= 0) {
+                return new ArrayList<>();
+            }
+            Task start = after;
+            return merge(collect(shard -> shard.timeManager.getPrioritizedTasks(start, limit)),
+                    TimeManager.PRIORITY_ORDER, limit);
+        });
+    }
+
+    // Окна шардов сливаются, как и списки по приоритету; задачи шардов не пересекаются между собой,
+    // поэтому начавшуюся раньше from задачу вернёт не больше чем один шард
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return readAll(() -> mergeAll(collect(shard -> shard.getTasksBetween(from, to)),
+                TimeManager.PRIORITY_ORDER));
+    }
+
+    @Override
+    public List<Task> getUpcoming(LocalDateTime now, int limit) {
+        return readAll(() -> merge(collect(shard -> shard.getUpcoming(now, limit)),
+                TimeManager.PRIORITY_ORDER, limit));
+    }
+
+    // Свободное время ищется в общем TimeManager: в нём задачи со временем из всех шардов
+    @Override
+    public LocalDateTime findFreeSlot(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter) {
+        List<LocalDateTime> slots = findFreeSlots(durationMinutes, notBefore, notAfter, 1);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(int durationMinutes, LocalDateTime notBefore, LocalDateTime notAfter,
+                                             int limit) {
+        return readTime(() -> timeManager.findFreeSlots(durationMinutes, notBefore, notAfter, limit));
+    }
+
+    // Потоки идут по снимкам, поэтому их можно читать после снятия блокировок
+    @Override
+    public Stream<Task> streamTasks() {
+        return getTasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return getSubtasksSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return getEpicsSnapshot().stream();
+    }
+
+    @Override
+    public Stream<Task> streamPrioritizedTasks() {
+        return getPrioritizedTasksSnapshot().stream();
+    }
+
+    private int nextShardIndex() {
+        return Math.floorMod(nextShard.getAndIncrement(), shards.length);
+    }
+
+    // Прежняя версия обновляемой задачи (вызывается под блокировкой шарда)
+    private List<Task> getPrevious(int index, int id) {
+        Task previous = shards[index].getAnyTaskById(id);
+        return previous == null ? List.of() : List.of(previous);
+    }
+
+    // Задачи, время которых освобождает удаление: сами задачи и подзадачи удаляемых эпиков
+    private List<Task> getRemoved(int index, Collection<Integer> ids) {
+        Shard shard = shards[index];
+        List<Task> removed = new ArrayList<>();
+        for (int id : ids) {
+            Task task = shard.getAnyTaskById(id);
+            if (task == null) {
+                continue;
+            }
+            if (task.getType() == TaskType.EPIC) {
+                ((Epic) task).forEachSubtaskId(subtaskId -> removed.add(shard.getAnyTaskById(subtaskId)));
+            } else {
+                removed.add(task);
+            }
+        }
+        return removed;
+    }
+
+    // Изменение в одном шарде. added - новая задача или новая версия задачи, replaced - задачи, время которых
+    // изменение освобождает (получаются уже под блокировкой шарда, чтобы не измениться до изменения).
+    // Если среди них есть задачи со временем, изменение идёт ещё и под блокировкой времени:
+    // пересечения проверяются по общему TimeManager, после изменения он обновляется
+    private boolean writeShard(int index, Task added, Supplier<List<Task>> replaced, BooleanSupplier action) {
+        Lock lock = locks[index].writeLock();
+        lock.lock();
+        try {
+            List<Task> replacedTasks = replaced.get();
+            if (!hasTime(added) && replacedTasks.stream().noneMatch(ShardedTaskManager::hasTime)) {
+                return action.getAsBoolean();
+            }
+            timeLock.lock();
+            try {
+                List<Task> validatedTasks = hasTime(added) ? List.of(added) : List.of();
+                if (!timeManager.validateTasks(validatedTasks, replacedTasks) || !action.getAsBoolean()) {
+                    return false;
+                }
+                updateTimeManager(validatedTasks, replacedTasks);
+                return true;
+            } finally {
+                timeLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Вызывается под блокировкой времени после изменения шардов
+    private void updateTimeManager(List<Task> validatedTasks, List<Task> replacedTasks) {
+        for (Task task : replacedTasks) {
+            if (hasTime(task)) {
+                timeManager.removeTask(task);
+            }
+        }
+        for (Task task : validatedTasks) {
+            if (hasTime(task)) {
+                timeManager.addTask(task);
+            }
+        }
+    }
+
+    // Эпики в общем TimeManager не хранятся: их время определяется подзадачами
+    private static boolean hasTime(Task task) {
+        return task != null && task.getType() != TaskType.EPIC && task.getStartMinute() != Task.NO_TIME;
+    }
+
+    private <R> R read(int index, Supplier<R> action) {
+        Lock lock = locks[index].readLock();
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <R> R readTime(Supplier<R> action) {
+        timeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    // Согласованное чтение всех шардов
+    private <R> R readAll(Supplier<R> action) {
+        List<Lock> acquired = new ArrayList<>(shards.length);
+        for (ReentrantReadWriteLock lock : locks) {
+            acquired.add(lock.readLock());
+        }
+        acquired.forEach(Lock::lock);
+        try {
+            return action.get();
+        } finally {
+            unlock(acquired);
+        }
+    }
+
+    private void writeAll(Runnable action) {
+        List<Lock> acquired = new ArrayList<>(shards.length + 1);
+        for (ReentrantReadWriteLock lock : locks) {
+            acquired.add(lock.writeLock());
+        }
+        acquired.add(timeLock);
+        acquired.forEach(Lock::lock);
+        try {
+            action.run();
+        } finally {
+            unlock(acquired);
+        }
+    }
+
+    // Снятие в обратном порядке
+    private static void unlock(List<Lock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+
+    private <T> List<List<T>> newLists() {
+        List<List<T>> lists = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    // Результаты шардов по порядку номеров
+    private <T> List<T> collect(Function<Shard, T> getter) {
+        List<T> results = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            results.add(getter.apply(shard));
+        }
+        return results;
+    }
+
+    private static <T> List<T> concat(List<List<T>> lists) {
+        List<T> result = new ArrayList<>();
+        lists.forEach(result::addAll);
+        return result;
+    }
+
+    // Полный список - новый изменяемый список, как и у InMemoryTaskManager
+    private static <T> List<T> mergeAll(List<List<T>> lists, Comparator<? super T> order) {
+        return merge(lists, order, Integer.MAX_VALUE);
+    }
+
+    // Слияние упорядоченных списков через кучу из текущих элементов списков: O(n log k) для k списков,
+    // берутся только первые limit элементов результата
+    private static <T> List<T> merge(List<List<T>> lists, Comparator<? super T> order, int limit) {
+        PriorityQueue<MergeCursor<T>> heap = new PriorityQueue<>(Math.max(lists.size(), 1),
+                (cursor1, cursor2) -> order.compare(cursor1.current, cursor2.current));
+        for (List<T> list : lists) {
+            Iterator<T> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heap.add(new MergeCursor<>(iterator));
+            }
+        }
+        List<T> result = new ArrayList<>();
+        while (!heap.isEmpty() && result.size() < limit) {
+            MergeCursor<T> cursor = heap.poll();
+            result.add(cursor.current);
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    // Последний собранный снимок вместе со снимками шардов, из которых он собран. Шард отдаёт тот же объект
+    // снимка, пока не изменится, поэтому при тех же снимках шардов собранный снимок верен и слияние
+    // не повторяется. Читается под блокировками чтения шардов, то есть параллельно: одновременные чтения
+    // после изменения могут собрать снимок по разу, но результат у них одинаковый
+    private static final class MergedSnapshot<T> {
+        private final Comparator<? super T> order;
+        private volatile Merged<T> last;
+
+        private MergedSnapshot(Comparator<? super T> order) {
+            this.order = order;
+        }
+
+        private List<T> get(List<List<T>> shardSnapshots) {
+            Merged<T> merged = last;
+            if (merged == null || !merged.isMergedFrom(shardSnapshots)) {
+                merged = new Merged<>(shardSnapshots, Collections.unmodifiableList(mergeAll(shardSnapshots, order)));
+                last = merged;
+            }
+            return merged.result;
+        }
+    }
+
+    private static final class Merged<T> {
+        private final List<List<T>> parts;
+        private final List<T> result;
+
+        private Merged(List<List<T>> parts, List<T> result) {
+            this.parts = parts;
+            this.result = result;
+        }
+
+        private boolean isMergedFrom(List<List<T>> shardSnapshots) {
+            for (int i = 0; i < shardSnapshots.size(); i++) {
+                if (parts.get(i) != shardSnapshots.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class MergeCursor<T> {
+        private final Iterator<T> iterator;
+        private T current;
+
+        private MergeCursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+            current = iterator.next();
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+    }
+
+    // Шард - обычный InMemoryTaskManager с общими историей и шиной, выдающий id только из своих блоков
+    private static class Shard extends InMemoryTaskManager {
+        private final int shardCount;
+
+        private Shard(HistoryManager historyManager, EventBus eventBus, int index, int shardCount) {
+            super(historyManager, eventBus);
+            this.shardCount = shardCount;
+            nextId = index * ID_BLOCK_SIZE;
+        }
+
+        @Override
+        int generateNextId() {
+            int id = nextId++;
+            if (nextId % ID_BLOCK_SIZE == 0) {
+                nextId += (shardCount - 1) * ID_BLOCK_SIZE;     // блоки других шардов пропускаются
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+import ru.yandex.practicum.kanban.util.collections.IntLinkedSet;
+
+// Вторичный индекс (тип, статус) -> id задач в порядке добавления.
+// Все операции O(1); при удалении id убирается из множеств всех статусов,
+// поэтому индексу не нужно знать, с каким статусом задача была добавлена
+// (задачу могли изменить на месте, как эпик при пересчёте статуса)
+class StatusIndex {
+    private final IntLinkedSet[][] ids;
+
+    StatusIndex() {
+        ids = new IntLinkedSet[TaskType.values().length][TaskStatus.values().length];
+        for (IntLinkedSet[] byStatus : ids) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new IntLinkedSet();
+            }
+        }
+    }
+
+    // Добавляет задачу с её текущим статусом или переносит в множество текущего статуса
+    void put(Task task) {
+        remove(task.getType(), task.getId());
+        if (task.getStatus() != null) {
+            ids[task.getType().ordinal()][task.getStatus().ordinal()].add(task.getId());
+        }
+    }
+
+    void remove(TaskType type, int id) {
+        for (IntLinkedSet byStatus : ids[type.ordinal()]) {
+            byStatus.remove(id);
+        }
+    }
+
+    void clear(TaskType type) {
+        for (IntLinkedSet byStatus : ids[type.ordinal()]) {
+            byStatus.clear();
+        }
+    }
+
+    IntLinkedSet get(TaskType type, TaskStatus status) {
+        return ids[type.ordinal()][status.ordinal()];
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.managers.HistoryManager;
+import ru.yandex.practicum.kanban.tasks.Task;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+// Общая история шардов ShardedTaskManager: шарды меняют её из разных потоков под своими блокировками
+class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager historyManager;
+
+    SynchronizedHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        historyManager.add(task);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        historyManager.remove(id);
+    }
+
+    @Override
+    public synchronized void removeIf(Predicate<Task> filter) {
+        historyManager.removeIf(filter);
+    }
+
+    // InMemoryHistoryManager отдаёт неизменяемый снимок, его можно читать без блокировки
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized void update(Task task) {
+        historyManager.update(task);
+    }
+}
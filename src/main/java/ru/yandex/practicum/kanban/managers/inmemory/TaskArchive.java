@@ -0,0 +1,413 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+import ru.yandex.practicum.kanban.util.collections.IntHashMap;
+import ru.yandex.practicum.kanban.util.collections.IntLinkedSet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Холодный слой для задач и подзадач, которые редко читаются: задачи записываются в компактном двоичном виде
+// и сжимаются блоками по BLOCK_SIZE записей. В памяти остаются только сжатые блоки, индекс id -> блок
+// и порядок архивации; задача восстанавливается распаковкой своего блока.
+// Блок не меняется после записи: удалённая из архива запись остаётся в блоке, пока в нём есть другие записи,
+// а блок без записей освобождается вместе с последней ссылкой из индекса
+class TaskArchive {
+    static final int BLOCK_SIZE = 256;
+
+    private final IntHashMap<Block> blocksById = new IntHashMap<>();
+    // id архивных задач и подзадач в порядке архивации
+    private final IntLinkedSet taskIds = new IntLinkedSet();
+    private final IntLinkedSet subtaskIds = new IntLinkedSet();
+    private long compressedBytes;   // блоки, в которых есть хотя бы одна запись
+    // id архивных задач и подзадач по возрастанию для постраничного чтения; null - пересобрать.
+    // Страницы читаются и под общей блокировкой чтения, поэтому volatile
+    private volatile int[] sortedTaskIds;
+    private volatile int[] sortedSubtaskIds;
+    // Последний распакованный блок: подзадачи эпика и списки читаются подряд из одних блоков.
+    // Блок и его задачи лежат в одном неизменяемом объекте, поэтому чтение из нескольких потоков безопасно
+    private volatile DecodedBlock lastDecoded;
+
+    int size() {
+        return blocksById.size();
+    }
+
+    boolean isEmpty() {
+        return blocksById.isEmpty();
+    }
+
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    // Архивирует задачи и подзадачи (эпики не архивируются); id не должны быть в архиве
+    void addAll(List<? extends Task> archived) {
+        List<Task> sorted = new ArrayList<>(archived);
+        // внутри блока id идут по возрастанию - запись в блоке ищется двоичным поиском
+        sorted.sort(Comparator.comparingInt(Task::getId));
+        Deflater deflater = new Deflater();
+        try {
+            for (int from = 0; from < sorted.size(); from += BLOCK_SIZE) {
+                List<Task> chunk = sorted.subList(from, Math.min(from + BLOCK_SIZE, sorted.size()));
+                Block block = encode(chunk, deflater);
+                compressedBytes += block.data.length;
+                for (Task task : chunk) {
+                    blocksById.put(task.getId(), block);
+                    idsOf(task.getType()).add(task.getId());
+                }
+                sortedTaskIds = null;
+                sortedSubtaskIds = null;
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Распакованная задача или null, если её нет в архиве. Повторное чтение из того же блока
+    // может вернуть тот же объект
+    Task get(int id) {
+        Block block = blocksById.get(id);
+        return block == null ? null : decode(block)[block.slotOf(id)];
+    }
+
+    // Убирает задачу из архива и возвращает её распакованной; null, если её нет в архиве
+    Task remove(int id) {
+        Block block = blocksById.remove(id);
+        if (block == null) {
+            return null;
+        }
+        Task task = decode(block)[block.slotOf(id)];
+        idsOf(task.getType()).remove(id);
+        if (task.getType() == TaskType.SUBTASK) {
+            sortedSubtaskIds = null;
+        } else {
+            sortedTaskIds = null;
+        }
+        if (--block.live == 0) {
+            compressedBytes -= block.data.length;
+        }
+        return task;
+    }
+
+    // Убирает из архива все задачи типа и возвращает их распакованными
+    List<Task> clear(TaskType type) {
+        List<Task> removed = new ArrayList<>(view(type));
+        for (Task task : removed) {
+            remove(task.getId());
+        }
+        return removed;
+    }
+
+    // Представление архивных задач типа на момент вызова. Задачи распаковываются при чтении элементов
+    @SuppressWarnings("unchecked")
+    <V extends Task> List<V> view(TaskType type) {
+        IntLinkedSet ids = idsOf(type);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        int[] viewIds = ids.toArray();
+        Block[] viewBlocks = new Block[viewIds.length];
+        for (int i = 0; i < viewIds.length; i++) {
+            viewBlocks[i] = blocksById.get(viewIds[i]);
+        }
+        return (List<V>) new ArchiveView(viewIds, viewBlocks);
+    }
+
+    // Не больше limit архивных задач типа с id больше afterId, по возрастанию id.
+    // Распаковываются только блоки задач страницы
+    @SuppressWarnings("unchecked")
+    <V extends Task> List<V> pageAfter(TaskType type, int afterId, int limit) {
+        int[] ids = sortedIds(type);
+        int from = Arrays.binarySearch(ids, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = (int) Math.min(ids.length, (long) from + limit);
+        List<V> page = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            page.add((V) get(ids[i]));
+        }
+        return page;
+    }
+
+    // Неизменяемый список: hot, за которым идут архивные задачи типа; без архивных задач - сам hot.
+    // hot не должен меняться
+    <V extends Task> List<V> appendTo(List<V> hot, TaskType type) {
+        List<V> archived = view(type);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        return new AppendedList<>(hot, archived, false);
+    }
+
+    // То же, но список можно менять, как и hot без архивных задач: при первом изменении он копируется
+    // целиком, до этого архивные задачи распаковываются только при чтении. hot принадлежит списку
+    <V extends Task> List<V> appendToCopy(List<V> hot, TaskType type) {
+        List<V> archived = view(type);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        return new AppendedList<>(hot, archived, true);
+    }
+
+    private int[] sortedIds(TaskType type) {
+        int[] sorted = type == TaskType.SUBTASK ? sortedSubtaskIds : sortedTaskIds;
+        if (sorted == null) {
+            sorted = idsOf(type).toArray();
+            Arrays.sort(sorted);
+            if (type == TaskType.SUBTASK) {
+                sortedSubtaskIds = sorted;
+            } else {
+                sortedTaskIds = sorted;
+            }
+        }
+        return sorted;
+    }
+
+    private IntLinkedSet idsOf(TaskType type) {
+        switch (type) {
+            case TASK:
+                return taskIds;
+            case SUBTASK:
+                return subtaskIds;
+            default:
+                throw new IllegalArgumentException("Task type " + type + " is not archived");
+        }
+    }
+
+    private static Block encode(List<Task> chunk, Deflater deflater) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int[] ids = new int[chunk.size()];
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                Task task = chunk.get(i);
+                ids[i] = task.getId();
+                writeTask(out, task);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] encoded = bytes.toByteArray();
+        deflater.reset();
+        deflater.setInput(encoded);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(encoded.length / 4 + 16);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            compressed.write(buffer, 0, length);
+        }
+        return new Block(compressed.toByteArray(), encoded.length, ids);
+    }
+
+    private Task[] decode(Block block) {
+        DecodedBlock decoded = lastDecoded;
+        if (decoded != null && decoded.block == block) {
+            return decoded.tasks;
+        }
+        Task[] tasks = readBlock(block);
+        lastDecoded = new DecodedBlock(block, tasks);
+        return tasks;
+    }
+
+    private static Task[] readBlock(Block block) {
+        byte[] encoded = new byte[block.encodedLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block.data);
+            int length = 0;
+            while (length < encoded.length && !inflater.finished()) {
+                length += inflater.inflate(encoded, length, encoded.length - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Archive block is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+        Task[] tasks = new Task[block.ids.length];
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i] = readTask(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Archive block is corrupted", e);
+        }
+        return tasks;
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte(task.getType().ordinal());
+        out.writeInt(task.getId());
+        out.writeInt(task.getVersion());
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        out.writeByte(task.getStatus().ordinal());
+        out.writeLong(task.getStartMinute());
+        out.writeInt(task.getDuration());
+        if (task.getType() == TaskType.SUBTASK) {
+            out.writeInt(((Subtask) task).getEpicId());
+        }
+    }
+
+    private static Task readTask(DataInputStream in) throws IOException {
+        TaskType type = TaskType.values()[in.readByte()];
+        int id = in.readInt();
+        int version = in.readInt();
+        String name = readString(in);
+        String description = readString(in);
+        TaskStatus status = TaskStatus.values()[in.readByte()];
+        long startMinute = in.readLong();
+        int duration = in.readInt();
+        Task task;
+        if (type == TaskType.SUBTASK) {
+            task = new Subtask(id, name, description, status, in.readInt());
+        } else {
+            task = new Task(id, name, description, status);
+        }
+        task.setStartMinute(startMinute);
+        task.setDuration(duration);
+        task.setVersion(version);
+        return task;
+    }
+
+    // Длина -1 обозначает null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Block {
+        private final byte[] data;
+        private final int encodedLength;
+        private final int[] ids;        // по возрастанию, в порядке записей
+        private int live;               // сколько записей ещё в архиве
+
+        private Block(byte[] data, int encodedLength, int[] ids) {
+            this.data = data;
+            this.encodedLength = encodedLength;
+            this.ids = ids;
+            live = ids.length;
+        }
+
+        private int slotOf(int id) {
+            return Arrays.binarySearch(ids, id);
+        }
+    }
+
+    private static final class DecodedBlock {
+        private final Block block;
+        private final Task[] tasks;
+
+        private DecodedBlock(Block block, Task[] tasks) {
+            this.block = block;
+            this.tasks = tasks;
+        }
+    }
+
+    // Именованный класс, а не анонимный: анонимные классы Gson не сериализует (HttpTaskManager)
+    private static final class AppendedList<V> extends AbstractList<V> {
+        private final List<V> hot;
+        private final List<V> archived;
+        private final boolean modifiable;
+        // Все элементы после первого изменения; с этого момента hot и archived не читаются
+        private List<V> copy;
+
+        private AppendedList(List<V> hot, List<V> archived, boolean modifiable) {
+            this.hot = hot;
+            this.archived = archived;
+            this.modifiable = modifiable;
+        }
+
+        @Override
+        public V get(int index) {
+            if (copy != null) {
+                return copy.get(index);
+            }
+            return index < hot.size() ? hot.get(index) : archived.get(index - hot.size());
+        }
+
+        @Override
+        public int size() {
+            return copy != null ? copy.size() : hot.size() + archived.size();
+        }
+
+        @Override
+        public V set(int index, V element) {
+            return copy().set(index, element);
+        }
+
+        @Override
+        public void add(int index, V element) {
+            copy().add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public V remove(int index) {
+            V removed = copy().remove(index);
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            copy().subList(fromIndex, toIndex).clear();
+            modCount++;
+        }
+
+        private List<V> copy() {
+            if (!modifiable) {
+                throw new UnsupportedOperationException();
+            }
+            if (copy == null) {
+                List<V> elements = new ArrayList<>(size());
+                elements.addAll(hot);
+                elements.addAll(archived);
+                copy = elements;
+            }
+            return copy;
+        }
+    }
+
+    // Блоки не меняются, поэтому представление остаётся верным и после изменения архива
+    private final class ArchiveView extends AbstractList<Task> {
+        private final int[] ids;
+        private final Block[] blocks;
+
+        private ArchiveView(int[] ids, Block[] blocks) {
+            this.ids = ids;
+            this.blocks = blocks;
+        }
+
+        @Override
+        public Task get(int index) {
+            Block block = blocks[index];
+            return decode(block)[block.slotOf(ids[index])];
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+}
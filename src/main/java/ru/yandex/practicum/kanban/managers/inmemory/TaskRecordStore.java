@@ -0,0 +1,686 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Хранилище задач и подзадач вне кучи: поля каждой задачи лежат в записи фиксированного размера
+// в прямых (direct) буферах, название и описание - в арене строк из таких же буферов.
+// В куче остаётся по одному объекту-представлению на задачу (TaskView, SubtaskView) без строк:
+// геттеры читают запись, сеттеры пишут в неё. Поэтому сборщику мусора почти нечего обходить,
+// зато каждое чтение строк создаёт новый объект.
+// Эпики остаются в куче: их немного, и у них есть список подзадач.
+// Запись освобождается через release: представление перед этим получает копию задачи в куче
+// и дальше читает её, поэтому прежние версии задач в событиях и у клиентов остаются верными.
+// Новая версия задачи ссылается на те же строки арены, что и прежняя, если строки не изменились;
+// буферы арены, в которых живых строк осталось меньше половины, уплотняются (см. compactArena).
+// Пишет в хранилище один поток за раз (менеджер под своей блокировкой), а читать представления могут
+// любые потоки, например из снимков ConcurrentTaskManager. Поэтому у каждой записи есть штамп:
+// запись меняется между двумя его увеличениями (на время изменения штамп нечётный), а читатель
+// запоминает штамп, читает поле и повторяет чтение, если штамп за это время изменился
+class TaskRecordStore {
+    // Смещения полей в записи
+    private static final int ID = 0;
+    private static final int VERSION = 4;
+    private static final int STATUS = 8;            // byte, -1 - null
+    private static final int SUBTASK = 9;           // byte, 1 - запись подзадачи
+    private static final int DURATION = 12;
+    private static final int START_MINUTE = 16;     // long, Task.NO_TIME - нет времени
+    private static final int EPIC_ID = 24;
+    private static final int NAME = 28;             // номер буфера арены, смещение и длина строки
+    private static final int DESCRIPTION = 40;
+    private static final int RECORD_SIZE = 52;
+    private static final int RECORDS_PER_CHUNK_BITS = 14;
+    private static final int RECORDS_PER_CHUNK = 1 << RECORDS_PER_CHUNK_BITS;
+    private static final int ARENA_CHUNK_SIZE = 1 << 20;
+    // Сколько байт мёртвых строк в буферах арены допускается сверх объёма живых, прежде чем арена уплотняется
+    private static final int ARENA_SLACK_BYTES = 2 * ARENA_CHUNK_SIZE;
+    private static final int NO_STRING = -1;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    // Буферы записей и буферы арены читаются без блокировки, поэтому массивы volatile:
+    // после изменения элемента массив записывается в поле заново, и читатель видит новый элемент
+    private volatile RecordChunk[] recordChunks = new RecordChunk[0];
+    private int usedSlots;              // сколько записей выдано, включая освобождённые
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    // Арена строк дописывается в конец текущего буфера; буфер, в котором не осталось живых строк,
+    // освобождается целиком. Живые строки полупустых буферов переносятся в текущий при уплотнении.
+    // Строка, на которую ссылаются две записи (старая и новая версии задачи), считается живой дважды
+    private volatile ByteBuffer[] arenaChunks = new ByteBuffer[16];
+    private int arenaChunkCount;
+    private int[] arenaLiveBytes = new int[16];
+    private long arenaLiveTotal;        // сумма arenaLiveBytes
+    private int arenaChunk = -1;
+    private int arenaPosition;
+    private long arenaBytes;            // ёмкость неосвобождённых буферов арены
+
+    // Буфер записей и штампы его записей
+    private static final class RecordChunk {
+        final ByteBuffer records = ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_SIZE);
+        final AtomicIntegerArray stamps = new AtomicIntegerArray(RECORDS_PER_CHUNK);
+    }
+
+    int size() {
+        return usedSlots - freeSlotCount;
+    }
+
+    // Память вне кучи: буферы записей и неосвобождённые буферы арены
+    long getOffHeapBytes() {
+        return (long) recordChunks.length * RECORDS_PER_CHUNK * RECORD_SIZE + arenaBytes;
+    }
+
+    // Представление, через которое менеджер хранит задачу: для задачи и подзадачи данные копируются в новую
+    // запись, эпик и представление, уже хранящееся здесь, возвращаются как есть
+    <V extends Task> V store(V task) {
+        return store(task, null);
+    }
+
+    // То же для новой версии задачи: если previous - хранящееся здесь представление прежней версии,
+    // неизменившиеся название и описание не пишутся в арену заново, запись ссылается на строки previous
+    @SuppressWarnings("unchecked")
+    <V extends Task> V store(V task, Task previous) {
+        if (task instanceof Epic || isAttachedView(task)) {
+            return task;
+        }
+        int previousSlot = isAttachedView(previous) ? ((View) previous).record().slot : -1;
+        int slot = allocateSlot();
+        ByteBuffer chunk = chunkOf(slot);
+        int base = baseOf(slot);
+        beginWrite(slot);
+        chunk.putInt(base + ID, task.getId());
+        chunk.putInt(base + VERSION, task.getVersion());
+        writeStatus(chunk, base, task.getStatus());
+        chunk.putInt(base + DURATION, task.getDuration());
+        chunk.putLong(base + START_MINUTE, task.getStartMinute());
+        writeString(chunk, base, NAME, task.getName(), previousSlot);
+        writeString(chunk, base, DESCRIPTION, task.getDescription(), previousSlot);
+        boolean isSubtask = task instanceof Subtask;
+        chunk.put(base + SUBTASK, (byte) (isSubtask ? 1 : 0));
+        if (isSubtask) {
+            chunk.putInt(base + EPIC_ID, ((Subtask) task).getEpicId());
+        }
+        endWrite(slot);
+        Record record = new Record(this, slot);
+        return (V) (isSubtask ? new SubtaskView(record) : new TaskView(record));
+    }
+
+    // Освобождает запись представления, переводя его на копию в куче; другие задачи не трогает.
+    // Копия публикуется до изменения штампа, поэтому читатель, заметивший изменение, найдёт её
+    void release(Task task) {
+        if (!isAttachedView(task)) {
+            return;
+        }
+        Record record = ((View) task).record();
+        int slot = record.slot;
+        record.detached = copyOf(slot);
+        ByteBuffer chunk = chunkOf(slot);
+        int base = baseOf(slot);
+        beginWrite(slot);
+        releaseString(chunk, base + NAME);
+        releaseString(chunk, base + DESCRIPTION);
+        endWrite(slot);
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+        if (isArenaSparse()) {
+            compactArena();
+        }
+    }
+
+    private boolean isAttachedView(Task task) {
+        if (!(task instanceof View)) {
+            return false;
+        }
+        Record record = ((View) task).record();
+        return record.store == this && record.detached == null;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (usedSlots == recordChunks.length * RECORDS_PER_CHUNK) {
+            RecordChunk[] chunks = Arrays.copyOf(recordChunks, recordChunks.length + 1);
+            chunks[chunks.length - 1] = new RecordChunk();
+            recordChunks = chunks;
+        }
+        return usedSlots++;
+    }
+
+    private RecordChunk recordChunkOf(int slot) {
+        return recordChunks[slot >>> RECORDS_PER_CHUNK_BITS];
+    }
+
+    private ByteBuffer chunkOf(int slot) {
+        return recordChunkOf(slot).records;
+    }
+
+    private static int baseOf(int slot) {
+        return indexOf(slot) * RECORD_SIZE;
+    }
+
+    // Номер записи в её буфере
+    private static int indexOf(int slot) {
+        return slot & (RECORDS_PER_CHUNK - 1);
+    }
+
+    // Штамп записи: изменение записи делает его нечётным, конец изменения - снова чётным
+
+    private void beginWrite(int slot) {
+        recordChunkOf(slot).stamps.incrementAndGet(indexOf(slot));
+    }
+
+    private void endWrite(int slot) {
+        recordChunkOf(slot).stamps.incrementAndGet(indexOf(slot));
+    }
+
+    // Чётный штамп записи; пока запись меняется, читатель ждёт
+    private int readStamp(int slot) {
+        AtomicIntegerArray stamps = recordChunkOf(slot).stamps;
+        int index = indexOf(slot);
+        int stamp;
+        while (((stamp = stamps.get(index)) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return stamp;
+    }
+
+    // Прочитанное после readStamp верно, если штамп с тех пор не менялся
+    private boolean validate(int slot, int stamp) {
+        VarHandle.acquireFence();   // чтение полей записи не переносится за повторное чтение штампа
+        return recordChunkOf(slot).stamps.get(indexOf(slot)) == stamp;
+    }
+
+    // Копия в куче; вызывается пишущим потоком, поэтому читает запись без штампа
+    private Task copyOf(int slot) {
+        ByteBuffer chunk = chunkOf(slot);
+        int base = baseOf(slot);
+        int id = chunk.getInt(base + ID);
+        String name = readString(chunk, base + NAME);
+        String description = readString(chunk, base + DESCRIPTION);
+        TaskStatus status = readStatus(chunk, base);
+        Task copy = chunk.get(base + SUBTASK) == 1
+                ? new Subtask(id, name, description, status, chunk.getInt(base + EPIC_ID))
+                : new Task(id, name, description, status);
+        copy.setStartMinute(chunk.getLong(base + START_MINUTE));
+        copy.setDuration(chunk.getInt(base + DURATION));
+        copy.setVersion(chunk.getInt(base + VERSION));
+        return copy;
+    }
+
+    private static TaskStatus readStatus(ByteBuffer chunk, int base) {
+        byte status = chunk.get(base + STATUS);
+        return status < 0 ? null : STATUSES[status];
+    }
+
+    private static void writeStatus(ByteBuffer chunk, int base, TaskStatus status) {
+        chunk.put(base + STATUS, status == null ? -1 : (byte) status.ordinal());
+    }
+
+    // Ссылка на строку в записи: номер буфера арены (NO_STRING - null), смещение и длина в байтах.
+    // Если в поле field записи previousSlot (-1 - нет) та же строка, копируется только ссылка
+    private void writeString(ByteBuffer chunk, int base, int field, String value, int previousSlot) {
+        int offset = base + field;
+        if (value == null) {
+            chunk.putInt(offset, NO_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (previousSlot >= 0) {
+            ByteBuffer previousChunk = chunkOf(previousSlot);
+            int previousOffset = baseOf(previousSlot) + field;
+            if (isSameString(previousChunk, previousOffset, bytes)) {
+                int arenaIndex = previousChunk.getInt(previousOffset);
+                chunk.putInt(offset, arenaIndex);
+                chunk.putInt(offset + 4, previousChunk.getInt(previousOffset + 4));
+                chunk.putInt(offset + 8, bytes.length);
+                arenaLiveBytes[arenaIndex] += bytes.length;
+                arenaLiveTotal += bytes.length;
+                return;
+            }
+        }
+        appendString(chunk, offset, bytes);
+    }
+
+    // Дописывает строку в конец текущего буфера арены и ставит на неё ссылку в записи
+    private void appendString(ByteBuffer chunk, int offset, byte[] bytes) {
+        if (arenaChunk < 0 || arenaPosition + bytes.length > arenaChunks[arenaChunk].capacity()) {
+            addArenaChunk(Math.max(ARENA_CHUNK_SIZE, bytes.length));
+        }
+        ByteBuffer arena = arenaChunks[arenaChunk].duplicate();
+        arena.position(arenaPosition);
+        arena.put(bytes);
+        chunk.putInt(offset, arenaChunk);
+        chunk.putInt(offset + 4, arenaPosition);
+        chunk.putInt(offset + 8, bytes.length);
+        arenaPosition += bytes.length;
+        arenaLiveBytes[arenaChunk] += bytes.length;
+        arenaLiveTotal += bytes.length;
+    }
+
+    // Совпадает ли строка по ссылке в записи с bytes; вызывается пишущим потоком
+    private boolean isSameString(ByteBuffer chunk, int offset, byte[] bytes) {
+        int arenaIndex = chunk.getInt(offset);
+        if (arenaIndex == NO_STRING || chunk.getInt(offset + 8) != bytes.length) {
+            return false;
+        }
+        int position = chunk.getInt(offset + 4);
+        ByteBuffer arena = arenaChunks[arenaIndex].duplicate();
+        arena.limit(position + bytes.length);
+        arena.position(position);
+        return arena.equals(ByteBuffer.wrap(bytes));
+    }
+
+    // Читатели без блокировки могут увидеть ссылку на строку, которую как раз переписывают или освобождают:
+    // тогда чтение бросает исключение или возвращает не ту строку, а штамп записи уже изменился
+    private String readString(ByteBuffer chunk, int offset) {
+        int arenaIndex = chunk.getInt(offset);
+        if (arenaIndex == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[chunk.getInt(offset + 8)];
+        ByteBuffer arena = arenaChunks[arenaIndex].duplicate();
+        arena.position(chunk.getInt(offset + 4));
+        arena.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Освобождённая запись больше не ссылается на строку, поэтому compactArena её не переносит
+    private void releaseString(ByteBuffer chunk, int offset) {
+        int arenaIndex = chunk.getInt(offset);
+        if (arenaIndex == NO_STRING) {
+            return;
+        }
+        chunk.putInt(offset, NO_STRING);
+        int length = chunk.getInt(offset + 8);
+        arenaLiveBytes[arenaIndex] -= length;
+        arenaLiveTotal -= length;
+        if (arenaLiveBytes[arenaIndex] == 0 && arenaIndex != arenaChunk) {
+            freeArenaChunk(arenaIndex);
+        }
+    }
+
+    // Мёртвых байт в буферах арены, кроме текущего, больше, чем живых, с запасом ARENA_SLACK_BYTES.
+    // В буферах, где живых строк не меньше половины, мёртвых байт не больше, чем живых, поэтому тогда
+    // больше ARENA_SLACK_BYTES мёртвых байт лежит в полупустых буферах и уплотнение освободит их
+    private boolean isArenaSparse() {
+        if (arenaChunk < 0) {
+            return false;
+        }
+        long capacity = arenaBytes - arenaChunks[arenaChunk].capacity();
+        long live = arenaLiveTotal - arenaLiveBytes[arenaChunk];
+        return capacity - live > live + ARENA_SLACK_BYTES;
+    }
+
+    // Уплотнение арены: строки буферов (кроме текущего), где живых байт меньше половины, переносятся
+    // в текущий буфер, а сами буферы освобождаются. Ссылки ищутся одним проходом по всем записям;
+    // проход освобождает больше ARENA_SLACK_BYTES, поэтому в пересчёте на освобождённые строки он дешёвый.
+    // Перенос меняет ссылку под штампом записи: читатель старой ссылки повторит чтение
+    private void compactArena() {
+        ByteBuffer[] chunks = arenaChunks;
+        boolean[] sparse = new boolean[arenaChunkCount];
+        for (int i = 0; i < arenaChunkCount; i++) {
+            sparse[i] = i != arenaChunk && chunks[i] != null
+                    && (long) arenaLiveBytes[i] * 2 < chunks[i].capacity();
+        }
+        for (int slot = 0; slot < usedSlots; slot++) {
+            relocateString(slot, NAME, sparse);
+            relocateString(slot, DESCRIPTION, sparse);
+        }
+        for (int i = 0; i < sparse.length; i++) {
+            if (sparse[i] && arenaChunks[i] != null) {
+                freeArenaChunk(i);
+            }
+        }
+    }
+
+    private void relocateString(int slot, int field, boolean[] sparse) {
+        ByteBuffer chunk = chunkOf(slot);
+        int offset = baseOf(slot) + field;
+        int arenaIndex = chunk.getInt(offset);
+        if (arenaIndex == NO_STRING || arenaIndex >= sparse.length || !sparse[arenaIndex]) {
+            return;
+        }
+        byte[] bytes = new byte[chunk.getInt(offset + 8)];
+        ByteBuffer arena = arenaChunks[arenaIndex].duplicate();
+        arena.position(chunk.getInt(offset + 4));
+        arena.get(bytes);
+        arenaLiveBytes[arenaIndex] -= bytes.length;
+        arenaLiveTotal -= bytes.length;
+        beginWrite(slot);
+        appendString(chunk, offset, bytes);
+        endWrite(slot);
+    }
+
+    private void addArenaChunk(int capacity) {
+        // текущий буфер без живых строк больше не нужен
+        if (arenaChunk >= 0 && arenaLiveBytes[arenaChunk] == 0) {
+            freeArenaChunk(arenaChunk);
+        }
+        ByteBuffer[] chunks = arenaChunks;
+        if (arenaChunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            arenaLiveBytes = Arrays.copyOf(arenaLiveBytes, chunks.length);
+        }
+        chunks[arenaChunkCount] = ByteBuffer.allocateDirect(capacity);
+        arenaChunks = chunks;
+        arenaChunk = arenaChunkCount++;
+        arenaPosition = 0;
+        arenaBytes += capacity;
+    }
+
+    private void freeArenaChunk(int arenaIndex) {
+        ByteBuffer[] chunks = arenaChunks;
+        arenaBytes -= chunks[arenaIndex].capacity();
+        chunks[arenaIndex] = null;
+        arenaChunks = chunks;
+    }
+
+    // Общая часть представлений задачи и подзадачи: запись в хранилище или, после release, копия в куче.
+    // Общим базовым классом она быть не может (одно представление наследует Task, другое - Subtask),
+    // поэтому представления только передают ей вызовы.
+    // Чтение: штамп, затем detached (release пишет копию до изменения штампа), затем поле и проверка штампа
+    private static final class Record {
+        private final TaskRecordStore store;
+        private final int slot;
+        private volatile Task detached;
+
+        private Record(TaskRecordStore store, int slot) {
+            this.store = store;
+            this.slot = slot;
+        }
+
+        int getInt(int field) {
+            while (true) {
+                int stamp = store.readStamp(slot);
+                Task copy = detached;
+                if (copy != null) {
+                    return intOf(copy, field);
+                }
+                int value = store.chunkOf(slot).getInt(baseOf(slot) + field);
+                if (store.validate(slot, stamp)) {
+                    return value;
+                }
+            }
+        }
+
+        long getStartMinute() {
+            while (true) {
+                int stamp = store.readStamp(slot);
+                Task copy = detached;
+                if (copy != null) {
+                    return copy.getStartMinute();
+                }
+                long value = store.chunkOf(slot).getLong(baseOf(slot) + START_MINUTE);
+                if (store.validate(slot, stamp)) {
+                    return value;
+                }
+            }
+        }
+
+        TaskStatus getStatus() {
+            while (true) {
+                int stamp = store.readStamp(slot);
+                Task copy = detached;
+                if (copy != null) {
+                    return copy.getStatus();
+                }
+                TaskStatus value = readStatus(store.chunkOf(slot), baseOf(slot));
+                if (store.validate(slot, stamp)) {
+                    return value;
+                }
+            }
+        }
+
+        String getString(int field) {
+            while (true) {
+                int stamp = store.readStamp(slot);
+                Task copy = detached;
+                if (copy != null) {
+                    return field == NAME ? copy.getName() : copy.getDescription();
+                }
+                String value;
+                try {
+                    value = store.readString(store.chunkOf(slot), baseOf(slot) + field);
+                } catch (RuntimeException e) {
+                    if (store.validate(slot, stamp)) {
+                        throw e;
+                    }
+                    continue;
+                }
+                if (store.validate(slot, stamp)) {
+                    return value;
+                }
+            }
+        }
+
+        // Сеттеры вызывает только пишущий поток
+
+        void setInt(int field, int value) {
+            Task copy = detached;
+            if (copy != null) {
+                switch (field) {
+                    case ID:
+                        copy.setId(value);
+                        break;
+                    case VERSION:
+                        copy.setVersion(value);
+                        break;
+                    case DURATION:
+                        copy.setDuration(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported field " + field);
+                }
+                return;
+            }
+            store.beginWrite(slot);
+            store.chunkOf(slot).putInt(baseOf(slot) + field, value);
+            store.endWrite(slot);
+        }
+
+        void setStartMinute(long startMinute) {
+            Task copy = detached;
+            if (copy != null) {
+                copy.setStartMinute(startMinute);
+                return;
+            }
+            store.beginWrite(slot);
+            store.chunkOf(slot).putLong(baseOf(slot) + START_MINUTE, startMinute);
+            store.endWrite(slot);
+        }
+
+        void setStatus(TaskStatus status) {
+            Task copy = detached;
+            if (copy != null) {
+                copy.setStatus(status);
+                return;
+            }
+            store.beginWrite(slot);
+            writeStatus(store.chunkOf(slot), baseOf(slot), status);
+            store.endWrite(slot);
+        }
+
+        private static int intOf(Task copy, int field) {
+            switch (field) {
+                case ID:
+                    return copy.getId();
+                case VERSION:
+                    return copy.getVersion();
+                case DURATION:
+                    return copy.getDuration();
+                case EPIC_ID:
+                    return ((Subtask) copy).getEpicId();
+                default:
+                    throw new IllegalArgumentException("Unsupported field " + field);
+            }
+        }
+    }
+
+    private interface View {
+        Record record();
+    }
+
+    private static final class TaskView extends Task implements View {
+        private final Record record;
+
+        private TaskView(Record record) {
+            super(0, null, null, null);
+            this.record = record;
+        }
+
+        @Override
+        public Record record() {
+            return record;
+        }
+
+        @Override
+        public String getName() {
+            return record.getString(NAME);
+        }
+
+        @Override
+        public String getDescription() {
+            return record.getString(DESCRIPTION);
+        }
+
+        @Override
+        public int getId() {
+            return record.getInt(ID);
+        }
+
+        @Override
+        public void setId(int id) {
+            record.setInt(ID, id);
+        }
+
+        @Override
+        public TaskStatus getStatus() {
+            return record.getStatus();
+        }
+
+        @Override
+        public void setStatus(TaskStatus status) {
+            record.setStatus(status);
+        }
+
+        @Override
+        public long getStartMinute() {
+            return record.getStartMinute();
+        }
+
+        @Override
+        public void setStartMinute(long startMinute) {
+            record.setStartMinute(startMinute);
+        }
+
+        @Override
+        public int getDuration() {
+            return record.getInt(DURATION);
+        }
+
+        @Override
+        public void setDuration(int duration) {
+            record.setInt(DURATION, duration);
+        }
+
+        @Override
+        public int getVersion() {
+            return record.getInt(VERSION);
+        }
+
+        @Override
+        public void setVersion(int version) {
+            record.setInt(VERSION, version);
+        }
+    }
+
+    // То же, что TaskView, для подзадачи; копия после release - Subtask
+    private static final class SubtaskView extends Subtask implements View {
+        private final Record record;
+
+        private SubtaskView(Record record) {
+            super(0, null, null, null, 0);
+            this.record = record;
+        }
+
+        @Override
+        public Record record() {
+            return record;
+        }
+
+        @Override
+        public int getEpicId() {
+            return record.getInt(EPIC_ID);
+        }
+
+        @Override
+        public String getName() {
+            return record.getString(NAME);
+        }
+
+        @Override
+        public String getDescription() {
+            return record.getString(DESCRIPTION);
+        }
+
+        @Override
+        public int getId() {
+            return record.getInt(ID);
+        }
+
+        @Override
+        public void setId(int id) {
+            record.setInt(ID, id);
+        }
+
+        @Override
+        public TaskStatus getStatus() {
+            return record.getStatus();
+        }
+
+        @Override
+        public void setStatus(TaskStatus status) {
+            record.setStatus(status);
+        }
+
+        @Override
+        public long getStartMinute() {
+            return record.getStartMinute();
+        }
+
+        @Override
+        public void setStartMinute(long startMinute) {
+            record.setStartMinute(startMinute);
+        }
+
+        @Override
+        public int getDuration() {
+            return record.getInt(DURATION);
+        }
+
+        @Override
+        public void setDuration(int duration) {
+            record.setInt(DURATION, duration);
+        }
+
+        @Override
+        public int getVersion() {
+            return record.getInt(VERSION);
+        }
+
+        @Override
+        public void setVersion(int version) {
+            record.setInt(VERSION, version);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.kanban.managers.query;
+
+import java.util.List;
+
+// Результат планирования запроса (explain): откуда берутся кандидаты, сколько их
+// и какие условия проверяются для каждого кандидата.
+// candidates - все рассмотренные источники с их стоимостью (числом кандидатов)
+public class QueryPlan {
+    private final QuerySource source;
+    private final int cost;
+    private final List<String> candidates;
+    private final List<String> filters;
+
+    public QueryPlan(QuerySource source, int cost, List<String> candidates, List<String> filters) {
+        this.source = source;
+        this.cost = cost;
+        this.candidates = candidates;
+        this.filters = filters;
+    }
+
+    public QuerySource getSource() {
+        return source;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public List<String> getCandidates() {
+        return candidates;
+    }
+
+    public List<String> getFilters() {
+        return filters;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlan{" +
+                "source=" + source +
+                ", cost=" + cost +
+                ", candidates=" + candidates +
+                ", filters=" + filters +
+                '}';
+    }
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.kanban.managers.query;
+
+// Структуры, из которых планировщик может брать кандидатов для запроса
+public enum QuerySource {
+    EPIC_SUBTASKS,  // множество подзадач эпика
+    STATUS_INDEX,   // индекс статусов (по каждому подходящему типу)
+    TIME_INDEX,     // упорядоченное по времени начала множество TimeManager
+    TYPE_SCAN,      // все задачи одного типа
+    FULL_SCAN       // все задачи
+}
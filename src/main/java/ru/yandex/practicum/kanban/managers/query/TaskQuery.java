@@ -0,0 +1,128 @@
+package ru.yandex.practicum.kanban.managers.query;
+
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Запрос к задачам - конъюнкция условий; незаданное условие (null) не ограничивает выборку.
+// Условия задаются цепочкой: new TaskQuery().status(IN_PROGRESS).epicId(42).namePrefix("Deploy").
+// Как именно искать подходящие задачи (по какому индексу), решает менеджер, см. QueryPlan
+public class TaskQuery {
+    private TaskType type;
+    private TaskStatus status;
+    private Integer epicId;
+    private LocalDateTime startFrom;    // включительно
+    private LocalDateTime startTo;      // не включительно
+    private String namePrefix;
+
+    public TaskQuery type(TaskType type) {
+        this.type = type;
+        return this;
+    }
+
+    public TaskQuery status(TaskStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public TaskQuery epicId(Integer epicId) {
+        this.epicId = epicId;
+        return this;
+    }
+
+    // Время начала задачи в [from, to); любая из границ может быть null
+    public TaskQuery startTime(LocalDateTime from, LocalDateTime to) {
+        this.startFrom = from;
+        this.startTo = to;
+        return this;
+    }
+
+    public TaskQuery namePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+        return this;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public LocalDateTime getStartFrom() {
+        return startFrom;
+    }
+
+    public LocalDateTime getStartTo() {
+        return startTo;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public boolean hasStartTimeRange() {
+        return startFrom != null || startTo != null;
+    }
+
+    // Проверка всех условий запроса
+    public boolean matches(Task task) {
+        if (task == null) {
+            return false;
+        }
+        if (type != null && task.getType() != type) {
+            return false;
+        }
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+        if (epicId != null && !(task instanceof Subtask && ((Subtask) task).getEpicId() == epicId)) {
+            return false;
+        }
+        if (hasStartTimeRange()) {
+            LocalDateTime startTime = task.getStartTime();
+            if (startTime == null
+                    || (startFrom != null && startTime.isBefore(startFrom))
+                    || (startTo != null && !startTime.isBefore(startTo))) {
+                return false;
+            }
+        }
+        return namePrefix == null || (task.getName() != null && task.getName().startsWith(namePrefix));
+    }
+
+    // Текстовое описание условий - для explain
+    public List<String> describeConditions() {
+        List<String> conditions = new ArrayList<>();
+        if (type != null) {
+            conditions.add("type = " + type);
+        }
+        if (status != null) {
+            conditions.add("status = " + status);
+        }
+        if (epicId != null) {
+            conditions.add("epicId = " + epicId);
+        }
+        if (hasStartTimeRange()) {
+            conditions.add("startTime in [" + startFrom + ", " + startTo + ")");
+        }
+        if (namePrefix != null) {
+            conditions.add("name starts with \"" + namePrefix + "\"");
+        }
+        return conditions;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskQuery{" + String.join(" AND ", describeConditions()) + "}";
+    }
+}
@@ -5,10 +5,14 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 import ru.yandex.practicum.kanban.managers.Managers;
 import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.VersionConflictException;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
 import ru.yandex.practicum.kanban.util.json.GsonBuilders;
 import ru.yandex.practicum.kanban.tasks.Epic;
 import ru.yandex.practicum.kanban.tasks.Subtask;
 import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
 import ru.yandex.practicum.kanban.util.kvstorage.KVServer;
 
 import java.io.IOException;
@@ -16,9 +20,14 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.*;
 
 public class HttpTaskServer {
@@ -30,6 +39,7 @@ public class HttpTaskServer {
     public static final int RESPONSE_CODE_NOT_FOUND = 404;
     public static final int RESPONSE_CODE_METHOD_NOT_ALLOWED = 405;
     public static final int RESPONSE_CODE_NOT_ACCEPTABLE = 406;
+    public static final int RESPONSE_CODE_CONFLICT = 409;
 
     private static final String ENDPOINT_BASE = "tasks";
     private static final String ENDPOINT_TASK_OPERATIONS = "task";
@@ -37,11 +47,30 @@ public class HttpTaskServer {
     private static final String ENDPOINT_EPIC_OPERATIONS = "epic";
     private static final String ENDPOINT_HISTORY = "history";
     private static final String ENDPOINT_EPIC_SUBTASKS = "epic";
+    private static final String ENDPOINT_ANY_TASK = "any";
+    private static final String ENDPOINT_BATCH = "batch";
+    private static final String ENDPOINT_QUERY = "query";
+    private static final String ENDPOINT_SEARCH = "search";
+    private static final String ENDPOINT_SLOTS = "slots";
+
+    private static final String PARAMETER_STATUS = "status";
+    private static final String PARAMETER_CURSOR = "cursor";
+    private static final String PARAMETER_LIMIT = "limit";
+    private static final String PARAMETER_FROM = "from";
+    private static final String PARAMETER_TO = "to";
+    // Версия задачи передаётся как ETag: в ответе на чтение задачи по id и на обновление,
+    // а в заголовке If-Match запроса на обновление - ожидаемая версия
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_MATCH = "If-Match";
+    // Размер страницы, если указан только курсор, и наибольший допустимый размер страницы
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final int MAX_PAGE_LIMIT = 1000;
 
     private static final Gson gson;
 
     private final HttpServer httpServer;
     private final TaskManager taskManager;
+    private final ExecutorService executor;
 
     static {
         gson = GsonBuilders.getBuilderSeparateTaskTypes().create();
@@ -51,7 +80,8 @@ public class HttpTaskServer {
     public static void main(String[] args) throws IOException {
         KVServer kvServer = new KVServer();
         kvServer.start();
-        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getDefault());
+        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getConcurrent(Managers.getDefault()),
+                Runtime.getRuntime().availableProcessors());
         httpTaskServer.start();
     }
 
@@ -59,6 +89,12 @@ public class HttpTaskServer {
     // Поэтому создание менеджера разумнее вынести за пределы класса.
     // А getDefault из ТЗ - будет в main )
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, 1);
+    }
+
+    // При threads > 1 запросы обрабатываются пулом потоков,
+    // тогда менеджер должен быть потокобезопасным (см. Managers.getConcurrent)
+    public HttpTaskServer(TaskManager taskManager, int threads) throws IOException {
         this.taskManager = taskManager;
 
         InetSocketAddress inetSocketAddress = new InetSocketAddress(PORT);
@@ -66,6 +102,12 @@ public class HttpTaskServer {
         httpServer.bind(inetSocketAddress, 0);
 
         httpServer.createContext("/" + ENDPOINT_BASE, this::handleRequest);
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads);
+            httpServer.setExecutor(executor);
+        } else {
+            executor = null;
+        }
     }
 
     public void start() {
@@ -75,6 +117,9 @@ public class HttpTaskServer {
 
     public void stop(int delay) {
         httpServer.stop(delay);
+        if (executor != null) {
+            executor.shutdown();
+        }
         System.out.println("HttpTaskServer stops with " + delay + " seconds delay");
     }
 
@@ -88,33 +133,60 @@ public class HttpTaskServer {
                 response = new Response(RESPONSE_CODE_NOT_FOUND, null);
             } else if (pathParts.length == 2) {    // /tasks/
                 System.out.printf("Handling /%s/%n", ENDPOINT_BASE);
-                response = handleSimpleGetRequest(exchange, taskManager::getPrioritizedTasks);
+                response = isTimeWindowRequest(exchange.getRequestURI().getQuery()) ?
+                        handleTimeWindow(exchange) :
+                        handleSimpleGetRequest(exchange, taskManager::getPrioritizedTasksSnapshot,
+                                taskManager::getPrioritizedTasks);
             } else if (pathParts.length == 3) {    // /tasks/*/
                 switch (pathParts[2]) {
                     case ENDPOINT_TASK_OPERATIONS:    // /tasks/task/
                         System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_TASK_OPERATIONS);
                         response = handleTasks(exchange, Task.class,
-                                taskManager::getTask, taskManager::getTasks,
-                                taskManager::addTask, taskManager::updateTask,
+                                taskManager::getTask, taskManager::getTasksSnapshot, taskManager::getTasks,
+                                status -> taskManager.getByStatus(TaskType.TASK, status),
+                                taskManager::addTask, taskManager::updateTask, taskManager::updateTask,
                                 taskManager::removeTask, taskManager::clearTasks);
                         break;
                     case ENDPOINT_EPIC_OPERATIONS:    // /tasks/epic/
                         System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_EPIC_OPERATIONS);
                         response = handleTasks(exchange, Epic.class,
-                                taskManager::getEpic, taskManager::getEpics,
-                                taskManager::addEpic, taskManager::updateEpic,
+                                taskManager::getEpic, taskManager::getEpicsSnapshot, taskManager::getEpics,
+                                status -> taskManager.getByStatus(TaskType.EPIC, status),
+                                taskManager::addEpic, taskManager::updateEpic, taskManager::updateEpic,
                                 taskManager::removeEpic, taskManager::clearEpics);
                         break;
                     case ENDPOINT_SUBTASK_OPERATIONS:    // /tasks/subtask/
                         System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_SUBTASK_OPERATIONS);
                         response = handleTasks(exchange, Subtask.class,
-                                taskManager::getSubtask, taskManager::getSubtasks,
-                                taskManager::addSubtask, taskManager::updateSubtask,
+                                taskManager::getSubtask, taskManager::getSubtasksSnapshot, taskManager::getSubtasks,
+                                status -> taskManager.getByStatus(TaskType.SUBTASK, status),
+                                taskManager::addSubtask,
+                                taskManager::updateSubtask, taskManager::updateSubtask,
                                 taskManager::removeSubtask, taskManager::clearSubtasks);
                         break;
                     case ENDPOINT_HISTORY:    // /tasks/history/
                         System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_HISTORY);
-                        response = handleSimpleGetRequest(exchange, taskManager::getHistory);
+                        response = handleSimpleGetRequest(exchange, taskManager::getHistorySnapshot, null);
+                        break;
+                    case ENDPOINT_ANY_TASK:    // /tasks/any/
+                        System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_ANY_TASK);
+                        response = handleAnyTask(exchange);
+                        break;
+                    case ENDPOINT_QUERY:    // /tasks/query/
+                        System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_QUERY);
+                        response = handleQuery(exchange);
+                        break;
+                    case ENDPOINT_SEARCH:    // /tasks/search/
+                        System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_SEARCH);
+                        response = handleSearch(exchange);
+                        break;
+                    case ENDPOINT_SLOTS:    // /tasks/slots/
+                        System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_SLOTS);
+                        response = handleSlots(exchange);
+                        break;
+                    case ENDPOINT_BATCH:    // /tasks/batch/
+                        System.out.printf("Handling /%s/%s%n", ENDPOINT_BASE, ENDPOINT_BATCH);
+                        response = handleBatchRemove(exchange);
                         break;
                     default:
                         response = new Response(RESPONSE_CODE_NOT_FOUND, null);
@@ -125,6 +197,22 @@ public class HttpTaskServer {
                 System.out.printf("Handling /%s/%s/%s%n",
                         ENDPOINT_BASE, ENDPOINT_SUBTASK_OPERATIONS, ENDPOINT_EPIC_SUBTASKS);
                 response = handleEpicSubtasks(exchange);
+            } else if (pathParts.length == 4 && ENDPOINT_BATCH.equals(pathParts[3])) {
+                // /tasks/*/batch/
+                System.out.printf("Handling /%s/%s/%s%n", ENDPOINT_BASE, pathParts[2], ENDPOINT_BATCH);
+                switch (pathParts[2]) {
+                    case ENDPOINT_TASK_OPERATIONS:
+                        response = handleBatch(exchange, Task.class);
+                        break;
+                    case ENDPOINT_EPIC_OPERATIONS:
+                        response = handleBatch(exchange, Epic.class);
+                        break;
+                    case ENDPOINT_SUBTASK_OPERATIONS:
+                        response = handleBatch(exchange, Subtask.class);
+                        break;
+                    default:
+                        response = new Response(RESPONSE_CODE_NOT_FOUND, null);
+                }
             } else {
                 response = new Response(RESPONSE_CODE_BAD_REQUEST, null);
             }
@@ -134,15 +222,95 @@ public class HttpTaskServer {
         }
     }
 
-    private static Response handleSimpleGetRequest(HttpExchange exchange, Supplier<Object> supplier) {
+    // Полный список сериализуется прямо из снимка менеджера, без копирования.
+    // pageGetter == null - список не поддерживает постраничное чтение, параметры запроса игнорируются
+    private static <T> Response handleSimpleGetRequest(HttpExchange exchange, Supplier<List<T>> supplier,
+                                                       PageGetter<T> pageGetter) {
         String requestMethod = exchange.getRequestMethod();
         if (!"GET".equals(requestMethod)) {
             return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
         }
+        String requestQuery = exchange.getRequestURI().getQuery();
+        if (pageGetter != null && isPageRequest(requestQuery)) {
+            return handlePageRequest(requestQuery, pageGetter);
+        }
         String response = gson.toJson(supplier.get());
         return new Response(RESPONSE_CODE_OK, response);
     }
 
+    // Страница списка: ?cursor=<id последней задачи предыдущей страницы>&limit=<размер страницы>.
+    // Оба параметра необязательны; в ответе - json-массив, курсор следующей страницы - id его последней задачи
+    private static <T> Response handlePageRequest(String requestQuery, PageGetter<T> pageGetter) {
+        String cursorParameter = getQueryParameter(requestQuery, PARAMETER_CURSOR);
+        String limitParameter = getQueryParameter(requestQuery, PARAMETER_LIMIT);
+        Integer cursor;
+        int limit;
+        try {
+            cursor = cursorParameter == null ? null : Integer.valueOf(cursorParameter);
+            limit = limitParameter == null ? DEFAULT_PAGE_LIMIT : Integer.parseInt(limitParameter);
+        } catch (NumberFormatException e) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        if (limit <= 0 || limit > MAX_PAGE_LIMIT) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        List<T> page = pageGetter.get(cursor, limit);
+        if (page == null) {
+            return new Response(RESPONSE_CODE_NOT_FOUND, null);
+        }
+        return new Response(RESPONSE_CODE_OK, gson.toJson(page));
+    }
+
+    private static boolean isPageRequest(String requestQuery) {
+        return requestQuery != null && (getQueryParameter(requestQuery, PARAMETER_CURSOR) != null
+                || getQueryParameter(requestQuery, PARAMETER_LIMIT) != null);
+    }
+
+    private static boolean isTimeWindowRequest(String requestQuery) {
+        return requestQuery != null && (getQueryParameter(requestQuery, PARAMETER_FROM) != null
+                || getQueryParameter(requestQuery, PARAMETER_TO) != null);
+    }
+
+    // Задачи по времени для календаря: /tasks/?from=01.01.2022 00:00&to=08.01.2022 00:00 - задачи, идущие
+    // в этом промежутке, from или to можно не указывать; /tasks/?from=01.01.2022 10:00&limit=<число> -
+    // ближайшие задачи, начинающиеся не раньше from. Курсор с этими параметрами не сочетается
+    private Response handleTimeWindow(HttpExchange exchange) {
+        String requestMethod = exchange.getRequestMethod();
+        if (!"GET".equals(requestMethod)) {
+            return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
+        }
+        String requestQuery = exchange.getRequestURI().getQuery();
+        if (getQueryParameter(requestQuery, PARAMETER_CURSOR) != null) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        String from = getQueryParameter(requestQuery, PARAMETER_FROM);
+        String to = getQueryParameter(requestQuery, PARAMETER_TO);
+        String limitParameter = getQueryParameter(requestQuery, PARAMETER_LIMIT);
+        LocalDateTime fromTime;
+        LocalDateTime toTime;
+        Integer limit;
+        try {
+            fromTime = from == null ? null : LocalDateTime.parse(from, GsonBuilders.DATE_TIME_FORMATTER);
+            toTime = to == null ? null : LocalDateTime.parse(to, GsonBuilders.DATE_TIME_FORMATTER);
+            limit = limitParameter == null ? null : Integer.valueOf(limitParameter);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        if (limit != null && (limit <= 0 || limit > MAX_PAGE_LIMIT)) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        List<Task> tasks;
+        if (toTime == null && limit != null) {
+            tasks = taskManager.getUpcoming(fromTime, limit);
+        } else {
+            tasks = taskManager.getTasksBetween(fromTime, toTime);
+            if (limit != null && tasks.size() > limit) {
+                tasks = tasks.subList(0, limit);
+            }
+        }
+        return new Response(RESPONSE_CODE_OK, gson.toJson(tasks));
+    }
+
     private Response handleEpicSubtasks(HttpExchange exchange) {
         String requestMethod = exchange.getRequestMethod();
         if (!"GET".equals(requestMethod)) {
@@ -160,9 +328,187 @@ public class HttpTaskServer {
         return new Response(RESPONSE_CODE_OK, response);
     }
 
+    // Задача любого типа по id - для клиентов, которые не знают тип задачи
+    private Response handleAnyTask(HttpExchange exchange) {
+        String requestMethod = exchange.getRequestMethod();
+        if (!"GET".equals(requestMethod)) {
+            return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
+        }
+        Integer id = getIdFromRequestUri(exchange.getRequestURI());
+        if (id == null) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        Task task = taskManager.getAny(id);
+        if (task == null) {
+            return new Response(RESPONSE_CODE_NOT_FOUND, null);
+        }
+        return new Response(RESPONSE_CODE_OK, gson.toJson(task));
+    }
+
+    // Запрос задач по условиям: /tasks/query?type=SUBTASK&status=IN_PROGRESS&epic=42
+    // &from=01.01.2022 10:00&to=02.01.2022 10:00&name=Deploy; все параметры необязательны.
+    // С параметром explain=true вместо задач возвращается план выполнения запроса
+    private Response handleQuery(HttpExchange exchange) {
+        String requestMethod = exchange.getRequestMethod();
+        if (!"GET".equals(requestMethod)) {
+            return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
+        }
+        String requestQuery = exchange.getRequestURI().getQuery();
+        TaskQuery query = new TaskQuery();
+        if (requestQuery != null) {
+            try {
+                String type = getQueryParameter(requestQuery, "type");
+                String status = getQueryParameter(requestQuery, PARAMETER_STATUS);
+                String epicId = getQueryParameter(requestQuery, "epic");
+                String from = getQueryParameter(requestQuery, "from");
+                String to = getQueryParameter(requestQuery, "to");
+                query.type(type == null ? null : TaskType.valueOf(type))
+                        .status(status == null ? null : TaskStatus.valueOf(status))
+                        .epicId(epicId == null ? null : Integer.valueOf(epicId))
+                        .startTime(from == null ? null : LocalDateTime.parse(from, GsonBuilders.DATE_TIME_FORMATTER),
+                                to == null ? null : LocalDateTime.parse(to, GsonBuilders.DATE_TIME_FORMATTER))
+                        .namePrefix(getQueryParameter(requestQuery, "name"));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+            }
+            if ("true".equals(getQueryParameter(requestQuery, "explain"))) {
+                return new Response(RESPONSE_CODE_OK, gson.toJson(taskManager.explain(query)));
+            }
+        }
+        return new Response(RESPONSE_CODE_OK, gson.toJson(taskManager.query(query)));
+    }
+
+    // Полнотекстовый поиск: /tasks/search?q=<слова>&limit=<число задач>; limit необязателен.
+    // В ответе - задачи всех типов, наиболее подходящие в начале
+    private Response handleSearch(HttpExchange exchange) {
+        String requestMethod = exchange.getRequestMethod();
+        if (!"GET".equals(requestMethod)) {
+            return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
+        }
+        String requestQuery = exchange.getRequestURI().getQuery();
+        String text = requestQuery == null ? null : getQueryParameter(requestQuery, "q");
+        if (text == null || text.isBlank()) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        String limitParameter = getQueryParameter(requestQuery, PARAMETER_LIMIT);
+        int limit;
+        try {
+            limit = limitParameter == null ? DEFAULT_PAGE_LIMIT : Integer.parseInt(limitParameter);
+        } catch (NumberFormatException e) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        if (limit <= 0 || limit > MAX_PAGE_LIMIT) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        return new Response(RESPONSE_CODE_OK, gson.toJson(taskManager.search(text, limit)));
+    }
+
+    // Свободное время: /tasks/slots?duration=<минуты>&from=01.01.2022 10:00&to=02.01.2022 10:00&limit=<число>;
+    // to и limit необязательны, по умолчанию ищется один промежуток. В ответе - json-массив времён начала
+    // по одному на свободный промежуток, вместо подбора времени повторными POST до ответа без 406
+    private Response handleSlots(HttpExchange exchange) {
+        String requestMethod = exchange.getRequestMethod();
+        if (!"GET".equals(requestMethod)) {
+            return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
+        }
+        String requestQuery = exchange.getRequestURI().getQuery();
+        if (requestQuery == null) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        String duration = getQueryParameter(requestQuery, "duration");
+        String from = getQueryParameter(requestQuery, "from");
+        String to = getQueryParameter(requestQuery, "to");
+        String limitParameter = getQueryParameter(requestQuery, PARAMETER_LIMIT);
+        if (duration == null || from == null) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        int durationMinutes;
+        LocalDateTime notBefore;
+        LocalDateTime notAfter;
+        int limit;
+        try {
+            durationMinutes = Integer.parseInt(duration);
+            notBefore = LocalDateTime.parse(from, GsonBuilders.DATE_TIME_FORMATTER);
+            notAfter = to == null ? null : LocalDateTime.parse(to, GsonBuilders.DATE_TIME_FORMATTER);
+            limit = limitParameter == null ? 1 : Integer.parseInt(limitParameter);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        if (durationMinutes <= 0 || limit <= 0 || limit > MAX_PAGE_LIMIT) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        return new Response(RESPONSE_CODE_OK,
+                gson.toJson(taskManager.findFreeSlots(durationMinutes, notBefore, notAfter, limit)));
+    }
+
+    // Пакет задач одного типа в виде json-массива.
+    // Как и для одиночных запросов: если ни у одной задачи нет id - пакет добавляется,
+    // если id есть у всех - пакет обновляется; смешанный пакет не принимается.
+    // Пакет принимается целиком или не принимается вообще
+    private <T extends Task> Response handleBatch(HttpExchange exchange, Class<T> taskClass) throws IOException {
+        String requestMethod = exchange.getRequestMethod();
+        if (!"POST".equals(requestMethod)) {
+            return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
+        }
+        String requestBody = new String(exchange.getRequestBody().readAllBytes(), DEFAULT_CHARSET);
+        JsonElement jsonElement;
+        try {
+            jsonElement = JsonParser.parseString(requestBody);
+        } catch (JsonParseException e) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        if (!jsonElement.isJsonArray()) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        JsonArray jsonArray = jsonElement.getAsJsonArray();
+        List<T> tasks = new ArrayList<>(jsonArray.size());
+        int tasksWithId = 0;
+        for (JsonElement element : jsonArray) {
+            if (!element.isJsonObject()) {
+                return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+            }
+            T task = gson.fromJson(element, taskClass);
+            if (task == null) {
+                return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+            }
+            if (element.getAsJsonObject().get("id") != null) {
+                tasksWithId++;
+            }
+            tasks.add(task);
+        }
+        if (tasksWithId == 0) {
+            if (!taskManager.addAll(tasks)) {
+                return new Response(RESPONSE_CODE_NOT_ACCEPTABLE, null);
+            }
+            return new Response(RESPONSE_CODE_OK, gson.toJson(tasks));
+        } else if (tasksWithId == tasks.size()) {
+            return new Response(
+                    taskManager.updateAll(tasks) ? RESPONSE_CODE_OK : RESPONSE_CODE_NOT_ACCEPTABLE,
+                    null);
+        }
+        return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+    }
+
+    // Удаление задач любых типов по списку id: /tasks/batch?ids=1,2,3
+    // В ответе - количество удалённых задач
+    private Response handleBatchRemove(HttpExchange exchange) {
+        String requestMethod = exchange.getRequestMethod();
+        if (!"DELETE".equals(requestMethod)) {
+            return new Response(RESPONSE_CODE_METHOD_NOT_ALLOWED, null);
+        }
+        String requestQuery = exchange.getRequestURI().getQuery();
+        List<Integer> ids = requestQuery == null ? null : getIdsFromRequestQuery(requestQuery);
+        if (ids == null) {
+            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+        }
+        return new Response(RESPONSE_CODE_OK, gson.toJson(taskManager.removeAll(ids)));
+    }
+
     private static  <T extends Task> Response handleTasks(HttpExchange exchange, Class<T> taskClass,
                                               IntFunction<T> taskGetter, Supplier<List<T>> allTasksGetter,
+                                              PageGetter<T> pageGetter, Function<TaskStatus, List<Task>> statusGetter,
                                               UnaryOperator<T> taskAdder, Predicate<T> taskUpdater,
+                                              VersionedUpdater<T> versionedUpdater,
                                               IntPredicate taskRemover, Action taskClearer) throws IOException {
         String requestMethod = exchange.getRequestMethod();
         String requestQuery = exchange.getRequestURI().getQuery();
@@ -170,6 +516,14 @@ public class HttpTaskServer {
             case "GET":
                 if (requestQuery == null) { // Нет строки запроса
                     return new Response(RESPONSE_CODE_OK, gson.toJson(allTasksGetter.get()));
+                } else if (isPageRequest(requestQuery)) {
+                    return handlePageRequest(requestQuery, pageGetter);
+                } else if (getQueryParameter(requestQuery, PARAMETER_STATUS) != null) {
+                    TaskStatus status = getStatusFromRequestQuery(requestQuery);
+                    if (status == null) {
+                        return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+                    }
+                    return new Response(RESPONSE_CODE_OK, gson.toJson(statusGetter.apply(status)));
                 } else {
                     Integer id = getIdFromRequestQuery(requestQuery);
                     if (id == null) {
@@ -179,7 +533,7 @@ public class HttpTaskServer {
                     if (task == null) {
                         return new Response(RESPONSE_CODE_NOT_FOUND, null);
                     }
-                    return new Response(RESPONSE_CODE_OK, gson.toJson(task));
+                    return new Response(RESPONSE_CODE_OK, gson.toJson(task), eTag(task));
                 }
             case "POST":
                 String requestBody = new String(exchange.getRequestBody().readAllBytes(), DEFAULT_CHARSET);
@@ -203,10 +557,24 @@ public class HttpTaskServer {
                     }
                     return new Response(RESPONSE_CODE_OK, gson.toJson(task));
                 } else {
-                    // обновление задачи
-                    return new Response(
-                            taskUpdater.test(task) ? RESPONSE_CODE_OK : RESPONSE_CODE_NOT_ACCEPTABLE,
-                            null);
+                    // обновление задачи; с заголовком If-Match - только если версия задачи не изменилась
+                    String ifMatch = exchange.getRequestHeaders().getFirst(HEADER_IF_MATCH);
+                    boolean updated;
+                    if (ifMatch == null || "*".equals(ifMatch.trim())) {
+                        updated = taskUpdater.test(task);
+                    } else {
+                        Integer expectedVersion = getVersionFromETag(ifMatch);
+                        if (expectedVersion == null) {
+                            return new Response(RESPONSE_CODE_BAD_REQUEST, null);
+                        }
+                        try {
+                            updated = versionedUpdater.update(task, expectedVersion);
+                        } catch (VersionConflictException e) {
+                            return new Response(RESPONSE_CODE_CONFLICT, null, eTag(e.getActualVersion()));
+                        }
+                    }
+                    return updated ? new Response(RESPONSE_CODE_OK, null, eTag(task))
+                            : new Response(RESPONSE_CODE_NOT_ACCEPTABLE, null);
                 }
             case "DELETE":
                 if (requestQuery == null) { // Нет строки запроса
@@ -226,18 +594,77 @@ public class HttpTaskServer {
         }
     }
 
-    private static Integer getIdFromRequestQuery(String requestQuery) {
+    // Значение параметра строки запроса или null, если параметра нет
+    private static String getQueryParameter(String requestQuery, String name) {
         // На случай если будет несколько аргументов
-        Optional<String> id = Arrays.stream(requestQuery.split("&"))
+        Optional<String> value = Arrays.stream(requestQuery.split("&"))
                 .map(s -> s.split("="))
-                .filter(words -> words.length == 2 && "id".equals(words[0]))
+                .filter(words -> words.length == 2 && name.equals(words[0]))
                 .map(words -> words[1])
                 .findFirst();
-        if (id.isEmpty()) {
+        return value.orElse(null);
+    }
+
+    private static Integer getIdFromRequestQuery(String requestQuery) {
+        String id = getQueryParameter(requestQuery, "id");
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static TaskStatus getStatusFromRequestQuery(String requestQuery) {
+        String status = getQueryParameter(requestQuery, PARAMETER_STATUS);
+        if (status == null) {
             return null;
         }
         try {
-            return Integer.valueOf(id.get());
+            return TaskStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Список id через запятую из параметра ids; null, если параметра нет или он некорректен
+    private static List<Integer> getIdsFromRequestQuery(String requestQuery) {
+        String ids = getQueryParameter(requestQuery, "ids");
+        if (ids == null) {
+            return null;
+        }
+        List<Integer> result = new ArrayList<>();
+        try {
+            for (String id : ids.split(",")) {
+                result.add(Integer.valueOf(id));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return result;
+    }
+
+    private static String eTag(Task task) {
+        return eTag(task.getVersion());
+    }
+
+    private static String eTag(int version) {
+        return "\"" + version + "\"";
+    }
+
+    // Версия из значения If-Match: "3" или W/"3"; null, если значение некорректно
+    private static Integer getVersionFromETag(String value) {
+        String eTag = value.trim();
+        if (eTag.startsWith("W/")) {
+            eTag = eTag.substring(2);
+        }
+        if (eTag.length() < 2 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(eTag.substring(1, eTag.length() - 1));
         } catch (NumberFormatException e) {
             return null;
         }
@@ -253,16 +680,35 @@ public class HttpTaskServer {
         void run();
     }
 
+    @FunctionalInterface
+    private interface VersionedUpdater<T> {
+        boolean update(T task, int expectedVersion);
+    }
+
+    @FunctionalInterface
+    private interface PageGetter<T> {
+        List<T> get(Integer cursor, int limit);
+    }
+
     private static class Response {
         private final int code;
         private final String body;
+        private final String eTag;
 
         public Response(int code, String body) {
+            this(code, body, null);
+        }
+
+        public Response(int code, String body, String eTag) {
             this.code = code;
             this.body = body;
+            this.eTag = eTag;
         }
 
         public void send(HttpExchange exchange) throws IOException {
+            if (eTag != null) {
+                exchange.getResponseHeaders().set(HEADER_ETAG, eTag);
+            }
             exchange.sendResponseHeaders(code, 0);
             if (body != null) {
                 exchange.getResponseBody().write(body.getBytes(DEFAULT_CHARSET));
@@ -1,36 +1,54 @@
 package ru.yandex.practicum.kanban.tasks;
 
+import ru.yandex.practicum.kanban.util.collections.IntLinkedSet;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private final List<Integer> subtaskIds;
-    private LocalDateTime endTime;
+    // Множество с порядком добавления: добавление, удаление и проверка наличия за O(1)
+    private final IntLinkedSet subtaskIds;
+    // Время окончания эпика не выводится из времени начала, поэтому хранится отдельно, тоже в минутах
+    private long endMinute = NO_TIME;
 
     // В конструкторе нет статуса, т.к. он рассчитывается на основе подзадач,
     // конструктора с временем тоже нет, по той же причине
     public Epic(int id, String name, String description) {
         super(id, name, description, TaskStatus.NEW);
-        subtaskIds = new ArrayList<>();
+        subtaskIds = new IntLinkedSet();
     }
 
+    // Представление только для чтения; изменять подзадачи можно только через методы эпика
     public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+        return subtaskIds.asList();
+    }
+
+    // Обход id подзадач без упаковки в Integer
+    public void forEachSubtaskId(IntConsumer action) {
+        subtaskIds.forEach(action);
+    }
+
+    public boolean containsSubtask(int subtaskId) {
+        return subtaskIds.contains(subtaskId);
     }
 
     public void addSubtask(int subtaskId) {
-        if (!subtaskIds.contains(subtaskId)) {
-            subtaskIds.add(subtaskId);
-        }
+        subtaskIds.add(subtaskId);
     }
 
-    public void removeSubtask(Integer subtaskId) {
+    public void removeSubtask(int subtaskId) {
         subtaskIds.remove(subtaskId);
     }
 
+    public void removeSubtask(Integer subtaskId) {
+        if (subtaskId != null) {
+            subtaskIds.remove(subtaskId);
+        }
+    }
+
     public void clearSubtasks() {
         subtaskIds.clear();
     }
@@ -42,15 +60,25 @@ public class Epic extends Task {
 
     @Override
     public LocalDateTime getEndTime() {
-        return endTime;
+        return toDateTime(endMinute);
     }
 
     public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+        endMinute = toEpochMinute(endTime);
+    }
+
+    @Override
+    public long getEndMinute() {
+        return endMinute;
+    }
+
+    public void setEndMinute(long endMinute) {
+        this.endMinute = endMinute;
     }
 
     @Override
     public String toString() {
+        LocalDateTime endTime = getEndTime();
         return "Epic{" +
                 super.toString() +
                 ", endTime=" +
@@ -64,11 +92,11 @@ public class Epic extends Task {
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         Epic epic = (Epic) o;
-        return Objects.equals(subtaskIds, epic.subtaskIds) && Objects.equals(endTime, epic.endTime);
+        return Objects.equals(subtaskIds, epic.subtaskIds) && endMinute == epic.endMinute;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), subtaskIds, endTime);
+        return Objects.hash(super.hashCode(), subtaskIds, endMinute);
     }
 }
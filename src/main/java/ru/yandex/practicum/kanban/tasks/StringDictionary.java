@@ -0,0 +1,40 @@
+package ru.yandex.practicum.kanban.tasks;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Общий словарь названий и описаний задач: равные строки разных задач хранятся одним объектом String.
+// Задача держит ссылку на строку словаря - при сжатых ссылках это те же 4 байта, что и номер строки,
+// поэтому отдельная таблица номеров не нужна. Длинные строки (обычно уникальные описания) в словарь
+// не попадают.
+// Словарь общий для всех менеджеров (задачи создаются и вне менеджера - при разборе CSV и JSON),
+// поэтому строки удалённых задач из него сами не уходят. Чтобы он не заполнялся ими навсегда,
+// заполненный словарь очищается и собирается заново: существующие задачи сохраняют свои строки,
+// а новые задачи снова делят строки между собой
+final class StringDictionary {
+    static final int MAX_SIZE = 1 << 16;
+    private static final int MAX_LENGTH = 64;
+    private static final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    private StringDictionary() {
+    }
+
+    static String encode(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        String encoded = strings.get(value);
+        if (encoded != null) {
+            return encoded;
+        }
+        if (strings.size() >= MAX_SIZE) {
+            // одновременная очистка из нескольких потоков безопасна: лишний clear только теряет часть строк
+            strings.clear();
+        }
+        encoded = strings.putIfAbsent(value, value);
+        return encoded == null ? value : encoded;
+    }
+
+    static int size() {
+        return strings.size();
+    }
+}
@@ -30,7 +30,7 @@ public class Subtask extends Task {
     public String toString() {
         String result = "Subtask{" +
                 super.toString() +
-                ", epicId=" + epicId;
+                ", epicId=" + getEpicId();
         result += '}';
         return result;
     }
@@ -38,14 +38,14 @@ public class Subtask extends Task {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        // тип задачи сверяется в Task.equals
         if (!super.equals(o)) return false;
         Subtask subtask = (Subtask) o;
-        return epicId == subtask.epicId;
+        return getEpicId() == subtask.getEpicId();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), epicId);
+        return Objects.hash(super.hashCode(), getEpicId());
     }
 }
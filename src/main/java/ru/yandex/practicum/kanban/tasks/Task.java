@@ -1,29 +1,36 @@
 package ru.yandex.practicum.kanban.tasks;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 
 public class Task {
+    // Время хранится числом минут от 1970-01-01T00:00 (NO_TIME - времени нет): LocalDateTime создаётся
+    // только в getStartTime и getEndTime, а сравнения и проверки пересечений идут по числам
+    public static final long NO_TIME = Long.MIN_VALUE;
 
+    // Название и описание берутся из общего словаря строк: одинаковые строки задач хранятся одним объектом
     private final String name;
     private final String description;
     private int id;
     private TaskStatus status;
-    protected LocalDateTime startTime;
-    protected int duration;   // продолжительность в минутах
+    private long startMinute = NO_TIME;
+    private int duration;   // продолжительность в минутах
+    // Версия назначается менеджером: 1 при добавлении, +1 при каждом обновлении.
+    // В equals и hashCode не участвует: задачи с одинаковым содержимым равны независимо от версии
+    private int version;
 
     public Task(int id, String name, String description, TaskStatus status) {
-        this.name = name;
-        this.description = description;
+        this.name = StringDictionary.encode(name);
+        this.description = StringDictionary.encode(description);
         this.id = id;
         this.status = status;
     }
 
     public Task(int id, String name, String description, TaskStatus status, LocalDateTime startTime, int duration) {
         this(id, name, description, status);
-        // Раз уж длительность в минутах, можно и время начала округлить до минут
-        this.startTime = (startTime == null) ? null : startTime.withSecond(0).withNano(0);
+        this.startMinute = toEpochMinute(startTime);
         this.duration = duration;
     }
 
@@ -56,11 +63,25 @@ public class Task {
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return toDateTime(getStartMinute());
     }
 
+    // Раз уж длительность в минутах, время начала округляется до минут
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        setStartMinute(toEpochMinute(startTime));
+    }
+
+    public long getStartMinute() {
+        return startMinute;
+    }
+
+    public void setStartMinute(long startMinute) {
+        this.startMinute = startMinute;
+    }
+
+    public long getEndMinute() {
+        long startMinute = getStartMinute();
+        return startMinute == NO_TIME ? NO_TIME : startMinute + getDuration();
     }
 
     public int getDuration() {
@@ -71,35 +92,56 @@ public class Task {
         this.duration = duration;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public LocalDateTime getEndTime() {
-        return (startTime == null) ? null : startTime.plusMinutes(duration);
+        return toDateTime(getEndMinute());
+    }
+
+    // Перевод между LocalDateTime и минутами от эпохи; секунды и наносекунды отбрасываются
+    public static long toEpochMinute(LocalDateTime time) {
+        return time == null ? NO_TIME : Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public static LocalDateTime toDateTime(long epochMinute) {
+        return epochMinute == NO_TIME ? null : LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
     }
 
     @Override
     public String toString() {
+        LocalDateTime startTime = getStartTime();
         return "Task{" +
-                "id=" + id +
-                ", name='" + name + '\'' +
-                ", description='" + description + '\'' +
-                ", status=" + status +
+                "id=" + getId() +
+                ", name='" + getName() + '\'' +
+                ", description='" + getDescription() + '\'' +
+                ", status=" + getStatus() +
                 ", startTime=" +
                 (startTime == null ? null : startTime.format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"))) +
-                ", duration=" + duration +
+                ", duration=" + getDuration() +
                 '}';
     }
 
+    // Поля сравниваются через геттеры, а классы - по типу задачи: представления задач, которые хранят поля
+    // не в объекте (например, записи вне кучи в InMemoryTaskManager), равны обычным задачам с теми же данными
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Task)) return false;
         Task task = (Task) o;
-        return id == task.id && duration == task.duration && Objects.equals(name, task.name)
-                && Objects.equals(description, task.description) && status == task.status
-                && Objects.equals(startTime, task.startTime);
+        return getType() == task.getType() && getId() == task.getId() && getDuration() == task.getDuration()
+                && Objects.equals(getName(), task.getName())
+                && Objects.equals(getDescription(), task.getDescription()) && getStatus() == task.getStatus()
+                && getStartMinute() == task.getStartMinute();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, description, id, status, startTime, duration);
+        return Objects.hash(getName(), getDescription(), getId(), getStatus(), getStartMinute(), getDuration());
     }
 }
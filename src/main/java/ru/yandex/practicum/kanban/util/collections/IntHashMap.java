@@ -0,0 +1,338 @@
+package ru.yandex.practicum.kanban.util.collections;
+
+import java.util.*;
+
+// Словарь int -> V без упаковки ключей в Integer и без HashMap.Node на каждую запись.
+// Записи лежат плотно в двух массивах (keys/values) в порядке добавления,
+// а хеш-таблица с открытой адресацией (линейное пробирование) хранит только позиции в этих массивах.
+// На запись уходит ~16 байт (ключ, ссылка и два слота индекса) против ~50 байт у HashMap<Integer, V>.
+// Порядок обхода - порядок добавления (для id из генератора это порядок возрастания id).
+// null в качестве значения не допускается: удалённая запись помечается null в values.
+public class IntHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    // Значения ячеек индекса: 0 - пусто, -1 - удалено, иначе позиция в keys/values + 1
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    private int[] keys;
+    private Object[] values;
+    // Длина индекса всегда вдвое больше длины keys, поэтому заполненность индекса
+    // (вместе с удалёнными ячейками) не превышает 1/2
+    private int[] index;
+    private int used;   // сколько позиций keys/values занято, включая удалённые записи
+    private int size;
+    // Неизменяемый список значений, сбрасывается при любом изменении словаря
+    private List<V> snapshot;
+
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(expectedSize, DEFAULT_CAPACITY));
+        keys = new int[capacity];
+        values = new Object[capacity];
+        index = new int[capacity * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return findPosition(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int position = findPosition(key);
+        return position < 0 ? null : (V) values[position];
+    }
+
+    // Возвращает предыдущее значение или null
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        int slot = findSlot(key);
+        int position = index[slot] - 1;
+        snapshot = null;
+        if (position >= 0) {
+            V previous = (V) values[position];
+            values[position] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            rebuild(size + 1);
+            slot = findSlot(key);
+        }
+        keys[used] = key;
+        values[used] = value;
+        index[slot] = ++used;
+        size++;
+        return null;
+    }
+
+    // То же, что put, но новый ключ меньше последнего встаёт на своё место по возрастанию, а не в конец:
+    // словари с id из генератора остаются упорядоченными, и valuesAfter листает их по порядку id.
+    // Стоит O(n) (сдвиг записей и перестройка индекса), если ключ не последний
+    @SuppressWarnings("unchecked")
+    public V putInKeyOrder(int key, V value) {
+        Objects.requireNonNull(value);
+        if (used == 0 || keys[used - 1] < key || findPosition(key) >= 0) {
+            return put(key, value);
+        }
+        snapshot = null;
+        if (used == keys.length) {
+            rebuild(size + 1);
+        }
+        int position = lowerBound(key);
+        if (position < used && keys[position] == key && values[position] == null) {
+            // удалённая запись с этим ключом ещё на месте - она и заполняется
+            values[position] = value;
+            index[findSlot(key)] = position + 1;
+        } else {
+            System.arraycopy(keys, position, keys, position + 1, used - position);
+            System.arraycopy(values, position, values, position + 1, used - position);
+            keys[position] = key;
+            values[position] = value;
+            used++;
+            reindex();
+        }
+        size++;
+        return null;
+    }
+
+    // Заменяет значение, только если ключ уже есть; возвращает предыдущее значение или null
+    @SuppressWarnings("unchecked")
+    public V replace(int key, V value) {
+        Objects.requireNonNull(value);
+        int position = findPosition(key);
+        if (position < 0) {
+            return null;
+        }
+        snapshot = null;
+        V previous = (V) values[position];
+        values[position] = value;
+        return previous;
+    }
+
+    // Возвращает удалённое значение или null
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        int position = index[slot] - 1;
+        if (position < 0) {
+            return null;
+        }
+        snapshot = null;
+        V previous = (V) values[position];
+        values[position] = null;
+        index[slot] = DELETED;
+        size--;
+        if (size == 0) {
+            clear();
+        }
+        return previous;
+    }
+
+    public void clear() {
+        snapshot = null;
+        Arrays.fill(values, 0, used, null);
+        Arrays.fill(index, EMPTY);
+        used = 0;
+        size = 0;
+    }
+
+    // Представление значений только для чтения, обход в порядке добавления
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    // Неизменяемая копия значений в порядке добавления. Копия строится один раз и отдаётся
+    // повторно, пока словарь не изменится, поэтому частое чтение без изменений не копирует данные
+    public List<V> snapshot() {
+        List<V> result = snapshot;
+        if (result == null) {
+            result = List.copyOf(values());
+            snapshot = result;
+        }
+        return result;
+    }
+
+    // Не больше limit значений, следующих в порядке обхода за ключом afterKey.
+    // Если ключ есть в словаре, стоит O(limit); если его нет (например, запись удалили
+    // между запросами страниц), начало ищется просмотром до первого ключа больше afterKey
+    @SuppressWarnings("unchecked")
+    public List<V> valuesAfter(int afterKey, int limit) {
+        int position = findPosition(afterKey);
+        int from = position + 1;
+        if (position < 0) {
+            from = 0;
+            while (from < used && (values[from] == null || keys[from] <= afterKey)) {
+                from++;
+            }
+        }
+        List<V> result = new ArrayList<>(Math.min(limit, size));
+        for (int i = from; i < used && result.size() < limit; i++) {
+            if (values[i] != null) {
+                result.add((V) values[i]);
+            }
+        }
+        return result;
+    }
+
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final ValueIterator iterator = new ValueIterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                iterator.next();
+                return keys[iterator.position];
+            }
+        };
+    }
+
+    // Позиция ключа в keys/values или отрицательное число, если ключа нет
+    private int findPosition(int key) {
+        return index[findSlot(key)] - 1;
+    }
+
+    // Ячейка индекса с этим ключом, а если ключа нет - ячейка, в которую его нужно записать
+    private int findSlot(int key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        int firstDeleted = -1;
+        while (true) {
+            int cell = index[slot];
+            if (cell == EMPTY) {
+                return firstDeleted >= 0 ? firstDeleted : slot;
+            }
+            if (cell == DELETED) {
+                if (firstDeleted < 0) {
+                    firstDeleted = slot;
+                }
+            } else if (keys[cell - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Первая позиция с ключом не меньше key; ключи в keys (вместе с удалёнными) идут по возрастанию
+    private int lowerBound(int key) {
+        int low = 0;
+        int high = used;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Уплотняет записи (выбрасывает удалённые) и при необходимости увеличивает массивы
+    private void rebuild(int minCapacity) {
+        int capacity = keys.length;
+        if (minCapacity > capacity / 2) {
+            capacity = tableSizeFor(minCapacity * 2);
+        }
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int newUsed = 0;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                newKeys[newUsed] = keys[i];
+                newValues[newUsed] = values[i];
+                newUsed++;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        used = newUsed;
+        index = new int[capacity * 2];
+        reindex();
+    }
+
+    // Заполняет индекс заново по записям keys/values
+    private void reindex() {
+        Arrays.fill(index, EMPTY);
+        int mask = index.length - 1;
+        for (int i = 0; i < used; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            int slot = hash(keys[i]) & mask;
+            while (index[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int result = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        if (result <= 0) {
+            throw new IllegalStateException("IntHashMap capacity overflow");
+        }
+        return result;
+    }
+
+    // Не анонимный класс: Gson не сериализует анонимные классы, а values() отдаётся в toJsonTree
+    private class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private int position = -1;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < used && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < used;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next >= used) {
+                throw new NoSuchElementException();
+            }
+            position = next;
+            next = advance(next + 1);
+            return (V) values[position];
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package ru.yandex.practicum.kanban.util.collections;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+// Множество int с сохранением порядка добавления: add, remove и contains за O(1), без упаковки в Integer.
+// Устроено так же, как IntHashMap: элементы лежат плотно в массиве в порядке добавления,
+// хеш-таблица с открытой адресацией хранит их позиции, удалённые элементы помечаются в removed
+// и выбрасываются при следующем перестроении массива.
+public class IntLinkedSet {
+    private static final int DEFAULT_CAPACITY = 4;
+    // Значения ячеек индекса: 0 - пусто, -1 - удалено, иначе позиция в elements + 1
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    private int[] elements;
+    private boolean[] removed;
+    private int[] index;    // длина вдвое больше длины elements
+    private int used;       // сколько позиций elements занято, включая удалённые элементы
+    private int size;
+
+    public IntLinkedSet() {
+        elements = new int[DEFAULT_CAPACITY];
+        removed = new boolean[DEFAULT_CAPACITY];
+        index = new int[DEFAULT_CAPACITY * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int element) {
+        return index[findSlot(element)] > 0;
+    }
+
+    // Возвращает false, если элемент уже был
+    public boolean add(int element) {
+        int slot = findSlot(element);
+        if (index[slot] > 0) {
+            return false;
+        }
+        if (used == elements.length) {
+            rebuild(size + 1);
+            slot = findSlot(element);
+        }
+        elements[used] = element;
+        index[slot] = ++used;
+        size++;
+        return true;
+    }
+
+    // Возвращает false, если элемента не было
+    public boolean remove(int element) {
+        int slot = findSlot(element);
+        int position = index[slot] - 1;
+        if (position < 0) {
+            return false;
+        }
+        removed[position] = true;
+        index[slot] = DELETED;
+        size--;
+        if (size == 0) {
+            clear();
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(removed, 0, used, false);
+        Arrays.fill(index, EMPTY);
+        used = 0;
+        size = 0;
+    }
+
+    // Элемент по порядковому номеру: O(1), если после перестроения ничего не удалялось, иначе O(n)
+    public int get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        if (used == size) {
+            return elements[i];
+        }
+        PrimitiveIterator.OfInt iterator = iterator();
+        for (int j = 0; j < i; j++) {
+            iterator.nextInt();
+        }
+        return iterator.nextInt();
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < used; i++) {
+            if (!removed[i]) {
+                action.accept(elements[i]);
+            }
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < used && removed[from]) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < used;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next >= used) {
+                    throw new NoSuchElementException();
+                }
+                int element = elements[next];
+                next = advance(next + 1);
+                return element;
+            }
+        };
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int j = 0; j < used; j++) {
+            if (!removed[j]) {
+                result[i++] = elements[j];
+            }
+        }
+        return result;
+    }
+
+    // Представление только для чтения в виде List<Integer> - для внешнего API и сравнения со списками
+    public List<Integer> asList() {
+        return new ListView();
+    }
+
+    // Равенство - совпадение элементов и их порядка, как у списков
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntLinkedSet other = (IntLinkedSet) o;
+        if (size != other.size) {
+            return false;
+        }
+        PrimitiveIterator.OfInt iterator = iterator();
+        PrimitiveIterator.OfInt otherIterator = other.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.nextInt() != otherIterator.nextInt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) {
+            result = 31 * result + Integer.hashCode(iterator.nextInt());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        forEach(element -> joiner.add(String.valueOf(element)));
+        return joiner.toString();
+    }
+
+    // Ячейка индекса с этим элементом, а если его нет - ячейка, в которую его нужно записать
+    private int findSlot(int element) {
+        int mask = index.length - 1;
+        int slot = hash(element) & mask;
+        int firstDeleted = -1;
+        while (true) {
+            int cell = index[slot];
+            if (cell == EMPTY) {
+                return firstDeleted >= 0 ? firstDeleted : slot;
+            }
+            if (cell == DELETED) {
+                if (firstDeleted < 0) {
+                    firstDeleted = slot;
+                }
+            } else if (elements[cell - 1] == element) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Уплотняет элементы (выбрасывает удалённые) и при необходимости увеличивает массивы
+    private void rebuild(int minCapacity) {
+        int capacity = elements.length;
+        if (minCapacity > capacity / 2) {
+            capacity = Integer.highestOneBit(Math.max(minCapacity - 1, 1)) << 2;
+        }
+        int[] newElements = new int[capacity];
+        int newUsed = 0;
+        for (int i = 0; i < used; i++) {
+            if (!removed[i]) {
+                newElements[newUsed++] = elements[i];
+            }
+        }
+        elements = newElements;
+        removed = new boolean[capacity];
+        used = newUsed;
+        index = new int[capacity * 2];
+        int mask = index.length - 1;
+        for (int i = 0; i < used; i++) {
+            int slot = hash(elements[i]) & mask;
+            while (index[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+
+    private static int hash(int element) {
+        int h = element * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class ListView extends AbstractList<Integer> {
+        @Override
+        public Integer get(int i) {
+            return IntLinkedSet.this.get(i);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && IntLinkedSet.this.contains((Integer) o);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return IntLinkedSet.this.iterator();
+        }
+    }
+}
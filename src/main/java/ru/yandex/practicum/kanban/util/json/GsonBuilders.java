@@ -1,13 +1,18 @@
 package ru.yandex.practicum.kanban.util.json;
 
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import ru.yandex.practicum.kanban.tasks.Epic;
 import ru.yandex.practicum.kanban.tasks.Subtask;
 import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.util.collections.IntLinkedSet;
 import ru.yandex.practicum.kanban.util.json.adapters.*;
 
 import java.io.IOException;
@@ -38,9 +43,88 @@ public class GsonBuilders {
                             throw new JsonParseException("Incorrect DateTime format");
                         }
                     }
+                })
+                // id подзадач эпика в json - обычный массив чисел, как было при List<Integer>
+                .registerTypeAdapter(IntLinkedSet.class, new TypeAdapter<IntLinkedSet>() {
+                    @Override
+                    public void write(JsonWriter jsonWriter, IntLinkedSet set) throws IOException {
+                        if (set == null) {
+                            jsonWriter.nullValue();
+                            return;
+                        }
+                        jsonWriter.beginArray();
+                        for (int element : set.toArray()) {
+                            jsonWriter.value(element);
+                        }
+                        jsonWriter.endArray();
+                    }
+
+                    @Override
+                    public IntLinkedSet read(JsonReader jsonReader) throws IOException {
+                        if (jsonReader.peek() == JsonToken.NULL) {
+                            jsonReader.nextNull();
+                            return null;
+                        }
+                        IntLinkedSet set = new IntLinkedSet();
+                        jsonReader.beginArray();
+                        while (jsonReader.hasNext()) {
+                            set.add(jsonReader.nextInt());
+                        }
+                        jsonReader.endArray();
+                        return set;
+                    }
+                })
+                .registerTypeAdapterFactory(new TaskTimeAdapterFactory())
+                // Наследники Task и Subtask, которые хранят поля не в объекте (представления записей вне кучи
+                // в InMemoryTaskManager), пишутся копией обычного класса - как задачи, хранящиеся в куче
+                .registerTypeAdapterFactory(new TypeAdapterFactory() {
+                    @Override
+                    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                        Class<? super T> rawType = type.getRawType();
+                        if (rawType == Task.class || rawType == Subtask.class
+                                || !Task.class.isAssignableFrom(rawType) || Epic.class.isAssignableFrom(rawType)) {
+                            return null;
+                        }
+                        TypeAdapter<Task> taskAdapter = gson.getAdapter(Task.class);
+                        TypeAdapter<Subtask> subtaskAdapter = gson.getAdapter(Subtask.class);
+                        return new TypeAdapter<>() {
+                            @Override
+                            public void write(JsonWriter jsonWriter, T value) throws IOException {
+                                if (value instanceof Subtask) {
+                                    subtaskAdapter.write(jsonWriter, copyOf((Subtask) value));
+                                } else {
+                                    taskAdapter.write(jsonWriter, value == null ? null : copyOf((Task) value));
+                                }
+                            }
+
+                            @Override
+                            public T read(JsonReader jsonReader) {
+                                throw new UnsupportedOperationException("Task views are not deserialized");
+                            }
+                        };
+                    }
                 });
     }
 
+    private static Task copyOf(Task task) {
+        Task copy = new Task(task.getId(), task.getName(), task.getDescription(), task.getStatus());
+        copyTimeAndVersion(task, copy);
+        return copy;
+    }
+
+    private static Subtask copyOf(Subtask subtask) {
+        Subtask copy = new Subtask(subtask.getId(), subtask.getName(), subtask.getDescription(),
+                subtask.getStatus(), subtask.getEpicId());
+        copyTimeAndVersion(subtask, copy);
+        return copy;
+    }
+
+    private static void copyTimeAndVersion(Task from, Task to) {
+        to.setStartMinute(from.getStartMinute());
+        to.setDuration(from.getDuration());
+        to.setVersion(from.getVersion());
+    }
+
     public static GsonBuilder getBuilderSeparateTaskTypes() {
         return getBuilderNoTaskTypes()
                 .registerTypeAdapter(Epic.class, new EpicDeserializer<>() {
@@ -14,6 +14,7 @@ public abstract class EpicDeserializer<T extends Task> implements JsonDeserializ
     protected int id;
     protected String name;
     protected String description;
+    protected int version;
 
     // Возвращаем JsonObject, чтобы наследники могли продолжать разбирать нужные им поля,
     // null - если что-то пошло не так
@@ -28,6 +29,7 @@ public abstract class EpicDeserializer<T extends Task> implements JsonDeserializ
         description = jsonObject.has("description") ?
                 jsonObject.get("description").getAsString() : "";
         id = jsonObject.has("id") ? jsonObject.get("id").getAsInt() : 0;
+        version = jsonObject.has("version") ? jsonObject.get("version").getAsInt() : 0;
         return jsonObject;
     }
 
@@ -37,6 +39,12 @@ public abstract class EpicDeserializer<T extends Task> implements JsonDeserializ
     @Override
     public T deserialize(JsonElement jsonElement, Type type,
                          JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
-        return parseElements(jsonElement, jsonDeserializationContext) == null ? null : createInstance();
+        if (parseElements(jsonElement, jsonDeserializationContext) == null) {
+            return null;
+        }
+        // Версии нет среди аргументов конструкторов; при добавлении и обновлении её всё равно назначает менеджер
+        T task = createInstance();
+        task.setVersion(version);
+        return task;
     }
 }
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.kanban.util.json.adapters;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Задачи хранят время минутами от эпохи (поля startMinute и endMinute у эпика), а в json время остаётся
+// строками "startTime" и "endTime" на прежних местах. Остальные поля пишет и читает обычный адаптер Gson
+public class TaskTimeAdapterFactory implements TypeAdapterFactory {
+    private static final String START_MINUTE = "startMinute";
+    private static final String END_MINUTE = "endMinute";
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType != Task.class && rawType != Subtask.class && rawType != Epic.class) {
+            return null;
+        }
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        TypeAdapter<JsonElement> elementAdapter = gson.getAdapter(JsonElement.class);
+        TypeAdapter<LocalDateTime> timeAdapter = gson.getAdapter(LocalDateTime.class);
+        return new TypeAdapter<>() {
+            @Override
+            public void write(JsonWriter jsonWriter, T value) throws IOException {
+                if (value == null) {
+                    jsonWriter.nullValue();
+                    return;
+                }
+                Task task = (Task) value;
+                JsonObject result = new JsonObject();
+                for (Map.Entry<String, JsonElement> entry : delegate.toJsonTree(value).getAsJsonObject().entrySet()) {
+                    if (entry.getKey().equals(START_MINUTE)) {
+                        addTime(result, "startTime", task.getStartTime());
+                    } else if (entry.getKey().equals(END_MINUTE)) {
+                        addTime(result, "endTime", task.getEndTime());
+                    } else {
+                        result.add(entry.getKey(), entry.getValue());
+                    }
+                }
+                elementAdapter.write(jsonWriter, result);
+            }
+
+            // Время без значения в json не пишется, как и прежде
+            private void addTime(JsonObject result, String name, LocalDateTime time) {
+                if (time != null) {
+                    result.add(name, timeAdapter.toJsonTree(time));
+                }
+            }
+
+            @Override
+            public T read(JsonReader jsonReader) throws IOException {
+                JsonElement element = elementAdapter.read(jsonReader);
+                if (element == null || element.isJsonNull()) {
+                    return null;
+                }
+                JsonObject jsonObject = element.getAsJsonObject();
+                JsonObject fields = new JsonObject();
+                for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+                    if (!entry.getKey().equals("startTime") && !entry.getKey().equals("endTime")) {
+                        fields.add(entry.getKey(), entry.getValue());
+                    }
+                }
+                T value = delegate.fromJsonTree(fields);
+                // без времени в json поля остались бы нулём, то есть 1970-01-01T00:00
+                Task task = (Task) value;
+                task.setStartTime(readTime(jsonObject, "startTime"));
+                if (task instanceof Epic) {
+                    ((Epic) task).setEndTime(readTime(jsonObject, "endTime"));
+                }
+                return value;
+            }
+
+            private LocalDateTime readTime(JsonObject jsonObject, String name) {
+                JsonElement time = jsonObject.get(name);
+                return time == null || time.isJsonNull() ? null : timeAdapter.fromJsonTree(time);
+            }
+        };
+    }
+}
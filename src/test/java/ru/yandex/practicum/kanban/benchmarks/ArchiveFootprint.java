@@ -0,0 +1,65 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+
+// Память менеджера на доске из 1 000 000 выполненных задач и подзадач до и после переноса их в архив.
+// Считается вся куча, занятая менеджером: словари, индексы, список по приоритету и сами задачи.
+// Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark.jvmArgs=-Xmx4g
+//         -Dbenchmark.main=ru.yandex.practicum.kanban.benchmarks.ArchiveFootprint -Dbenchmark.args=
+public class ArchiveFootprint {
+
+    private static final int TASKS = 500_000;
+    private static final int EPICS = 500;
+    private static final int SUBTASKS_PER_EPIC = 1_000;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+    public static void main(String[] args) {
+        long empty = usedMemory();
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        int index = 0;
+        for (int i = 0; i < TASKS; i++, index++) {
+            taskManager.addTask(new Task(0, "task " + i, "done task number " + i, TaskStatus.DONE,
+                    START_TIME.plusMinutes(index * 10L), 5));
+        }
+        for (int i = 0; i < EPICS; i++) {
+            int epicId = taskManager.addEpic(new Epic(0, "epic " + i, "epic")).getId();
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++, index++) {
+                taskManager.addSubtask(new Subtask(0, "subtask " + index, "done subtask number " + index,
+                        TaskStatus.DONE, epicId, START_TIME.plusMinutes(index * 10L), 5));
+            }
+        }
+        long hot = usedMemory() - empty;
+
+        taskManager.setArchiveAge(Duration.ofDays(30));
+        long started = System.nanoTime();
+        int archived = taskManager.archiveDoneTasks(START_TIME.plusYears(100));
+        long archiveMillis = (System.nanoTime() - started) / 1_000_000;
+        long cold = usedMemory() - empty;
+
+        System.out.printf("%,d tasks archived in %,d ms%n", archived, archiveMillis);
+        System.out.printf("manager heap: %,d bytes before (%.1f per task), %,d bytes after (%.1f per task)%n",
+                hot, (double) hot / archived, cold, (double) cold / archived);
+        System.out.printf("compressed blocks: %,d bytes (%.1f per task)%n",
+                taskManager.getArchivedBytes(), (double) taskManager.getArchivedBytes() / archived);
+        // Держим ссылку до замера, чтобы менеджер не собрал GC
+        if (taskManager.getTasks().size() == 42) {
+            System.out.print("");
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
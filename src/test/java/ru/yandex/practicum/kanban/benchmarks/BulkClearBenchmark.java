@@ -0,0 +1,80 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.concurrent.TimeUnit;
+
+// Очистка списков на доске с 1 000 000 подзадач (у половины есть время) в 1 000 эпиках и 10 000 задачах,
+// часть которых просмотрена и лежит в истории. Каждое измерение - одна очистка заново заполненного менеджера.
+// Запуск: mvn -P benchmark test-compile exec:exec
+//         -Dbenchmark.args=ru.yandex.practicum.kanban.benchmarks.BulkClearBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class BulkClearBenchmark {
+
+    private static final int EPICS = 1_000;
+    private static final int SUBTASKS_PER_EPIC = 1_000;
+    private static final int TASKS = 10_000;
+    private static final int VIEWED_EVERY = 100;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+    private TaskManager taskManager;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        taskManager = new InMemoryTaskManager();
+        for (int i = 0; i < TASKS; i++) {
+            Task task = taskManager.addTask(new Task(0, "task " + i, "task", TaskStatus.NEW));
+            if (i % VIEWED_EVERY == 0) {
+                taskManager.getTask(task.getId());
+            }
+        }
+        int index = 0;
+        for (int i = 0; i < EPICS; i++) {
+            int epicId = taskManager.addEpic(new Epic(0, "epic " + i, "epic")).getId();
+            taskManager.getEpic(epicId);
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++, index++) {
+                Subtask subtask = taskManager.addSubtask(j % 2 == 0
+                        ? new Subtask(0, "subtask " + index, "subtask", TaskStatus.NEW, epicId)
+                        : new Subtask(0, "subtask " + index, "subtask", TaskStatus.DONE, epicId,
+                        START_TIME.plusMinutes(index * 10L), 5));
+                if (index % VIEWED_EVERY == 0) {
+                    taskManager.getSubtask(subtask.getId());
+                }
+            }
+        }
+    }
+
+    // DELETE /tasks/subtask: эпики остаются и пересчитываются
+    @Benchmark
+    public TaskManager clearSubtasks() {
+        taskManager.clearSubtasks();
+        return taskManager;
+    }
+
+    // DELETE /tasks/epic: эпики удаляются вместе с подзадачами
+    @Benchmark
+    public TaskManager clearEpics() {
+        taskManager.clearEpics();
+        return taskManager;
+    }
+
+    // DELETE /tasks/task: подзадачи со временем остаются в списке по приоритету
+    @Benchmark
+    public TaskManager clearTasks() {
+        taskManager.clearTasks();
+        return taskManager;
+    }
+}
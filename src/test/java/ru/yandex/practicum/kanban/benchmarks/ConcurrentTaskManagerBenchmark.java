@@ -0,0 +1,90 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.concurrent.ConcurrentTaskManager;
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность ConcurrentTaskManager при 1, 2, 4, 8 и 16 потоках.
+// Запуск: mvn -P benchmark test-compile exec:exec
+//         -Dbenchmark.main=ru.yandex.practicum.kanban.benchmarks.ConcurrentTaskManagerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentTaskManagerBenchmark {
+
+    private static final int EPICS = 100;
+    private static final int SUBTASKS_PER_EPIC = 100;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+    private TaskManager taskManager;
+    private int[] epicIds;
+    private Subtask[] subtasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskManager = new ConcurrentTaskManager(new InMemoryTaskManager());
+        epicIds = new int[EPICS];
+        subtasks = new Subtask[EPICS * SUBTASKS_PER_EPIC];
+        for (int i = 0; i < EPICS; i++) {
+            epicIds[i] = taskManager.addEpic(new Epic(0, "epic " + i, "epic")).getId();
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                int index = i * SUBTASKS_PER_EPIC + j;
+                subtasks[index] = taskManager.addSubtask(new Subtask(0, "subtask " + index, "subtask",
+                        TaskStatus.NEW, epicIds[i], START_TIME.plusMinutes(index * 10L), 5));
+            }
+        }
+    }
+
+    // Чтение: подзадачи случайного эпика
+    @Benchmark
+    public List<Subtask> readEpicSubtasks() {
+        return taskManager.getEpicsSubtasks(epicIds[ThreadLocalRandom.current().nextInt(EPICS)]);
+    }
+
+    // Запись: смена статуса случайной подзадачи с пересчётом эпика и проверкой времени
+    @Benchmark
+    public boolean updateSubtask() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Subtask subtask = subtasks[random.nextInt(subtasks.length)];
+        TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+        return taskManager.updateSubtask(new Subtask(subtask.getId(), subtask.getName(),
+                subtask.getDescription(), status, subtask.getEpicId(), subtask.getStartTime(),
+                subtask.getDuration()));
+    }
+
+    // Смесь: 90% чтений и 10% записей
+    @Benchmark
+    public Object mixed() {
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            return updateSubtask();
+        }
+        return readEpicSubtasks();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 2, 4, 8, 16}) {
+            Options options = new OptionsBuilder()
+                    .include(ConcurrentTaskManagerBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
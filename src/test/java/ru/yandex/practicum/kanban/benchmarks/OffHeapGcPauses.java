@@ -0,0 +1,113 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Паузы GC на доске из 2 000 000 задач и подзадач в куче и в записях вне кучи (new InMemoryTaskManager(true)).
+// После заполнения идут обновления и чтения случайных задач, паузы сборщика собираются из уведомлений GC.
+// Отдельно замеряется полная сборка (System.gc()), время которой растёт с числом живых объектов.
+// Режим - аргумент heap или offheap, каждый запускается в своей JVM:
+// Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark.jvmArgs="-Xmx4g -XX:+UseG1GC"
+//         -Dbenchmark.main=ru.yandex.practicum.kanban.benchmarks.OffHeapGcPauses -Dbenchmark.args=offheap
+public class OffHeapGcPauses {
+
+    private static final int TASKS = 1_000_000;
+    private static final int EPICS = 1_000;
+    private static final int SUBTASKS_PER_EPIC = 1_000;
+    private static final int OPERATIONS = 5_000_000;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+    private static final List<Long> pauses = Collections.synchronizedList(new ArrayList<>());
+
+    public static void main(String[] args) {
+        boolean offHeap = args.length > 0 && args[0].equals("offheap");
+        InMemoryTaskManager taskManager = new InMemoryTaskManager(offHeap);
+        List<Integer> taskIds = new ArrayList<>(TASKS);
+        int index = 0;
+        for (int i = 0; i < TASKS; i++, index++) {
+            taskIds.add(taskManager.addTask(new Task(0, "task " + i, "task number " + i, TaskStatus.NEW,
+                    START_TIME.plusMinutes(index * 10L), 5)).getId());
+        }
+        for (int i = 0; i < EPICS; i++) {
+            int epicId = taskManager.addEpic(new Epic(0, "epic " + i, "epic")).getId();
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++, index++) {
+                taskManager.addSubtask(new Subtask(0, "subtask " + index, "subtask number " + index,
+                        TaskStatus.NEW, epicId, START_TIME.plusMinutes(index * 10L), 5));
+            }
+        }
+        long fullGcMillis = fullGc();
+        listenToGc();
+
+        Random random = new Random(42);
+        long started = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            int id = taskIds.get(random.nextInt(TASKS));
+            if (i % 10 == 0) {
+                Task task = taskManager.getTask(id);
+                taskManager.updateTask(new Task(id, task.getName(), "updated " + i,
+                        TaskStatus.IN_PROGRESS, task.getStartTime(), task.getDuration()));
+            } else {
+                checksum += taskManager.getTask(id).getDescription().length();
+            }
+        }
+        long workMillis = (System.nanoTime() - started) / 1_000_000;
+
+        List<Long> sorted;
+        synchronized (pauses) {
+            sorted = new ArrayList<>(pauses);
+        }
+        Collections.sort(sorted);
+        long total = sorted.stream().mapToLong(Long::longValue).sum();
+        System.out.printf("%s: %,d operations in %,d ms (checksum %d)%n", offHeap ? "off-heap" : "heap",
+                OPERATIONS, workMillis, checksum);
+        System.out.printf("full GC after fill: %,d ms, off-heap bytes: %,d%n", fullGcMillis,
+                taskManager.getOffHeapBytes());
+        System.out.printf("GC pauses: %,d, total %,d ms, p50 %d ms, p99 %d ms, max %d ms%n", sorted.size(), total,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private static long fullGc() {
+        long started = System.nanoTime();
+        System.gc();
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private static void listenToGc() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) bean).addNotificationListener((notification, handback) -> {
+                String type = notification.getType();
+                if (type.equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    // у G1 и ZGC фазы, идущие параллельно с программой, приходят отдельно - это не паузы
+                    if (!info.getGcName().contains("Concurrent")) {
+                        pauses.add(info.getGcInfo().getDuration());
+                    }
+                }
+            }, null, null);
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double fraction) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.ceil(fraction * sorted.size()) - 1);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.kanban.managers.TaskManager;
+import ru.yandex.practicum.kanban.managers.concurrent.ConcurrentTaskManager;
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.managers.inmemory.ShardedTaskManager;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Масштабирование записи: ConcurrentTaskManager (shards = 0) и ShardedTaskManager с 1, 2, 4 и 8 шардами
+// при 1, 2, 4, 8 и 16 потоках.
+// Запись без времени идёт параллельно по шардам, запись со временем - под общей блокировкой времени.
+// Запуск: mvn -P benchmark test-compile exec:exec
+//         -Dbenchmark.main=ru.yandex.practicum.kanban.benchmarks.ShardedTaskManagerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedTaskManagerBenchmark {
+
+    private static final int EPICS = 128;
+    private static final int SUBTASKS_PER_EPIC = 100;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+    @Param({"0", "1", "2", "4", "8"})
+    private int shards;
+
+    private TaskManager taskManager;
+    private int[] epicIds;
+    private Subtask[] subtasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskManager = shards == 0 ? new ConcurrentTaskManager(new InMemoryTaskManager())
+                : new ShardedTaskManager(shards);
+        epicIds = new int[EPICS];
+        subtasks = new Subtask[EPICS * SUBTASKS_PER_EPIC];
+        for (int i = 0; i < EPICS; i++) {
+            epicIds[i] = taskManager.addEpic(new Epic(0, "epic " + i, "epic")).getId();
+            for (int j = 0; j < SUBTASKS_PER_EPIC; j++) {
+                int index = i * SUBTASKS_PER_EPIC + j;
+                // у половины подзадач нет времени
+                subtasks[index] = taskManager.addSubtask(j % 2 == 0
+                        ? new Subtask(0, "subtask " + index, "subtask", TaskStatus.NEW, epicIds[i])
+                        : new Subtask(0, "subtask " + index, "subtask", TaskStatus.NEW, epicIds[i],
+                        START_TIME.plusMinutes(index * 10L), 5));
+            }
+        }
+    }
+
+    // Запись без времени: смена статуса подзадачи с пересчётом эпика
+    @Benchmark
+    public boolean updateUntimedSubtask() {
+        return updateSubtask(0);
+    }
+
+    // Запись со временем: проверка пересечений по всем шардам
+    @Benchmark
+    public boolean updateTimedSubtask() {
+        return updateSubtask(1);
+    }
+
+    // Чтение: подзадачи случайного эпика
+    @Benchmark
+    public List<Subtask> readEpicSubtasks() {
+        return taskManager.getEpicsSubtasks(epicIds[ThreadLocalRandom.current().nextInt(EPICS)]);
+    }
+
+    private boolean updateSubtask(int parity) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Subtask subtask = subtasks[random.nextInt(subtasks.length / 2) * 2 + parity];
+        TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+        return taskManager.updateSubtask(new Subtask(subtask.getId(), subtask.getName(),
+                subtask.getDescription(), status, subtask.getEpicId(), subtask.getStartTime(),
+                subtask.getDuration()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 2, 4, 8, 16}) {
+            Options options = new OptionsBuilder()
+                    .include(ShardedTaskManagerBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+
+// Размер задачи в куче по JOL: раскладка класса и граф объектов 100 000 задач со временем,
+// у которых названия и описания повторяются (NAMES разных строк на всех), как на типичной доске.
+// Строки задач создаются заново для каждой задачи - так они приходят из json и csv.
+// Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark.jvmArgs="-Xmx2g -Djdk.attach.allowAttachSelf"
+//         -Dbenchmark.main=ru.yandex.practicum.kanban.benchmarks.TaskLayoutFootprint -Dbenchmark.args=
+public class TaskLayoutFootprint {
+
+    private static final int TASKS = 100_000;
+    private static final int NAMES = 100;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+    public static void main(String[] args) {
+        System.out.println(ClassLayout.parseClass(Task.class).toPrintable());
+        System.out.println(ClassLayout.parseClass(Subtask.class).toPrintable());
+
+        Task[] tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = new Task(i, new String("task " + i % NAMES), new String("description " + i % NAMES),
+                    TaskStatus.NEW, START_TIME.plusMinutes(i * 10L), 5);
+        }
+        GraphLayout layout = GraphLayout.parseInstance((Object) tasks);
+        long arrayBytes = ClassLayout.parseInstance(tasks).instanceSize();
+        long taskBytes = layout.totalSize() - arrayBytes;
+        System.out.printf("%,d tasks: %,d bytes (%.1f per task)%n", TASKS, taskBytes, (double) taskBytes / TASKS);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.util.collections.IntHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Сравнение занимаемой памяти хранилищ задач HashMap<Integer, Task> и IntHashMap<Task> на 1М и 10М задач.
+// Сами задачи создаются заранее и в замер не входят - считается только накладной расход хранилища.
+// Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark.jvmArgs=-Xmx8g
+//         -Dbenchmark.main=ru.yandex.practicum.kanban.benchmarks.TaskStorageFootprint -Dbenchmark.args=
+public class TaskStorageFootprint {
+
+    private static final int[] SIZES = {1_000_000, 10_000_000};
+
+    public static void main(String[] args) {
+        for (int size : SIZES) {
+            Task[] tasks = new Task[size];
+            for (int i = 0; i < size; i++) {
+                tasks[i] = new Task(i, "", "", TaskStatus.NEW);
+            }
+            long hashMapBytes = measure(tasks, TaskStorageFootprint::fillHashMap);
+            long intHashMapBytes = measure(tasks, TaskStorageFootprint::fillIntHashMap);
+            System.out.printf("%,d tasks: HashMap<Integer, Task> %,d bytes (%.1f per task), "
+                            + "IntHashMap<Task> %,d bytes (%.1f per task)%n",
+                    size, hashMapBytes, (double) hashMapBytes / size,
+                    intHashMapBytes, (double) intHashMapBytes / size);
+        }
+    }
+
+    private static Object fillHashMap(Task[] tasks) {
+        Map<Integer, Task> map = new HashMap<>();
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+
+    private static Object fillIntHashMap(Task[] tasks) {
+        IntHashMap<Task> map = new IntHashMap<>();
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+
+    private static long measure(Task[] tasks, Function<Task[], Object> filler) {
+        long before = usedMemory();
+        Object storage = filler.apply(tasks);
+        long after = usedMemory();
+        // Держим ссылку до замера, чтобы хранилище не собрал GC
+        if (storage.hashCode() == 42) {
+            System.out.print("");
+        }
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
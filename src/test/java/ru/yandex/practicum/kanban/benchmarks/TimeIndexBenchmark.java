@@ -0,0 +1,92 @@
+package ru.yandex.practicum.kanban.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.kanban.managers.TimeIndexType;
+import ru.yandex.practicum.kanban.managers.TimeManager;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Поиск пересечений в TimeManager: часовые интервалы, дерево интервалов и календарь занятости на 100 000
+// задачах с длительностями SHORT (15-60 минут), MIXED (четверть задач - от 1 до 30 дней) и LONG (1-30 дней).
+// Задачи идут одна за другой с промежутками; проверяемые задачи той же длительности ставятся
+// в случайное время, большая часть из них пересекается с существующими.
+// Запуск: mvn -P benchmark test-compile exec:exec -Dbenchmark.jvmArgs=-Xmx4g
+//         -Dbenchmark.args=ru.yandex.practicum.kanban.benchmarks.TimeIndexBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TimeIndexBenchmark {
+
+    private static final int TASKS = 100_000;
+    private static final int CANDIDATES = 1_024;
+    private static final LocalDateTime START_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+
+    public enum Durations {
+        SHORT, MIXED, LONG
+    }
+
+    @Param({"HOURLY_BUCKETS", "INTERVAL_TREE", "OCCUPANCY_BITMAP"})
+    private TimeIndexType indexType;
+
+    @Param({"SHORT", "MIXED", "LONG"})
+    private Durations durations;
+
+    private TimeManager timeManager;
+    private Task[] candidates;
+    private Task[] present;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        timeManager = new TimeManager(indexType);
+        present = new Task[TASKS];
+        long minutes = 0;
+        for (int i = 0; i < TASKS; i++) {
+            int duration = duration(random);
+            present[i] = new Task(i, "task", "task", TaskStatus.NEW, START_TIME.plusMinutes(minutes), duration);
+            timeManager.addTask(present[i]);
+            minutes += duration + random.nextInt(60);
+        }
+        candidates = new Task[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates[i] = new Task(TASKS + i, "task", "task", TaskStatus.NEW,
+                    START_TIME.plusMinutes((long) (random.nextDouble() * minutes)), duration(random));
+        }
+    }
+
+    private int duration(Random random) {
+        switch (durations) {
+            case SHORT:
+                return 15 + random.nextInt(46);
+            case MIXED:
+                return random.nextInt(4) == 0 ? (1 + random.nextInt(30)) * 24 * 60 : 15 + random.nextInt(46);
+            case LONG:
+            default:
+                return (1 + random.nextInt(30)) * 24 * 60;
+        }
+    }
+
+    // POST /tasks/task: проверка новой задачи
+    @Benchmark
+    public boolean validateTask() {
+        return timeManager.validateTask(candidates[next++ & (CANDIDATES - 1)]);
+    }
+
+    // Обновление задачи со временем: прежняя версия убирается из индекса и возвращается обратно
+    @Benchmark
+    public TimeManager removeAndAddTask() {
+        Task task = present[next++ % TASKS];
+        timeManager.removeTask(task);
+        timeManager.addTask(task);
+        return timeManager;
+    }
+}
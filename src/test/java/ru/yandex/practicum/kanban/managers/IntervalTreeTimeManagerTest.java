@@ -0,0 +1,28 @@
+package ru.yandex.practicum.kanban.managers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTimeManagerTest extends TimeManagerTest {
+
+    @BeforeEach
+    @Override
+    public void beforeEach() {
+        timeManager = new TimeManager(TimeIndexType.INTERVAL_TREE);
+    }
+
+    @Test
+    public void longTasksTest() {
+        final int month = 30 * 24 * 60;
+        Task task1 = new Task(1, "", "", TaskStatus.NEW, DEFAULT_TIME, month);
+        timeManager.addTask(task1);
+        assertFalse(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, DEFAULT_TIME.plusDays(29), 10)));
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, DEFAULT_TIME.plusDays(30), 10)));
+        timeManager.removeTask(task1);
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, DEFAULT_TIME.plusDays(29), 10)));
+    }
+}
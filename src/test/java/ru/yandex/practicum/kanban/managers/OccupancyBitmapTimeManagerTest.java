@@ -0,0 +1,44 @@
+package ru.yandex.practicum.kanban.managers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyBitmapTimeManagerTest extends IntervalTreeTimeManagerTest {
+
+    @BeforeEach
+    @Override
+    public void beforeEach() {
+        timeManager = new TimeManager(TimeIndexType.OCCUPANCY_BITMAP);
+    }
+
+    // Границы слов и дней: задача занимает минуты [start, end), соседние задачи не пересекаются
+    @Test
+    public void wordAndDayBoundariesTest() {
+        final LocalDateTime midnight = LocalDateTime.of(2022, Month.JANUARY, 2, 0, 0);
+        Task task = new Task(1, "", "", TaskStatus.NEW, midnight.minusMinutes(1), 65);
+        timeManager.addTask(task);
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, midnight.minusMinutes(61), 60)));
+        assertFalse(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, midnight.minusMinutes(61), 61)));
+        assertFalse(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, midnight.plusMinutes(63), 1)));
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, midnight.plusMinutes(64), 1)));
+        assertFalse(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, midnight.plusMinutes(30), 0)),
+                "Задача длительностью 0 внутри другой задачи пересекается с ней");
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, midnight.minusMinutes(1), 0)));
+
+        Task replacement = new Task(1, "", "", TaskStatus.NEW, midnight, 10);
+        assertTrue(timeManager.validateTasks(List.of(replacement), List.of(task)),
+                "Заменяемая задача не должна мешать своей новой версии");
+        assertFalse(timeManager.validateTasks(List.of(replacement), List.of()));
+
+        timeManager.removeTask(task);
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, midnight.minusMinutes(1), 65)));
+    }
+}
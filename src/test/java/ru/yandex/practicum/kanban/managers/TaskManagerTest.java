@@ -1,15 +1,26 @@
 package ru.yandex.practicum.kanban.managers;
 
 import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.managers.events.EventBus;
+import ru.yandex.practicum.kanban.managers.events.OverflowPolicy;
+import ru.yandex.practicum.kanban.managers.events.TaskEvent;
+import ru.yandex.practicum.kanban.managers.events.TaskEventType;
+import ru.yandex.practicum.kanban.managers.query.QueryPlan;
+import ru.yandex.practicum.kanban.managers.query.QuerySource;
+import ru.yandex.practicum.kanban.managers.query.TaskQuery;
 import ru.yandex.practicum.kanban.tasks.Epic;
 import ru.yandex.practicum.kanban.tasks.Subtask;
 import ru.yandex.practicum.kanban.tasks.Task;
 import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
 
 import java.time.LocalDateTime;
 import java.time.Month;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -609,6 +620,45 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 "id подзадач не удалены из эпика");
     }
 
+    // Очистка одного типа не должна задевать задачи других типов в истории и индексах
+    @Test
+    public void clearKeepsOtherTypesTest() {
+        Task task = taskManager.addTask(new Task(0, "deploy task", "task", TaskStatus.DONE, DEFAULT_TIME, 30));
+        Epic epic = taskManager.addEpic(new Epic(0, "deploy epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "deploy subtask", "subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(1), 30));
+        taskManager.getSubtask(subtask.getId());
+        taskManager.getTask(task.getId());
+        taskManager.getEpic(epic.getId());
+
+        taskManager.clearSubtasks();
+        assertEquals(List.of(task, epic), taskManager.getHistory());
+        assertEquals(List.of(task), taskManager.getPrioritizedTasks());
+        assertEquals(List.of(task, epic), taskManager.search("deploy", 10));
+        assertEquals(List.of(), taskManager.getByStatus(TaskType.SUBTASK, TaskStatus.DONE));
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epic.getId()).getStatus());
+        assertNull(taskManager.getEpic(epic.getId()).getStartTime());
+
+        // Накопленные данные эпика после очистки создаются заново
+        taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.DONE, epic.getId(),
+                DEFAULT_TIME.plusHours(1), 30));
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(DEFAULT_TIME.plusHours(1).withSecond(0), taskManager.getEpic(epic.getId()).getStartTime());
+
+        taskManager.clearTasks();
+        assertEquals(List.of(epic), taskManager.getHistory());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+        assertEquals(List.of(epic), taskManager.search("deploy", 10));
+        assertNull(taskManager.getAny(task.getId()));
+        assertEquals(List.of(epic), taskManager.getByStatus(TaskType.EPIC, TaskStatus.DONE));
+
+        taskManager.clearEpics();
+        assertEquals(0, taskManager.getHistory().size());
+        assertEquals(0, taskManager.getPrioritizedTasks().size());
+        assertEquals(0, taskManager.search("subtask", 10).size());
+        assertNotNull(taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 30)));
+    }
+
     // Тесты обновления статуса эпика - для разных сценариев
 
     // проверка на правильные статус, время начала и продолжительность при создании эпика - в addNewEpicTest
@@ -1145,4 +1195,762 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
         assertEquals(0, prioritizedTasks.size(), "Возвращается неверное количество задач");
     }
-}
\ No newline at end of file
+
+    // Тесты getAny()
+
+    @Test
+    public void getAnyFromEmptyListTest() {
+        assertNull(taskManager.getAny(1));
+        assertEquals(0, taskManager.getHistory().size(), "В историю добавлен null");
+    }
+
+    @Test
+    public void getAnyOfEachTypeTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(
+                new Subtask(0, "subtask", "subtask", TaskStatus.DONE, epic.getId()));
+
+        assertEquals(subtask, taskManager.getAny(subtask.getId()), "Не найдена подзадача");
+        assertEquals(task, taskManager.getAny(task.getId()), "Не найдена задача");
+        assertEquals(epic, taskManager.getAny(epic.getId()), "Не найден эпик");
+        assertEquals(List.of(subtask, task, epic), taskManager.getHistory(),
+                "Задачи не добавлены в историю");
+    }
+
+    @Test
+    public void getAnyAfterRemoveTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(
+                new Subtask(0, "subtask", "subtask", TaskStatus.DONE, epic.getId()));
+
+        // удаление по id задачи другого типа ничего не должно сломать
+        assertFalse(taskManager.removeTask(subtask.getId()));
+        assertEquals(subtask, taskManager.getAny(subtask.getId()), "Удалена подзадача");
+
+        taskManager.removeTask(task.getId());
+        assertNull(taskManager.getAny(task.getId()), "Задача не удалена из индекса");
+        taskManager.removeEpic(epic.getId());
+        assertNull(taskManager.getAny(epic.getId()), "Эпик не удалён из индекса");
+        assertNull(taskManager.getAny(subtask.getId()), "Подзадача эпика не удалена из индекса");
+    }
+
+    @Test
+    public void getAnyAfterUpdateTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Epic updatedEpic = new Epic(epic.getId(), "new name", "new description");
+        taskManager.updateEpic(updatedEpic);
+        assertEquals(updatedEpic, taskManager.getAny(epic.getId()), "Эпик не обновлён в индексе");
+
+        taskManager.clearEpics();
+        assertNull(taskManager.getAny(epic.getId()), "Эпик не удалён из индекса");
+    }
+
+    // Тесты addAll()
+
+    @Test
+    public void addAllTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Task task = new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 10);
+        Subtask subtask1 = new Subtask(0, "subtask 1", "subtask 1", TaskStatus.DONE, epic.getId(),
+                DEFAULT_TIME.plusMinutes(10), 20);
+        Subtask subtask2 = new Subtask(0, "subtask 2", "subtask 2", TaskStatus.NEW, epic.getId(),
+                DEFAULT_TIME.plusMinutes(60), 10);
+
+        assertTrue(taskManager.addAll(List.of(task, subtask1, subtask2)), "Пакет не добавлен");
+        assertEquals(List.of(task), taskManager.getTasks());
+        assertEquals(List.of(subtask1, subtask2), taskManager.getSubtasks());
+        assertEquals(List.of(subtask1.getId(), subtask2.getId()), epic.getSubtaskIds(),
+                "Подзадачи не добавлены в эпик");
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Неверный статус эпика");
+        assertEquals(subtask1.getStartTime(), epic.getStartTime(), "Неверное время начала эпика");
+        assertEquals(subtask2.getEndTime(), epic.getEndTime(), "Неверное время окончания эпика");
+        assertEquals(30, epic.getDuration(), "Неверная продолжительность эпика");
+        assertEquals(List.of(task, subtask1, subtask2), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    public void addAllIntersectingInsideBatchTest() {
+        Task task1 = new Task(0, "task 1", "task 1", TaskStatus.NEW, DEFAULT_TIME, 30);
+        Task task2 = new Task(0, "task 2", "task 2", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(20), 30);
+        Task task3 = new Task(0, "task 3", "task 3", TaskStatus.NEW);
+
+        assertFalse(taskManager.addAll(List.of(task3, task1, task2)), "Добавлены пересекающиеся задачи");
+        assertEquals(0, taskManager.getTasks().size(), "Пакет добавлен частично");
+        assertEquals(0, taskManager.getPrioritizedTasks().size(), "Пакет добавлен частично");
+    }
+
+    @Test
+    public void addAllIntersectingWithExistingTest() {
+        Task existing = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 30));
+        Task task1 = new Task(0, "task 1", "task 1", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(30), 30);
+        Task task2 = new Task(0, "task 2", "task 2", TaskStatus.NEW, DEFAULT_TIME.minusMinutes(10), 20);
+
+        assertFalse(taskManager.addAll(List.of(task1, task2)), "Добавлена задача, пересекающаяся с существующей");
+        assertEquals(List.of(existing), taskManager.getTasks(), "Пакет добавлен частично");
+    }
+
+    @Test
+    public void addAllWithIncorrectItemsTest() {
+        Task task = new Task(0, "task", "task", TaskStatus.NEW);
+        assertFalse(taskManager.addAll(null));
+        assertFalse(taskManager.addAll(Arrays.asList(task, null)), "Добавлен пакет с null");
+        assertFalse(taskManager.addAll(List.of(task, task)), "Одна задача добавлена дважды");
+        assertFalse(taskManager.addAll(List.of(task, new Subtask(0, "subtask", "subtask", TaskStatus.NEW, 100))),
+                "Добавлена подзадача без эпика");
+        assertEquals(0, taskManager.getTasks().size(), "Пакет добавлен частично");
+    }
+
+    // Тесты updateAll()
+
+    @Test
+    public void updateAllTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 30));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW,
+                epic.getId(), DEFAULT_TIME.plusMinutes(30), 30));
+
+        // задачи меняются местами по времени - по одной такое обновление невозможно
+        Task newTask = new Task(task.getId(), "new task", "new task", TaskStatus.DONE,
+                DEFAULT_TIME.plusMinutes(30), 30);
+        Subtask newSubtask = new Subtask(subtask.getId(), "new subtask", "new subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME, 30);
+        Epic newEpic = new Epic(epic.getId(), "new epic", "new epic");
+        assertTrue(taskManager.updateAll(List.of(newTask, newSubtask, newEpic)), "Пакет не обновлён");
+
+        assertEquals(newTask, taskManager.getTask(task.getId()));
+        assertEquals(newSubtask, taskManager.getSubtask(subtask.getId()));
+        Epic updatedEpic = taskManager.getEpic(epic.getId());
+        assertEquals("new epic", updatedEpic.getName());
+        assertEquals(List.of(subtask.getId()), updatedEpic.getSubtaskIds(), "Потеряны подзадачи эпика");
+        assertEquals(TaskStatus.DONE, updatedEpic.getStatus(), "Неверный статус эпика");
+        assertEquals(newSubtask.getStartTime(), updatedEpic.getStartTime(), "Неверное время эпика");
+        assertEquals(List.of(newSubtask, newTask), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    public void updateAllWithIncorrectItemsTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 30));
+        Task other = taskManager.addTask(new Task(0, "other", "other", TaskStatus.NEW,
+                DEFAULT_TIME.plusMinutes(60), 30));
+
+        Task newTask = new Task(task.getId(), "new task", "new task", TaskStatus.DONE);
+        assertFalse(taskManager.updateAll(List.of(newTask, new Task(100, "task", "task", TaskStatus.NEW))),
+                "Обновлена несуществующая задача");
+        assertFalse(taskManager.updateAll(List.of(newTask, new Task(epic.getId(), "task", "task", TaskStatus.NEW))),
+                "Эпик обновлён задачей");
+        assertFalse(taskManager.updateAll(List.of(newTask, newTask)), "Задача обновлена дважды");
+        assertFalse(taskManager.updateAll(List.of(
+                new Task(task.getId(), "task", "task", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(120), 30),
+                new Task(other.getId(), "other", "other", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(130), 30))),
+                "Пересечение в пакете не обнаружено");
+
+        assertEquals(List.of(task, other), taskManager.getTasks(), "Пакет обновлён частично");
+        assertEquals(List.of(task, other), taskManager.getPrioritizedTasks(), "Пакет обновлён частично");
+    }
+
+    // Тесты removeAll()
+
+    @Test
+    public void removeAllTest() {
+        Epic epic1 = taskManager.addEpic(new Epic(0, "epic 1", "epic 1"));
+        Epic epic2 = taskManager.addEpic(new Epic(0, "epic 2", "epic 2"));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        Subtask subtask1 = taskManager.addSubtask(new Subtask(0, "subtask 1", "subtask 1", TaskStatus.DONE,
+                epic1.getId()));
+        Subtask subtask2 = taskManager.addSubtask(new Subtask(0, "subtask 2", "subtask 2", TaskStatus.NEW,
+                epic1.getId()));
+        Subtask subtask3 = taskManager.addSubtask(new Subtask(0, "subtask 3", "subtask 3", TaskStatus.NEW,
+                epic2.getId()));
+
+        assertEquals(3, taskManager.removeAll(Arrays.asList(task.getId(), subtask2.getId(), null, 100,
+                epic2.getId(), subtask3.getId())), "Неверное количество удалённых задач");
+        assertEquals(0, taskManager.getTasks().size());
+        assertEquals(List.of(epic1), taskManager.getEpics());
+        assertEquals(List.of(subtask1), taskManager.getSubtasks());
+        assertEquals(List.of(subtask1.getId()), epic1.getSubtaskIds());
+        assertEquals(TaskStatus.DONE, epic1.getStatus(), "Статус эпика не пересчитан");
+        assertEquals(0, taskManager.removeAll(List.of()));
+    }
+
+    // Тесты transaction()
+
+    @Test
+    public void transactionTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask1 = taskManager.addSubtask(new Subtask(0, "subtask 1", "subtask 1", TaskStatus.NEW,
+                epic.getId(), DEFAULT_TIME, 30));
+        Subtask subtask2 = taskManager.addSubtask(new Subtask(0, "subtask 2", "subtask 2", TaskStatus.NEW,
+                epic.getId(), DEFAULT_TIME.plusMinutes(30), 30));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(60), 30));
+
+        // подзадачи меняются местами, новая задача занимает время удаляемой
+        Subtask moved1 = new Subtask(subtask1.getId(), "subtask 1", "subtask 1", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusMinutes(30), 30);
+        Subtask moved2 = new Subtask(subtask2.getId(), "subtask 2", "subtask 2", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME, 30);
+        Task newTask = new Task(0, "new task", "new task", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(60), 30);
+        Subtask newSubtask = new Subtask(0, "subtask 3", "subtask 3", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusMinutes(90), 30);
+        assertTrue(taskManager.transaction(List.of(TaskOperation.update(moved1), TaskOperation.update(moved2),
+                TaskOperation.add(newTask), TaskOperation.add(newSubtask), TaskOperation.remove(task.getId()))),
+                "Транзакция не выполнена");
+
+        assertEquals(List.of(newTask), taskManager.getTasks());
+        assertEquals(List.of(moved1, moved2, newSubtask), taskManager.getSubtasks());
+        assertEquals(List.of(moved2, moved1, newTask, newSubtask), taskManager.getPrioritizedTasks());
+        Epic updatedEpic = taskManager.getEpic(epic.getId());
+        assertEquals(TaskStatus.DONE, updatedEpic.getStatus(), "Неверный статус эпика");
+        assertEquals(DEFAULT_TIME.withSecond(0), updatedEpic.getStartTime(), "Неверное время начала эпика");
+        assertEquals(newSubtask.getEndTime(), updatedEpic.getEndTime(), "Неверное время окончания эпика");
+
+        assertTrue(taskManager.transaction(List.of(TaskOperation.remove(newSubtask.getId()),
+                TaskOperation.remove(epic.getId()))), "Подзадача и её эпик не удалены вместе");
+        assertTrue(taskManager.getSubtasks().isEmpty());
+        assertTrue(taskManager.getEpics().isEmpty());
+    }
+
+    @Test
+    public void transactionRollbackTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW,
+                epic.getId(), DEFAULT_TIME, 30));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(60), 30));
+        List<Task> tasks = taskManager.getTasks();
+        List<Subtask> subtasks = taskManager.getSubtasks();
+        List<Epic> epics = taskManager.getEpics();
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+
+        Subtask movedSubtask = new Subtask(subtask.getId(), "subtask", "subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusMinutes(120), 30);
+        TaskOperation move = TaskOperation.update(movedSubtask);
+        assertFalse(taskManager.transaction(List.of(move, TaskOperation.add(
+                new Task(0, "new", "new", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(75), 30)))),
+                "Пересечение с существующей задачей не обнаружено");
+        assertFalse(taskManager.transaction(List.of(move, TaskOperation.add(
+                new Task(0, "new", "new", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(130), 30)))),
+                "Пересечение внутри транзакции не обнаружено");
+        assertFalse(taskManager.transaction(List.of(move, TaskOperation.remove(100))),
+                "Удалена несуществующая задача");
+        assertFalse(taskManager.transaction(List.of(move, move)), "Задача обновлена дважды");
+        assertFalse(taskManager.transaction(List.of(move, TaskOperation.remove(epic.getId()))),
+                "Обновлена подзадача удаляемого эпика");
+        assertFalse(taskManager.transaction(List.of(TaskOperation.remove(task.getId()), TaskOperation.add(
+                new Subtask(0, "new", "new", TaskStatus.NEW, epic.getId())), TaskOperation.remove(epic.getId()))),
+                "Подзадача добавлена в удаляемый эпик");
+        assertFalse(taskManager.transaction(List.of(move, TaskOperation.update(
+                new Subtask(task.getId(), "task", "task", TaskStatus.NEW, epic.getId())))),
+                "Задача обновлена подзадачей");
+        assertFalse(taskManager.transaction(null));
+
+        assertEquals(tasks, taskManager.getTasks(), "Изменены задачи");
+        assertEquals(subtasks, taskManager.getSubtasks(), "Изменены подзадачи");
+        assertEquals(epics, taskManager.getEpics(), "Изменены эпики");
+        assertEquals(prioritized, taskManager.getPrioritizedTasks(), "Изменён список по приоритету");
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epic.getId()).getStatus(), "Изменён статус эпика");
+    }
+
+    // Тесты копий списков
+
+    @Test
+    public void listsAreIndependentCopiesTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 10));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        taskManager.getTask(task.getId());
+        List<Task> tasks = taskManager.getTasks();
+        List<Task> history = taskManager.getHistory();
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
+        List<Epic> epics = taskManager.getEpics();
+        tasks.add(task);
+        history.clear();
+        prioritizedTasks.remove(0);
+        epics.clear();
+        assertEquals(List.of(task), taskManager.getTasks(), "Изменение полученного списка не должно затрагивать менеджер");
+        assertEquals(List.of(task), taskManager.getHistory());
+        assertEquals(List.of(task), taskManager.getPrioritizedTasks());
+        assertEquals(List.of(epic), taskManager.getEpics());
+
+        List<Task> beforeRemove = taskManager.getTasks();
+        taskManager.removeTask(task.getId());
+        assertEquals(List.of(task), beforeRemove, "Полученный список изменился после удаления задачи");
+        assertEquals(0, taskManager.getTasks().size(), "Возвращается устаревший список");
+        assertEquals(0, taskManager.getHistory().size(), "Возвращается устаревшая история");
+        assertEquals(0, taskManager.getPrioritizedTasks().size(), "Возвращается устаревший список");
+    }
+
+    // Снимок отдаётся без копирования: пока менеджер не меняется - тот же объект, изменить его нельзя
+    @Test
+    public void snapshotsAreSharedAndImmutableTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 10));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW,
+                epic.getId()));
+        taskManager.getTask(task.getId());
+        List<Task> tasks = taskManager.getTasksSnapshot();
+        List<Subtask> subtasks = taskManager.getSubtasksSnapshot();
+        List<Epic> epics = taskManager.getEpicsSnapshot();
+        List<Task> history = taskManager.getHistorySnapshot();
+        List<Task> prioritizedTasks = taskManager.getPrioritizedTasksSnapshot();
+        assertEquals(List.of(task), tasks);
+        assertEquals(List.of(subtask), subtasks);
+        assertEquals(List.of(epic), epics);
+        assertEquals(List.of(task), history);
+        assertEquals(taskManager.getPrioritizedTasks(), prioritizedTasks);
+        assertSame(tasks, taskManager.getTasksSnapshot(), "Снимок без изменений должен отдаваться повторно");
+        assertSame(subtasks, taskManager.getSubtasksSnapshot());
+        assertSame(epics, taskManager.getEpicsSnapshot());
+        assertSame(history, taskManager.getHistorySnapshot());
+        assertSame(prioritizedTasks, taskManager.getPrioritizedTasksSnapshot());
+        assertEquals(List.of(task), taskManager.streamTasks().collect(Collectors.toList()));
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(task));
+        assertThrows(UnsupportedOperationException.class, () -> prioritizedTasks.clear());
+        assertThrows(UnsupportedOperationException.class, () -> history.remove(0));
+
+        taskManager.removeTask(task.getId());
+        assertEquals(List.of(task), tasks, "Выданный снимок не должен меняться вместе с менеджером");
+        assertEquals(List.of(task), history);
+        assertTrue(taskManager.getTasksSnapshot().isEmpty());
+        assertTrue(taskManager.getHistorySnapshot().isEmpty());
+        assertEquals(List.of(subtask), taskManager.getPrioritizedTasksSnapshot());
+    }
+
+    @Test
+    public void historySnapshotUpdatedByGetTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        List<Task> tasks = taskManager.getTasks();
+        assertEquals(0, taskManager.getHistory().size());
+        taskManager.getTask(task.getId());
+        taskManager.getEpic(epic.getId());
+        assertEquals(List.of(task, epic), taskManager.getHistory(), "История не обновлена");
+        assertEquals(tasks, taskManager.getTasks());
+    }
+
+    // Тесты постраничного и потокового чтения
+
+    @Test
+    public void getTasksPageTest() {
+        Task[] tasks = new Task[5];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = taskManager.addTask(new Task(0, "task " + i, "task", TaskStatus.NEW));
+        }
+        // Страницы идут по возрастанию id, а id не обязаны расти в порядке добавления (ShardedTaskManager)
+        Arrays.sort(tasks, Comparator.comparingInt(Task::getId));
+        assertEquals(List.of(tasks[0], tasks[1]), taskManager.getTasks(null, 2), "Неверная первая страница");
+        assertEquals(List.of(tasks[2], tasks[3]), taskManager.getTasks(tasks[1].getId(), 2));
+        assertEquals(List.of(tasks[4]), taskManager.getTasks(tasks[3].getId(), 2), "Неверная последняя страница");
+        assertEquals(0, taskManager.getTasks(tasks[4].getId(), 2).size());
+        assertEquals(0, taskManager.getTasks(null, 0).size());
+
+        taskManager.removeTask(tasks[2].getId());
+        assertEquals(List.of(tasks[3], tasks[4]), taskManager.getTasks(tasks[2].getId(), 2),
+                "Неверная страница после удаления задачи-курсора");
+    }
+
+    @Test
+    public void getSubtasksAndEpicsPageTest() {
+        Epic epic1 = taskManager.addEpic(new Epic(0, "epic 1", "epic"));
+        Epic epic2 = taskManager.addEpic(new Epic(0, "epic 2", "epic"));
+        Subtask subtask1 = taskManager.addSubtask(new Subtask(0, "subtask 1", "subtask", TaskStatus.NEW,
+                epic1.getId()));
+        Subtask subtask2 = taskManager.addSubtask(new Subtask(0, "subtask 2", "subtask", TaskStatus.NEW,
+                epic2.getId()));
+
+        assertEquals(List.of(epic2), taskManager.getEpics(epic1.getId(), 10));
+        assertEquals(List.of(subtask1), taskManager.getSubtasks(null, 1));
+        assertEquals(List.of(subtask2), taskManager.getSubtasks(subtask1.getId(), 1));
+    }
+
+    @Test
+    public void getPrioritizedTasksPageTest() {
+        Task task1 = taskManager.addTask(new Task(0, "task 1", "task", TaskStatus.NEW,
+                DEFAULT_TIME.plusMinutes(60), 10));
+        Task task2 = taskManager.addTask(new Task(0, "task 2", "task", TaskStatus.NEW, DEFAULT_TIME, 10));
+        Task task3 = taskManager.addTask(new Task(0, "task 3", "task", TaskStatus.NEW));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+
+        assertEquals(List.of(task2, task1), taskManager.getPrioritizedTasks(null, 2));
+        assertEquals(List.of(task3), taskManager.getPrioritizedTasks(task1.getId(), 2));
+        assertNull(taskManager.getPrioritizedTasks(epic.getId(), 2), "Эпик принят как курсор");
+        assertNull(taskManager.getPrioritizedTasks(100, 2), "Несуществующая задача принята как курсор");
+    }
+
+    @Test
+    public void getTasksBetweenAndUpcomingTest() {
+        final LocalDateTime start = DEFAULT_TIME.withSecond(0);
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, start, 60));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW, epic.getId(),
+                start.plusDays(1), 60));
+        taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, start.plusDays(8), 60));
+        taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+
+        assertEquals(List.of(task, subtask), taskManager.getTasksBetween(start.plusMinutes(30), start.plusDays(7)),
+                "Неверные задачи в промежутке");
+        assertEquals(List.of(subtask), taskManager.getUpcoming(start.plusMinutes(30), 1),
+                "Неверные ближайшие задачи");
+        assertEquals(List.of(), taskManager.getTasksBetween(start.plusDays(2), start.plusDays(3)));
+    }
+
+    @Test
+    public void findFreeSlotTest() {
+        final LocalDateTime start = DEFAULT_TIME.withSecond(0);
+        taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, start, 60));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW, epic.getId(),
+                start.plusMinutes(90), 60));
+
+        assertEquals(start.plusMinutes(150), taskManager.findFreeSlot(45, start, null));
+        assertEquals(start.plusMinutes(60), taskManager.findFreeSlot(30, start.plusSeconds(30), null),
+                "Левая граница не округлена вверх до минут");
+        assertNull(taskManager.findFreeSlot(45, start, start.plusMinutes(150)), "Время вне промежутка");
+        assertEquals(List.of(start.plusMinutes(60), start.plusMinutes(150)),
+                taskManager.findFreeSlots(30, start, null, 2));
+
+        LocalDateTime slot = taskManager.findFreeSlot(30, start, null);
+        assertNotNull(taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, slot, 30)),
+                "Задача на найденное время не добавлена");
+        assertEquals(start.plusMinutes(150), taskManager.findFreeSlot(1, start, null),
+                "Промежуток не занят добавленной задачей");
+    }
+
+    @Test
+    public void streamTasksTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 10));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.DONE,
+                epic.getId()));
+
+        assertEquals(List.of(task), taskManager.streamTasks().collect(Collectors.toList()));
+        assertEquals(List.of(subtask), taskManager.streamSubtasks().collect(Collectors.toList()));
+        assertEquals(List.of(epic), taskManager.streamEpics().collect(Collectors.toList()));
+        assertEquals(List.of(task, subtask), taskManager.streamPrioritizedTasks().collect(Collectors.toList()));
+
+        // поток по снимку не ломается от изменений менеджера во время обхода
+        taskManager.streamTasks().forEach(t -> taskManager.removeTask(t.getId()));
+        assertEquals(0, taskManager.getTasks().size());
+    }
+
+    // Тесты getByStatus()
+
+    @Test
+    public void getByStatusTest() {
+        Task task1 = taskManager.addTask(new Task(0, "task 1", "task", TaskStatus.NEW));
+        Task task2 = taskManager.addTask(new Task(0, "task 2", "task", TaskStatus.DONE));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW,
+                epic.getId()));
+
+        assertEquals(List.of(task1), taskManager.getByStatus(TaskType.TASK, TaskStatus.NEW));
+        assertEquals(List.of(task2), taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE));
+        assertEquals(List.of(subtask), taskManager.getByStatus(TaskType.SUBTASK, TaskStatus.NEW));
+        assertEquals(List.of(epic), taskManager.getByStatus(TaskType.EPIC, TaskStatus.NEW));
+        assertEquals(0, taskManager.getByStatus(TaskType.TASK, TaskStatus.IN_PROGRESS).size());
+        assertEquals(0, taskManager.getByStatus(null, TaskStatus.NEW).size());
+
+        Task updatedTask = new Task(task1.getId(), "task 1", "task", TaskStatus.IN_PROGRESS);
+        taskManager.updateTask(updatedTask);
+        assertEquals(0, taskManager.getByStatus(TaskType.TASK, TaskStatus.NEW).size(), "Индекс не обновлён");
+        assertEquals(List.of(updatedTask), taskManager.getByStatus(TaskType.TASK, TaskStatus.IN_PROGRESS));
+
+        taskManager.removeTask(task2.getId());
+        assertEquals(0, taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE).size(), "Задача осталась в индексе");
+    }
+
+    @Test
+    public void getByStatusAfterEpicStatusChangeTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW,
+                epic.getId()));
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "subtask", "subtask", TaskStatus.DONE,
+                epic.getId()));
+        assertEquals(List.of(epic), taskManager.getByStatus(TaskType.EPIC, TaskStatus.DONE),
+                "Эпик не перенесён в индексе при смене статуса");
+        assertEquals(0, taskManager.getByStatus(TaskType.EPIC, TaskStatus.NEW).size());
+
+        taskManager.removeSubtask(subtask.getId());
+        assertEquals(List.of(epic), taskManager.getByStatus(TaskType.EPIC, TaskStatus.NEW));
+
+        taskManager.clearEpics();
+        assertEquals(0, taskManager.getByStatus(TaskType.EPIC, TaskStatus.NEW).size(), "Эпик остался в индексе");
+    }
+
+    // Тесты query() и explain()
+
+    @Test
+    public void queryByConditionsTest() {
+        Epic epic1 = taskManager.addEpic(new Epic(0, "epic 1", "epic"));
+        Epic epic2 = taskManager.addEpic(new Epic(0, "epic 2", "epic"));
+        Subtask deploy = taskManager.addSubtask(new Subtask(0, "Deploy service", "subtask",
+                TaskStatus.IN_PROGRESS, epic1.getId(), DEFAULT_TIME, 30));
+        taskManager.addSubtask(new Subtask(0, "Deploy db", "subtask",
+                TaskStatus.IN_PROGRESS, epic1.getId(), DEFAULT_TIME.plusDays(2), 30));
+        taskManager.addSubtask(new Subtask(0, "Test service", "subtask",
+                TaskStatus.IN_PROGRESS, epic1.getId(), DEFAULT_TIME.plusHours(1), 30));
+        taskManager.addSubtask(new Subtask(0, "Deploy other", "subtask",
+                TaskStatus.IN_PROGRESS, epic2.getId(), DEFAULT_TIME.plusHours(2), 30));
+        taskManager.addTask(new Task(0, "Deploy task", "task", TaskStatus.IN_PROGRESS, DEFAULT_TIME.plusHours(3), 30));
+
+        TaskQuery query = new TaskQuery()
+                .status(TaskStatus.IN_PROGRESS)
+                .epicId(epic1.getId())
+                .startTime(DEFAULT_TIME.minusHours(1), DEFAULT_TIME.plusDays(1))
+                .namePrefix("Deploy");
+        assertEquals(List.of(deploy), taskManager.query(query));
+        assertEquals(4, taskManager.query(new TaskQuery().type(TaskType.SUBTASK).status(TaskStatus.IN_PROGRESS))
+                .size());
+        assertEquals(7, taskManager.query(new TaskQuery().status(TaskStatus.IN_PROGRESS)).size(),
+                "Эпики с подходящим статусом не найдены");
+        assertEquals(2, taskManager.query(new TaskQuery().type(TaskType.EPIC)).size());
+        assertEquals(0, taskManager.query(new TaskQuery().epicId(100)).size());
+        assertEquals(7, taskManager.query(new TaskQuery()).size(), "Пустой запрос должен возвращать всё");
+    }
+
+    @Test
+    public void explainChoosesCheapestSourceTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        for (int i = 0; i < 10; i++) {
+            taskManager.addTask(new Task(0, "task " + i, "task", TaskStatus.NEW, DEFAULT_TIME.plusHours(i), 30));
+        }
+        taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.DONE, epic.getId()));
+
+        assertEquals(QuerySource.EPIC_SUBTASKS,
+                taskManager.explain(new TaskQuery().status(TaskStatus.NEW).epicId(epic.getId())).getSource());
+        assertEquals(QuerySource.STATUS_INDEX,
+                taskManager.explain(new TaskQuery().status(TaskStatus.DONE)).getSource());
+        QueryPlan plan = taskManager.explain(new TaskQuery().type(TaskType.TASK).status(TaskStatus.NEW)
+                .startTime(DEFAULT_TIME, DEFAULT_TIME.plusHours(2)));
+        assertEquals(QuerySource.TIME_INDEX, plan.getSource());
+        assertEquals(2, plan.getCost(), "Неверная оценка диапазона времени");
+        assertEquals(3, plan.getFilters().size(), "Не все условия попали в план");
+        assertEquals(QuerySource.TYPE_SCAN, taskManager.explain(new TaskQuery().type(TaskType.EPIC)).getSource());
+        assertEquals(QuerySource.FULL_SCAN, taskManager.explain(new TaskQuery().namePrefix("task")).getSource());
+    }
+
+    // Результат не должен зависеть от выбранного источника - сравнение с полным перебором
+    @Test
+    public void queryMatchesFullScanTest() {
+        Random random = new Random(7);
+        TaskStatus[] statuses = TaskStatus.values();
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            epics.add(taskManager.addEpic(new Epic(0, "epic " + i, "epic")));
+        }
+        for (int i = 0; i < 200; i++) {
+            TaskStatus status = statuses[random.nextInt(statuses.length)];
+            LocalDateTime startTime = random.nextInt(4) == 0 ? null : DEFAULT_TIME.plusHours(i);
+            String name = (random.nextBoolean() ? "Deploy " : "Test ") + i;
+            if (random.nextBoolean()) {
+                taskManager.addTask(new Task(0, name, "task", status, startTime, 30));
+            } else {
+                int epicId = epics.get(random.nextInt(epics.size())).getId();
+                taskManager.addSubtask(new Subtask(0, name, "subtask", status, epicId, startTime, 30));
+            }
+        }
+        List<Task> all = taskManager.query(new TaskQuery());
+        for (int i = 0; i < 200; i++) {
+            TaskQuery query = new TaskQuery();
+            if (random.nextBoolean()) {
+                query.type(TaskType.values()[random.nextInt(TaskType.values().length)]);
+            }
+            if (random.nextBoolean()) {
+                query.status(statuses[random.nextInt(statuses.length)]);
+            }
+            if (random.nextInt(3) == 0) {
+                query.epicId(epics.get(random.nextInt(epics.size())).getId());
+            }
+            if (random.nextBoolean()) {
+                LocalDateTime from = DEFAULT_TIME.plusHours(random.nextInt(200));
+                query.startTime(random.nextBoolean() ? from : null, from.plusHours(random.nextInt(100)));
+            }
+            if (random.nextInt(3) == 0) {
+                query.namePrefix("Deploy");
+            }
+            Set<Task> expected = all.stream().filter(query::matches).collect(Collectors.toSet());
+            assertEquals(expected, new HashSet<>(taskManager.query(query)), "Неверный результат " + query
+                    + " по плану " + taskManager.explain(query));
+        }
+    }
+
+    // Тесты search()
+
+    @Test
+    public void searchRanksNameAboveDescriptionTest() {
+        Task inDescription = taskManager.addTask(new Task(0, "Обновить сервер", "Выкатить релиз", TaskStatus.NEW));
+        Task inName = taskManager.addTask(new Task(0, "Релиз 2.0", "Подготовить заметки", TaskStatus.NEW));
+        Epic epic = taskManager.addEpic(new Epic(0, "Release", "Deploy to production"));
+        Subtask byPrefix = taskManager.addSubtask(new Subtask(0, "Релизы прошлого года", "Архив",
+                TaskStatus.NEW, epic.getId()));
+
+        assertEquals(List.of(inName, inDescription, byPrefix), taskManager.search("РЕЛИЗ", 10),
+                "Совпадение в названии должно быть выше совпадения в описании, а совпадение по началу слова - ниже");
+        assertEquals(List.of(epic), taskManager.search("deploy, production!", 10));
+        assertEquals(List.of(inName), taskManager.search("релиз", 1));
+        assertEquals(List.of(inName), taskManager.search("2.0", 10), "Цифры тоже должны быть словами");
+        assertEquals(List.of(inDescription), taskManager.search("сервёр", 10), "ё должна совпадать с е");
+        assertTrue(taskManager.search("ре", 10).isEmpty(), "Короткие слова не должны искаться по началу");
+        assertTrue(taskManager.search("  ", 10).isEmpty());
+        assertTrue(taskManager.search(null, 10).isEmpty());
+    }
+
+    @Test
+    public void searchIndexUpdatedIncrementallyTest() {
+        Task task = taskManager.addTask(new Task(0, "Написать тесты", "unit", TaskStatus.NEW));
+        Epic epic = taskManager.addEpic(new Epic(0, "Тесты", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "Тесты API", "subtask",
+                TaskStatus.NEW, epic.getId()));
+        assertEquals(3, taskManager.search("тесты", 10).size());
+
+        taskManager.updateTask(new Task(task.getId(), "Написать документацию", "unit", TaskStatus.NEW));
+        assertEquals(List.of(epic, subtask), taskManager.search("тесты", 10));
+        assertEquals(task.getId(), taskManager.search("документацию", 10).get(0).getId());
+
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Проверки API", "subtask",
+                TaskStatus.DONE, epic.getId()));
+        assertEquals(List.of(epic), taskManager.search("тесты", 10));
+
+        taskManager.removeEpic(epic.getId());
+        assertTrue(taskManager.search("тесты", 10).isEmpty());
+        assertTrue(taskManager.search("api", 10).isEmpty(), "Подзадачи удалённого эпика не должны находиться");
+
+        taskManager.addAll(List.of(new Task(0, "Тесты снова", "task", TaskStatus.NEW),
+                new Task(0, "Ещё тесты", "task", TaskStatus.NEW)));
+        assertEquals(2, taskManager.search("тесты", 10).size());
+        taskManager.clearTasks();
+        assertTrue(taskManager.search("тесты", 10).isEmpty());
+    }
+
+    // Тесты subscribe()
+
+    @Test
+    public void subscribeReceivesChangeEventsTest() throws InterruptedException {
+        BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+        EventBus.Subscription subscription = taskManager.subscribe(events::add, OverflowPolicy.BLOCK);
+
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        Task updated = new Task(task.getId(), "task", "updated", TaskStatus.IN_PROGRESS);
+        taskManager.updateTask(updated);
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask",
+                TaskStatus.DONE, epic.getId()));
+        taskManager.removeTask(task.getId());
+        taskManager.clearEpics();
+
+        assertEvent(events.poll(1, TimeUnit.SECONDS), TaskEventType.ADDED, null, task);
+        assertEvent(events.poll(1, TimeUnit.SECONDS), TaskEventType.UPDATED, task, updated);
+        assertEvent(events.poll(1, TimeUnit.SECONDS), TaskEventType.ADDED, null, epic);
+        assertEvent(events.poll(1, TimeUnit.SECONDS), TaskEventType.ADDED, null, subtask);
+        // статус эпика пересчитан по подзадаче
+        assertEvent(events.poll(1, TimeUnit.SECONDS), TaskEventType.UPDATED, null, epic);
+        assertEvent(events.poll(1, TimeUnit.SECONDS), TaskEventType.REMOVED, updated, null);
+        Set<Task> removed = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            TaskEvent event = events.poll(1, TimeUnit.SECONDS);
+            assertNotNull(event, "Нет события удаления");
+            assertEquals(TaskEventType.REMOVED, event.getEventType());
+            removed.add(event.getOldValue());
+        }
+        assertEquals(Set.of(epic, subtask), removed);
+
+        subscription.close();
+        taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        assertNull(events.poll(100, TimeUnit.MILLISECONDS), "Событие после закрытия подписки");
+    }
+
+    @Test
+    public void subscribeReportsListenerErrorsTest() throws InterruptedException {
+        BlockingQueue<TaskEvent> failed = new LinkedBlockingQueue<>();
+        EventBus.Subscription subscription = taskManager.subscribe(event -> {
+            throw new IllegalStateException("listener failed");
+        }, OverflowPolicy.BLOCK, (event, exception) -> failed.add(event));
+
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+
+        assertEvent(failed.poll(1, TimeUnit.SECONDS), TaskEventType.ADDED, null, task);
+        assertEquals(1, subscription.getFailureCount());
+        assertEquals("listener failed", subscription.getLastFailure().getMessage());
+        assertTrue(subscription.isActive(), "Ошибка обработчика не должна закрывать подписку");
+        subscription.close();
+    }
+
+    // Тесты версий и обновления с ожидаемой версией
+
+    @Test
+    public void versionIncreasedOnUpdateTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        assertEquals(1, task.getVersion(), "Новая задача должна получить версию 1");
+        Task updated = new Task(task.getId(), "task", "task", TaskStatus.DONE);
+        assertTrue(taskManager.updateTask(updated));
+        assertEquals(2, updated.getVersion());
+        assertTrue(taskManager.updateTask(updated), "Обновление тем же объектом");
+        assertEquals(3, taskManager.getTask(task.getId()).getVersion());
+        assertFalse(taskManager.updateTask(new Task(100, "task", "task", TaskStatus.NEW)));
+
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW, epic.getId()));
+        assertEquals(1, epic.getVersion());
+        assertEquals(1, subtask.getVersion());
+        assertTrue(taskManager.updateSubtask(new Subtask(subtask.getId(), "subtask", "subtask", TaskStatus.DONE,
+                epic.getId())));
+        assertEquals(2, taskManager.getSubtask(subtask.getId()).getVersion());
+        assertTrue(taskManager.updateEpic(new Epic(epic.getId(), "new epic", "epic")));
+        assertEquals(2, taskManager.getEpic(epic.getId()).getVersion());
+    }
+
+    @Test
+    public void updateWithExpectedVersionTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 10));
+        final int id = task.getId();
+        Task first = new Task(id, "first", "task", TaskStatus.IN_PROGRESS, DEFAULT_TIME, 10);
+        assertTrue(taskManager.updateTask(first, 1));
+        assertEquals(2, first.getVersion());
+
+        // Второй клиент читал версию 1 - его обновление отклоняется, задача не меняется
+        Task second = new Task(id, "second", "task", TaskStatus.DONE, DEFAULT_TIME.plusHours(1), 10);
+        VersionConflictException exception = assertThrows(VersionConflictException.class,
+                () -> taskManager.updateTask(second, 1));
+        assertEquals(id, exception.getId());
+        assertEquals(1, exception.getExpectedVersion());
+        assertEquals(2, exception.getActualVersion());
+        assertEquals(first, taskManager.getTask(id), "Задача изменена при конфликте версий");
+        assertEquals(List.of(first), taskManager.getPrioritizedTasks(), "Время изменено при конфликте версий");
+        assertTrue(taskManager.updateTask(second, 2));
+        assertEquals(second, taskManager.getTask(id));
+        assertFalse(taskManager.updateTask(new Task(100, "task", "task", TaskStatus.NEW), 1),
+                "Несуществующая задача - не конфликт версий");
+        assertFalse(taskManager.updateTask(null, 1));
+
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW, epic.getId()));
+        assertThrows(VersionConflictException.class, () -> taskManager.updateSubtask(new Subtask(subtask.getId(),
+                "subtask", "subtask", TaskStatus.DONE, epic.getId()), 2));
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epic.getId()).getStatus());
+        assertTrue(taskManager.updateSubtask(new Subtask(subtask.getId(), "subtask", "subtask", TaskStatus.DONE,
+                epic.getId()), 1));
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus());
+
+        assertThrows(VersionConflictException.class,
+                () -> taskManager.updateEpic(new Epic(epic.getId(), "new epic", "epic"), 0));
+        assertEquals("epic", taskManager.getEpic(epic.getId()).getName());
+        assertTrue(taskManager.updateEpic(new Epic(epic.getId(), "new epic", "epic"), 1));
+        assertEquals("new epic", taskManager.getEpic(epic.getId()).getName());
+        assertEquals(List.of(subtask.getId()), taskManager.getEpic(epic.getId()).getSubtaskIds());
+    }
+
+    private void assertEvent(TaskEvent event, TaskEventType eventType, Task oldValue, Task newValue) {
+        assertNotNull(event, "Нет события " + eventType);
+        assertEquals(eventType, event.getEventType());
+        Task task = newValue != null ? newValue : oldValue;
+        assertEquals(task.getType(), event.getTaskType());
+        assertEquals(task.getId(), event.getId());
+        assertStoredTask(oldValue, event.getOldValue());
+        assertStoredTask(newValue, event.getNewValue());
+    }
+
+    // Менеджер хранит и отдаёт переданный ему объект; менеджеры, которые хранят копии, сравнивают по содержимому
+    protected void assertStoredTask(Task expected, Task actual) {
+        assertSame(expected, actual);
+    }
+}
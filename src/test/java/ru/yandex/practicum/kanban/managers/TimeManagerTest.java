@@ -7,14 +7,16 @@ import ru.yandex.practicum.kanban.tasks.TaskStatus;
 
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class TimeManagerTest {
 
-    private TimeManager timeManager;
-    private final LocalDateTime DEFAULT_TIME =
+    protected TimeManager timeManager;
+    protected final LocalDateTime DEFAULT_TIME =
             LocalDateTime.of(2022, Month.JANUARY, 1, 1, 1, 30);
 
     @BeforeEach
@@ -199,4 +201,175 @@ class TimeManagerTest {
         assertTrue(timeManager.validateTask(
                 new Task(2, "", "", TaskStatus.NEW, startTime2, duration2)));
     }
-}
\ No newline at end of file
+
+    // Задача длительностью 0 в начале часа и задачи раньше 1970 года
+    @Test
+    public void validateTaskZeroDurationAndEarlyTimeTest() {
+        final LocalDateTime hour = LocalDateTime.of(2022, Month.JANUARY, 1, 10, 0);
+        Task point = new Task(1, "", "", TaskStatus.NEW, hour, 0);
+        timeManager.addTask(point);
+        assertFalse(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, hour.minusMinutes(30), 60)),
+                "Не найдено пересечение с задачей длительностью 0");
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, hour, 60)));
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, hour.minusMinutes(60), 60)));
+        timeManager.removeTask(point);
+        assertTrue(timeManager.validateTask(new Task(2, "", "", TaskStatus.NEW, hour.minusMinutes(30), 60)),
+                "Задача длительностью 0 не удалена");
+
+        final LocalDateTime early = LocalDateTime.of(1960, Month.JUNE, 1, 10, 30);
+        timeManager.addTask(new Task(3, "", "", TaskStatus.NEW, early, 20));
+        assertFalse(timeManager.validateTask(new Task(4, "", "", TaskStatus.NEW, early.plusMinutes(10), 20)),
+                "Не найдено пересечение задач раньше 1970 года");
+        assertTrue(timeManager.validateTask(new Task(4, "", "", TaskStatus.NEW, early.plusMinutes(20), 20)));
+    }
+
+    @Test
+    public void removeTasksTest() {
+        Task task1 = new Task(1, "", "", TaskStatus.NEW, DEFAULT_TIME, 3 * 60);
+        Task task2 = new Task(2, "", "", TaskStatus.NEW, DEFAULT_TIME.plusHours(3), 30);
+        Task task3 = new Task(3, "", "", TaskStatus.NEW);
+        timeManager.addTask(task1);
+        timeManager.addTask(task2);
+        timeManager.addTask(task3);
+        timeManager.getPrioritizedTasks();
+
+        timeManager.removeTasks(task -> task.getId() != 2);
+        assertEquals(List.of(task2), timeManager.getPrioritizedTasks(), "Неверно удалены задачи");
+        assertTrue(timeManager.validateTask(new Task(4, "", "", TaskStatus.NEW, DEFAULT_TIME, 3 * 60)),
+                "Интервалы удалённой задачи не освобождены");
+        assertFalse(timeManager.validateTask(new Task(4, "", "", TaskStatus.NEW, DEFAULT_TIME.plusHours(3), 10)),
+                "Интервалы оставшейся задачи освобождены");
+
+        timeManager.clear();
+        assertEquals(0, timeManager.getPrioritizedTasks().size());
+        assertTrue(timeManager.validateTask(new Task(4, "", "", TaskStatus.NEW, DEFAULT_TIME.plusHours(3), 10)));
+    }
+
+    @Test
+    public void findFreeSlotsTest() {
+        final LocalDateTime start = DEFAULT_TIME.withSecond(0);
+        timeManager.addTask(new Task(1, "", "", TaskStatus.NEW, start, 60));
+        timeManager.addTask(new Task(2, "", "", TaskStatus.NEW, start.plusMinutes(90), 30));
+        timeManager.addTask(new Task(3, "", "", TaskStatus.NEW, start.plusMinutes(150), 0));
+        timeManager.addTask(new Task(4, "", "", TaskStatus.NEW, start.plusMinutes(180), 60));
+        timeManager.addTask(new Task(5, "", "", TaskStatus.NEW));
+
+        assertEquals(List.of(start.plusMinutes(60), start.plusMinutes(120), start.plusMinutes(150),
+                        start.plusMinutes(240)),
+                timeManager.findFreeSlots(30, start, null, 10), "Неверные свободные промежутки");
+        assertEquals(List.of(start.plusMinutes(240)), timeManager.findFreeSlots(31, start, null, 10),
+                "Задача длительностью 0 не делит промежуток");
+        assertEquals(List.of(start.plusMinutes(60)), timeManager.findFreeSlots(30, start, null, 1),
+                "Не учитывается limit");
+        assertEquals(List.of(start.plusMinutes(70)), timeManager.findFreeSlots(20, start.plusMinutes(70),
+                start.plusMinutes(90), 10), "Неверно учтены границы");
+        assertEquals(List.of(), timeManager.findFreeSlots(21, start.plusMinutes(70), start.plusMinutes(90), 10),
+                "Задача выходит за правую границу");
+        assertEquals(List.of(start.plusMinutes(120)), timeManager.findFreeSlots(30, start.plusMinutes(100),
+                start.plusMinutes(150), 10), "Не учтена задача, начавшаяся раньше левой границы");
+        assertEquals(List.of(start.minusMinutes(30)), timeManager.findFreeSlots(30, start.minusMinutes(30),
+                null, 1), "Не найден промежуток перед первой задачей");
+
+        assertEquals(List.of(), timeManager.findFreeSlots(0, start, null, 1));
+        assertEquals(List.of(), timeManager.findFreeSlots(30, null, null, 1));
+        for (LocalDateTime slot : timeManager.findFreeSlots(30, start.minusDays(1), start.plusDays(1), 100)) {
+            assertTrue(timeManager.validateTask(new Task(6, "", "", TaskStatus.NEW, slot, 30)),
+                    "Найденное время пересекается с задачами");
+        }
+    }
+
+    @Test
+    public void getTasksBetweenTest() {
+        final LocalDateTime start = DEFAULT_TIME.withSecond(0);
+        Task task1 = new Task(1, "", "", TaskStatus.NEW, start, 60);
+        Task task2 = new Task(2, "", "", TaskStatus.NEW, start.plusMinutes(60), 30);
+        Task task3 = new Task(3, "", "", TaskStatus.NEW, start.plusDays(7), 30);
+        Task task4 = new Task(4, "", "", TaskStatus.NEW);
+        timeManager.addTask(task1);
+        timeManager.addTask(task2);
+        timeManager.addTask(task3);
+        timeManager.addTask(task4);
+
+        assertEquals(List.of(task1, task2), List.copyOf(timeManager.getTasksBetween(start, start.plusDays(1))));
+        assertEquals(List.of(task1, task2), List.copyOf(timeManager.getTasksBetween(start.plusMinutes(30),
+                start.plusDays(1))), "Не возвращается задача, начавшаяся раньше промежутка");
+        assertEquals(List.of(task2), List.copyOf(timeManager.getTasksBetween(start.plusMinutes(60),
+                start.plusMinutes(90))), "Возвращается задача, закончившаяся к началу промежутка");
+        assertEquals(List.of(task2, task3), List.copyOf(timeManager.getTasksBetween(start.plusMinutes(61), null)));
+        assertEquals(List.of(task1), List.copyOf(timeManager.getTasksBetween(null, start.plusMinutes(60))));
+        assertEquals(List.of(), List.copyOf(timeManager.getTasksBetween(start.plusMinutes(30), start)));
+
+        Task task5 = new Task(5, "", "", TaskStatus.NEW, start.plusDays(1), 30);
+        timeManager.addTask(task5);
+        assertEquals(List.of(task1, task2, task5), List.copyOf(timeManager.getTasksBetween(start,
+                start.plusDays(2))), "Представление не отражает добавленную задачу");
+    }
+
+    @Test
+    public void getUpcomingTest() {
+        final LocalDateTime start = DEFAULT_TIME.withSecond(0);
+        Task task1 = new Task(1, "", "", TaskStatus.NEW, start, 60);
+        Task task2 = new Task(2, "", "", TaskStatus.NEW, start.plusMinutes(60), 30);
+        Task task3 = new Task(3, "", "", TaskStatus.NEW, start.plusDays(7), 30);
+        timeManager.addTask(task1);
+        timeManager.addTask(task2);
+        timeManager.addTask(task3);
+        timeManager.addTask(new Task(4, "", "", TaskStatus.NEW));
+
+        assertEquals(List.of(task2, task3), timeManager.getUpcoming(start.plusMinutes(30), 10),
+                "Возвращаются начавшиеся задачи или задачи без времени");
+        assertEquals(List.of(task1), timeManager.getUpcoming(start, 1));
+        assertEquals(List.of(), timeManager.getUpcoming(start, 0));
+    }
+
+    @Test
+    public void reserveTimeTest() {
+        Task archived = new Task(1, "", "", TaskStatus.DONE, DEFAULT_TIME, 30);
+        Task other = new Task(2, "", "", TaskStatus.DONE, DEFAULT_TIME.plusHours(1), 30);
+        timeManager.addTask(archived);
+        timeManager.addTask(other);
+        timeManager.removeTask(archived);
+        timeManager.reserveTime(archived);
+
+        assertFalse(timeManager.getPrioritizedTasks().contains(archived), "Заглушка попала в список задач");
+        assertFalse(timeManager.validateTask(new Task(3, "", "", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(10), 5)),
+                "Зарезервированное время должно быть занято");
+        assertEquals(List.of(archived.getEndTime(), other.getEndTime()),
+                timeManager.findFreeSlots(20, DEFAULT_TIME, null, 5));
+
+        timeManager.removeTasks(task -> true);
+        assertTrue(timeManager.getPrioritizedTasks().isEmpty());
+        assertFalse(timeManager.validateTask(archived), "Удаление задач не должно снимать резерв");
+
+        timeManager.releaseTime(archived.getId());
+        assertTrue(timeManager.validateTask(archived), "Резерв не снят");
+        final LocalDateTime archivedStart = Task.toDateTime(archived.getStartMinute());
+        assertEquals(List.of(archivedStart), timeManager.findFreeSlots(20, archivedStart, null, 5));
+    }
+
+    // Индекс сверяется с перебором всех задач на случайных добавлениях и удалениях
+    @Test
+    public void randomTasksTest() {
+        Random random = new Random(7);
+        List<Task> present = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            Task task = new Task(i, "", "", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(random.nextInt(100_000)),
+                    random.nextInt(20) == 0 ? 0 : 1 + random.nextInt(random.nextBoolean() ? 60 : 5_000));
+            boolean free = present.stream().noneMatch(presentTask -> OverlapIndex.intercepts(task, presentTask));
+            assertEquals(free, timeManager.validateTask(task), "Неверная проверка задачи " + task);
+            if (free) {
+                timeManager.addTask(task);
+                present.add(task);
+            }
+            if (!present.isEmpty() && random.nextInt(3) == 0) {
+                timeManager.removeTask(present.remove(random.nextInt(present.size())));
+            }
+            if (i % 1_000 == 999) {
+                int from = random.nextInt(100_000);
+                timeManager.removeTasks(presentTask -> presentTask.getStartMinute() % 3 == from % 3);
+                present.removeIf(presentTask -> presentTask.getStartMinute() % 3 == from % 3);
+            }
+        }
+        assertEquals(present.size(), timeManager.getPrioritizedTasks().size());
+    }
+}
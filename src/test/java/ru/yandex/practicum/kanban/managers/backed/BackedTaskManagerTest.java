@@ -2,12 +2,16 @@ package ru.yandex.practicum.kanban.managers.backed;
 
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.kanban.managers.TaskManagerTest;
+import ru.yandex.practicum.kanban.managers.TaskOperation;
 import ru.yandex.practicum.kanban.managers.backed.filebacked.FileBackedTaskManager;
 import ru.yandex.practicum.kanban.tasks.Epic;
 import ru.yandex.practicum.kanban.tasks.Subtask;
 import ru.yandex.practicum.kanban.tasks.Task;
 import ru.yandex.practicum.kanban.tasks.TaskStatus;
 
+import java.time.Duration;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public abstract class BackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
@@ -78,4 +82,56 @@ public abstract class BackedTaskManagerTest extends TaskManagerTest<FileBackedTa
         assertEquals(subtask, restored.getSubtask(subtaskId), "Неверно восстановлена подзадача");
         assertEquals(epic, restored.getEpic(epicId), "Неверно восстановлен эпик");
     }
+
+    @Test
+    public void loadAfterBatchOperationsTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Task task = new Task(0, "task", "task", TaskStatus.NEW);
+        Subtask subtask1 = new Subtask(0, "subtask 1", "subtask 1", TaskStatus.DONE, epic.getId());
+        Subtask subtask2 = new Subtask(0, "subtask 2", "subtask 2", TaskStatus.NEW, epic.getId());
+        assertTrue(taskManager.addAll(List.of(task, subtask1, subtask2)));
+        assertEquals(1, taskManager.removeAll(List.of(subtask2.getId())));
+        assertTrue(taskManager.transaction(List.of(TaskOperation.remove(task.getId()),
+                TaskOperation.update(new Subtask(subtask1.getId(), "subtask 1", "moved", TaskStatus.NEW, epic.getId())),
+                TaskOperation.add(new Task(0, "new task", "task", TaskStatus.NEW)))));
+
+        FileBackedTaskManager restored = loadStateInNewManager();
+        assertEquals(taskManager.getTasks(), restored.getTasks(), "Список задач после выгрузки не совпадает");
+        assertEquals(taskManager.getSubtasks(), restored.getSubtasks(),
+                "Список подзадач после выгрузки не совпадает");
+        assertEquals(taskManager.getEpics(), restored.getEpics(), "Список эпиков после выгрузки не совпадает");
+    }
+
+    @Test
+    public void loadVersionsTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        assertTrue(taskManager.updateTask(new Task(task.getId(), "task", "task", TaskStatus.DONE), 1));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW, epic.getId()));
+        assertTrue(taskManager.updateSubtask(subtask));
+        assertTrue(taskManager.updateSubtask(subtask));
+
+        FileBackedTaskManager restored = loadStateInNewManager();
+        assertEquals(2, restored.getTask(task.getId()).getVersion(), "Версия задачи не восстановлена");
+        assertEquals(1, restored.getEpic(epic.getId()).getVersion(), "Версия эпика не восстановлена");
+        assertEquals(3, restored.getSubtask(subtask.getId()).getVersion(), "Версия подзадачи не восстановлена");
+        assertTrue(restored.updateSubtask(new Subtask(subtask.getId(), "subtask", "subtask", TaskStatus.DONE,
+                epic.getId()), 3), "Восстановленная версия должна продолжать счёт");
+    }
+
+    @Test
+    public void loadArchivedTasksTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.DONE, DEFAULT_TIME, 10));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(1), 10));
+        taskManager.setArchiveAge(Duration.ofDays(1));
+        assertEquals(2, taskManager.archiveDoneTasks(DEFAULT_TIME.plusDays(7)));
+        taskManager.addTask(new Task(0, "new task", "task", TaskStatus.NEW));
+
+        FileBackedTaskManager restored = loadStateInNewManager();
+        assertEquals(task, restored.getTask(task.getId()), "Архивная задача не сохранена");
+        assertEquals(subtask, restored.getSubtask(subtask.getId()), "Архивная подзадача не сохранена");
+        assertEquals(List.of(subtask.getId()), restored.getEpic(epic.getId()).getSubtaskIds());
+    }
 }
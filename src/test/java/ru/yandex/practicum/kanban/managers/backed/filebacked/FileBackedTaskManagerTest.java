@@ -1,9 +1,18 @@
 package ru.yandex.practicum.kanban.managers.backed.filebacked;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import ru.yandex.practicum.kanban.managers.backed.BackedTaskManagerTest;
+import ru.yandex.practicum.kanban.tasks.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class FileBackedTaskManagerTest extends BackedTaskManagerTest {
 
@@ -20,4 +29,32 @@ public class FileBackedTaskManagerTest extends BackedTaskManagerTest {
         taskManager.save(); // чтобы сохранить новый пустой менеджер в файл, если в нём что-то было
     }
 
+    // Файл в формате до появления колонки версии: колонка epic последняя, у задач она пустая
+    @Test
+    public void loadFileWithoutVersionTest(@TempDir Path directory) throws IOException {
+        Path oldFile = directory.resolve("old.csv");
+        Files.writeString(oldFile, String.join("\n",
+                "id,type,name,status,description,start time,duration,epic",
+                "1,TASK,task name,DONE,task description,01.01.2022 01:01,10,",
+                "2,EPIC,epic name,NEW,epic description,,0,",
+                "3,SUBTASK,subtask name,NEW,subtask description,01.01.2022 01:11,5,2",
+                "",
+                "3,1"));
+
+        FileBackedTaskManager loaded = new FileBackedTaskManager(oldFile.toString(), true);
+        Task task = loaded.getTask(1);
+        assertNotNull(task, "Задача из файла прежнего формата не загружена");
+        assertEquals(LocalDateTime.of(2022, 1, 1, 1, 1), task.getStartTime());
+        assertEquals(1, task.getVersion(), "Задача без версии должна считаться первой версией");
+        Subtask subtask = loaded.getSubtask(3);
+        assertNotNull(subtask, "Подзадача из файла прежнего формата не загружена");
+        assertEquals(2, subtask.getEpicId());
+        assertEquals(1, subtask.getVersion());
+        assertEquals(List.of(3), loaded.getEpic(2).getSubtaskIds());
+        assertTrue(loaded.updateTask(new Task(1, "task name", "task description", TaskStatus.NEW), 1));
+
+        FileBackedTaskManager reloaded = new FileBackedTaskManager(oldFile.toString(), true);
+        assertEquals(2, reloaded.getTask(1).getVersion(), "Версия не сохранена в новом формате");
+        assertEquals(2, reloaded.getSubtask(3).getEpicId());
+    }
 }
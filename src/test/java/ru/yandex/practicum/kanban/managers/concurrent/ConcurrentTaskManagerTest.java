@@ -0,0 +1,63 @@
+package ru.yandex.practicum.kanban.managers.concurrent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.managers.TaskManagerTest;
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    @BeforeEach
+    public void beforeEach() {
+        taskManager = new ConcurrentTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    public void concurrentAddTest() throws InterruptedException, ExecutionException {
+        final int epicId = taskManager.addEpic(new Epic(0, "epic", "epic")).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < TASKS_PER_THREAD; j++) {
+                    // Непересекающиеся интервалы, чтобы все задачи прошли проверку времени
+                    int minutes = (thread * TASKS_PER_THREAD + j) * 10;
+                    taskManager.addSubtask(new Subtask(0, "name", "description", TaskStatus.DONE, epicId,
+                            DEFAULT_TIME.plusMinutes(minutes), 5));
+                    taskManager.getTasks();
+                    taskManager.getPrioritizedTasks();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Subtask> subtasks = taskManager.getSubtasks();
+        assertEquals(THREADS * TASKS_PER_THREAD, subtasks.size(), "Потеряны подзадачи");
+        assertEquals(subtasks.size(), subtasks.stream().map(Task::getId).collect(Collectors.toSet()).size(),
+                "Подзадачам выданы одинаковые id");
+        assertEquals(subtasks.size(), taskManager.getPrioritizedTasks().size(),
+                "Не все подзадачи попали в список по приоритету");
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals(subtasks.size(), epic.getSubtaskIds().size(), "Не все подзадачи попали в эпик");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Неверно рассчитан статус эпика");
+        assertEquals(5 * subtasks.size(), epic.getDuration(), "Неверно рассчитана длительность эпика");
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.kanban.managers.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.managers.TaskManagerTest;
+import ru.yandex.practicum.kanban.managers.backed.filebacked.FileBackedTaskManager;
+import ru.yandex.practicum.kanban.managers.inmemory.InMemoryTaskManager;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleWriterTaskManagerTest extends TaskManagerTest<SingleWriterTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    @BeforeEach
+    public void beforeEach() {
+        taskManager = new SingleWriterTaskManager(new InMemoryTaskManager());
+    }
+
+    @AfterEach
+    public void afterEach() {
+        taskManager.close();
+    }
+
+    @Test
+    public void concurrentAddTest() throws InterruptedException, ExecutionException {
+        final int epicId = taskManager.addEpic(new Epic(0, "epic", "epic")).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < TASKS_PER_THREAD; j++) {
+                    // Непересекающиеся интервалы, чтобы все задачи прошли проверку времени
+                    int minutes = (thread * TASKS_PER_THREAD + j) * 10;
+                    taskManager.addSubtask(new Subtask(0, "name", "description", TaskStatus.DONE, epicId,
+                            DEFAULT_TIME.plusMinutes(minutes), 5));
+                    taskManager.getTasks();
+                    taskManager.getPrioritizedTasks();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Subtask> subtasks = taskManager.getSubtasks();
+        assertEquals(THREADS * TASKS_PER_THREAD, subtasks.size(), "Потеряны подзадачи");
+        assertEquals(subtasks.size(), subtasks.stream().map(Task::getId).collect(Collectors.toSet()).size(),
+                "Подзадачам выданы одинаковые id");
+        assertEquals(subtasks.size(), taskManager.getPrioritizedTasks().size(),
+                "Не все подзадачи попали в список по приоритету");
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals(subtasks.size(), epic.getSubtaskIds().size(), "Не все подзадачи попали в эпик");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Неверно рассчитан статус эпика");
+        assertTrue(taskManager.getBatchSizeHistogram().getCount() > 0, "Размеры пачек не собираются");
+        assertEquals(taskManager.getBatchSizeHistogram().getCount(),
+                taskManager.getQueueDepthHistogram().getCount(), "Глубина очереди собирается не по каждой пачке");
+    }
+
+    @Test
+    public void submitTest() throws InterruptedException, ExecutionException, TimeoutException {
+        List<CompletableFuture<Task>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Task task = new Task(0, "task " + i, "task", TaskStatus.NEW);
+            futures.add(taskManager.submit(manager -> manager.addTask(task)));
+        }
+        for (CompletableFuture<Task> future : futures) {
+            assertNotNull(future.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(100, taskManager.getTasks().size(), "Результат команды не виден после её завершения");
+
+        CompletableFuture<Object> failed = taskManager.submit(manager -> {
+            throw new IllegalArgumentException("test");
+        });
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> failed.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        assertEquals(100, taskManager.getTasks().size(), "Ошибка команды остановила поток записи");
+
+        Histogram batchSizes = taskManager.getBatchSizeHistogram();
+        long commands = 0;
+        long[] counts = batchSizes.getBucketCounts();
+        for (int i = 0; i < counts.length; i++) {
+            commands += counts[i];
+        }
+        assertEquals(batchSizes.getCount(), commands);
+        assertTrue(batchSizes.getMax() <= SingleWriterTaskManager.MAX_BATCH_SIZE);
+    }
+
+    @Test
+    public void batchSavesOnceTest() throws InterruptedException, ExecutionException, TimeoutException {
+        AtomicInteger saves = new AtomicInteger();
+        FileBackedTaskManager backed = new FileBackedTaskManager("unused.csv") {
+            @Override
+            protected void saveToTarget(String content) {
+                saves.incrementAndGet();
+            }
+        };
+        try (SingleWriterTaskManager manager = new SingleWriterTaskManager(backed)) {
+            // Первая команда держит поток записи, пока не будут поставлены остальные - они попадут в одну пачку
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch queued = new CountDownLatch(1);
+            CompletableFuture<Object> blocker = manager.submit(m -> {
+                started.countDown();
+                try {
+                    queued.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+            started.await();
+            List<CompletableFuture<Task>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Task task = new Task(0, "task " + i, "task", TaskStatus.NEW);
+                futures.add(manager.submit(m -> m.addTask(task)));
+            }
+            queued.countDown();
+            blocker.get(1, TimeUnit.SECONDS);
+            for (CompletableFuture<Task> future : futures) {
+                future.get(1, TimeUnit.SECONDS);
+            }
+            assertEquals(1, saves.get(), "Пачка команд должна сохраняться один раз");
+            assertEquals(10, manager.getTasks().size());
+        }
+    }
+
+    @Test
+    public void closeTest() {
+        SingleWriterTaskManager manager = new SingleWriterTaskManager(new InMemoryTaskManager());
+        manager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        manager.getTasks();
+        manager.close();
+        assertThrows(IllegalStateException.class, () -> manager.addTask(new Task(0, "task", "task", TaskStatus.NEW)));
+        assertEquals(1, manager.getTasks().size(), "Снимок должен читаться и после закрытия");
+    }
+}
@@ -0,0 +1,199 @@
+package ru.yandex.practicum.kanban.managers.events;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+
+    private static final int CAPACITY = 4;
+    private static final int EVENTS = 50;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Test
+    public void incorrectCapacityTest() {
+        assertThrows(IllegalArgumentException.class, () -> new EventBus(0));
+        assertThrows(IllegalArgumentException.class, () -> new EventBus(6));
+    }
+
+    @Test
+    public void publishWithoutSubscribersTest() {
+        EventBus eventBus = new EventBus(CAPACITY);
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.publish(TaskEventType.ADDED, null, createTask(i));
+        }
+        assertFalse(eventBus.hasSubscribers());
+    }
+
+    // Медленный подписчик BLOCK получает все события по порядку, хотя буфер намного меньше их числа
+    @Test
+    public void blockSubscriberReceivesAllEventsTest() throws InterruptedException {
+        EventBus eventBus = new EventBus(CAPACITY);
+        List<TaskEvent> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(EVENTS);
+        EventBus.Subscription subscription = eventBus.subscribe(event -> {
+            sleep(1);
+            received.add(event);
+            done.countDown();
+        }, OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.publish(TaskEventType.ADDED, null, createTask(i));
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "Получены не все события");
+        for (int i = 0; i < EVENTS; i++) {
+            TaskEvent event = received.get(i);
+            assertEquals(i + 1, event.getSequence());
+            assertEquals(i, event.getId());
+            assertEquals(TaskEventType.ADDED, event.getEventType());
+            assertEquals(TaskType.TASK, event.getTaskType());
+            assertNull(event.getOldValue());
+        }
+        assertTrue(subscription.isActive());
+        subscription.close();
+        assertFalse(subscription.isActive());
+        assertFalse(eventBus.hasSubscribers());
+    }
+
+    // Зависший подписчик DROP отключается и не задерживает ни публикацию, ни других подписчиков
+    @Test
+    public void dropSubscriberIsDisconnectedTest() throws InterruptedException {
+        EventBus eventBus = new EventBus(CAPACITY);
+        CountDownLatch stuck = new CountDownLatch(1);
+        EventBus.Subscription dropped = eventBus.subscribe(event -> {
+            try {
+                stuck.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, OverflowPolicy.DROP);
+        CountDownLatch done = new CountDownLatch(EVENTS);
+        eventBus.subscribe(event -> done.countDown(), OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.publish(TaskEventType.REMOVED, createTask(i), null);
+        }
+        assertFalse(dropped.isActive(), "Отставший подписчик не отключён");
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "Второй подписчик получил не все события");
+        stuck.countDown();
+    }
+
+    // Ошибки обработчика не останавливают подписку, считаются в ней и передаются обработчику ошибок
+    @Test
+    public void listenerExceptionDoesNotStopSubscriptionTest() throws InterruptedException {
+        EventBus eventBus = new EventBus(CAPACITY);
+        CountDownLatch done = new CountDownLatch(EVENTS);
+        List<TaskEvent> failed = Collections.synchronizedList(new ArrayList<>());
+        EventBus.Subscription subscription = eventBus.subscribe(event -> {
+            if (event.getId() % 2 == 0) {
+                throw new IllegalStateException("listener failed " + event.getId());
+            }
+        }, OverflowPolicy.BLOCK, (event, exception) -> {
+            failed.add(event);
+            throw new IllegalArgumentException("handler failed");
+        });
+        EventBus.Subscription counted = eventBus.subscribe(event -> {
+            done.countDown();
+            throw new IllegalStateException("listener failed " + event.getId());
+        }, OverflowPolicy.BLOCK);
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.publish(TaskEventType.ADDED, null, createTask(i));
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while ((counted.getFailureCount() < EVENTS || subscription.getFailureCount() < EVENTS / 2)
+                && System.nanoTime() < deadline) {
+            sleep(1);
+        }
+
+        assertEquals(EVENTS, counted.getFailureCount());
+        assertEquals("listener failed " + (EVENTS - 1), counted.getLastFailure().getMessage());
+        assertTrue(counted.isActive());
+        assertEquals(EVENTS / 2, subscription.getFailureCount());
+        assertEquals(EVENTS / 2, failed.size());
+        assertEquals(0, failed.get(1).getId() % 2);
+        RuntimeException lastFailure = subscription.getLastFailure();
+        assertEquals("listener failed " + (EVENTS - 2), lastFailure.getMessage());
+        assertEquals("handler failed", lastFailure.getSuppressed()[0].getMessage(),
+                "Ошибка обработчика ошибок сохраняется в исключении");
+        assertTrue(subscription.isActive());
+        subscription.close();
+        counted.close();
+    }
+
+    // Подписчики BLOCK, подписавшиеся во время публикаций, получают все события после подписки без пропусков
+    // и не отключаются
+    @Test
+    public void subscribeWhilePublishingTest() throws InterruptedException {
+        EventBus eventBus = new EventBus(CAPACITY);
+        eventBus.subscribe(event -> { }, OverflowPolicy.BLOCK);
+        AtomicBoolean publishing = new AtomicBoolean(true);
+        AtomicInteger published = new AtomicInteger();
+        Thread publisher = new Thread(() -> {
+            while (publishing.get()) {
+                eventBus.publish(TaskEventType.ADDED, null, createTask(published.incrementAndGet()));
+            }
+        });
+        publisher.start();
+        List<EventBus.Subscription> subscriptions = new ArrayList<>();
+        List<AtomicLong> firstSequences = new ArrayList<>();
+        List<AtomicLong> lastSequences = new ArrayList<>();
+        AtomicInteger gaps = new AtomicInteger();
+        for (int i = 0; i < EVENTS; i++) {
+            AtomicLong first = new AtomicLong();
+            AtomicLong last = new AtomicLong();
+            subscriptions.add(eventBus.subscribe(event -> {
+                first.compareAndSet(0, event.getSequence());
+                if (last.get() != 0 && event.getSequence() != last.get() + 1) {
+                    gaps.incrementAndGet();
+                }
+                last.set(event.getSequence());
+            }, OverflowPolicy.BLOCK));
+            firstSequences.add(first);
+            lastSequences.add(last);
+            sleep(1);
+        }
+        publishing.set(false);
+        publisher.join();
+        eventBus.publish(TaskEventType.ADDED, null, createTask(0));
+        final long total = published.get() + 1;
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (lastSequences.stream().anyMatch(last -> last.get() != total) && System.nanoTime() < deadline) {
+            sleep(1);
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            assertTrue(subscriptions.get(i).isActive(), "Подписчик отключён");
+            assertEquals(total, lastSequences.get(i).get(), "Подписчик получил не все события");
+            assertTrue(firstSequences.get(i).get() > 0);
+            subscriptions.get(i).close();
+        }
+        assertEquals(0, gaps.get(), "События получены с пропусками");
+    }
+
+    private static Task createTask(int id) {
+        Task task = new Task(id, "task", "task", TaskStatus.NEW);
+        task.setId(id);
+        return task;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Накопленные данные эпика сверяются с полным пересчётом (прежним алгоритмом) на случайных операциях
+class EpicAggregateTest {
+
+    private static final LocalDateTime DEFAULT_TIME = LocalDateTime.of(2022, Month.JANUARY, 1, 0, 0);
+    private static final int OPERATIONS = 5_000;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void emptyAggregateTest() {
+        EpicAggregate aggregate = new EpicAggregate();
+        assertEquals(TaskStatus.NEW, aggregate.getStatus());
+        assertEquals(Task.NO_TIME, aggregate.getStartMinute());
+        assertEquals(Task.NO_TIME, aggregate.getEndMinute());
+        assertEquals(0, aggregate.getDuration());
+    }
+
+    @Test
+    public void randomAddRemoveTest() {
+        EpicAggregate aggregate = new EpicAggregate();
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            if (subtasks.isEmpty() || random.nextInt(3) != 0) {
+                Subtask subtask = randomSubtask(i, 1);
+                subtasks.add(subtask);
+                aggregate.add(subtask);
+            } else {
+                aggregate.remove(subtasks.remove(random.nextInt(subtasks.size())));
+            }
+            assertEquals(calculateStatus(subtasks), aggregate.getStatus(), "Неверный статус");
+            assertEquals(calculateStartTime(subtasks), Task.toDateTime(aggregate.getStartMinute()), "Неверное время начала");
+            assertEquals(calculateEndTime(subtasks), Task.toDateTime(aggregate.getEndMinute()), "Неверное время окончания");
+            assertEquals(calculateDuration(subtasks), aggregate.getDuration(), "Неверная длительность");
+        }
+    }
+
+    @Test
+    public void randomManagerOperationsTest() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        int[] epicIds = new int[5];
+        for (int i = 0; i < epicIds.length; i++) {
+            epicIds[i] = taskManager.addEpic(new Epic(0, "epic", "epic")).getId();
+        }
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS / 2; i++) {
+            int operation = random.nextInt(4);
+            if (subtaskIds.isEmpty() || operation == 0) {
+                int epicId = epicIds[random.nextInt(epicIds.length)];
+                Subtask subtask = taskManager.addSubtask(randomSubtask(0, epicId));
+                if (subtask != null) {
+                    subtaskIds.add(subtask.getId());
+                }
+            } else if (operation == 1) {
+                int id = subtaskIds.remove(random.nextInt(subtaskIds.size()));
+                assertTrue(taskManager.removeSubtask(id));
+            } else {
+                int id = subtaskIds.get(random.nextInt(subtaskIds.size()));
+                Subtask previous = taskManager.getSubtask(id);
+                Subtask updated = randomSubtask(id, previous.getEpicId());
+                if (operation == 2) {
+                    taskManager.updateSubtask(updated);
+                } else {
+                    // изменение того же объекта на месте
+                    previous.setStatus(updated.getStatus());
+                    taskManager.updateSubtask(previous);
+                }
+            }
+            for (int epicId : epicIds) {
+                Epic epic = taskManager.getEpic(epicId);
+                List<Subtask> subtasks = taskManager.getEpicsSubtasks(epicId);
+                assertEquals(calculateStatus(subtasks), epic.getStatus(), "Неверный статус");
+                assertEquals(calculateStartTime(subtasks), epic.getStartTime(), "Неверное время начала");
+                assertEquals(calculateEndTime(subtasks), epic.getEndTime(), "Неверное время окончания");
+                assertEquals(calculateDuration(subtasks), epic.getDuration(), "Неверная длительность");
+            }
+        }
+    }
+
+    private Subtask randomSubtask(int id, int epicId) {
+        TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+        if (random.nextInt(4) == 0) {
+            return new Subtask(id, "name", "description", status, epicId);
+        }
+        // небольшой диапазон, чтобы встречались одинаковые времена начала и окончания
+        LocalDateTime startTime = DEFAULT_TIME.plusMinutes(random.nextInt(100_000));
+        return new Subtask(id, "name", "description", status, epicId, startTime, 1 + random.nextInt(90));
+    }
+
+    // Прежний алгоритм полного пересчёта
+
+    private static TaskStatus calculateStatus(List<Subtask> subtasks) {
+        List<TaskStatus> taskStatuses = subtasks.stream()
+                .map(Subtask::getStatus)
+                .collect(Collectors.toList());
+        if (taskStatuses.isEmpty()) {
+            return TaskStatus.NEW;
+        }
+        if (taskStatuses.stream().anyMatch(TaskStatus.IN_PROGRESS::equals)) {
+            return TaskStatus.IN_PROGRESS;
+        }
+        if (taskStatuses.stream().allMatch(TaskStatus.NEW::equals)) {
+            return TaskStatus.NEW;
+        }
+        if (taskStatuses.stream().allMatch(TaskStatus.DONE::equals)) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    private static LocalDateTime calculateStartTime(List<Subtask> subtasks) {
+        return subtasks.stream()
+                .map(Subtask::getStartTime)
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .orElse(null);
+    }
+
+    private static LocalDateTime calculateEndTime(List<Subtask> subtasks) {
+        return subtasks.stream()
+                .map(Subtask::getEndTime)
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+    }
+
+    private static int calculateDuration(List<Subtask> subtasks) {
+        return subtasks.stream()
+                .mapToInt(Subtask::getDuration)
+                .sum();
+    }
+}
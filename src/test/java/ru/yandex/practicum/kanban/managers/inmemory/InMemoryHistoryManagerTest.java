@@ -156,4 +156,24 @@ public class InMemoryHistoryManagerTest {
         assertEquals(updatedTask, history.get(0), "Задача не обновлена");
         assertEquals(task2, history.get(1), "Обновлена не та задача");
     }
+
+    @Test
+    public void removeIfTest() {
+        for (int i = 1; i <= 6; i++) {
+            historyManager.add(new Task(i, "name", "description", TaskStatus.NEW));
+        }
+        List<Task> before = historyManager.getHistory();
+        historyManager.removeIf(task -> task.getId() % 2 == 1);
+        List<Task> history = historyManager.getHistory();
+        assertEquals(List.of(before.get(1), before.get(3), before.get(5)), history,
+                "Удалены не те задачи или нарушен порядок");
+
+        // Удалённые задачи можно добавить снова - в конец истории
+        historyManager.add(before.get(0));
+        assertEquals(before.get(0), historyManager.getHistory().get(3));
+        historyManager.removeIf(task -> true);
+        assertEquals(0, historyManager.getHistory().size());
+        historyManager.add(before.get(2));
+        assertEquals(List.of(before.get(2)), historyManager.getHistory());
+    }
 }
@@ -1,7 +1,30 @@
 package ru.yandex.practicum.kanban.managers.inmemory;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.kanban.managers.TaskManagerTest;
+import ru.yandex.practicum.kanban.managers.TaskOperation;
+import ru.yandex.practicum.kanban.managers.VersionConflictException;
+import ru.yandex.practicum.kanban.managers.events.EventBus;
+import ru.yandex.practicum.kanban.managers.events.OverflowPolicy;
+import ru.yandex.practicum.kanban.managers.events.TaskEvent;
+import ru.yandex.practicum.kanban.managers.events.TaskEventType;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.tasks.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
@@ -10,4 +33,235 @@ public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager
         taskManager = new InMemoryTaskManager();
     }
 
+    @Test
+    public void batchEpicUpdatesTest() throws InterruptedException {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Epic other = taskManager.addEpic(new Epic(0, "other", "epic"));
+        Subtask first = taskManager.addSubtask(new Subtask(0, "first", "subtask", TaskStatus.DONE, epic.getId(),
+                DEFAULT_TIME, 10));
+        BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+        EventBus.Subscription subscription = taskManager.subscribe(events::add, OverflowPolicy.BLOCK);
+
+        List<Subtask> added = new ArrayList<>();
+        taskManager.batchEpicUpdates(() -> {
+            for (int i = 0; i < 10; i++) {
+                added.add(taskManager.addSubtask(new Subtask(0, "subtask " + i, "subtask", TaskStatus.NEW, epic.getId(),
+                        DEFAULT_TIME.plusHours(i + 1), 10)));
+            }
+            taskManager.updateSubtask(new Subtask(first.getId(), "first", "subtask", TaskStatus.IN_PROGRESS,
+                    epic.getId(), DEFAULT_TIME, 10));
+            taskManager.batchEpicUpdates(() -> taskManager.addSubtask(new Subtask(0, "subtask", "subtask",
+                    TaskStatus.DONE, other.getId())));
+            assertEquals(TaskStatus.NEW, taskManager.getEpic(other.getId()).getStatus(),
+                    "Внутри пачки эпик не пересчитывается");
+        });
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(added.get(added.size() - 1).getEndTime(), taskManager.getEpic(epic.getId()).getEndTime());
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(other.getId()).getStatus());
+        assertEquals(List.of(other), taskManager.getByStatus(TaskType.EPIC, TaskStatus.DONE),
+                "Индекс статусов должен обновиться в конце пачки");
+
+        int epicUpdates = 0;
+        int otherUpdates = 0;
+        TaskEvent event;
+        while ((event = events.poll(100, TimeUnit.MILLISECONDS)) != null) {
+            if (event.getEventType() == TaskEventType.UPDATED && event.getId() == epic.getId()) {
+                epicUpdates++;
+            } else if (event.getEventType() == TaskEventType.UPDATED && event.getId() == other.getId()) {
+                otherUpdates++;
+            }
+        }
+        assertEquals(1, epicUpdates, "Эпик должен пересчитываться один раз за пачку");
+        assertEquals(1, otherUpdates);
+        subscription.close();
+    }
+
+    @Test
+    public void archiveDoneTasksTest() {
+        final LocalDateTime now = DEFAULT_TIME.plusDays(30);
+        Task archived = taskManager.addTask(new Task(0, "old", "done", TaskStatus.DONE, DEFAULT_TIME, 10));
+        Task recent = taskManager.addTask(new Task(0, "recent", "done", TaskStatus.DONE, now.minusHours(1), 10));
+        Task notDone = taskManager.addTask(new Task(0, "old", "new", TaskStatus.NEW, DEFAULT_TIME.plusHours(1), 10));
+        Task untimed = taskManager.addTask(new Task(0, "untimed", "done", TaskStatus.DONE));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask archivedSubtask = taskManager.addSubtask(new Subtask(0, "old subtask", "done", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(2), 10));
+        Subtask viewed = taskManager.addSubtask(new Subtask(0, "viewed", "done", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(3), 10));
+        taskManager.getSubtask(viewed.getId());
+        final List<Task> tasks = List.copyOf(taskManager.getTasks());
+        final List<Subtask> epicsSubtasks = List.copyOf(taskManager.getEpicsSubtasks(epic.getId()));
+
+        assertEquals(0, taskManager.archiveDoneTasks(now), "Без заданного возраста архив не ведётся");
+        taskManager.setArchiveAge(Duration.ofDays(7));
+        assertEquals(2, taskManager.archiveDoneTasks(now));
+        assertEquals(2, taskManager.getArchivedCount());
+        assertTrue(taskManager.getArchivedBytes() > 0);
+        assertEquals(0, taskManager.archiveDoneTasks(now), "Архивные задачи не архивируются повторно");
+
+        assertEquals(List.of(recent, notDone, untimed, archived), taskManager.getTasks(),
+                "Архивные задачи должны читаться в конце списка");
+        assertTrue(tasks.containsAll(taskManager.getTasks()));
+        assertEquals(List.of(viewed, archivedSubtask), taskManager.getSubtasks());
+        assertEquals(epicsSubtasks, taskManager.getEpicsSubtasks(epic.getId()));
+        assertEquals(List.of(recent, untimed, archived),
+                taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE));
+        assertFalse(taskManager.getPrioritizedTasks().contains(archived), "Архивные задачи не занимают время");
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(archivedSubtask.getStartTime(), taskManager.getEpic(epic.getId()).getStartTime());
+
+        Task read = taskManager.getTask(archived.getId());
+        assertEquals(archived, read);
+        assertEquals(archived.getStartTime(), read.getStartTime());
+        assertEquals(archived.getVersion(), read.getVersion());
+        assertEquals(2, taskManager.getArchivedCount(), "Чтение не должно возвращать задачу из архива");
+        assertEquals(read, taskManager.getHistory().get(taskManager.getHistory().size() - 1));
+        assertNull(taskManager.getSubtask(archived.getId()), "Задача не должна читаться как подзадача");
+        assertEquals(archivedSubtask, taskManager.getAny(archivedSubtask.getId()));
+        assertEquals(List.of(recent, notDone, untimed, archived), taskManager.getTasks(),
+                "Чтение не должно менять порядок списка");
+
+        assertNull(taskManager.addTask(new Task(0, "overlap", "new", TaskStatus.NEW, DEFAULT_TIME.plusMinutes(5), 10)),
+                "Время архивной задачи должно оставаться занятым");
+        assertEquals(archived.getEndTime(), taskManager.findFreeSlot(30, DEFAULT_TIME, null));
+        assertEquals(archivedSubtask.getEndTime(),
+                taskManager.findFreeSlot(40, DEFAULT_TIME.plusHours(1).plusMinutes(30), null),
+                "Время архивной подзадачи должно оставаться занятым");
+
+        assertTrue(taskManager.updateTask(new Task(archived.getId(), "old", "done", TaskStatus.DONE,
+                DEFAULT_TIME, 10), archived.getVersion()), "Задача из архива должна обновляться на своём времени");
+        assertEquals(1, taskManager.getArchivedCount());
+        assertEquals(List.of(archived, recent, notDone, untimed), taskManager.getTasks(),
+                "Задача из архива должна вернуться на место по порядку id");
+        assertEquals(List.of(archived, recent), taskManager.getTasks(null, 2));
+        assertTrue(taskManager.getPrioritizedTasks().contains(archived), "Задача из архива должна вернуться");
+        assertTrue(taskManager.removeSubtask(archivedSubtask.getId()));
+        assertEquals(0, taskManager.getArchivedCount());
+        assertEquals(0, taskManager.getArchivedBytes(), "Пустые блоки должны освобождаться");
+        assertNotNull(taskManager.addTask(new Task(0, "free", "new", TaskStatus.NEW, DEFAULT_TIME.plusHours(2), 10)),
+                "Время удалённой архивной подзадачи должно освободиться");
+    }
+
+    @Test
+    public void changeArchivedTasksTest() {
+        final LocalDateTime now = DEFAULT_TIME.plusDays(30);
+        taskManager.setArchiveAge(Duration.ofDays(1));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.DONE, DEFAULT_TIME, 10));
+        Task removed = taskManager.addTask(new Task(0, "task", "task", TaskStatus.DONE,
+                DEFAULT_TIME.plusHours(1), 10));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(2), 10));
+        taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(3), 10));
+        assertEquals(4, taskManager.archiveDoneTasks(now));
+
+        assertTrue(taskManager.updateSubtask(new Subtask(subtask.getId(), "subtask", "subtask",
+                TaskStatus.IN_PROGRESS, epic.getId(), DEFAULT_TIME.plusHours(2), 10), 1));
+        assertEquals(2, taskManager.getSubtask(subtask.getId()).getVersion());
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus());
+        assertTrue(taskManager.removeTask(removed.getId()));
+        assertFalse(taskManager.removeTask(removed.getId()));
+        assertEquals(List.of(task), taskManager.getTasks());
+
+        assertTrue(taskManager.removeEpic(epic.getId()));
+        assertTrue(taskManager.getSubtasks().isEmpty(), "Архивные подзадачи удаляются вместе с эпиком");
+        taskManager.clearTasks();
+        assertTrue(taskManager.getTasks().isEmpty(), "Архивные задачи удаляются вместе со списком");
+        assertEquals(0, taskManager.getArchivedCount());
+    }
+
+    // Отклонённое изменение не должно возвращать задачу из архива
+    @Test
+    public void rejectedChangesKeepArchivedTasksTest() {
+        final LocalDateTime now = DEFAULT_TIME.plusDays(30);
+        taskManager.setArchiveAge(Duration.ofDays(1));
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.DONE, DEFAULT_TIME, 10));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Epic otherEpic = taskManager.addEpic(new Epic(0, "other", "other"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(2), 10));
+        assertEquals(2, taskManager.archiveDoneTasks(now));
+        Task live = taskManager.addTask(new Task(0, "live", "live", TaskStatus.NEW, DEFAULT_TIME.plusHours(1), 10));
+
+        Task overlapping = new Task(task.getId(), "task", "task", TaskStatus.DONE, DEFAULT_TIME.plusHours(1), 10);
+        assertFalse(taskManager.updateTask(overlapping));
+        assertThrows(VersionConflictException.class, () -> taskManager.updateTask(overlapping, 5));
+        assertFalse(taskManager.updateSubtask(new Subtask(subtask.getId(), "subtask", "subtask", TaskStatus.DONE,
+                otherEpic.getId(), DEFAULT_TIME.plusHours(2), 10)));
+        assertFalse(taskManager.updateSubtask(new Subtask(subtask.getId(), "subtask", "subtask", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(1), 10)));
+        Task movedLive = new Task(live.getId(), "live", "live", TaskStatus.NEW, DEFAULT_TIME.plusHours(2), 10);
+        Task movedTask = new Task(task.getId(), "task", "task", TaskStatus.DONE, DEFAULT_TIME.plusHours(5), 10);
+        assertFalse(taskManager.updateAll(List.of(movedTask, movedLive)),
+                "Время архивной подзадачи должно оставаться занятым");
+        assertFalse(taskManager.transaction(List.of(TaskOperation.remove(task.getId()),
+                TaskOperation.remove(epic.getId()), TaskOperation.update(movedLive),
+                TaskOperation.add(new Task(0, "new", "new", TaskStatus.NEW, DEFAULT_TIME.plusHours(2), 10)))));
+        assertEquals(2, taskManager.getArchivedCount(), "Отклонённые изменения не должны трогать архив");
+        assertEquals(List.of(live), taskManager.getPrioritizedTasks());
+
+        assertTrue(taskManager.updateTask(new Task(task.getId(), "task", "task", TaskStatus.DONE,
+                DEFAULT_TIME.plusMinutes(5), 10)), "Архивная задача может сдвинуться в пределах своего времени");
+        assertEquals(1, taskManager.getArchivedCount());
+        movedLive.setStartTime(DEFAULT_TIME.plusHours(3));
+        assertTrue(taskManager.updateAll(List.of(movedTask, movedLive)));
+        assertEquals(1, taskManager.getArchivedCount());
+        assertEquals(List.of(movedLive, movedTask), taskManager.getPrioritizedTasks());
+        assertNotNull(taskManager.addTask(new Task(0, "free", "new", TaskStatus.NEW, DEFAULT_TIME, 10)),
+                "Прежнее время архивной задачи должно освободиться");
+    }
+
+    @Test
+    public void archiveManyBlocksTest() {
+        final int count = TaskArchive.BLOCK_SIZE * 3 + 7;
+        for (int i = 0; i < count; i++) {
+            taskManager.addTask(new Task(0, "task " + i, i % 3 == 0 ? null : "description " + i,
+                    TaskStatus.DONE, DEFAULT_TIME.plusMinutes(i * 10L), 5));
+        }
+        final List<Task> tasks = new ArrayList<>(taskManager.getTasks());
+        taskManager.setArchiveAge(Duration.ZERO);
+        assertEquals(count, taskManager.archiveDoneTasks(DEFAULT_TIME.plusYears(1)));
+        assertEquals(tasks, taskManager.getTasks());
+        assertEquals(tasks, taskManager.streamTasks().collect(Collectors.toList()));
+        List<Task> copy = taskManager.getTasks();
+        copy.remove(0);
+        copy.add(tasks.get(0));
+        copy.subList(0, 10).clear();
+        assertEquals(count - 10, copy.size());
+        assertEquals(tasks.get(0), copy.get(copy.size() - 1));
+        assertEquals(tasks, taskManager.getTasks(), "Изменение полученного списка не должно затрагивать менеджер");
+        assertThrows(UnsupportedOperationException.class, () -> taskManager.getTasksSnapshot().remove(0));
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+        assertTrue(taskManager.search("task", 10).isEmpty(), "Архивные задачи не ищутся");
+        for (int i = count - 1; i >= 0; i -= 100) {
+            assertEquals(tasks.get(i), taskManager.getTask(tasks.get(i).getId()));
+        }
+        assertEquals(count, taskManager.getArchivedCount());
+
+        for (int i : new int[]{count / 2, 1}) {
+            Task task = tasks.get(i);
+            assertTrue(taskManager.updateTask(new Task(task.getId(), task.getName(), task.getDescription(),
+                    task.getStatus(), task.getStartTime(), task.getDuration())));
+        }
+        assertEquals(tasks.subList(0, 10), taskManager.getTasks(null, 10),
+                "Архивные и возвращённые из архива задачи должны листаться вместе по порядку id");
+        List<Task> pages = new ArrayList<>();
+        Integer cursor = null;
+        List<Task> page;
+        while (!(page = taskManager.getTasks(cursor, 100)).isEmpty()) {
+            pages.addAll(page);
+            cursor = page.get(page.size() - 1).getId();
+        }
+        assertEquals(tasks, pages);
+        assertEquals(List.of(tasks.get(count / 2 + 1)), taskManager.getTasks(tasks.get(count / 2).getId(), 1));
+        assertEquals(List.of(tasks.get(2)), taskManager.getTasks(tasks.get(1).getId(), 1));
+
+        List<Task> done = taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE);
+        assertEquals(count, done.size());
+        done.add(tasks.get(0));
+        done.remove(0);
+        assertEquals(count, taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE).size(),
+                "Список по статусу с архивными задачами тоже должен быть изменяемой копией");
+    }
 }
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import org.junit.jupiter.api.BeforeEach;
+import ru.yandex.practicum.kanban.managers.TaskManagerTest;
+import ru.yandex.practicum.kanban.managers.TimeIndexType;
+
+public class OccupancyBitmapTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @BeforeEach
+    public void beforeEach() {
+        taskManager = new InMemoryTaskManager(TimeIndexType.OCCUPANCY_BITMAP);
+    }
+}
@@ -0,0 +1,183 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.managers.TaskManagerTest;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+import ru.yandex.practicum.kanban.util.json.GsonBuilders;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @BeforeEach
+    public void beforeEach() {
+        taskManager = new InMemoryTaskManager(true);
+    }
+
+    // Задачи хранятся в записях, поэтому в событиях - их представления, а не переданные объекты
+    @Override
+    protected void assertStoredTask(Task expected, Task actual) {
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void storedTaskViewsTest() {
+        Task task = new Task(0, "task", "описание", TaskStatus.NEW, DEFAULT_TIME, 15);
+        taskManager.addTask(task);
+        Task stored = taskManager.getTask(task.getId());
+        assertNotSame(task, stored, "Задача должна храниться в записи, а не в переданном объекте");
+        assertEquals(task, stored);
+        assertEquals(task.hashCode(), stored.hashCode());
+        assertEquals(task.toString(), stored.toString());
+        assertEquals(task.getEndTime(), stored.getEndTime());
+
+        stored.setStatus(TaskStatus.DONE);
+        assertEquals(TaskStatus.DONE, taskManager.getTask(task.getId()).getStatus(), "Сеттер должен писать в запись");
+        assertTrue(taskManager.getOffHeapBytes() > 0);
+    }
+
+    @Test
+    public void replacedViewsKeepDataTest() {
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "first", TaskStatus.NEW, epic.getId(),
+                DEFAULT_TIME, 10));
+        Subtask first = taskManager.getSubtask(subtask.getId());
+
+        assertTrue(taskManager.updateSubtask(new Subtask(subtask.getId(), "subtask", "second", TaskStatus.DONE,
+                epic.getId(), DEFAULT_TIME.plusHours(1), 20)));
+        // запись прежней версии освобождена и занята новой задачей
+        Subtask other = taskManager.addSubtask(new Subtask(0, "other", "other", TaskStatus.NEW, epic.getId()));
+        assertEquals("first", first.getDescription(), "Прежняя версия должна остаться неизменной");
+        assertEquals(TaskStatus.NEW, first.getStatus());
+        assertEquals("second", taskManager.getSubtask(subtask.getId()).getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus());
+
+        Subtask removed = taskManager.getSubtask(other.getId());
+        assertTrue(taskManager.removeSubtask(other.getId()));
+        taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        assertEquals(other, removed, "Удалённая задача должна остаться неизменной");
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(taskManager.getSubtask(subtask.getId())), taskManager.getSubtasks());
+    }
+
+    @Test
+    public void viewsToJsonTest() {
+        Gson gson = GsonBuilders.getBuilderSeparateTaskTypes().create();
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        Task task = new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 15);
+        Subtask subtask = new Subtask(0, "subtask", "subtask", TaskStatus.DONE, epic.getId());
+        taskManager.addTask(task);
+        taskManager.addSubtask(subtask);
+        assertEquals(gson.toJson(List.of(task)), gson.toJson(taskManager.getTasks()));
+        assertEquals(gson.toJson(subtask), gson.toJson(taskManager.getSubtask(subtask.getId())));
+        assertEquals(subtask, gson.fromJson(gson.toJson(taskManager.getSubtask(subtask.getId())), Subtask.class));
+    }
+
+    // Читатель держит представление, пока пишущий поток освобождает его запись и отдаёт её другим задачам:
+    // каждое чтение должно вернуть данные этой задачи - из записи или из копии, но не чужие
+    @Test
+    public void viewsReadWhileRecordsReusedTest() throws InterruptedException {
+        final TaskRecordStore store = new TaskRecordStore();
+        final AtomicReference<Task> published = new AtomicReference<>();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            Task previous = null;
+            for (int i = 1; i <= 100_000 && failure.get() == null; i++) {
+                Task view = store.store(new Task(i, "task " + i, "d".repeat(i % 40), TaskStatus.NEW));
+                published.set(view);
+                store.release(previous);
+                previous = view;
+            }
+        });
+        writer.start();
+        while (writer.isAlive() && failure.get() == null) {
+            Task view = published.get();
+            if (view == null) {
+                continue;
+            }
+            int id = view.getId();
+            String name = view.getName();
+            String description = view.getDescription();
+            if (!name.equals("task " + id) || description.length() != id % 40) {
+                failure.set("Задача " + id + " прочитана как {" + name + ", " + description + "}");
+            }
+        }
+        writer.join();
+        assertNull(failure.get());
+        assertEquals(1, store.size());
+    }
+
+    // Обновление без изменения строк не пишет их в арену заново
+    @Test
+    public void unchangedStringsSharedTest() {
+        final TaskRecordStore store = new TaskRecordStore();
+        final Task[] views = new Task[1000];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = store.store(new Task(i, "task " + i, "d".repeat(200), TaskStatus.NEW));
+        }
+        final long bytes = store.getOffHeapBytes();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < views.length; i++) {
+                Task previous = views[i];
+                views[i] = store.store(new Task(i, "task " + i, "d".repeat(200), TaskStatus.DONE), previous);
+                store.release(previous);
+            }
+        }
+        assertEquals(bytes, store.getOffHeapBytes(), "Неизменившиеся строки не должны занимать новую память");
+        for (int i = 0; i < views.length; i++) {
+            assertEquals("task " + i, views[i].getName());
+            assertEquals(TaskStatus.DONE, views[i].getStatus());
+        }
+    }
+
+    // Случайная половина задач меняет описание: без уплотнения почти в каждом буфере арены оставались бы
+    // живые строки, и арена росла бы на каждом круге. Читатель в это время читает задачу, строки которой
+    // переносятся при уплотнении
+    @Test
+    public void arenaCompactedOnUpdatesTest() throws InterruptedException {
+        final TaskRecordStore store = new TaskRecordStore();
+        final Task pinned = store.store(new Task(-1, "pinned", "p".repeat(100), TaskStatus.NEW));
+        final Task[] views = new Task[20_000];
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(1);
+            for (int i = 0; i < views.length; i++) {
+                views[i] = store.store(new Task(i, "task", i + " " + "d".repeat(100), TaskStatus.NEW));
+            }
+            for (int round = 1; round <= 30 && failure.get() == null; round++) {
+                for (int i = 0; i < views.length; i++) {
+                    if (random.nextBoolean()) {
+                        Task previous = views[i];
+                        views[i] = store.store(new Task(i, "task", i + " " + "d".repeat(100 + round),
+                                TaskStatus.NEW), previous);
+                        store.release(previous);
+                    }
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive() && failure.get() == null) {
+            if (!"pinned".equals(pinned.getName()) || !"p".repeat(100).equals(pinned.getDescription())) {
+                failure.set("Задача прочитана как {" + pinned.getName() + ", " + pinned.getDescription() + "}");
+            }
+        }
+        writer.join();
+        assertNull(failure.get());
+        assertTrue(store.getOffHeapBytes() < 12 * 1024 * 1024,
+                "Арена должна уплотняться, занято " + store.getOffHeapBytes());
+        for (int i = 0; i < views.length; i++) {
+            assertEquals("task", views[i].getName());
+            assertTrue(views[i].getDescription().startsWith(i + " d"));
+        }
+        assertEquals(views.length + 1, store.size());
+    }
+}
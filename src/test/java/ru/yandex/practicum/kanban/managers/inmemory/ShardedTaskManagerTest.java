@@ -0,0 +1,173 @@
+package ru.yandex.practicum.kanban.managers.inmemory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.kanban.managers.TaskManagerTest;
+import ru.yandex.practicum.kanban.managers.TaskOperation;
+import ru.yandex.practicum.kanban.tasks.Epic;
+import ru.yandex.practicum.kanban.tasks.Subtask;
+import ru.yandex.practicum.kanban.tasks.Task;
+import ru.yandex.practicum.kanban.tasks.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedTaskManagerTest extends TaskManagerTest<ShardedTaskManager> {
+
+    private static final int SHARDS = 4;
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 500;
+
+    @BeforeEach
+    public void beforeEach() {
+        taskManager = new ShardedTaskManager(SHARDS);
+    }
+
+    @Test
+    public void subtasksPlacedWithEpicTest() {
+        for (int i = 0; i < SHARDS; i++) {
+            Epic epic = taskManager.addEpic(new Epic(0, "epic " + i, "epic"));
+            Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask " + i, "subtask",
+                    TaskStatus.NEW, epic.getId()));
+            assertEquals(i, taskManager.shardOf(epic.getId()), "Эпики должны распределяться по шардам");
+            assertEquals(taskManager.shardOf(epic.getId()), taskManager.shardOf(subtask.getId()),
+                    "Подзадача должна быть в шарде своего эпика");
+        }
+    }
+
+    @Test
+    public void idsAllocatedByBlocksTest() {
+        // Все подзадачи попадают в шард 0 (эпик занял id 0): его блоки чередуются с блоками остальных шардов
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < ShardedTaskManager.ID_BLOCK_SIZE; i++) {
+            ids.add(taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW,
+                    epic.getId())).getId());
+        }
+        assertEquals(ShardedTaskManager.ID_BLOCK_SIZE * SHARDS, ids.get(ids.size() - 1),
+                "Следующий блок шарда должен идти через блоки остальных шардов");
+        assertTrue(ids.stream().allMatch(id -> taskManager.shardOf(id) == 0), "id выданы не из блоков шарда");
+        assertEquals(ids.size(), taskManager.getEpicsSubtasks(epic.getId()).size());
+    }
+
+    @Test
+    public void crossShardTimeOverlapTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW, DEFAULT_TIME, 60));
+        // Следующая задача попала бы в другой шард, но пересекается с задачей первого
+        assertNull(taskManager.addTask(new Task(0, "overlap", "task", TaskStatus.NEW,
+                DEFAULT_TIME.plusMinutes(30), 60)), "Не найдено пересечение с задачей другого шарда");
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        assertNotEquals(taskManager.shardOf(task.getId()), taskManager.shardOf(epic.getId()));
+        assertNull(taskManager.addSubtask(new Subtask(0, "overlap", "subtask", TaskStatus.NEW, epic.getId(),
+                DEFAULT_TIME, 10)), "Не найдено пересечение с задачей другого шарда");
+
+        // После удаления время освобождается для всех шардов
+        assertTrue(taskManager.removeTask(task.getId()));
+        assertNotNull(taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW, epic.getId(),
+                DEFAULT_TIME, 10)));
+        assertFalse(taskManager.addAll(List.of(new Task(0, "overlap", "task", TaskStatus.NEW,
+                DEFAULT_TIME.plusMinutes(5), 10))), "Не найдено пересечение при пакетном добавлении");
+    }
+
+    @Test
+    public void prioritizedTasksMergedTest() {
+        List<Task> added = new ArrayList<>();
+        for (int i = 10; i > 0; i--) {
+            added.add(taskManager.addTask(new Task(0, "task " + i, "task", TaskStatus.NEW,
+                    DEFAULT_TIME.plusHours(i), 30)));
+        }
+        Task withoutTime = taskManager.addTask(new Task(0, "no time", "task", TaskStatus.NEW));
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(11, prioritized.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(added.get(9 - i), prioritized.get(i), "Нарушен порядок слияния шардов");
+        }
+        assertEquals(withoutTime, prioritized.get(10), "Задача без времени должна быть в конце");
+
+        List<Task> page = taskManager.getPrioritizedTasks(prioritized.get(2).getId(), 3);
+        assertEquals(prioritized.subList(3, 6), page, "Неверная страница по приоритету");
+        assertEquals(taskManager.getTasks().stream().map(Task::getId).sorted().collect(Collectors.toList()),
+                taskManager.getTasks().stream().map(Task::getId).collect(Collectors.toList()),
+                "Задачи должны идти по возрастанию id");
+    }
+
+    @Test
+    public void crossShardTransactionTest() {
+        Epic epic1 = taskManager.addEpic(new Epic(0, "epic 1", "epic"));
+        Epic epic2 = taskManager.addEpic(new Epic(0, "epic 2", "epic"));
+        Subtask subtask = taskManager.addSubtask(new Subtask(0, "subtask", "subtask", TaskStatus.NEW,
+                epic1.getId(), DEFAULT_TIME, 30));
+
+        // Вторая операция пересекается по времени с первой, хотя подзадачи в разных шардах
+        assertFalse(taskManager.transaction(List.of(
+                TaskOperation.add(new Subtask(0, "new", "subtask", TaskStatus.NEW, epic2.getId(),
+                        DEFAULT_TIME.plusHours(1), 30)),
+                TaskOperation.update(new Subtask(subtask.getId(), "moved", "subtask", TaskStatus.DONE,
+                        epic1.getId(), DEFAULT_TIME.plusHours(1).plusMinutes(10), 30)))));
+        assertEquals(subtask, taskManager.getSubtask(subtask.getId()), "Транзакция изменила шард");
+        assertEquals(1, taskManager.getSubtasks().size());
+
+        assertTrue(taskManager.transaction(List.of(
+                TaskOperation.remove(subtask.getId()),
+                TaskOperation.add(new Subtask(0, "new", "subtask", TaskStatus.DONE, epic2.getId(),
+                        DEFAULT_TIME, 30)))), "Время удаляемой подзадачи должно считаться свободным");
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epic1.getId()).getStatus());
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic2.getId()).getStatus());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    public void sharedHistoryTest() {
+        Task task = taskManager.addTask(new Task(0, "task", "task", TaskStatus.NEW));
+        Epic epic = taskManager.addEpic(new Epic(0, "epic", "epic"));
+        taskManager.getEpic(epic.getId());
+        taskManager.getTask(task.getId());
+        assertEquals(List.of(epic, task), taskManager.getHistory(), "История шардов должна быть общей");
+        taskManager.removeEpic(epic.getId());
+        assertEquals(List.of(task), taskManager.getHistory());
+    }
+
+    @Test
+    public void concurrentAddTest() throws InterruptedException, ExecutionException {
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            epicIds.add(taskManager.addEpic(new Epic(0, "epic " + i, "epic")).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < TASKS_PER_THREAD; j++) {
+                    // Непересекающиеся интервалы, чтобы все задачи прошли проверку времени
+                    int minutes = (thread * TASKS_PER_THREAD + j) * 10;
+                    taskManager.addSubtask(new Subtask(0, "name", "description", TaskStatus.DONE,
+                            epicIds.get(thread), DEFAULT_TIME.plusMinutes(minutes), 5));
+                    taskManager.addTask(new Task(0, "name", "description", TaskStatus.NEW));
+                    taskManager.getPrioritizedTasks();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Subtask> subtasks = taskManager.getSubtasks();
+        assertEquals(THREADS * TASKS_PER_THREAD, subtasks.size(), "Потеряны подзадачи");
+        assertEquals(THREADS * TASKS_PER_THREAD, taskManager.getTasks().size(), "Потеряны задачи");
+        assertEquals(subtasks.size(), subtasks.stream().map(Task::getId).collect(Collectors.toSet()).size(),
+                "Подзадачам выданы одинаковые id");
+        assertEquals(2 * THREADS * TASKS_PER_THREAD, taskManager.getPrioritizedTasks().size(),
+                "Не все задачи попали в список по приоритету");
+        for (int epicId : epicIds) {
+            Epic epic = taskManager.getEpic(epicId);
+            assertEquals(TASKS_PER_THREAD, epic.getSubtaskIds().size(), "Не все подзадачи попали в эпик");
+            assertEquals(TaskStatus.DONE, epic.getStatus(), "Неверно рассчитан статус эпика");
+        }
+    }
+}
@@ -13,9 +13,11 @@ import ru.yandex.practicum.kanban.util.kvstorage.KVServer;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -34,6 +36,11 @@ public class HttpTaskServerTest {
     private static final String URI_EPIC_OPERATIONS = "http://localhost:8080/tasks/epic";
     private static final String URI_EPIC_SUBTASKS = "http://localhost:8080/tasks/subtask/epic";
     private static final String URI_HISTORY = "http://localhost:8080/tasks/history";
+    private static final String URI_ANY_TASK = "http://localhost:8080/tasks/any";
+    private static final String URI_BATCH = "http://localhost:8080/tasks/batch";
+    private static final String URI_QUERY = "http://localhost:8080/tasks/query";
+    private static final String URI_SEARCH = "http://localhost:8080/tasks/search";
+    private static final String URI_SLOTS = "http://localhost:8080/tasks/slots";
     private static final String ID_QUERY_FORMAT = "id=%d";
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
@@ -110,6 +117,17 @@ public class HttpTaskServerTest {
         return client.send(request, HttpResponse.BodyHandlers.ofString());
     }
 
+    private static HttpResponse<String> postRequest(String endPoint, String body, String ifMatch)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(endPoint))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("If-Match", ifMatch)
+                .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
     private static HttpResponse<String> getRequest(String endPoint) throws IOException, InterruptedException {
         URI uri = URI.create(endPoint);
         HttpRequest request = HttpRequest.newBuilder()
@@ -1174,4 +1192,294 @@ public class HttpTaskServerTest {
         assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
     }
 
+    // get any task
+
+    @Test
+    public void getAnyTaskCorrectTest() throws IOException, InterruptedException {
+        HttpResponse<String> response = postRequest(URI_EPIC_OPERATIONS,
+                createJsonForTask(null, "epic", "epic", null, null, null, null));
+        Epic epic = gson.fromJson(response.body(), Epic.class);
+        response = postRequest(URI_SUBTASK_OPERATIONS,
+                createJsonForTask(null, "subtask", "subtask", null,
+                        DEFAULT_TIME.format(DATE_TIME_FORMATTER), String.valueOf(10),
+                        String.valueOf(epic.getId())));
+        Subtask subtask = gson.fromJson(response.body(), Subtask.class);
+
+        response = getRequest(URI_ANY_TASK + "?" + String.format(ID_QUERY_FORMAT, subtask.getId()));
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        assertEquals(subtask, gson.fromJson(response.body(), Subtask.class));
+
+        response = getRequest(URI_ANY_TASK + "?" + String.format(ID_QUERY_FORMAT, epic.getId()));
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        assertEquals(epic.getId(), gson.fromJson(response.body(), Epic.class).getId());
+    }
+
+    @Test
+    public void getAnyTaskIncorrectIdTest() throws IOException, InterruptedException {
+        assertEquals(HttpTaskServer.RESPONSE_CODE_NOT_FOUND,
+                getRequest(URI_ANY_TASK + "?" + String.format(ID_QUERY_FORMAT, 1)).statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, getRequest(URI_ANY_TASK).statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_METHOD_NOT_ALLOWED,
+                deleteRequest(URI_ANY_TASK + "?" + String.format(ID_QUERY_FORMAT, 1)).statusCode());
+    }
+
+    // batch
+
+    @Test
+    public void batchAddUpdateRemoveTest() throws IOException, InterruptedException {
+        String batch = "[" + createJsonForTask(null, "task 1", "task 1", null,
+                DEFAULT_TIME.format(DATE_TIME_FORMATTER), String.valueOf(30), null) + ","
+                + createJsonForTask(null, "task 2", "task 2", null,
+                DEFAULT_TIME.plusMinutes(30).format(DATE_TIME_FORMATTER), String.valueOf(30), null) + "]";
+        HttpResponse<String> response = postRequest(URI_TASK_OPERATIONS + "/batch", batch);
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(2, tasks.length, "Возвращается неверное количество задач");
+
+        String update = "[" + createJsonForTask(String.valueOf(tasks[0].getId()), "task 1", "task 1", "DONE",
+                null, null, null) + "," + createJsonForTask(String.valueOf(tasks[1].getId()), "task 2", "task 2",
+                "DONE", null, null, null) + "]";
+        response = postRequest(URI_TASK_OPERATIONS + "/batch", update);
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        response = getRequest(URI_TASK_OPERATIONS + "?" + String.format(ID_QUERY_FORMAT, tasks[1].getId()));
+        assertEquals(TaskStatus.DONE, gson.fromJson(response.body(), Task.class).getStatus(), "Задача не обновлена");
+
+        response = deleteRequest(URI_BATCH + "?ids=" + tasks[0].getId() + "," + tasks[1].getId());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        assertEquals(2, gson.fromJson(response.body(), Integer.class));
+        response = getRequest(URI_TASK_OPERATIONS);
+        assertEquals(0, gson.fromJson(response.body(), Task[].class).length, "Задачи не удалены");
+    }
+
+    @Test
+    public void batchIncorrectRequestsTest() throws IOException, InterruptedException {
+        String intersecting = "[" + createJsonForTask(null, "task 1", "task 1", null,
+                DEFAULT_TIME.format(DATE_TIME_FORMATTER), String.valueOf(30), null) + ","
+                + createJsonForTask(null, "task 2", "task 2", null,
+                DEFAULT_TIME.plusMinutes(10).format(DATE_TIME_FORMATTER), String.valueOf(30), null) + "]";
+        assertEquals(HttpTaskServer.RESPONSE_CODE_NOT_ACCEPTABLE,
+                postRequest(URI_TASK_OPERATIONS + "/batch", intersecting).statusCode());
+        HttpResponse<String> response = getRequest(URI_TASK_OPERATIONS);
+        assertEquals(0, gson.fromJson(response.body(), Task[].class).length, "Пакет добавлен частично");
+
+        String mixed = "[" + createJsonForTask("1", "task 1", "task 1", null, null, null, null) + ","
+                + createJsonForTask(null, "task 2", "task 2", null, null, null, null) + "]";
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                postRequest(URI_TASK_OPERATIONS + "/batch", mixed).statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                postRequest(URI_TASK_OPERATIONS + "/batch",
+                        createJsonForTask(null, "task", "task", null, null, null, null)).statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_METHOD_NOT_ALLOWED,
+                getRequest(URI_TASK_OPERATIONS + "/batch").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, deleteRequest(URI_BATCH + "?ids=1,a").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, deleteRequest(URI_BATCH).statusCode());
+    }
+
+    // pages
+
+    @Test
+    public void getTasksPageTest() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task " + i, "task", null,
+                    DEFAULT_TIME.plusMinutes(60L * (3 - i)).format(DATE_TIME_FORMATTER), String.valueOf(10), null));
+        }
+        HttpResponse<String> response = getRequest(URI_TASK_OPERATIONS + "?limit=2");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        Task[] page = gson.fromJson(response.body(), Task[].class);
+        assertEquals(2, page.length, "Неверный размер страницы");
+
+        response = getRequest(URI_TASK_OPERATIONS + "?cursor=" + page[1].getId() + "&limit=2");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        page = gson.fromJson(response.body(), Task[].class);
+        assertEquals(1, page.length, "Неверный размер последней страницы");
+        assertEquals("task 2", page[0].getName());
+
+        // по приоритету задачи идут в обратном порядке
+        response = getRequest("http://localhost:8080/tasks/?limit=1");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        assertEquals("task 2", gson.fromJson(response.body(), Task[].class)[0].getName());
+    }
+
+    @Test
+    public void getTasksPageIncorrectTest() throws IOException, InterruptedException {
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_TASK_OPERATIONS + "?limit=0").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_TASK_OPERATIONS + "?limit=100000").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_SUBTASK_OPERATIONS + "?cursor=a").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_NOT_FOUND,
+                getRequest("http://localhost:8080/tasks/?cursor=100").statusCode());
+    }
+
+    // status
+
+    @Test
+    public void getTasksByStatusTest() throws IOException, InterruptedException {
+        postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task 1", "task", "DONE", null, null, null));
+        postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task 2", "task", "NEW", null, null, null));
+
+        HttpResponse<String> response = getRequest(URI_TASK_OPERATIONS + "?status=DONE");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(1, tasks.length);
+        assertEquals("task 1", tasks[0].getName());
+
+        response = getRequest(URI_EPIC_OPERATIONS + "?status=NEW");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        assertEquals(0, gson.fromJson(response.body(), Epic[].class).length);
+
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_TASK_OPERATIONS + "?status=UNKNOWN").statusCode());
+    }
+
+    // query
+
+    @Test
+    public void queryTest() throws IOException, InterruptedException {
+        HttpResponse<String> response = postRequest(URI_EPIC_OPERATIONS,
+                createJsonForTask(null, "epic", "epic", null, null, null, null));
+        Epic epic = gson.fromJson(response.body(), Epic.class);
+        postRequest(URI_SUBTASK_OPERATIONS, createJsonForTask(null, "Deploy", "subtask", "IN_PROGRESS",
+                DEFAULT_TIME.format(DATE_TIME_FORMATTER), String.valueOf(10), String.valueOf(epic.getId())));
+        postRequest(URI_SUBTASK_OPERATIONS, createJsonForTask(null, "Test", "subtask", "IN_PROGRESS",
+                null, null, String.valueOf(epic.getId())));
+
+        String query = "?status=IN_PROGRESS&epic=" + epic.getId() + "&name=Deploy&from="
+                + DEFAULT_TIME.format(DATE_TIME_FORMATTER).replace(" ", "%20");
+        response = getRequest(URI_QUERY + query);
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        Subtask[] subtasks = gson.fromJson(response.body(), Subtask[].class);
+        assertEquals(1, subtasks.length);
+        assertEquals("Deploy", subtasks[0].getName());
+
+        response = getRequest(URI_QUERY + "?status=IN_PROGRESS&epic=" + epic.getId() + "&explain=true");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        JsonObject plan = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals("EPIC_SUBTASKS", plan.get("source").getAsString());
+
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, getRequest(URI_QUERY + "?type=NONE").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, getRequest(URI_QUERY + "?from=yesterday").statusCode());
+    }
+
+    // search
+
+    @Test
+    public void searchTest() throws IOException, InterruptedException {
+        postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "Починить сборку", "ci", "NEW", null, null, null));
+        postRequest(URI_EPIC_OPERATIONS, createJsonForTask(null, "Сборка релиза", "epic", null, null, null, null));
+        postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task", "task", "NEW", null, null, null));
+
+        HttpResponse<String> response = getRequest(URI_SEARCH + "?q="
+                + URLEncoder.encode("сборк релиз", StandardCharsets.UTF_8));
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(2, tasks.length);
+        assertEquals("Сборка релиза", tasks[0].getName());
+
+        response = getRequest(URI_SEARCH + "?q=" + URLEncoder.encode("сборк", StandardCharsets.UTF_8) + "&limit=1");
+        assertEquals(1, gson.fromJson(response.body(), Task[].class).length);
+
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, getRequest(URI_SEARCH).statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, getRequest(URI_SEARCH + "?q=a&limit=0").statusCode());
+    }
+
+    // time window
+
+    @Test
+    public void getTasksBetweenTest() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task " + i, "task", null,
+                    DEFAULT_TIME.plusDays(i).format(DATE_TIME_FORMATTER), String.valueOf(60), null));
+        }
+        postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task", "task", null, null, null, null));
+        String from = DEFAULT_TIME.plusMinutes(30).format(DATE_TIME_FORMATTER).replace(" ", "%20");
+        String to = DEFAULT_TIME.plusDays(2).format(DATE_TIME_FORMATTER).replace(" ", "%20");
+
+        HttpResponse<String> response = getRequest(URI_PRIORITIZED_TASKS + "/?from=" + from + "&to=" + to);
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(2, tasks.length, "Неверное число задач в промежутке");
+        assertEquals("task 0", tasks[0].getName());
+        assertEquals("task 1", tasks[1].getName());
+
+        response = getRequest(URI_PRIORITIZED_TASKS + "/?from=" + from + "&limit=1");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(1, tasks.length);
+        assertEquals("task 1", tasks[0].getName());
+
+        response = getRequest(URI_PRIORITIZED_TASKS + "/?to=" + to + "&limit=1");
+        assertEquals(1, gson.fromJson(response.body(), Task[].class).length);
+
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_PRIORITIZED_TASKS + "/?from=monday").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_PRIORITIZED_TASKS + "/?from=" + from + "&cursor=1").statusCode());
+    }
+
+    // slots
+
+    @Test
+    public void findFreeSlotsTest() throws IOException, InterruptedException {
+        postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task", "task", "NEW",
+                DEFAULT_TIME.format(DATE_TIME_FORMATTER), String.valueOf(60), null));
+        postRequest(URI_TASK_OPERATIONS, createJsonForTask(null, "task", "task", "NEW",
+                DEFAULT_TIME.plusMinutes(90).format(DATE_TIME_FORMATTER), String.valueOf(60), null));
+        String from = DEFAULT_TIME.format(DATE_TIME_FORMATTER).replace(" ", "%20");
+
+        HttpResponse<String> response = getRequest(URI_SLOTS + "?duration=45&from=" + from);
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        JsonArray slots = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(1, slots.size());
+        assertEquals(DEFAULT_TIME.plusMinutes(150).format(DATE_TIME_FORMATTER), slots.get(0).getAsString());
+
+        response = getRequest(URI_SLOTS + "?duration=30&limit=2&from=" + from);
+        slots = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2, slots.size());
+        assertEquals(DEFAULT_TIME.plusMinutes(60).format(DATE_TIME_FORMATTER), slots.get(0).getAsString());
+
+        String to = DEFAULT_TIME.plusMinutes(150).format(DATE_TIME_FORMATTER).replace(" ", "%20");
+        response = getRequest(URI_SLOTS + "?duration=45&from=" + from + "&to=" + to);
+        assertEquals(0, JsonParser.parseString(response.body()).getAsJsonArray().size());
+
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST, getRequest(URI_SLOTS + "?duration=45").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_SLOTS + "?duration=0&from=" + from).statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                getRequest(URI_SLOTS + "?duration=45&from=today").statusCode());
+    }
+
+    // If-Match
+
+    @Test
+    public void updateTaskIfMatchTest() throws IOException, InterruptedException {
+        HttpResponse<String> response = postRequest(URI_TASK_OPERATIONS,
+                createJsonForTask(null, "task", "task", "NEW", null, null, null));
+        int id = gson.fromJson(response.body(), Task.class).getId();
+        response = getRequest(URI_TASK_OPERATIONS + "?" + String.format(ID_QUERY_FORMAT, id));
+        assertEquals("\"1\"", response.headers().firstValue("ETag").orElse(null));
+
+        String update = createJsonForTask(String.valueOf(id), "first", "task", "DONE", null, null, null);
+        response = postRequest(URI_TASK_OPERATIONS, update, "\"1\"");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, response.statusCode());
+        assertEquals("\"2\"", response.headers().firstValue("ETag").orElse(null));
+
+        // Обновление по устаревшей версии: 409 и текущая версия в ETag
+        update = createJsonForTask(String.valueOf(id), "second", "task", "NEW", null, null, null);
+        response = postRequest(URI_TASK_OPERATIONS, update, "\"1\"");
+        assertEquals(HttpTaskServer.RESPONSE_CODE_CONFLICT, response.statusCode());
+        assertEquals("\"2\"", response.headers().firstValue("ETag").orElse(null));
+        response = getRequest(URI_TASK_OPERATIONS + "?" + String.format(ID_QUERY_FORMAT, id));
+        Task task = gson.fromJson(response.body(), Task.class);
+        assertEquals("first", task.getName());
+        assertEquals(2, task.getVersion());
+
+        assertEquals(HttpTaskServer.RESPONSE_CODE_BAD_REQUEST,
+                postRequest(URI_TASK_OPERATIONS, update, "version 2").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, postRequest(URI_TASK_OPERATIONS, update, "W/\"2\"").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_OK, postRequest(URI_TASK_OPERATIONS, update, "*").statusCode());
+        assertEquals(HttpTaskServer.RESPONSE_CODE_NOT_ACCEPTABLE, postRequest(URI_TASK_OPERATIONS,
+                createJsonForTask("100", "task", "task", "NEW", null, null, null), "\"1\"").statusCode());
+    }
 }
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.kanban.tasks;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    public void equalStringsSharedTest() {
+        String first = StringDictionary.encode(new String("shared name"));
+        assertSame(first, StringDictionary.encode(new String("shared name")));
+        String longValue = "x".repeat(100);
+        assertSame(longValue, StringDictionary.encode(longValue), "Длинная строка возвращается как есть");
+        assertNotSame(longValue, StringDictionary.encode(new String(longValue)), "Длинная строка не в словаре");
+        assertNull(StringDictionary.encode(null));
+    }
+
+    // Заполненный словарь очищается и продолжает делить строки, а не перестаёт их принимать
+    @Test
+    public void fullDictionaryKeepsSharingTest() {
+        for (int i = 0; i <= StringDictionary.MAX_SIZE; i++) {
+            StringDictionary.encode("name " + i);
+        }
+        assertTrue(StringDictionary.size() <= StringDictionary.MAX_SIZE, "Словарь не должен расти без предела");
+
+        String first = StringDictionary.encode(new String("name after fill"));
+        assertSame(first, StringDictionary.encode(new String("name after fill")));
+    }
+}
@@ -22,4 +22,27 @@ class TaskTest {
         assertEquals(duration, Duration.between(task.getStartTime(), task.getEndTime()).toMinutes(),
                 "Неверно рассчитано время окончания");
     }
-}
\ No newline at end of file
+
+    @Test
+    void epochMinutesTest() {
+        Task task = new Task(1, "name", "description", TaskStatus.NEW);
+        assertEquals(Task.NO_TIME, task.getStartMinute());
+        assertEquals(Task.NO_TIME, task.getEndMinute());
+        task = new Task(1, "name", "description", TaskStatus.NEW, DEFAULT_TIME, 10);
+        assertEquals(DEFAULT_TIME.withSecond(0), task.getStartTime(), "Время начала должно округляться до минут");
+        assertEquals(task.getStartMinute() + 10, task.getEndMinute());
+        assertEquals(task.getEndTime(), Task.toDateTime(task.getEndMinute()));
+        task.setStartTime(DEFAULT_TIME.plusDays(1));
+        assertEquals(DEFAULT_TIME.plusDays(1).withSecond(0), task.getStartTime());
+        task.setStartTime(null);
+        assertNull(task.getStartTime());
+    }
+
+    @Test
+    void sharedStringsTest() {
+        Task task1 = new Task(1, new String("name"), new String("description"), TaskStatus.NEW);
+        Task task2 = new Task(2, new String("name"), new String("description"), TaskStatus.NEW);
+        assertSame(task1.getName(), task2.getName(), "Одинаковые названия должны храниться одной строкой");
+        assertSame(task1.getDescription(), task2.getDescription());
+    }
+}
@@ -0,0 +1,181 @@
+package ru.yandex.practicum.kanban.util.collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest {
+
+    private IntHashMap<String> map;
+
+    @BeforeEach
+    public void beforeEach() {
+        map = new IntHashMap<>();
+    }
+
+    @Test
+    public void getFromEmptyMapTest() {
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    public void putAndGetTest() {
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(-5, "minus five"));
+        assertEquals("one", map.put(1, "uno"), "Не возвращается предыдущее значение");
+        assertEquals("uno", map.get(1));
+        assertEquals("minus five", map.get(-5));
+        assertEquals(2, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(2, null));
+    }
+
+    @Test
+    public void replaceTest() {
+        assertNull(map.replace(1, "one"), "Заменено отсутствующее значение");
+        assertFalse(map.containsKey(1), "replace добавил значение");
+        map.put(1, "one");
+        assertEquals("one", map.replace(1, "uno"));
+        assertEquals("uno", map.get(1));
+    }
+
+    @Test
+    public void removeTest() {
+        map.put(1, "one");
+        map.put(2, "two");
+        assertNull(map.remove(3));
+        assertEquals("one", map.remove(1));
+        assertNull(map.get(1));
+        assertEquals("two", map.get(2));
+        assertEquals(1, map.size());
+        assertEquals("two", map.remove(2));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void insertionOrderTest() {
+        for (int i = 0; i < 100; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        for (int i = 0; i < 100; i += 3) {
+            map.remove(i);
+        }
+        map.put(0, "0");
+        List<String> expected = new ArrayList<>();
+        List<Integer> expectedKeys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 != 0) {
+                expected.add(String.valueOf(i));
+                expectedKeys.add(i);
+            }
+        }
+        expected.add("0");
+        expectedKeys.add(0);
+        assertEquals(expected, new ArrayList<>(map.values()), "Нарушен порядок добавления");
+        List<Integer> keys = new ArrayList<>();
+        map.keyIterator().forEachRemaining((int key) -> keys.add(key));
+        assertEquals(expectedKeys, keys, "Нарушен порядок ключей");
+    }
+
+    @Test
+    public void clearTest() {
+        for (int i = 0; i < 100; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        map.put(5, "five");
+        assertEquals(List.of("five"), new ArrayList<>(map.values()));
+    }
+
+    // Сравнение с HashMap на случайной последовательности операций
+    @Test
+    public void randomOperationsTest() {
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = String.valueOf(random.nextInt());
+                // LinkedHashMap при замене сохраняет позицию, как и IntHashMap
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        for (int key = -1_000; key < 4_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void snapshotTest() {
+        map.put(1, "one");
+        List<String> snapshot = map.snapshot();
+        assertEquals(List.of("one"), snapshot);
+        assertSame(snapshot, map.snapshot(), "Снимок перестраивается без изменений словаря");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("two"));
+
+        map.put(1, "uno");
+        assertEquals(List.of("one"), snapshot, "Снимок изменился вместе со словарём");
+        assertEquals(List.of("uno"), map.snapshot(), "Снимок не сброшен после изменения");
+        map.replace(1, "один");
+        assertEquals(List.of("один"), map.snapshot(), "Снимок не сброшен после replace");
+        map.remove(1);
+        assertEquals(List.of(), map.snapshot(), "Снимок не сброшен после remove");
+    }
+
+    @Test
+    public void valuesAfterTest() {
+        for (int i = 0; i < 10; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        assertEquals(List.of("0", "1", "2"), map.valuesAfter(Integer.MIN_VALUE, 3));
+        assertEquals(List.of("3", "4"), map.valuesAfter(2, 2));
+        assertEquals(List.of("8", "9"), map.valuesAfter(7, 5), "Неверная последняя страница");
+        assertEquals(List.of(), map.valuesAfter(9, 5));
+
+        map.remove(5);
+        map.remove(6);
+        assertEquals(List.of("7", "8"), map.valuesAfter(5, 2), "Неверная страница после удалённого ключа");
+        assertEquals(List.of("7"), map.valuesAfter(4, 1), "Не пропущены удалённые записи");
+    }
+
+    @Test
+    public void putInKeyOrderTest() {
+        for (int i = 0; i < 20; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        map.remove(3);
+        map.remove(7);
+        map.remove(19);
+        assertNull(map.putInKeyOrder(7, "7"));
+        assertEquals(List.of("5", "6", "7", "8"), map.valuesAfter(4, 4), "Ключ должен встать на своё место");
+        for (int i = 0; i < 15; i++) {
+            map.put(100 + i, String.valueOf(100 + i));     // перестройка уплотняет удалённые записи
+        }
+        assertNull(map.putInKeyOrder(3, "3"));
+        assertNull(map.putInKeyOrder(19, "19"));
+        assertEquals("19", map.putInKeyOrder(19, "nineteen"));
+        assertNull(map.putInKeyOrder(200, "200"));
+        List<Integer> keys = new ArrayList<>();
+        map.keyIterator().forEachRemaining((int key) -> keys.add(key));
+        List<Integer> sorted = new ArrayList<>(keys);
+        Collections.sort(sorted);
+        assertEquals(sorted, keys, "Порядок обхода должен совпадать с порядком ключей");
+        assertEquals(36, map.size());
+        for (int key : keys) {
+            assertTrue(map.containsKey(key), "Индекс не перестроен");
+        }
+        assertEquals(List.of("3", "4"), map.valuesAfter(2, 2));
+    }
+}
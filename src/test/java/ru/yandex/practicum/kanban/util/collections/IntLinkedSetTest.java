@@ -0,0 +1,113 @@
+package ru.yandex.practicum.kanban.util.collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLinkedSetTest {
+
+    private IntLinkedSet set;
+
+    @BeforeEach
+    public void beforeEach() {
+        set = new IntLinkedSet();
+    }
+
+    @Test
+    public void emptySetTest() {
+        assertEquals(0, set.size());
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        assertFalse(set.iterator().hasNext());
+        assertEquals(List.of(), set.asList());
+        assertThrows(IndexOutOfBoundsException.class, () -> set.get(0));
+    }
+
+    @Test
+    public void addAndContainsTest() {
+        assertTrue(set.add(3));
+        assertTrue(set.add(-1));
+        assertFalse(set.add(3), "Добавлен повторяющийся элемент");
+        assertTrue(set.contains(3));
+        assertTrue(set.contains(-1));
+        assertFalse(set.contains(2));
+        assertEquals(2, set.size());
+        assertEquals(List.of(3, -1), set.asList(), "Нарушен порядок добавления");
+    }
+
+    @Test
+    public void removeTest() {
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        assertFalse(set.remove(4));
+        assertTrue(set.remove(2));
+        assertFalse(set.remove(2), "Элемент удалён дважды");
+        assertFalse(set.contains(2));
+        assertEquals(List.of(1, 3), set.asList());
+        assertEquals(3, set.get(1));
+        set.add(2);
+        assertEquals(List.of(1, 3, 2), set.asList(), "Возвращённый элемент должен попасть в конец");
+    }
+
+    @Test
+    public void clearTest() {
+        set.add(1);
+        set.add(2);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        set.add(2);
+        assertEquals(List.of(2), set.asList());
+    }
+
+    @Test
+    public void asListIsReadOnlyTest() {
+        set.add(1);
+        List<Integer> list = set.asList();
+        assertThrows(UnsupportedOperationException.class, () -> list.add(2));
+        assertThrows(UnsupportedOperationException.class, () -> list.remove(0));
+        set.add(2);
+        assertEquals(List.of(1, 2), list, "Представление не отражает изменения множества");
+    }
+
+    @Test
+    public void equalsTest() {
+        IntLinkedSet other = new IntLinkedSet();
+        set.add(1);
+        set.add(2);
+        other.add(1);
+        other.add(2);
+        assertEquals(set, other);
+        assertEquals(set.hashCode(), other.hashCode());
+        other.remove(1);
+        other.add(1);
+        assertNotEquals(set, other, "Порядок элементов должен учитываться");
+    }
+
+    @Test
+    public void randomOperationsCompareWithLinkedHashSetTest() {
+        Random random = new Random(42);
+        Set<Integer> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            int element = random.nextInt(200);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.add(element), set.add(element));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(element), set.remove(element));
+                    break;
+                default:
+                    assertEquals(expected.contains(element), set.contains(element));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(new ArrayList<>(expected), set.asList());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+    }
+}
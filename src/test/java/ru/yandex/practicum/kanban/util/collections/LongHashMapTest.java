@@ -0,0 +1,59 @@
+package ru.yandex.practicum.kanban.util.collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest {
+
+    private LongHashMap<String> map;
+
+    @BeforeEach
+    public void beforeEach() {
+        map = new LongHashMap<>();
+    }
+
+    @Test
+    public void putGetRemoveTest() {
+        assertNull(map.get(1));
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertEquals("one", map.put(1, "uno"), "Не возвращается предыдущее значение");
+        assertEquals("uno", map.get(1));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertEquals(2, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(2, null));
+        assertNull(map.remove(3));
+        assertEquals("uno", map.remove(1));
+        assertFalse(map.containsKey(1));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(Long.MIN_VALUE));
+    }
+
+    // Случайные операции сверяются с HashMap: проверяются рост таблицы и сдвиг цепочек при удалении
+    @Test
+    public void randomOperationsTest() {
+        Random random = new Random(1);
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) * 1_440L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "value " + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+    }
+}
@@ -40,4 +40,27 @@ class TaskDeserializerTest {
         assertEquals(epic, gson.fromJson(epicJson, Epic.class));
         assertEquals(subtask, gson.fromJson(subtaskJson, Subtask.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void timeFieldsTest() {
+        Gson gson = GsonBuilders.getBuilderNoTaskTypes().create();
+
+        Task task = new Task(1, "task name", "task description", TaskStatus.NEW, DEFAULT_TIME, 10);
+        String taskJson = gson.toJson(task);
+        assertTrue(taskJson.contains("\"startTime\":\"01.01.2022 01:01\""), "Время должно писаться строкой");
+        assertFalse(taskJson.contains("startMinute"));
+        assertEquals(task, gson.fromJson(taskJson, Task.class));
+
+        Task noTime = new Task(2, "task name", "task description", TaskStatus.NEW);
+        String noTimeJson = gson.toJson(noTime);
+        assertFalse(noTimeJson.contains("startTime"));
+        assertNull(gson.fromJson(noTimeJson, Task.class).getStartTime());
+
+        Epic epic = new Epic(3, "epic name", "epic description");
+        epic.setStartTime(DEFAULT_TIME);
+        epic.setEndTime(DEFAULT_TIME.plusHours(1));
+        Epic parsed = gson.fromJson(gson.toJson(epic), Epic.class);
+        assertEquals(DEFAULT_TIME.plusHours(1), parsed.getEndTime());
+        assertEquals(DEFAULT_TIME, parsed.getStartTime());
+    }
+}